@@ -0,0 +1,34 @@
+-- A small journal for the appcds profile's training run. The CLI reads it with hbm2ddl disabled, so the run
+-- goes through bootstrap, the entity graph queries and report output just as it does against a real journal.
+-- The schema comes from the migration scripts on the class path, so it always matches the entity mappings;
+-- add a runscript line and a schema_version row for every new migration, or the CLI refuses the journal.
+-- The rows are inserted before V5, which fills the open-position columns of Trade from the snapshots.
+
+runscript from 'classpath:db/migration/V1__baseline.sql';
+
+insert into Asset (id, assetClass, currency, exchange, isInvestmentCompany, isLeveraged, isin, name, ticker)
+    values (1, 'STOCK', 'SEK', 'STOCKHOLM', false, false, 'SE0000000001', 'Training AB', 'TRN.ST');
+insert into Asset_sectors (Asset_id, sectors) values (1, 0);
+insert into Asset_industries (Asset_id, industries) values (1, 0);
+insert into JournalEntry (id, date, availableCash, investedCapital, entryText)
+    values (1, '2025-04-10', 9000.00, 1010.00, 'Opened'), (2, '2025-04-11', 9400.00, 612.00, 'Sold some');
+insert into Trade (id, asset_id, quantity, entryPrice, buyFee, entryTime) values (1, 1, 10, 100.0000, 10.00, '09:00:00');
+insert into TradeSnapshot (id, trade_id, journal_entry_id, remainingQuantity, openPrice, closePrice)
+    values (1, 1, 1, 10, 100.0000, 101.0000), (2, 1, 2, 6, 101.0000, 102.0000);
+insert into ExecutedSale (id, snapshot_id, quantitySold, sellPrice, sellFee, grossGain, netGain, sellTime)
+    values (1, 2, 4, 102.0000, 2.00, 408.0000, 406.0000, '10:00:00');
+
+runscript from 'classpath:db/migration/V2__hot_query_indexes.sql';
+runscript from 'classpath:db/migration/V3__performance_rollups.sql';
+runscript from 'classpath:db/migration/V4__position_ledger.sql';
+runscript from 'classpath:db/migration/V5__trade_open_state.sql';
+runscript from 'classpath:db/migration/V6__asset_isin_constraints.sql';
+
+create table schema_version (
+    version integer not null primary key,
+    description varchar(255) not null,
+    installedOn timestamp not null default current_timestamp
+);
+insert into schema_version (version, description) values
+    (1, 'baseline'), (2, 'hot query indexes'), (3, 'performance rollups'), (4, 'position ledger'),
+    (5, 'trade open state'), (6, 'asset isin constraints');
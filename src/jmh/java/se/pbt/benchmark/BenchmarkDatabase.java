@@ -0,0 +1,30 @@
+package se.pbt.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates entity manager factories backed by a fresh in-memory H2 database for each benchmark trial.
+ * <p>
+ * Reuses the test persistence unit, overriding the connection URL and turning off SQL logging.
+ * </p>
+ */
+final class BenchmarkDatabase {
+
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    static EntityManagerFactory createEntityManagerFactory() {
+        String url = "jdbc:h2:mem:benchmark-" + DATABASE_COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        return Persistence.createEntityManagerFactory("trader-journal-test-pu", Map.of(
+                "jakarta.persistence.jdbc.url", url,
+                "hibernate.show_sql", "false",
+                "hibernate.format_sql", "false"
+        ));
+    }
+
+    // Prevent instantiation
+    private BenchmarkDatabase() {}
+}
@@ -0,0 +1,36 @@
+package se.pbt.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+import se.pbt.testutil.JournalDataGenerator;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JournalEntry#getTrades()} for entries holding a growing number of snapshots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalEntryBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int trades;
+
+    private JournalEntry entry;
+
+    @Setup
+    public void setup() {
+        entry = new JournalDataGenerator(42).journalEntry(JournalDataGenerator.LATEST_DATE, trades);
+    }
+
+    @Benchmark
+    public Set<Trade> getTrades() {
+        return entry.getTrades();
+    }
+}
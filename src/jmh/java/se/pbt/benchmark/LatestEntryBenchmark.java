@@ -0,0 +1,49 @@
+package se.pbt.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import se.pbt.model.JournalEntry;
+import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.testutil.JournalDataGenerator;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regression benchmark for {@link JournalEntryRepositoryImpl#findLatestEntry()}.
+ * <p>
+ * Loading the latest entry should only cost as much as that one day, so the score is expected
+ * to stay flat as {@code days} of history grow.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatestEntryBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int days;
+
+    private EntityManagerFactory emf;
+    private JournalEntryRepositoryImpl repository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        emf = BenchmarkDatabase.createEntityManagerFactory();
+        repository = new JournalEntryRepositoryImpl(emf);
+        new JournalDataGenerator(42).seed(repository, days, 5);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public Optional<JournalEntry> findLatestEntry() {
+        return repository.findLatestEntry();
+    }
+}
@@ -0,0 +1,112 @@
+package se.pbt.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.pbt.timeseries.PriceColumnStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PriceColumnStore} lookups by asset and day: the fixed-point lookups used for marking to market
+ * and backtests, against {@link PriceColumnStore#find(String, LocalDate)}, which allocates its result.
+ * <p>
+ * Run with {@code -prof gc} to confirm that the fixed-point lookups allocate nothing.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceStoreBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2015, 1, 1);
+    private static final int LOOKUPS = 1_024;
+
+    @Param({"1000"})
+    private int symbols;
+
+    @Param({"2500"})
+    private int days;
+
+    private Path directory;
+    private PriceColumnStore store;
+    private final int[] symbolIds = new int[LOOKUPS];
+    private final int[] epochDays = new int[LOOKUPS];
+    private final String[] symbolNames = new String[LOOKUPS];
+    private final LocalDate[] dates = new LocalDate[LOOKUPS];
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("price-store-benchmark");
+        store = PriceColumnStore.open(directory, symbols * days);
+        int firstDay = Math.toIntExact(START.toEpochDay());
+        Random random = new Random(42);
+        for (int symbol = 0; symbol < symbols; symbol++) {
+            store.addSymbol("SYM" + symbol);
+        }
+        // Appended day by day, as daily ingestion does, so each symbol's rows are interleaved with the others
+        for (int day = 0; day < days; day++) {
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                long close = 50_0000 + random.nextInt(100_0000);
+                store.append(symbol, firstDay + day, close, close, close, close);
+            }
+        }
+        for (int i = 0; i < LOOKUPS; i++) {
+            symbolIds[i] = random.nextInt(symbols);
+            // A third of the lookups fall past the last day and need the on-or-before search
+            epochDays[i] = firstDay + random.nextInt(days + days / 2);
+            symbolNames[i] = "SYM" + symbolIds[i];
+            dates[i] = LocalDate.ofEpochDay(Math.min(epochDays[i], firstDay + days - 1));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long markToMarket() {
+        long sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            int row = store.rowOnOrBefore(symbolIds[i], epochDays[i]);
+            sum += store.close(row);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long lookupBySymbolName() {
+        long sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += store.close(store.symbolId(symbolNames[i]), Math.toIntExact(dates[i].toEpochDay()));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int findDailyPrice() {
+        int found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (store.find(symbolNames[i], dates[i]).isPresent()) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
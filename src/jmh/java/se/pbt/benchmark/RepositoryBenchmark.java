@@ -0,0 +1,63 @@
+package se.pbt.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import se.pbt.model.JournalEntry;
+import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.testutil.JournalDataGenerator;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link JournalEntryRepositoryImpl} queries against an in-memory H2 database
+ * seeded with a history of {@code days} entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"100", "1000"})
+    private int days;
+
+    @Param({"5"})
+    private int tradesPerEntry;
+
+    private EntityManagerFactory emf;
+    private JournalEntryRepositoryImpl repository;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        emf = BenchmarkDatabase.createEntityManagerFactory();
+        repository = new JournalEntryRepositoryImpl(emf);
+        List<JournalEntry> entries = new JournalDataGenerator(42).seed(repository, days, tradesPerEntry);
+        ids = entries.stream().mapToLong(JournalEntry::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public List<JournalEntry> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Optional<JournalEntry> findById() {
+        return repository.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public Optional<JournalEntry> findLatestEntry() {
+        return repository.findLatestEntry();
+    }
+}
@@ -0,0 +1,93 @@
+package se.pbt.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.timeseries.EquityCurve;
+import se.pbt.timeseries.SnapshotColumnStore;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares an equity curve scan over the {@link SnapshotColumnStore} with the same calculation over
+ * {@link TradeSnapshot} objects holding {@link BigDecimal}s, as it would run on loaded entities.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation rates.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotStoreBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2015, 1, 1);
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Path directory;
+    private SnapshotColumnStore store;
+    private List<TradeSnapshot> snapshots;
+    private List<LocalDate> snapshotDates;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("snapshot-store-benchmark");
+        store = SnapshotColumnStore.open(directory, rows);
+        snapshots = new ArrayList<>(rows);
+        snapshotDates = new ArrayList<>(rows);
+
+        Random random = new Random(42);
+        int days = 2_500;
+        for (int row = 0; row < rows; row++) {
+            long tradeId = row / days + 1;
+            LocalDate date = START.plusDays(row % days);
+            BigDecimal close = BigDecimal.valueOf(50_0000 + random.nextInt(100_0000), 4);
+            int remaining = 1 + random.nextInt(500);
+            store.put(tradeId, date, close, close, remaining);
+            snapshots.add(TradeSnapshot.builder().openPrice(close).closePrice(close).remainingQuantity(remaining).build());
+            snapshotDates.add(date);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public EquityCurve columnStoreEquityCurve() {
+        return store.equityCurve(null, null);
+    }
+
+    @Benchmark
+    public Object columnStoreMaxDrawdown() {
+        return store.equityCurve(null, null).maxDrawdown();
+    }
+
+    @Benchmark
+    public Map<LocalDate, BigDecimal> entityEquityCurve() {
+        Map<LocalDate, BigDecimal> curve = new TreeMap<>();
+        for (int i = 0; i < snapshots.size(); i++) {
+            TradeSnapshot snapshot = snapshots.get(i);
+            curve.merge(snapshotDates.get(i),
+                    snapshot.getClosePrice().multiply(BigDecimal.valueOf(snapshot.getRemainingQuantity())),
+                    BigDecimal::add);
+        }
+        return curve;
+    }
+}
@@ -0,0 +1,56 @@
+package se.pbt.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.testutil.JournalDataGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the P&L calculations on {@link Trade} for trades with a growing number of snapshots.
+ * <p>
+ * The {@code cached} benchmarks read the running totals kept by the trade. The {@code cold} benchmarks
+ * discard those totals first, which measures a full pass over every snapshot and sale.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TradeCalculationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int snapshots;
+
+    private Trade trade;
+
+    @Setup
+    public void setup() {
+        trade = new JournalDataGenerator(42).tradeWithSnapshots(snapshots);
+    }
+
+    @Benchmark
+    public Money calculateNetGainCached() {
+        return trade.calculateNetGain();
+    }
+
+    @Benchmark
+    public Money calculateCurrentValueCached() {
+        return trade.calculateCurrentValue();
+    }
+
+    @Benchmark
+    public Money calculateNetGainCold() {
+        trade.invalidateAggregate();
+        return trade.calculateNetGain();
+    }
+
+    @Benchmark
+    public Money calculateCurrentValueCold() {
+        trade.invalidateAggregate();
+        return trade.calculateCurrentValue();
+    }
+}
@@ -0,0 +1,61 @@
+package se.pbt.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.pbt.analytics.TradeColumns;
+import se.pbt.analytics.TradeStatistics;
+import se.pbt.analytics.TradeStatisticsEngine;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.report.SummaryDimension;
+import se.pbt.testutil.JournalDataGenerator;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TradeStatisticsEngine} over 100 000 trades with a growing number of threads.
+ * <p>
+ * Extraction into {@link TradeColumns} happens once in setup, so the figures show how the parallel part
+ * scales with cores.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeStatisticsBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private TradeColumns columns;
+    private ForkJoinPool pool;
+    private TradeStatisticsEngine engine;
+
+    @Setup
+    public void setup() {
+        List<JournalEntry> history = new JournalDataGenerator(42).journalHistory(2_000, 50);
+        long id = 1;
+        for (JournalEntry entry : history) {
+            for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+                snapshot.getTrade().setId(id++);
+            }
+        }
+        columns = TradeColumns.from(history.stream(), SummaryDimension.SECTOR);
+        pool = new ForkJoinPool(threads);
+        engine = new TradeStatisticsEngine(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public TradeStatistics compute() {
+        return engine.compute(columns);
+    }
+}
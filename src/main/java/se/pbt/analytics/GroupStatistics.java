@@ -0,0 +1,80 @@
+package se.pbt.analytics;
+
+import se.pbt.model.Money;
+
+/**
+ * Aggregate results for one group of trades, as computed by {@link TradeStatisticsEngine}.
+ * <p>
+ * Win rate, expectancy and holding period are taken over closed trades only, those with no units left,
+ * since the result of an open trade is not final. Amounts cover all trades in the group.
+ * </p>
+ *
+ * @param group       the group name, or {@link TradeColumns#ALL} for the overall row
+ * @param trades      the number of trades
+ * @param closed      the number of closed trades
+ * @param wins        closed trades with a positive total result
+ * @param losses      closed trades with a negative total result
+ * @param grossWins   the sum of the results of the winning trades
+ * @param grossLosses the sum of the results of the losing trades, zero or negative
+ * @param realized    realized P&L of all trades
+ * @param unrealized  unrealized P&L of all trades
+ * @param fees        buy and sell fees of all trades
+ * @param holdingDays the summed holding period of the closed trades
+ * @param adverse     the summed maximum adverse excursion of all trades
+ * @param favorable   the summed maximum favorable excursion of all trades
+ */
+public record GroupStatistics(
+        String group,
+        int trades,
+        int closed,
+        int wins,
+        int losses,
+        Money grossWins,
+        Money grossLosses,
+        Money realized,
+        Money unrealized,
+        Money fees,
+        long holdingDays,
+        Money adverse,
+        Money favorable
+) {
+
+    /**
+     * Returns the share of closed trades that were won, between 0 and 1.
+     */
+    public double winRate() {
+        return closed == 0 ? 0 : (double) wins / closed;
+    }
+
+    /**
+     * Returns the average result per closed trade: win rate times average win, less loss rate times average loss.
+     */
+    public Money expectancy() {
+        return closed == 0 ? Money.ZERO : Money.ofUnits(Math.round(
+                (double) grossWins.plus(grossLosses).units() / closed));
+    }
+
+    /**
+     * Returns gross wins divided by gross losses, or positive infinity if nothing was lost.
+     */
+    public double profitFactor() {
+        return grossLosses.isZero()
+                ? Double.POSITIVE_INFINITY
+                : (double) grossWins.units() / -grossLosses.units();
+    }
+
+    /**
+     * Returns the average holding period of the closed trades, in days.
+     */
+    public double averageHoldingDays() {
+        return closed == 0 ? 0 : (double) holdingDays / closed;
+    }
+
+    /**
+     * Returns the fees as a share of the result before fees, or 0 if that result is not positive.
+     */
+    public double feeDrag() {
+        long beforeFees = realized.plus(unrealized).plus(fees).units();
+        return beforeFees <= 0 ? 0 : (double) fees.units() / beforeFees;
+    }
+}
@@ -0,0 +1,227 @@
+package se.pbt.analytics;
+
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.report.SummaryDimension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The fields of every {@link Trade} that {@link TradeStatisticsEngine} needs, as one primitive array per field.
+ * <p>
+ * Built in a single pass over journal entries, so the trades' snapshot histories need not be loaded:
+ * every snapshot is seen once, as part of the entry it belongs to, like in {@code TradeTotals}.
+ * Prices and amounts are {@link Money} units. Row {@code i} holds trade {@link #tradeId(int)}.
+ * </p>
+ * <p>
+ * Each trade also belongs to one or more groups of a {@link SummaryDimension}, which the engine's tables
+ * are broken down by. The groups of row {@code i} are {@code groupIds[groupOffsets[i] .. groupOffsets[i + 1])}.
+ * </p>
+ */
+public final class TradeColumns {
+
+    /** The group of every trade when no dimension is given. */
+    public static final String ALL = "ALL";
+
+    final int size;
+    final long[] tradeIds;
+    final int[] quantity;
+    final long[] entryPrice;
+    final long[] buyFee;
+    final int[] openedDay;
+    final int[] lastDay;
+    final int[] lastSaleDay;
+    final int[] remaining;
+    final long[] lastClose;
+    final long[] low;
+    final long[] high;
+    final int[] sold;
+    final long[] saleNet;
+    final long[] sellFees;
+    final String[] groupNames;
+    final int[] groupOffsets;
+    final int[] groupIds;
+
+    private TradeColumns(Builder builder) {
+        size = builder.size;
+        tradeIds = Arrays.copyOf(builder.tradeIds, size);
+        quantity = Arrays.copyOf(builder.quantity, size);
+        entryPrice = Arrays.copyOf(builder.entryPrice, size);
+        buyFee = Arrays.copyOf(builder.buyFee, size);
+        openedDay = Arrays.copyOf(builder.openedDay, size);
+        lastDay = Arrays.copyOf(builder.lastDay, size);
+        lastSaleDay = Arrays.copyOf(builder.lastSaleDay, size);
+        remaining = Arrays.copyOf(builder.remaining, size);
+        lastClose = Arrays.copyOf(builder.lastClose, size);
+        low = Arrays.copyOf(builder.low, size);
+        high = Arrays.copyOf(builder.high, size);
+        sold = Arrays.copyOf(builder.sold, size);
+        saleNet = Arrays.copyOf(builder.saleNet, size);
+        sellFees = Arrays.copyOf(builder.sellFees, size);
+        groupNames = builder.groups.keySet().toArray(String[]::new);
+
+        groupOffsets = new int[size + 1];
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            groupOffsets[i] = total;
+            total += builder.tradeGroups.get(i).length;
+        }
+        groupOffsets[size] = total;
+        groupIds = new int[total];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(builder.tradeGroups.get(i), 0, groupIds, groupOffsets[i], builder.tradeGroups.get(i).length);
+        }
+    }
+
+    /**
+     * Extracts the trades in the given entries, grouping them by {@code groupBy}, or into the single group
+     * {@value #ALL} if it is {@code null}. The entries' snapshots, sales, trades and, when grouping,
+     * assets must be loaded, as with the {@code ANALYTICS} fetch profile. Snapshots without a saved trade
+     * are skipped.
+     */
+    public static TradeColumns from(Stream<JournalEntry> entries, SummaryDimension groupBy) {
+        Builder builder = new Builder(groupBy);
+        Iterator<JournalEntry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            JournalEntry entry = iterator.next();
+            int day = Math.toIntExact(entry.getDate().toEpochDay());
+            for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+                if (snapshot.getTrade() != null && snapshot.getTrade().getId() != null) {
+                    builder.add(day, snapshot);
+                }
+            }
+        }
+        return new TradeColumns(builder);
+    }
+
+    /**
+     * Returns the number of trades.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long tradeId(int index) {
+        return tradeIds[index];
+    }
+
+    /**
+     * Returns the names of the groups, indexed by group ID.
+     */
+    public List<String> groupNames() {
+        return List.of(groupNames);
+    }
+
+    private static final class Builder {
+
+        private final SummaryDimension groupBy;
+        private final Map<Long, Integer> rows = new HashMap<>();
+        private final Map<String, Integer> groups = new LinkedHashMap<>();
+        private final List<int[]> tradeGroups = new ArrayList<>();
+
+        private int size;
+        private long[] tradeIds = new long[64];
+        private int[] quantity = new int[64];
+        private long[] entryPrice = new long[64];
+        private long[] buyFee = new long[64];
+        private int[] openedDay = new int[64];
+        private int[] lastDay = new int[64];
+        private int[] lastSaleDay = new int[64];
+        private int[] remaining = new int[64];
+        private long[] lastClose = new long[64];
+        private long[] low = new long[64];
+        private long[] high = new long[64];
+        private int[] sold = new int[64];
+        private long[] saleNet = new long[64];
+        private long[] sellFees = new long[64];
+
+        Builder(SummaryDimension groupBy) {
+            this.groupBy = groupBy;
+        }
+
+        void add(int day, TradeSnapshot snapshot) {
+            Trade trade = snapshot.getTrade();
+            int row = rows.computeIfAbsent(trade.getId(), id -> newRow(trade, day));
+
+            openedDay[row] = Math.min(openedDay[row], day);
+            if (day >= lastDay[row]) {
+                lastDay[row] = day;
+                remaining[row] = snapshot.getRemainingQuantity();
+                lastClose[row] = snapshot.getClosePrice() == null ? -1 : Money.toUnits(snapshot.getClosePrice());
+            }
+            observe(row, snapshot.getOpenPrice());
+            observe(row, snapshot.getClosePrice());
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                sold[row] += sale.getQuantitySold();
+                saleNet[row] = Math.addExact(saleNet[row], sale.getNetGain().units());
+                sellFees[row] = Math.addExact(sellFees[row], Money.toUnits(sale.getSellFee()));
+                lastSaleDay[row] = Math.max(lastSaleDay[row], day);
+            }
+        }
+
+        private void observe(int row, BigDecimal price) {
+            if (price != null) {
+                long units = Money.toUnits(price);
+                low[row] = Math.min(low[row], units);
+                high[row] = Math.max(high[row], units);
+            }
+        }
+
+        private int newRow(Trade trade, int day) {
+            if (size == tradeIds.length) {
+                grow();
+            }
+            int row = size++;
+            long price = Money.toUnits(trade.getEntryPrice());
+            tradeIds[row] = trade.getId();
+            quantity[row] = trade.getQuantity();
+            entryPrice[row] = price;
+            buyFee[row] = Money.toUnits(trade.getBuyFee());
+            openedDay[row] = day;
+            lastDay[row] = Integer.MIN_VALUE;
+            lastSaleDay[row] = Integer.MIN_VALUE;
+            low[row] = price;
+            high[row] = price;
+            tradeGroups.add(groupsOf(trade));
+            return row;
+        }
+
+        private int[] groupsOf(Trade trade) {
+            if (groupBy == null) {
+                return new int[] {groups.computeIfAbsent(ALL, name -> 0)};
+            }
+            return groupBy.keysOf(trade.getAsset()).stream()
+                    .mapToInt(name -> groups.computeIfAbsent(name, key -> groups.size()))
+                    .toArray();
+        }
+
+        private void grow() {
+            int capacity = tradeIds.length * 2;
+            tradeIds = Arrays.copyOf(tradeIds, capacity);
+            quantity = Arrays.copyOf(quantity, capacity);
+            entryPrice = Arrays.copyOf(entryPrice, capacity);
+            buyFee = Arrays.copyOf(buyFee, capacity);
+            openedDay = Arrays.copyOf(openedDay, capacity);
+            lastDay = Arrays.copyOf(lastDay, capacity);
+            lastSaleDay = Arrays.copyOf(lastSaleDay, capacity);
+            remaining = Arrays.copyOf(remaining, capacity);
+            lastClose = Arrays.copyOf(lastClose, capacity);
+            low = Arrays.copyOf(low, capacity);
+            high = Arrays.copyOf(high, capacity);
+            sold = Arrays.copyOf(sold, capacity);
+            saleNet = Arrays.copyOf(saleNet, capacity);
+            sellFees = Arrays.copyOf(sellFees, capacity);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package se.pbt.analytics;
+
+import se.pbt.model.Money;
+
+import java.util.List;
+
+/**
+ * Per-trade metrics and aggregate tables computed by {@link TradeStatisticsEngine}.
+ * <p>
+ * Row {@code i} describes the trade in row {@code i} of the {@link TradeColumns} it was computed from.
+ * Amounts are kept as {@link Money} units in primitive arrays and converted only when read.
+ * </p>
+ */
+public final class TradeStatistics {
+
+    private final long[] tradeIds;
+    private final int[] holdingDays;
+    private final long[] adverse;
+    private final long[] favorable;
+    private final long[] realized;
+    private final long[] unrealized;
+    private final long[] fees;
+    private final List<GroupStatistics> groups;
+    private final GroupStatistics overall;
+
+    TradeStatistics(long[] tradeIds, int[] holdingDays, long[] adverse, long[] favorable, long[] realized,
+                    long[] unrealized, long[] fees, List<GroupStatistics> groups, GroupStatistics overall) {
+        this.tradeIds = tradeIds;
+        this.holdingDays = holdingDays;
+        this.adverse = adverse;
+        this.favorable = favorable;
+        this.realized = realized;
+        this.unrealized = unrealized;
+        this.fees = fees;
+        this.groups = groups;
+        this.overall = overall;
+    }
+
+    /**
+     * Returns the number of trades.
+     */
+    public int size() {
+        return tradeIds.length;
+    }
+
+    public long tradeId(int index) {
+        return tradeIds[index];
+    }
+
+    /**
+     * Days from the first snapshot to the last sale of a closed trade, or to the latest snapshot of an open one.
+     */
+    public int holdingDays(int index) {
+        return holdingDays[index];
+    }
+
+    /**
+     * The largest drop of an open or close price below the entry price, times the quantity bought.
+     */
+    public Money maxAdverseExcursion(int index) {
+        return Money.ofUnits(adverse[index]);
+    }
+
+    /**
+     * The largest rise of an open or close price above the entry price, times the quantity bought.
+     */
+    public Money maxFavorableExcursion(int index) {
+        return Money.ofUnits(favorable[index]);
+    }
+
+    /**
+     * Net sale proceeds less the cost of the units sold, including their share of the buy fee.
+     */
+    public Money realized(int index) {
+        return Money.ofUnits(realized[index]);
+    }
+
+    /**
+     * The latest close price of the units still held less their cost, or zero if it has no close price.
+     */
+    public Money unrealized(int index) {
+        return Money.ofUnits(unrealized[index]);
+    }
+
+    /**
+     * The buy fee plus all sell fees.
+     */
+    public Money fees(int index) {
+        return Money.ofUnits(fees[index]);
+    }
+
+    /**
+     * Returns one row per group, in the order the groups were first seen.
+     */
+    public List<GroupStatistics> groups() {
+        return groups;
+    }
+
+    /**
+     * Returns the totals over all trades. A trade in several groups is counted once.
+     */
+    public GroupStatistics overall() {
+        return overall;
+    }
+}
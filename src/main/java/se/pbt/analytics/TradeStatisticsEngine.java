@@ -0,0 +1,219 @@
+package se.pbt.analytics;
+
+import se.pbt.model.Money;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes per-trade metrics and win-rate and expectancy tables from {@link TradeColumns}, in parallel.
+ * <p>
+ * The trades are split into ranges on a {@link ForkJoinPool}. Each range writes the metrics of its own rows
+ * straight into the shared result arrays and sums its trades into a private table of longs; the tables are
+ * added together as the ranges are joined. Nothing is shared between ranges while they run and nothing is
+ * allocated per trade, so the work scales with the number of cores.
+ * </p>
+ * <p>
+ * Costs follow {@code PeriodPnlReport}: the units sold or held carry their share of the entry price and buy
+ * fee, rounded to {@link Money} units.
+ * </p>
+ */
+public class TradeStatisticsEngine {
+
+    /** Ranges are not split below this many trades. */
+    private static final int MIN_SPLIT = 2_048;
+
+    private static final int TRADES = 0;
+    private static final int CLOSED = 1;
+    private static final int WINS = 2;
+    private static final int LOSSES = 3;
+    private static final int GROSS_WINS = 4;
+    private static final int GROSS_LOSSES = 5;
+    private static final int REALIZED = 6;
+    private static final int UNREALIZED = 7;
+    private static final int FEES = 8;
+    private static final int HOLDING_DAYS = 9;
+    private static final int ADVERSE = 10;
+    private static final int FAVORABLE = 11;
+    private static final int FIELDS = 12;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an engine that runs on the common pool.
+     */
+    public TradeStatisticsEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public TradeStatisticsEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Computes the metrics of every trade in {@code columns} and the tables per group and overall.
+     */
+    public TradeStatistics compute(TradeColumns columns) {
+        int size = columns.size();
+        Output output = new Output(size);
+        int threshold = Math.max(MIN_SPLIT, size / (pool.getParallelism() * 4));
+        long[] table = size == 0
+                ? new long[(columns.groupNames.length + 1) * FIELDS]
+                : pool.invoke(new RangeTask(columns, output, 0, size, threshold));
+
+        List<GroupStatistics> groups = new ArrayList<>(columns.groupNames.length);
+        for (int group = 0; group < columns.groupNames.length; group++) {
+            groups.add(statistics(columns.groupNames[group], table, group));
+        }
+        GroupStatistics overall = statistics(TradeColumns.ALL, table, columns.groupNames.length);
+        return new TradeStatistics(columns.tradeIds, output.holdingDays, output.adverse, output.favorable,
+                output.realized, output.unrealized, output.fees, List.copyOf(groups), overall);
+    }
+
+    private static GroupStatistics statistics(String name, long[] table, int group) {
+        int base = group * FIELDS;
+        return new GroupStatistics(
+                name,
+                Math.toIntExact(table[base + TRADES]),
+                Math.toIntExact(table[base + CLOSED]),
+                Math.toIntExact(table[base + WINS]),
+                Math.toIntExact(table[base + LOSSES]),
+                Money.ofUnits(table[base + GROSS_WINS]),
+                Money.ofUnits(table[base + GROSS_LOSSES]),
+                Money.ofUnits(table[base + REALIZED]),
+                Money.ofUnits(table[base + UNREALIZED]),
+                Money.ofUnits(table[base + FEES]),
+                table[base + HOLDING_DAYS],
+                Money.ofUnits(table[base + ADVERSE]),
+                Money.ofUnits(table[base + FAVORABLE]));
+    }
+
+    /**
+     * The share of {@code investment}, the cost of {@code quantity} units, attributable to {@code units} of them,
+     * rounded half up.
+     */
+    static long costOf(long investment, int units, int quantity) {
+        return Math.floorDiv(Math.addExact(Math.multiplyExact(Math.multiplyExact(investment, units), 2), quantity),
+                2L * quantity);
+    }
+
+    /**
+     * The per-trade result arrays, written by disjoint ranges.
+     */
+    private static final class Output {
+        final int[] holdingDays;
+        final long[] adverse;
+        final long[] favorable;
+        final long[] realized;
+        final long[] unrealized;
+        final long[] fees;
+
+        Output(int size) {
+            holdingDays = new int[size];
+            adverse = new long[size];
+            favorable = new long[size];
+            realized = new long[size];
+            unrealized = new long[size];
+            fees = new long[size];
+        }
+    }
+
+    /**
+     * Computes the rows {@code [from, to)} and returns their table: {@link #FIELDS} longs per group,
+     * followed by the overall totals.
+     */
+    private static final class RangeTask extends RecursiveTask<long[]> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final TradeColumns columns;
+        private final Output output;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        RangeTask(TradeColumns columns, Output output, int from, int to, int threshold) {
+            this.columns = columns;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= threshold) {
+                return computeRange();
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(columns, output, from, middle, threshold);
+            left.fork();
+            long[] table = new RangeTask(columns, output, middle, to, threshold).compute();
+            long[] leftTable = left.join();
+            for (int i = 0; i < table.length; i++) {
+                table[i] += leftTable[i];
+            }
+            return table;
+        }
+
+        private long[] computeRange() {
+            TradeColumns c = columns;
+            int overall = c.groupNames.length * FIELDS;
+            long[] table = new long[overall + FIELDS];
+            for (int i = from; i < to; i++) {
+                int quantity = c.quantity[i];
+                long investment = Math.addExact(Math.multiplyExact(c.entryPrice[i], quantity), c.buyFee[i]);
+                long realized = Math.subtractExact(c.saleNet[i], costOf(investment, c.sold[i], quantity));
+                long unrealized = c.lastClose[i] < 0 ? 0 : Math.subtractExact(
+                        Math.multiplyExact(c.lastClose[i], c.remaining[i]), costOf(investment, c.remaining[i], quantity));
+                long fees = Math.addExact(c.buyFee[i], c.sellFees[i]);
+                boolean closed = c.remaining[i] == 0;
+                int end = closed && c.lastSaleDay[i] != Integer.MIN_VALUE ? c.lastSaleDay[i] : c.lastDay[i];
+                int holdingDays = end - c.openedDay[i];
+                long adverse = Math.max(0, c.entryPrice[i] - c.low[i]) * quantity;
+                long favorable = Math.max(0, c.high[i] - c.entryPrice[i]) * quantity;
+
+                output.holdingDays[i] = holdingDays;
+                output.adverse[i] = adverse;
+                output.favorable[i] = favorable;
+                output.realized[i] = realized;
+                output.unrealized[i] = unrealized;
+                output.fees[i] = fees;
+
+                long total = realized + unrealized;
+                for (int g = c.groupOffsets[i]; g < c.groupOffsets[i + 1]; g++) {
+                    add(table, c.groupIds[g] * FIELDS, closed, total, realized, unrealized, fees, holdingDays,
+                            adverse, favorable);
+                }
+                add(table, overall, closed, total, realized, unrealized, fees, holdingDays, adverse, favorable);
+            }
+            return table;
+        }
+
+        private static void add(long[] table, int base, boolean closed, long total, long realized, long unrealized,
+                                long fees, int holdingDays, long adverse, long favorable) {
+            table[base + TRADES]++;
+            table[base + REALIZED] += realized;
+            table[base + UNREALIZED] += unrealized;
+            table[base + FEES] += fees;
+            table[base + ADVERSE] += adverse;
+            table[base + FAVORABLE] += favorable;
+            if (!closed) {
+                return;
+            }
+            table[base + CLOSED]++;
+            table[base + HOLDING_DAYS] += holdingDays;
+            if (total > 0) {
+                table[base + WINS]++;
+                table[base + GROSS_WINS] += total;
+            } else if (total < 0) {
+                table[base + LOSSES]++;
+                table[base + GROSS_LOSSES] += total;
+            }
+        }
+    }
+}
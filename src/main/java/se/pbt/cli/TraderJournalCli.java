@@ -1,14 +1,328 @@
 package se.pbt.cli;
 
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
+import se.pbt.metrics.HibernateMetrics;
+import se.pbt.metrics.MetricsRegistry;
+import se.pbt.report.*;
+import se.pbt.repository.FetchProfile;
+import se.pbt.repository.InstrumentedJournalEntryRepository;
+import se.pbt.repository.JournalEntryRepository;
+import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.repository.SchemaMigrator;
+import se.pbt.rollup.PerformanceRollupStore;
+import se.pbt.service.JournalEntryService;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
 /**
  * Entry point for running the Trader Journal application in CLI (Command Line Interface) mode.
  * <p>
  * This class is intended for headless environments, testing, automation or future CLI extensions.
+ * It never touches JavaFX. Reports are computed by streaming journal entries page by page through
+ * {@link JournalEntryService#streamAllEntries(FetchProfile)}, so memory use does not grow with the
+ * length of the journal.
+ * </p>
+ * <p>
+ * Startup is kept short by opening the database without SQL logging, schema updates or JDBC metadata
+ * lookups; reports only read, and the schema is owned by the application. A journal whose schema version
+ * differs from the one these mappings expect is refused rather than read. Pass {@code --timing}
+ * to print bootstrap and time-to-first-output figures to standard error, and {@code --metrics} to print the
+ * repository and trade timings and Hibernate statistics of the run.
+ * </p>
+ * <p>
+ * {@code rebuild-rollups} is the one command that writes: it recreates the performance rollups from scratch,
+ * for use after the rollup table has been found out of step with the entries.
+ * </p>
  */
 public class TraderJournalCli {
 
+    /** The application database, opened only if it already exists. */
+    static final String DEFAULT_DB_URL = "jdbc:h2:file:./data/traderjournal-db;IFEXISTS=TRUE";
+
+    private static final String USAGE = """
+            Usage: trader-journal-cli [--db <jdbc-url>] [--timing] [--metrics] <command>
+
+            Commands:
+              export [--out <file>]       export all entries as CSV, one row per trade snapshot
+              pnl-trades                  P&L per trade
+              pnl-period [day|week|month|year]
+                                          P&L per period (default: month)
+              summary <sector|industry|asset-class|exchange>
+                                          trades and P&L grouped by an asset attribute
+              rebuild-rollups             recreate the performance rollups from all entries
+              help                        show this message
+            """;
+
     public static void main(String[] args) {
-        System.out.println("=== Trader Journal CLI ===");
-        System.out.println("\nNote: This CLI is under development. Please use the GUI for full functionality.");
+        // Route Hibernate's logging through SLF4J and keep its startup messages off the console unless asked for
+        System.setProperty("org.jboss.logging.provider", "slf4j");
+        if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "error");
+        }
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs one CLI command and returns the process exit code.
+     */
+    static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+        Deque<String> arguments = new ArrayDeque<>(List.of(args));
+        try {
+            String dbUrl = DEFAULT_DB_URL;
+            boolean timing = false;
+            boolean metrics = false;
+            while (!arguments.isEmpty() && arguments.peekFirst().startsWith("--")) {
+                String option = arguments.removeFirst();
+                switch (option) {
+                    case "--db" -> dbUrl = requireValue(arguments, option);
+                    case "--timing" -> timing = true;
+                    case "--metrics" -> metrics = true;
+                    default -> throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            }
+
+            String command = arguments.isEmpty() ? "help" : arguments.removeFirst();
+            if (command.equals("help")) {
+                stdout.print(USAGE);
+                return 0;
+            }
+            if (command.equals("rebuild-rollups")) {
+                if (!arguments.isEmpty()) {
+                    throw new IllegalArgumentException("Unexpected argument: " + arguments.peekFirst());
+                }
+                return rebuildRollups(dbUrl, metrics, stdout, stderr);
+            }
+            return execute(parseCommand(command, arguments), dbUrl, timing, metrics, stdout, stderr);
+        } catch (IllegalArgumentException e) {
+            return usageError(stderr, e.getMessage());
+        }
+    }
+
+    private static int execute(Command command, String dbUrl, boolean timing, boolean metrics,
+                               PrintStream stdout, PrintStream stderr) {
+        long bootstrapStart = System.nanoTime();
+        EntityManagerFactory emf;
+        try {
+            emf = createEntityManagerFactory(dbUrl);
+        } catch (PersistenceException e) {
+            stderr.println("Could not open the journal database at " + dbUrl + ": " + rootMessage(e));
+            return 1;
+        }
+        if (!checkSchema(emf, dbUrl, stderr)) {
+            emf.close();
+            return 1;
+        }
+        Duration bootstrap = Duration.ofNanos(System.nanoTime() - bootstrapStart);
+        Instant ready = Instant.now();
+
+        if (metrics) {
+            HibernateMetrics.enable(emf);
+        }
+        JournalEntryService service = new JournalEntryService(repository(emf, metrics));
+        try {
+            ReportEngine.ReportStats stats;
+            if (command.output() == null) {
+                // Standard output is flushed by the engine but left open
+                PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8)));
+                stats = ReportEngine.run(service.streamAllEntries(FetchProfile.ANALYTICS), command.report(), out);
+            } else {
+                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(command.output(), StandardCharsets.UTF_8))) {
+                    stats = ReportEngine.run(service.streamAllEntries(FetchProfile.ANALYTICS), command.report(), out);
+                }
+            }
+            if (timing) {
+                printTiming(stderr, bootstrap, ready, stats);
+            }
+            if (metrics) {
+                printMetrics(stderr, emf);
+            }
+            return 0;
+        } catch (IOException e) {
+            stderr.println("Could not write " + command.output() + ": " + e.getMessage());
+            return 1;
+        } catch (PersistenceException e) {
+            stderr.println("Could not read the journal: " + rootMessage(e));
+            return 1;
+        } finally {
+            emf.close();
+        }
+    }
+
+    private static int rebuildRollups(String dbUrl, boolean metrics, PrintStream stdout, PrintStream stderr) {
+        EntityManagerFactory emf;
+        try {
+            emf = createEntityManagerFactory(dbUrl);
+        } catch (PersistenceException e) {
+            stderr.println("Could not open the journal database at " + dbUrl + ": " + rootMessage(e));
+            return 1;
+        }
+        if (!checkSchema(emf, dbUrl, stderr)) {
+            emf.close();
+            return 1;
+        }
+        if (metrics) {
+            HibernateMetrics.enable(emf);
+        }
+        try {
+            long start = System.nanoTime();
+            JournalEntryService service = JournalEntryService.builder()
+                    .journalRepo(repository(emf, metrics))
+                    .rollups(new PerformanceRollupStore(emf))
+                    .build();
+            int written = service.rebuildRollups();
+            stdout.printf("Rebuilt %d rollups in %d ms%n", written, Duration.ofNanos(System.nanoTime() - start).toMillis());
+            if (metrics) {
+                printMetrics(stderr, emf);
+            }
+            return 0;
+        } catch (PersistenceException e) {
+            stderr.println("Could not rebuild the rollups: " + rootMessage(e));
+            return 1;
+        } finally {
+            emf.close();
+        }
+    }
+
+    /**
+     * Checks that the journal has exactly the schema version the entity mappings expect. The CLI never migrates,
+     * so a journal the application has not yet upgraded, or one written by a newer version, is reported instead.
+     */
+    private static boolean checkSchema(EntityManagerFactory emf, String dbUrl, PrintStream stderr) {
+        SchemaMigrator migrator = new SchemaMigrator();
+        int version;
+        try {
+            version = migrator.currentVersion(emf);
+        } catch (PersistenceException e) {
+            stderr.println("Could not read the schema version of " + dbUrl + ": " + rootMessage(e));
+            return false;
+        }
+        if (version < migrator.latestVersion()) {
+            stderr.printf("The journal at %s has schema version %d, but this CLI needs version %d. "
+                    + "Start the application once to migrate it.%n", dbUrl, version, migrator.latestVersion());
+            return false;
+        }
+        if (version > migrator.latestVersion()) {
+            stderr.printf("The journal at %s has schema version %d, which is newer than this CLI supports (%d).%n",
+                    dbUrl, version, migrator.latestVersion());
+            return false;
+        }
+        return true;
+    }
+
+    private static JournalEntryRepository repository(EntityManagerFactory emf, boolean metrics) {
+        JournalEntryRepository repository = new JournalEntryRepositoryImpl(emf);
+        return metrics ? new InstrumentedJournalEntryRepository(repository, MetricsRegistry.global()) : repository;
+    }
+
+    /**
+     * Opens the persistence unit with settings suited to short-lived runs that do not change any entries.
+     * The entity mappings are unchanged, so the CLI reads the same schema as the application.
+     */
+    private static EntityManagerFactory createEntityManagerFactory(String dbUrl) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url", dbUrl);
+        overrides.put("hibernate.hbm2ddl.auto", "none");
+        overrides.put("hibernate.show_sql", "false");
+        overrides.put("hibernate.format_sql", "false");
+        // Skips the JDBC metadata round trips at boot; the dialect is then taken from here
+        overrides.put("hibernate.boot.allow_jdbc_metadata_access", "false");
+        overrides.put("jakarta.persistence.database-product-name", "H2");
+        // No validated or cached entity is written, so Bean Validation and the second-level cache would only add startup time
+        overrides.put("jakarta.persistence.validation.mode", "none");
+        overrides.put("jakarta.persistence.sharedCache.mode", "NONE");
+        overrides.put("hibernate.cache.use_second_level_cache", "false");
+        return Persistence.createEntityManagerFactory("trader-journal-pu", overrides);
+    }
+
+    private static Command parseCommand(String command, Deque<String> arguments) {
+        Command parsed = switch (command) {
+            case "export" -> {
+                Path output = null;
+                if ("--out".equals(arguments.peekFirst())) {
+                    output = Path.of(requireValue(arguments, arguments.removeFirst()));
+                }
+                yield new Command(new EntryExportReport(), output);
+            }
+            case "pnl-trades" -> new Command(new TradePnlReport(), null);
+            case "pnl-period" -> new Command(new PeriodPnlReport(arguments.isEmpty()
+                    ? ReportPeriod.MONTH
+                    : parseEnum(ReportPeriod.class, arguments.removeFirst())), null);
+            case "summary" -> {
+                if (arguments.isEmpty()) {
+                    throw new IllegalArgumentException("summary needs a dimension");
+                }
+                yield new Command(new GroupSummaryReport(parseEnum(SummaryDimension.class, arguments.removeFirst())), null);
+            }
+            default -> throw new IllegalArgumentException("Unknown command: " + command);
+        };
+        if (!arguments.isEmpty()) {
+            throw new IllegalArgumentException("Unexpected argument: " + arguments.peekFirst());
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses a lower-case, dash-separated name such as {@code asset-class} into the matching constant.
+     */
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + name);
+        }
+    }
+
+    private static String requireValue(Deque<String> arguments, String option) {
+        if (arguments.isEmpty()) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return arguments.removeFirst();
+    }
+
+    private static int usageError(PrintStream stderr, String message) {
+        stderr.println(message);
+        stderr.print(USAGE);
+        return 2;
+    }
+
+    /**
+     * Prints where the time went. Output starts as soon as the database is ready, so the
+     * "ready" figure is the time to first output.
+     */
+    private static void printTiming(PrintStream stderr, Duration bootstrap, Instant ready, ReportEngine.ReportStats stats) {
+        ProcessHandle.current().info().startInstant().ifPresent(start ->
+                stderr.printf("ready: %d ms after JVM start%n", Duration.between(start, ready).toMillis()));
+        stderr.printf("bootstrap: %d ms%n", bootstrap.toMillis());
+        if (stats.firstEntry() != null) {
+            stderr.printf("first entry: %d ms after ready%n", stats.firstEntry().toMillis());
+        }
+        stderr.printf("report: %d entries in %d ms%n", stats.entries(), stats.elapsed().toMillis());
+    }
+
+    private static void printMetrics(PrintStream stderr, EntityManagerFactory emf) {
+        stderr.print(MetricsRegistry.global().summary());
+        stderr.print(HibernateMetrics.summary(emf));
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    /**
+     * A parsed command: the report to run and the file to write it to, or {@code null} for standard output.
+     */
+    private record Command(JournalReport report, Path output) {
     }
 }
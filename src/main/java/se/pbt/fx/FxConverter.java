@@ -0,0 +1,38 @@
+package se.pbt.fx;
+
+/**
+ * Converts amounts in {@link se.pbt.model.Money} units from one currency to another as of a day, using one
+ * {@link FxRateTable} directly or inverted. Obtained from {@link FxRateStore#converter}, once per currency, so
+ * that converting each amount is a binary search and a multiplication.
+ */
+public final class FxConverter {
+
+    /** Returned by {@link #convert} when there is no rate on or before the day. */
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    static final FxConverter IDENTITY = new FxConverter(null, false);
+
+    private final FxRateTable table;
+    private final boolean inverted;
+
+    FxConverter(FxRateTable table, boolean inverted) {
+        this.table = table;
+        this.inverted = inverted;
+    }
+
+    /**
+     * Converts {@code units} at the latest rate on or before {@code epochDay}, rounding half up.
+     *
+     * @return the converted units, or {@link #NO_VALUE} if there is no rate yet on that day
+     */
+    public long convert(long units, int epochDay) {
+        if (table == null) {
+            return units;
+        }
+        long rate = table.rateOn(epochDay);
+        if (rate == FxRateTable.NO_RATE) {
+            return NO_VALUE;
+        }
+        return inverted ? FxRateTable.divide(units, rate) : FxRateTable.multiply(units, rate);
+    }
+}
@@ -0,0 +1,208 @@
+package se.pbt.fx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local store of daily exchange rates, one {@link FxRateTable} per currency pair, loaded from CSV files.
+ * <p>
+ * Expected format: a header row followed by one row per pair and day, in any order:
+ * </p>
+ * <pre>
+ * date, base, quote, rate
+ * 2024-03-04, USD, SEK, 10.3412
+ * </pre>
+ * <p>
+ * A rate is the price of one unit of {@code base} in {@code quote}. Importing a file merges its rates into the
+ * tables already loaded, replacing rates for the same pair and day, and increases {@link #version()} so that
+ * values converted with the old rates can be recognized and recomputed.
+ * </p>
+ * <p>
+ * Reads never lock: imports build new tables and publish them all at once. Imports are serialized.
+ * </p>
+ */
+public class FxRateStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FxRateStore.class);
+
+    private static final String HEADER = "date,base,quote,rate";
+
+    private volatile Map<String, FxRateTable> tables = Map.of();
+    private volatile long version;
+
+    /**
+     * Creates a store with every {@code *.csv} file in {@code directory}, in file name order.
+     * A missing directory gives an empty store. A file that cannot be read or parsed is logged and skipped;
+     * none of its rates are kept.
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    public static FxRateStore load(Path directory) throws IOException {
+        FxRateStore store = new FxRateStore();
+        if (!Files.isDirectory(directory)) {
+            return store;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.csv")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        for (Path file : files) {
+            try {
+                store.importFile(file);
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Skipped the exchange rate file {}: {}", file, e.getMessage());
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Imports the rates in a CSV file.
+     *
+     * @return the number of rates read
+     */
+    public int importFile(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importRates(reader);
+        }
+    }
+
+    /**
+     * Imports rates in the CSV format described above.
+     *
+     * @return the number of rates read
+     * @throws IllegalArgumentException if a row cannot be parsed; no rates from the input are kept
+     */
+    public synchronized int importRates(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        String header = reader.readLine();
+        if (header == null) {
+            return 0;
+        }
+        if (!header.replace(" ", "").equalsIgnoreCase(HEADER)) {
+            throw new IllegalArgumentException("Expected the header '" + HEADER + "' but found '" + header + "'");
+        }
+
+        Map<String, Column> columns = new LinkedHashMap<>();
+        int rows = 0;
+        int lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length != 4) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected 4 columns but found "
+                        + fields.length);
+            }
+            try {
+                Currency base = Currency.getInstance(fields[1].trim());
+                Currency quote = Currency.getInstance(fields[2].trim());
+                int day = Math.toIntExact(LocalDate.parse(fields[0].trim()).toEpochDay());
+                long rate = FxRateTable.toFixedPoint(new BigDecimal(fields[3].trim()));
+                columns.computeIfAbsent(FxRateTable.pair(base, quote), pair -> new Column(base, quote)).add(day, rate);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+            rows++;
+        }
+
+        Map<String, FxRateTable> merged = new HashMap<>(tables);
+        columns.forEach((pair, column) -> merged.merge(pair, column.toTable(), FxRateTable::merge));
+        tables = Map.copyOf(merged);
+        version++;
+        return rows;
+    }
+
+    /**
+     * Increases every time rates are imported. Values converted under one version are stale under the next.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the table for a pair exactly as imported, or {@code null} if there is none.
+     */
+    public FxRateTable table(Currency base, Currency quote) {
+        return tables.get(FxRateTable.pair(base, quote));
+    }
+
+    /**
+     * Returns every table.
+     */
+    public Collection<FxRateTable> tables() {
+        return tables.values();
+    }
+
+    /**
+     * Returns a converter from one currency to another using the current tables: the identity if they are the
+     * same, the {@code from/to} table if there is one, otherwise the inverse of the {@code to/from} table.
+     * Rates are not crossed through a third currency.
+     *
+     * @return the converter, or {@code null} if there are no rates between the currencies
+     */
+    public FxConverter converter(Currency from, Currency to) {
+        if (from.equals(to)) {
+            return FxConverter.IDENTITY;
+        }
+        Map<String, FxRateTable> current = tables;
+        FxRateTable direct = current.get(FxRateTable.pair(from, to));
+        if (direct != null) {
+            return new FxConverter(direct, false);
+        }
+        FxRateTable inverse = current.get(FxRateTable.pair(to, from));
+        return inverse == null ? null : new FxConverter(inverse, true);
+    }
+
+    /**
+     * Rates of one pair read from one import, in file order.
+     */
+    private static final class Column {
+        private final Currency base;
+        private final Currency quote;
+        private int[] days = new int[256];
+        private long[] rates = new long[256];
+        private int size;
+
+        Column(Currency base, Currency quote) {
+            this.base = base;
+            this.quote = quote;
+        }
+
+        void add(int day, long rate) {
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                rates = Arrays.copyOf(rates, size * 2);
+            }
+            days[size] = day;
+            rates[size++] = rate;
+        }
+
+        FxRateTable toTable() {
+            return FxRateTable.of(base, quote, days, rates, size);
+        }
+    }
+}
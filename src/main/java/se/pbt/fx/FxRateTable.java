@@ -0,0 +1,185 @@
+package se.pbt.fx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Daily exchange rates of one currency pair, as two parallel sorted arrays of primitives.
+ * <p>
+ * A rate is the price of one unit of {@link #base()} in {@link #quote()}, stored as a fixed-point long with
+ * {@link #RATE_SCALE} decimals. The rate on a date is the latest rate on or before it, found by binary search
+ * without allocating, so weekends and holidays take the rate of the last trading day.
+ * </p>
+ * <p>
+ * Tables are immutable; {@link #merge(FxRateTable)} returns a new table.
+ * </p>
+ */
+public final class FxRateTable {
+
+    /** Number of decimals kept for rates. */
+    public static final int RATE_SCALE = 8;
+
+    /** Returned by {@link #rateOn(int)} when there is no rate on or before the date. */
+    public static final long NO_RATE = -1;
+
+    private static final long RATE_ONE = 100_000_000L;
+
+    private final Currency base;
+    private final Currency quote;
+    private final int[] epochDays;
+    private final long[] rates;
+
+    private FxRateTable(Currency base, Currency quote, int[] epochDays, long[] rates) {
+        this.base = base;
+        this.quote = quote;
+        this.epochDays = epochDays;
+        this.rates = rates;
+    }
+
+    /**
+     * Creates a table from rates in any order. When a day occurs more than once, the last rate given wins.
+     *
+     * @param epochDays days since the epoch, as from {@link LocalDate#toEpochDay()}
+     * @param rates     rates with {@link #RATE_SCALE} decimals, parallel to {@code epochDays}
+     * @param count     number of leading elements of the arrays to use
+     */
+    static FxRateTable of(Currency base, Currency quote, int[] epochDays, long[] rates, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        // Stable, so that among equal days the last given stays last
+        Arrays.sort(order, (a, b) -> Integer.compare(epochDays[a], epochDays[b]));
+
+        int[] days = new int[count];
+        long[] values = new long[count];
+        int size = 0;
+        for (int i : order) {
+            if (size > 0 && days[size - 1] == epochDays[i]) {
+                values[size - 1] = rates[i];
+            } else {
+                days[size] = epochDays[i];
+                values[size] = rates[i];
+                size++;
+            }
+        }
+        return new FxRateTable(base, quote, Arrays.copyOf(days, size), Arrays.copyOf(values, size));
+    }
+
+    /**
+     * Returns a table with the rates of both tables, where {@code newer} wins on days found in both.
+     *
+     * @throws IllegalArgumentException if the tables are for different currency pairs
+     */
+    FxRateTable merge(FxRateTable newer) {
+        if (!base.equals(newer.base) || !quote.equals(newer.quote)) {
+            throw new IllegalArgumentException("Cannot merge " + newer.pair() + " rates into " + pair());
+        }
+        int[] days = new int[epochDays.length + newer.epochDays.length];
+        long[] values = new long[days.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < epochDays.length || j < newer.epochDays.length) {
+            if (j == newer.epochDays.length || i < epochDays.length && epochDays[i] < newer.epochDays[j]) {
+                days[size] = epochDays[i];
+                values[size++] = rates[i++];
+            } else {
+                if (i < epochDays.length && epochDays[i] == newer.epochDays[j]) {
+                    i++;
+                }
+                days[size] = newer.epochDays[j];
+                values[size++] = newer.rates[j++];
+            }
+        }
+        return new FxRateTable(base, quote, Arrays.copyOf(days, size), Arrays.copyOf(values, size));
+    }
+
+    public Currency base() {
+        return base;
+    }
+
+    public Currency quote() {
+        return quote;
+    }
+
+    /**
+     * Returns the pair as {@code BASE/QUOTE}, for example {@code USD/SEK}.
+     */
+    public String pair() {
+        return pair(base, quote);
+    }
+
+    /**
+     * Number of days with a rate.
+     */
+    public int size() {
+        return epochDays.length;
+    }
+
+    /**
+     * Returns the latest rate on or before a day since the epoch, with {@link #RATE_SCALE} decimals,
+     * or {@link #NO_RATE} if the table starts after it.
+     */
+    public long rateOn(int epochDay) {
+        int index = Arrays.binarySearch(epochDays, epochDay);
+        if (index < 0) {
+            index = -index - 2;
+            if (index < 0) {
+                return NO_RATE;
+            }
+        }
+        return rates[index];
+    }
+
+    /**
+     * Returns the latest rate on or before {@code date}, or {@code null} if the table starts after it.
+     */
+    public BigDecimal rateOn(LocalDate date) {
+        long rate = rateOn(Math.toIntExact(date.toEpochDay()));
+        return rate == NO_RATE ? null : BigDecimal.valueOf(rate, RATE_SCALE);
+    }
+
+    static String pair(Currency base, Currency quote) {
+        return base.getCurrencyCode() + "/" + quote.getCurrencyCode();
+    }
+
+    /**
+     * Converts a rate to fixed point, rounding half up.
+     *
+     * @throws IllegalArgumentException if the rate is not greater than 0
+     */
+    static long toFixedPoint(BigDecimal rate) {
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException("Exchange rates must be greater than 0: " + rate);
+        }
+        return rate.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Multiplies {@code units} by a rate with {@link #RATE_SCALE} decimals, rounding half up.
+     */
+    static long multiply(long units, long rate) {
+        try {
+            return Math.floorDiv(Math.addExact(Math.multiplyExact(units, rate), RATE_ONE / 2), RATE_ONE);
+        } catch (ArithmeticException overflow) {
+            return BigDecimal.valueOf(units).multiply(BigDecimal.valueOf(rate, RATE_SCALE))
+                    .setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+    }
+
+    /**
+     * Divides {@code units} by a rate with {@link #RATE_SCALE} decimals, rounding half up.
+     */
+    static long divide(long units, long rate) {
+        try {
+            return Math.floorDiv(Math.addExact(Math.multiplyExact(units, 2 * RATE_ONE), rate), 2 * rate);
+        } catch (ArithmeticException overflow) {
+            return BigDecimal.valueOf(units).divide(BigDecimal.valueOf(rate, RATE_SCALE), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+    }
+}
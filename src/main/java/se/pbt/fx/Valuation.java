@@ -0,0 +1,46 @@
+package se.pbt.fx;
+
+import se.pbt.model.Money;
+
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A journal valued in one reporting currency, one row per journal date, oldest first.
+ *
+ * @param currency     the reporting currency
+ * @param days         the value of each journal date
+ * @param missingRates currencies with snapshots or sales that had no rate on their date; those amounts are left
+ *                     out of {@code days}
+ */
+public record Valuation(Currency currency, List<Day> days, Set<Currency> missingRates) {
+
+    /**
+     * The value of one journal date.
+     *
+     * @param date         the journal date
+     * @param marketValue  close price times remaining quantity, over every snapshot of the date
+     * @param saleProceeds net proceeds of every sale of the date
+     */
+    public record Day(LocalDate date, Money marketValue, Money saleProceeds) {}
+
+    /**
+     * Returns the net proceeds of every sale.
+     */
+    public Money totalSaleProceeds() {
+        Money total = Money.ZERO;
+        for (Day day : days) {
+            total = total.plus(day.saleProceeds());
+        }
+        return total;
+    }
+
+    /**
+     * Returns {@code true} if every amount could be converted.
+     */
+    public boolean isComplete() {
+        return missingRates.isEmpty();
+    }
+}
@@ -0,0 +1,140 @@
+package se.pbt.fx;
+
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values journal entries in one reporting currency, converting every {@link TradeSnapshot} and
+ * {@link ExecutedSale} from its asset's currency at the rate of its journal date.
+ * <p>
+ * The converted totals of each saved entry are cached, tagged with the {@link FxRateStore#version()} they were
+ * computed under, so valuing the journal again only converts entries that are new, changed or priced under
+ * older rates. Importing rates therefore invalidates the whole cache; {@link #invalidate(Collection)} drops the
+ * entries that have been saved or removed since.
+ * </p>
+ * <p>
+ * An asset without a currency is taken to be priced in the reporting currency. This class is thread-safe.
+ * </p>
+ */
+public class ValuationService {
+
+    private final FxRateStore rates;
+    private final Currency reportingCurrency;
+    private final Map<Long, EntryValue> cache = new ConcurrentHashMap<>();
+    private volatile long cachedVersion = -1;
+
+    public ValuationService(FxRateStore rates, Currency reportingCurrency) {
+        this.rates = rates;
+        this.reportingCurrency = reportingCurrency;
+    }
+
+    public Currency getReportingCurrency() {
+        return reportingCurrency;
+    }
+
+    /**
+     * Values the given entries, for example {@code stream::iterator} over a streamed journal.
+     * Their snapshots, sales, trades and assets must be loaded.
+     */
+    public Valuation value(Iterable<JournalEntry> entries) {
+        // Read before the converters are made, so a concurrent import can only make values look older
+        long version = rates.version();
+        if (version != cachedVersion) {
+            cache.clear();
+            cachedVersion = version;
+        }
+
+        Map<Currency, FxConverter> converters = new HashMap<>();
+        TreeMap<LocalDate, long[]> days = new TreeMap<>();
+        Set<Currency> missing = new HashSet<>();
+        for (JournalEntry entry : entries) {
+            EntryValue value = entry.getId() == null ? null : cache.get(entry.getId());
+            if (value == null || value.version() != version) {
+                value = convert(entry, version, converters);
+                if (entry.getId() != null) {
+                    cache.put(entry.getId(), value);
+                }
+            }
+            long[] totals = days.computeIfAbsent(entry.getDate(), date -> new long[2]);
+            totals[0] = Math.addExact(totals[0], value.marketValue());
+            totals[1] = Math.addExact(totals[1], value.saleProceeds());
+            missing.addAll(value.missingRates());
+        }
+
+        List<Valuation.Day> result = new ArrayList<>(days.size());
+        days.forEach((date, totals) ->
+                result.add(new Valuation.Day(date, Money.ofUnits(totals[0]), Money.ofUnits(totals[1]))));
+        return new Valuation(reportingCurrency, List.copyOf(result), Set.copyOf(missing));
+    }
+
+    /**
+     * Drops the cached values of entries that have been saved again or removed.
+     */
+    public void invalidate(Collection<Long> entryIds) {
+        cache.keySet().removeAll(entryIds);
+    }
+
+    /**
+     * Drops every cached value.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    private EntryValue convert(JournalEntry entry, long version, Map<Currency, FxConverter> converters) {
+        int day = Math.toIntExact(entry.getDate().toEpochDay());
+        long marketValue = 0;
+        long saleProceeds = 0;
+        Set<Currency> missing = null;
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            Trade trade = snapshot.getTrade();
+            Currency currency = trade == null || trade.getAsset() == null || trade.getAsset().getCurrency() == null
+                    ? reportingCurrency
+                    : trade.getAsset().getCurrency();
+            FxConverter converter = converters.computeIfAbsent(currency,
+                    from -> rates.converter(from, reportingCurrency));
+
+            long value = snapshot.getClosePrice() == null ? 0
+                    : Money.multiply(Money.toUnits(snapshot.getClosePrice()), snapshot.getRemainingQuantity());
+            long proceeds = 0;
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                if (sale.getNetGain() != null) {
+                    proceeds = Math.addExact(proceeds, sale.getNetGain().units());
+                }
+            }
+
+            long convertedValue = converter == null ? FxConverter.NO_VALUE : converter.convert(value, day);
+            long convertedProceeds = converter == null ? FxConverter.NO_VALUE : converter.convert(proceeds, day);
+            if (convertedValue == FxConverter.NO_VALUE || convertedProceeds == FxConverter.NO_VALUE) {
+                if (missing == null) {
+                    missing = new HashSet<>();
+                }
+                missing.add(currency);
+                continue;
+            }
+            marketValue = Math.addExact(marketValue, convertedValue);
+            saleProceeds = Math.addExact(saleProceeds, convertedProceeds);
+        }
+        return new EntryValue(version, marketValue, saleProceeds, missing == null ? Set.of() : Set.copyOf(missing));
+    }
+
+    /**
+     * The converted totals of one entry, in {@link Money} units of the reporting currency.
+     */
+    private record EntryValue(long version, long marketValue, long saleProceeds, Set<Currency> missingRates) {}
+}
@@ -0,0 +1,86 @@
+package se.pbt.ledger;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import se.pbt.model.Money;
+import se.pbt.model.MoneyConverter;
+import se.pbt.model.asset.Asset;
+
+import java.time.LocalDate;
+
+/**
+ * The position held in one {@link Asset}, as kept by {@link PositionLedgerStore}.
+ * <p>
+ * Holds the totals over the position's open {@link PositionLot}s and the P&L realized so far, so that a
+ * position can be read or extended without replaying its history.
+ * </p>
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class LedgerPosition {
+
+    /**
+     * The ID of the asset held.
+     */
+    @Id
+    private Long assetId;
+
+    /**
+     * The matching method the position was built with.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 12, nullable = false)
+    private LotMatching method;
+
+    /**
+     * Units held.
+     */
+    private int quantity;
+
+    /**
+     * Cost basis of the units held, including their share of the buy fees.
+     */
+    @Column(precision = 19, scale = 4, nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money cost = Money.ZERO;
+
+    /**
+     * Net sale proceeds less the cost of the units matched, over all sales so far.
+     */
+    @Column(precision = 19, scale = 4, nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money realized = Money.ZERO;
+
+    /**
+     * Units sold beyond the units held, which were realized at no cost.
+     */
+    private int unmatchedQuantity;
+
+    /**
+     * The date of the latest buy or sale applied.
+     */
+    private LocalDate lastEventDate;
+
+    /**
+     * The sequence number the next lot is given, so lots keep their order of purchase.
+     */
+    private long nextSequence;
+
+    /**
+     * Set when the position can no longer be extended and must be rebuilt from the asset's history,
+     * as after an entry dated before {@link #lastEventDate} is saved or an entry is removed.
+     */
+    private boolean stale;
+
+    public LedgerPosition(Long assetId, LotMatching method) {
+        this.assetId = assetId;
+        this.method = method;
+    }
+}
@@ -0,0 +1,14 @@
+package se.pbt.ledger;
+
+/**
+ * How a sale is matched against the open lots of a position.
+ */
+public enum LotMatching {
+
+    /** The oldest lots are sold first. */
+    FIFO,
+    /** The newest lots are sold first. */
+    LIFO,
+    /** Every unit costs the average cost of the position; lots are still reduced oldest first. */
+    AVERAGE_COST
+}
@@ -0,0 +1,143 @@
+package se.pbt.ledger;
+
+import se.pbt.model.Money;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Applies buys and sales to a {@link LedgerPosition} and its open lots, oldest lot first in the queue.
+ * <p>
+ * A buy appends a lot; a sale takes units from the head (FIFO, average cost) or the tail (LIFO) of the queue,
+ * so every event costs O(1) amortized: each lot is added once and emptied at most once, and a sale touches at
+ * most one lot it leaves partly sold. Partly sold lots keep the cost of their remaining units exactly, by
+ * subtracting the rounded cost of the units sold rather than recomputing the rest.
+ * </p>
+ * <p>
+ * The position works on the objects it is given; {@link #opened()} and {@link #closed()} tell the caller which
+ * lots to persist and which to delete. Open lots are listed, oldest first, by {@link #lots()}.
+ * </p>
+ */
+final class Position {
+
+    private final LedgerPosition state;
+    private final Deque<PositionLot> lots;
+    private final List<PositionLot> closed = new ArrayList<>();
+
+    /**
+     * @param openLots the open lots of the position, ordered by lot sequence
+     */
+    Position(LedgerPosition state, Collection<PositionLot> openLots) {
+        this.state = state;
+        this.lots = new ArrayDeque<>(openLots);
+    }
+
+    /**
+     * Opens a lot of {@code quantity} units that cost {@code cost} units of money in total.
+     */
+    void buy(Long tradeId, LocalDate date, int quantity, long cost) {
+        if (quantity <= 0) {
+            return;
+        }
+        long sequence = state.getNextSequence();
+        state.setNextSequence(sequence + 1);
+        PositionLot lot = new PositionLot(state.getAssetId(), sequence, tradeId, date, quantity, Money.ofUnits(cost));
+        lots.addLast(lot);
+        state.setQuantity(Math.addExact(state.getQuantity(), quantity));
+        state.setCost(state.getCost().plus(lot.getCost()));
+        touch(date);
+    }
+
+    /**
+     * Sells {@code quantity} units for net proceeds of {@code proceeds} units of money. Units beyond those held
+     * are realized at no cost and counted in {@link LedgerPosition#getUnmatchedQuantity()}.
+     *
+     * @return the realized P&L of the sale, in units of money
+     */
+    long sell(LocalDate date, int quantity, long proceeds) {
+        int held = state.getQuantity();
+        int matched = Math.min(Math.max(quantity, 0), held);
+        long matchedCost = 0;
+        if (state.getMethod() == LotMatching.AVERAGE_COST) {
+            matchedCost = share(state.getCost().units(), matched, held);
+        }
+
+        int left = matched;
+        while (left > 0) {
+            PositionLot lot = state.getMethod() == LotMatching.LIFO ? lots.peekLast() : lots.peekFirst();
+            int taken = Math.min(left, lot.getQuantity());
+            long cost = share(lot.getCost().units(), taken, lot.getQuantity());
+            lot.setQuantity(lot.getQuantity() - taken);
+            lot.setCost(Money.ofUnits(lot.getCost().units() - cost));
+            if (state.getMethod() != LotMatching.AVERAGE_COST) {
+                matchedCost += cost;
+            }
+            if (lot.getQuantity() == 0) {
+                if (state.getMethod() == LotMatching.LIFO) {
+                    lots.pollLast();
+                } else {
+                    lots.pollFirst();
+                }
+                if (lot.getId() != null) {
+                    closed.add(lot);
+                }
+            }
+            left -= taken;
+        }
+
+        long realized = Math.subtractExact(proceeds, matchedCost);
+        state.setQuantity(held - matched);
+        state.setCost(matched == held ? Money.ZERO : Money.ofUnits(state.getCost().units() - matchedCost));
+        state.setRealized(state.getRealized().plus(Money.ofUnits(realized)));
+        state.setUnmatchedQuantity(state.getUnmatchedQuantity() + Math.max(quantity, 0) - matched);
+        touch(date);
+        return realized;
+    }
+
+    /**
+     * Open lots that have not been persisted yet, that is without an ID; the caller persists them.
+     */
+    List<PositionLot> opened() {
+        List<PositionLot> opened = new ArrayList<>();
+        for (PositionLot lot : lots) {
+            if (lot.getId() == null) {
+                opened.add(lot);
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Persisted lots that have been sold out; the caller deletes them.
+     */
+    List<PositionLot> closed() {
+        return closed;
+    }
+
+    /**
+     * The open lots, oldest first.
+     */
+    Deque<PositionLot> lots() {
+        return lots;
+    }
+
+    private void touch(LocalDate date) {
+        if (state.getLastEventDate() == null || date.isAfter(state.getLastEventDate())) {
+            state.setLastEventDate(date);
+        }
+    }
+
+    /**
+     * Returns {@code total * part / whole} rounded half up, or {@code total} when the whole is taken.
+     */
+    private static long share(long total, int part, int whole) {
+        if (part == whole) {
+            return total;
+        }
+        return Math.floorDiv(Math.addExact(Math.multiplyExact(Math.multiplyExact(total, part), 2), whole), 2L * whole);
+    }
+}
@@ -0,0 +1,321 @@
+package se.pbt.ledger;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keeps one {@link LedgerPosition} with its open {@link PositionLot}s per asset, matching every
+ * {@link ExecutedSale} against the lots by the store's {@link LotMatching}.
+ * <p>
+ * The repository calls {@link #record} inside the transaction that saves an entry: each trade first saved with
+ * the entry opens a lot, costing its entry price times quantity plus the buy fee, and the entry's sales are then
+ * matched in order of sell time. Only the open lots of the assets involved are read, so a position is extended
+ * without replaying its history.
+ * </p>
+ * <p>
+ * An entry dated before the latest event of a position, or the removal of an entry, cannot be applied
+ * incrementally; the position is then marked stale and rebuilt from that asset's trades the next time it is
+ * read. A bulk import marks the positions of every asset it touched stale in the same way.
+ * </p>
+ */
+public class PositionLedgerStore {
+
+    private static final Comparator<Event> EVENT_ORDER = Comparator.comparing(Event::date)
+            .thenComparing(Event::isSale)
+            .thenComparing(Event::time, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Event::tradeId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final EntityManagerFactory emf;
+    private final LotMatching method;
+
+    public PositionLedgerStore(EntityManagerFactory emf, LotMatching method) {
+        this.emf = emf;
+        this.method = method;
+    }
+
+    public LotMatching getMethod() {
+        return method;
+    }
+
+    /**
+     * Applies a journal entry that has just been persisted, in the active transaction of {@code em}.
+     *
+     * @param newTrades the trades of the entry that were not saved before it, whose purchases open lots;
+     *                  compared by identity
+     */
+    public void record(EntityManager em, JournalEntry entry, Set<Trade> newTrades) {
+        Map<Long, List<Event>> byAsset = new LinkedHashMap<>();
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            Trade trade = snapshot.getTrade();
+            if (trade == null || trade.getAsset() == null) {
+                continue;
+            }
+            List<Event> events = byAsset.computeIfAbsent(trade.getAsset().getId(), id -> new ArrayList<>());
+            if (newTrades.contains(trade)) {
+                events.add(Event.buy(trade, entry.getDate()));
+            }
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                events.add(Event.sale(trade, entry.getDate(), sale));
+            }
+        }
+
+        byAsset.forEach((assetId, events) -> {
+            if (events.isEmpty()) {
+                return;
+            }
+            LedgerPosition state = em.find(LedgerPosition.class, assetId);
+            if (state == null) {
+                state = new LedgerPosition(assetId, method);
+                em.persist(state);
+            }
+            if (state.isStale()) {
+                return;
+            }
+            if (state.getMethod() != method
+                    || state.getLastEventDate() != null && entry.getDate().isBefore(state.getLastEventDate())) {
+                state.setStale(true);
+                return;
+            }
+            events.sort(EVENT_ORDER);
+            Position position = new Position(state, openLots(em, assetId));
+            events.forEach(event -> event.applyTo(position));
+            position.closed().forEach(em::remove);
+            position.opened().forEach(em::persist);
+        });
+    }
+
+    /**
+     * Marks the positions of the assets in a managed journal entry that is about to be removed as stale,
+     * in the active transaction of {@code em}.
+     */
+    public void markStale(EntityManager em, JournalEntry entry) {
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            Trade trade = snapshot.getTrade();
+            if (trade == null || trade.getAsset() == null) {
+                continue;
+            }
+            LedgerPosition state = em.find(LedgerPosition.class, trade.getAsset().getId());
+            if (state != null) {
+                state.setStale(true);
+            }
+        }
+    }
+
+    /**
+     * Marks the positions in the given assets as stale after their trades were written in bulk, in the active
+     * transaction of {@code em}. Assets without a position are given a stale one, so that every position is
+     * rebuilt from the asset's trades the next time it is read.
+     */
+    public void markStale(EntityManager em, Collection<Long> assetIds) {
+        if (assetIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(assetIds));
+        Set<Long> existing = new HashSet<>(em.createQuery("""
+                    SELECT p.assetId
+                    FROM LedgerPosition p
+                    WHERE p.assetId IN :ids
+                """, Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+        em.createQuery("UPDATE LedgerPosition p SET p.stale = true WHERE p.assetId IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        for (Long assetId : ids) {
+            if (!existing.contains(assetId)) {
+                LedgerPosition state = new LedgerPosition(assetId, method);
+                state.setStale(true);
+                em.persist(state);
+            }
+        }
+    }
+
+    /**
+     * Returns the position in an asset, rebuilding it first if it is stale.
+     */
+    public Optional<LedgerPosition> findPosition(Long assetId) {
+        return inTransaction(em -> Optional.ofNullable(current(em, assetId)));
+    }
+
+    /**
+     * Returns the open lots of the position in an asset, oldest first, rebuilding the position first if it is
+     * stale.
+     */
+    public List<PositionLot> findOpenLots(Long assetId) {
+        return inTransaction(em -> current(em, assetId) == null ? List.of() : openLots(em, assetId));
+    }
+
+    /**
+     * Returns {@code true} if there are trades but no positions, as in a journal created before the ledger
+     * existed.
+     */
+    public boolean needsRebuild() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT p.assetId FROM LedgerPosition p").setMaxResults(1).getResultList().isEmpty()
+                    && !em.createQuery("SELECT t.id FROM Trade t").setMaxResults(1).getResultList().isEmpty();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Rebuilds the position in every asset that has trades, one asset per transaction.
+     *
+     * @return the number of positions rebuilt
+     */
+    public int rebuildAll() {
+        List<Long> assetIds = inTransaction(em -> em.createQuery("""
+                    SELECT DISTINCT t.asset.id
+                    FROM Trade t
+                    WHERE t.asset IS NOT NULL
+                """, Long.class).getResultList());
+        for (Long assetId : assetIds) {
+            inTransaction(em -> rebuild(em, assetId));
+        }
+        return assetIds.size();
+    }
+
+    /**
+     * Returns the stored position in an asset, or {@code null}, after rebuilding it if it is stale or was
+     * built with another matching method.
+     */
+    private LedgerPosition current(EntityManager em, Long assetId) {
+        LedgerPosition state = em.find(LedgerPosition.class, assetId);
+        if (state != null && (state.isStale() || state.getMethod() != method)) {
+            state = rebuild(em, assetId);
+        }
+        return state;
+    }
+
+    /**
+     * Replaces the position in one asset with one replayed from all of the asset's trades.
+     */
+    private LedgerPosition rebuild(EntityManager em, Long assetId) {
+        em.createQuery("DELETE FROM PositionLot l WHERE l.assetId = :assetId")
+                .setParameter("assetId", assetId)
+                .executeUpdate();
+        LedgerPosition state = em.find(LedgerPosition.class, assetId);
+        if (state == null) {
+            state = new LedgerPosition(assetId, method);
+            em.persist(state);
+        } else {
+            state.setMethod(method);
+            state.setQuantity(0);
+            state.setCost(Money.ZERO);
+            state.setRealized(Money.ZERO);
+            state.setUnmatchedQuantity(0);
+            state.setLastEventDate(null);
+            state.setNextSequence(0);
+            state.setStale(false);
+        }
+
+        List<TradeSnapshot> snapshots = em.createQuery("""
+                    SELECT DISTINCT s
+                    FROM TradeSnapshot s
+                    JOIN FETCH s.journalEntry
+                    JOIN FETCH s.trade t
+                    LEFT JOIN FETCH s.executedSales
+                    WHERE t.asset.id = :assetId
+                """, TradeSnapshot.class)
+                .setParameter("assetId", assetId)
+                .getResultList();
+
+        Map<Trade, LocalDate> opened = new IdentityHashMap<>();
+        List<Event> events = new ArrayList<>();
+        for (TradeSnapshot snapshot : snapshots) {
+            LocalDate date = snapshot.getJournalEntry().getDate();
+            opened.merge(snapshot.getTrade(), date, (a, b) -> a.isBefore(b) ? a : b);
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                events.add(Event.sale(snapshot.getTrade(), date, sale));
+            }
+        }
+        opened.forEach((trade, date) -> events.add(Event.buy(trade, date)));
+        events.sort(EVENT_ORDER);
+
+        Position position = new Position(state, List.of());
+        events.forEach(event -> event.applyTo(position));
+        position.opened().forEach(em::persist);
+        return state;
+    }
+
+    private static List<PositionLot> openLots(EntityManager em, Long assetId) {
+        return em.createQuery("""
+                    SELECT l
+                    FROM PositionLot l
+                    WHERE l.assetId = :assetId
+                    ORDER BY l.lotSequence
+                """, PositionLot.class)
+                .setParameter("assetId", assetId)
+                .getResultList();
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            T result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * A buy or sale in one asset, ordered by date with buys before sales on the same day.
+     *
+     * @param quantity units bought or sold
+     * @param amount   cost of a buy or net proceeds of a sale, in units of money
+     */
+    private record Event(LocalDate date, boolean isSale, LocalTime time, Long tradeId, int quantity, long amount) {
+
+        static Event buy(Trade trade, LocalDate date) {
+            BigDecimal cost = trade.getEntryPrice().multiply(BigDecimal.valueOf(trade.getQuantity()))
+                    .add(trade.getBuyFee())
+                    .setScale(Money.SCALE, RoundingMode.HALF_UP);
+            return new Event(date, false, trade.getEntryTime(), trade.getId(), trade.getQuantity(),
+                    Money.toUnits(cost));
+        }
+
+        static Event sale(Trade trade, LocalDate date, ExecutedSale sale) {
+            return new Event(date, true, sale.getSellTime(), trade.getId(), sale.getQuantitySold(),
+                    sale.getNetGain().units());
+        }
+
+        void applyTo(Position position) {
+            if (isSale) {
+                position.sell(date, quantity, amount);
+            } else {
+                position.buy(tradeId, date, quantity, amount);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package se.pbt.ledger;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import se.pbt.model.Money;
+import se.pbt.model.MoneyConverter;
+import se.pbt.model.Trade;
+
+import java.time.LocalDate;
+
+/**
+ * The unsold part of one purchase, that is one {@link Trade}, within a {@link LedgerPosition}.
+ * <p>
+ * A lot is deleted once all of its units are sold, so only open lots are ever read.
+ * </p>
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_position_lot_asset", columnList = "assetId, lotSequence"))
+@Data
+@NoArgsConstructor
+public class PositionLot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "position_lot_seq")
+    @SequenceGenerator(name = "position_lot_seq", sequenceName = "position_lot_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The ID of the asset of the position.
+     */
+    @Column(nullable = false)
+    private Long assetId;
+
+    /**
+     * Orders the lots of a position by purchase.
+     */
+    private long lotSequence;
+
+    /**
+     * The ID of the trade that bought the lot.
+     */
+    private Long tradeId;
+
+    /**
+     * The journal date of the purchase.
+     */
+    private LocalDate openedOn;
+
+    /**
+     * Units left in the lot.
+     */
+    private int quantity;
+
+    /**
+     * Cost basis of the units left, including their share of the buy fee.
+     */
+    @Column(precision = 19, scale = 4, nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money cost = Money.ZERO;
+
+    PositionLot(Long assetId, long lotSequence, Long tradeId, LocalDate openedOn, int quantity, Money cost) {
+        this.assetId = assetId;
+        this.lotSequence = lotSequence;
+        this.tradeId = tradeId;
+        this.openedOn = openedOn;
+        this.quantity = quantity;
+        this.cost = cost;
+    }
+}
@@ -0,0 +1,31 @@
+package se.pbt.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for one call to the journal database through a repository.
+ * Recorded by {@link se.pbt.repository.InstrumentedJournalEntryRepository}; disabled unless a recording
+ * enables it.
+ */
+@Name("se.pbt.DbCall")
+@Label("Journal Database Call")
+@Category({"Trader Journal", "Database"})
+@Description("A call to a journal repository method")
+@StackTrace(false)
+public class DbCallEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Fetch Profile")
+    public String profile;
+
+    @Label("Rows")
+    @Description("Entries returned or written")
+    public int rows;
+}
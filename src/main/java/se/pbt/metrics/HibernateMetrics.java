@@ -0,0 +1,68 @@
+package se.pbt.metrics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads Hibernate's {@link Statistics} for an {@link EntityManagerFactory}: statements, queries, entity and
+ * collection loads and second-level cache use.
+ * <p>
+ * Hibernate only gathers statistics once {@link #enable(EntityManagerFactory)} has been called, which adds a
+ * little bookkeeping to every session; the figures count from that moment.
+ * </p>
+ */
+public final class HibernateMetrics {
+
+    /**
+     * Starts gathering statistics for {@code emf}.
+     */
+    public static void enable(EntityManagerFactory emf) {
+        statistics(emf).setStatisticsEnabled(true);
+    }
+
+    /**
+     * Returns the current figures, by name, in a fixed order. All are 0 while statistics are disabled.
+     */
+    public static Map<String, Long> snapshot(EntityManagerFactory emf) {
+        Statistics statistics = statistics(emf);
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("hibernate.sessions", statistics.getSessionOpenCount());
+        values.put("hibernate.transactions", statistics.getTransactionCount());
+        values.put("hibernate.statements", statistics.getPrepareStatementCount());
+        values.put("hibernate.queries", statistics.getQueryExecutionCount());
+        values.put("hibernate.queryMaxMillis", statistics.getQueryExecutionMaxTime());
+        values.put("hibernate.entityLoads", statistics.getEntityLoadCount());
+        values.put("hibernate.entityFetches", statistics.getEntityFetchCount());
+        values.put("hibernate.entityInserts", statistics.getEntityInsertCount());
+        values.put("hibernate.collectionLoads", statistics.getCollectionLoadCount());
+        values.put("hibernate.collectionFetches", statistics.getCollectionFetchCount());
+        values.put("hibernate.cacheHits", statistics.getSecondLevelCacheHitCount());
+        values.put("hibernate.cacheMisses", statistics.getSecondLevelCacheMissCount());
+        values.put("hibernate.flushes", statistics.getFlushCount());
+        return values;
+    }
+
+    /**
+     * Returns the figures of {@link #snapshot(EntityManagerFactory)} one per line, or an empty string while
+     * statistics are disabled.
+     */
+    public static String summary(EntityManagerFactory emf) {
+        if (!statistics(emf).isStatisticsEnabled()) {
+            return "";
+        }
+        StringBuilder summary = new StringBuilder();
+        snapshot(emf).forEach((name, value) -> summary.append(name).append(": ").append(value).append('\n'));
+        return summary.toString();
+    }
+
+    private static Statistics statistics(EntityManagerFactory emf) {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Prevent instantiation
+    private HibernateMetrics() {}
+}
@@ -0,0 +1,131 @@
+package se.pbt.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram in fixed memory, in the style of HdrHistogram.
+ * <p>
+ * Values are nanoseconds, counted in log-linear buckets: every power of two is split into
+ * {@value #SUB_BUCKETS} equal buckets, so any recorded value is known to within about 3 % over the whole range
+ * of a {@code long}. The buckets are one preallocated array; recording is a few shifts and an atomic increment,
+ * never allocates and is safe from any thread.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one value in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the time since {@code startNanos}, a value of {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long maxNanos() {
+        return max.get();
+    }
+
+    public double meanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * Returns the value at or below which {@code percentile} percent of the values fall, as the highest value
+     * of its bucket, or 0 if nothing has been recorded.
+     */
+    public long percentileNanos(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(bucket), maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    /**
+     * Returns a one-line summary such as {@code n=120 mean=1.2ms p50=0.9ms p99=4.1ms max=5.0ms}.
+     */
+    public String summary() {
+        return "n=" + count()
+                + " mean=" + format((long) meanNanos())
+                + " p50=" + format(percentileNanos(50))
+                + " p90=" + format(percentileNanos(90))
+                + " p99=" + format(percentileNanos(99))
+                + " max=" + format(maxNanos());
+    }
+
+    /**
+     * Clears every count.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private static String format(long nanos) {
+        if (nanos < TimeUnit.MICROSECONDS.toNanos(1)) {
+            return nanos + "ns";
+        }
+        if (nanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+            return String.format("%.1fµs", nanos / 1e3);
+        }
+        return String.format("%.1fms", nanos / 1e6);
+    }
+}
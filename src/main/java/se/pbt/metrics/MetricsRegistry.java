@@ -0,0 +1,99 @@
+package se.pbt.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Named counters and {@link LatencyHistogram} timers for the application's hot paths.
+ * <p>
+ * Metrics are created on first use and live as long as the registry, so callers on a hot path look them up once
+ * and keep the reference. Names are dot-separated, for example {@code repository.findPage}. {@link #global()} is
+ * the registry the application reports at shutdown; code that cannot be handed a registry, such as entity
+ * methods, records to it directly.
+ * </p>
+ * <p>
+ * All methods are thread-safe.
+ * </p>
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the application-wide registry.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if needed.
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Returns the timer with the given name, creating it if needed.
+     */
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Runs {@code work} and records how long it took in the named timer, also when it throws.
+     */
+    public <T> T time(String name, Supplier<T> work) {
+        LatencyHistogram timer = timer(name);
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            timer.recordSince(start);
+        }
+    }
+
+    /**
+     * Returns the current value of every counter, by name.
+     */
+    public Map<String, Long> counters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    /**
+     * Returns every timer, by name.
+     */
+    public Map<String, LatencyHistogram> timers() {
+        return new TreeMap<>(timers);
+    }
+
+    /**
+     * Returns a multi-line summary of every counter and of every timer that has recorded something.
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        counters().forEach((name, value) -> summary.append(name).append(": ").append(value).append('\n'));
+        timers().forEach((name, timer) -> {
+            if (timer.count() > 0) {
+                summary.append(name).append(": ").append(timer.summary()).append('\n');
+            }
+        });
+        return summary.toString();
+    }
+
+    /**
+     * Clears every counter and timer, keeping the references callers hold valid.
+     */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        timers.values().forEach(LatencyHistogram::reset);
+    }
+}
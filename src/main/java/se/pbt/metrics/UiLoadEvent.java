@@ -0,0 +1,26 @@
+package se.pbt.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event spanning a UI load, from the request on the FX application thread until its
+ * result is shown.
+ */
+@Name("se.pbt.UiLoad")
+@Label("UI Load")
+@Category({"Trader Journal", "UI"})
+@Description("Data loaded for a view, from request until shown")
+@StackTrace(false)
+public class UiLoadEvent extends Event {
+
+    @Label("View")
+    public String view;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
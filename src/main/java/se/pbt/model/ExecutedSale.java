@@ -5,6 +5,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
+import org.hibernate.Hibernate;
 
 import java.math.BigDecimal;
 import java.time.LocalTime;
@@ -16,10 +17,12 @@ import java.time.LocalTime;
  * fee, and calculated gross/net gain for that specific execution.
  * </p>
  * <p>
- * Sales are recorded within snapshots and contribute to the trade’s overall performance.
+ * Sales are recorded within snapshots and contribute to the trade’s overall performance. Changing the net gain
+ * of a sale, or moving it to another snapshot, discards the cached totals of the trade it counted towards.
  * </p>
  */
 @Entity
+@Table(indexes = @Index(name = "idx_executed_sale_snapshot", columnList = "snapshot_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,7 +30,8 @@ import java.time.LocalTime;
 public class ExecutedSale {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "executed_sale_seq")
+    @SequenceGenerator(name = "executed_sale_seq", sequenceName = "executed_sale_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -62,7 +66,8 @@ public class ExecutedSale {
     @NotNull(message = "Gross gain is required")
     @DecimalMin(value = "0.0", message = "Gross gain cannot be negative")
     @Column(precision = 12, scale = 4)
-    private BigDecimal grossGain;
+    @Convert(converter = MoneyConverter.class)
+    private Money grossGain;
 
     /**
      * Net gain from the sale, calculated as {@code grossGain - sellFee}.
@@ -70,7 +75,8 @@ public class ExecutedSale {
      */
     @NotNull(message = "Net gain is required")
     @Column(precision = 12, scale = 4)
-    private BigDecimal netGain;
+    @Convert(converter = MoneyConverter.class)
+    private Money netGain;
 
     /**
      * The time of day the sale was executed.
@@ -89,4 +95,28 @@ public class ExecutedSale {
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     private TradeSnapshot tradeSnapshot;
+
+    public void setNetGain(Money netGain) {
+        this.netGain = netGain;
+        invalidateTradeAggregate();
+    }
+
+    /**
+     * Moves this sale to another snapshot; use {@link TradeSnapshot#addExecutedSale(ExecutedSale)} to add it.
+     */
+    public void setTradeSnapshot(TradeSnapshot tradeSnapshot) {
+        if (this.tradeSnapshot != tradeSnapshot) {
+            invalidateTradeAggregate();
+        }
+        this.tradeSnapshot = tradeSnapshot;
+    }
+
+    private void invalidateTradeAggregate() {
+        if (tradeSnapshot != null && Hibernate.isInitialized(tradeSnapshot)) {
+            Trade trade = tradeSnapshot.getTrade();
+            if (trade != null && Hibernate.isInitialized(trade)) {
+                trade.invalidateAggregate();
+            }
+        }
+    }
 }
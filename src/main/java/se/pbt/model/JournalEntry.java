@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -22,6 +21,31 @@ import java.util.stream.Collectors;
  * </p>
  */
 @Entity
+@NamedEntityGraph(
+        name = "JournalEntry.day",
+        attributeNodes = @NamedAttributeNode(value = "tradeSnapshots", subgraph = "snapshot"),
+        subgraphs = {
+                @NamedSubgraph(name = "snapshot", attributeNodes = {
+                        @NamedAttributeNode("executedSales"),
+                        @NamedAttributeNode(value = "trade", subgraph = "trade")
+                }),
+                @NamedSubgraph(name = "trade", attributeNodes = @NamedAttributeNode("asset"))
+        })
+@NamedEntityGraph(
+        name = "JournalEntry.analytics",
+        attributeNodes = @NamedAttributeNode(value = "tradeSnapshots", subgraph = "snapshot"),
+        subgraphs = {
+                @NamedSubgraph(name = "snapshot", attributeNodes = {
+                        @NamedAttributeNode("executedSales"),
+                        @NamedAttributeNode(value = "trade", subgraph = "trade")
+                }),
+                @NamedSubgraph(name = "trade", attributeNodes = @NamedAttributeNode(value = "asset", subgraph = "asset")),
+                @NamedSubgraph(name = "asset", attributeNodes = {
+                        @NamedAttributeNode("sectors"),
+                        @NamedAttributeNode("industries")
+                })
+        })
+@Table(indexes = @Index(name = "idx_journal_entry_date", columnList = "date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,7 +53,8 @@ import java.util.stream.Collectors;
 public class JournalEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "journal_entry_seq")
+    @SequenceGenerator(name = "journal_entry_seq", sequenceName = "journal_entry_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -45,7 +70,8 @@ public class JournalEntry {
      */
     @NotNull(message = "Cash amount is required")
     @Column(precision = 15, scale = 2)
-    private BigDecimal availableCash;
+    @Convert(converter = MoneyConverter.class)
+    private Money availableCash;
 
     /**
      * The total amount of capital invested in trades as of this journal entry.
@@ -57,7 +83,8 @@ public class JournalEntry {
      */
     @NotNull(message = "Invested amount required")
     @Column(precision = 15, scale = 2)
-    private BigDecimal investedCapital;
+    @Convert(converter = MoneyConverter.class)
+    private Money investedCapital;
 
     /**
      * The calendar date this journal entry corresponds to.
@@ -0,0 +1,138 @@
+package se.pbt.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An exact amount of money or a price, stored as a {@code long} count of 1/10 000 units.
+ * <p>
+ * {@link #SCALE} matches the finest scale of any amount column in the schema, so every stored value converts
+ * to and from {@link BigDecimal} without rounding. Arithmetic is exact: any result that does not fit in a
+ * {@code long} throws {@link ArithmeticException} instead of wrapping around.
+ * </p>
+ * <p>
+ * Calculations that run over many values, such as the running totals of a {@link Trade}, can work on the raw
+ * units through the static helpers and create a {@code Money} only for the result, so they allocate nothing per step.
+ * </p>
+ */
+public final class Money implements Comparable<Money> {
+
+    /** Number of decimals kept. */
+    public static final int SCALE = 4;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long units;
+
+    private Money(long units) {
+        this.units = units;
+    }
+
+    /**
+     * Returns the amount with the given number of 1/10 000 units.
+     */
+    public static Money ofUnits(long units) {
+        return units == 0 ? ZERO : new Money(units);
+    }
+
+    /**
+     * Converts a decimal amount exactly.
+     *
+     * @throws ArithmeticException if the amount has more than {@link #SCALE} significant decimals or is out of range
+     */
+    public static Money of(BigDecimal amount) {
+        return ofUnits(toUnits(amount));
+    }
+
+    /**
+     * Converts a decimal amount given as a string, such as {@code "123.45"}.
+     *
+     * @throws NumberFormatException if the string is not a decimal number
+     * @throws ArithmeticException   if the amount has more than {@link #SCALE} significant decimals or is out of range
+     */
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    /**
+     * Converts a decimal amount to raw units exactly.
+     *
+     * @throws ArithmeticException if the amount has more than {@link #SCALE} significant decimals or is out of range
+     */
+    public static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Multiplies a price in raw units by a quantity, checking for overflow.
+     */
+    public static long multiply(long units, long quantity) {
+        return Math.multiplyExact(units, quantity);
+    }
+
+    public long units() {
+        return units;
+    }
+
+    public Money plus(Money other) {
+        return ofUnits(Math.addExact(units, other.units));
+    }
+
+    public Money minus(Money other) {
+        return ofUnits(Math.subtractExact(units, other.units));
+    }
+
+    public Money times(long quantity) {
+        return ofUnits(multiply(units, quantity));
+    }
+
+    public Money negate() {
+        return ofUnits(Math.negateExact(units));
+    }
+
+    public int signum() {
+        return Long.signum(units);
+    }
+
+    public boolean isZero() {
+        return units == 0;
+    }
+
+    /**
+     * Returns the amount as a {@link BigDecimal} with {@link #SCALE} decimals.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * Returns the amount with {@code scale} decimals, rounding half up if decimals are dropped.
+     */
+    public BigDecimal toBigDecimal(int scale) {
+        return toBigDecimal().setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(units, other.units);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && units == other.units;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(units);
+    }
+
+    /**
+     * Returns the amount in plain notation with two decimals, or more if they are needed to be exact.
+     */
+    @Override
+    public String toString() {
+        BigDecimal value = toBigDecimal().stripTrailingZeros();
+        return (value.scale() < 2 ? value.setScale(2, RoundingMode.UNNECESSARY) : value).toPlainString();
+    }
+}
@@ -0,0 +1,27 @@
+package se.pbt.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Stores {@link Money} attributes in the existing {@code DECIMAL} columns.
+ * <p>
+ * The column definitions are unchanged. Values are written with {@link Money#SCALE} decimals, which every amount
+ * written by the application fits into exactly, and read back without rounding.
+ * </p>
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Money.of(value);
+    }
+}
@@ -0,0 +1,32 @@
+package se.pbt.model;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.DecimalMin;
+
+import java.math.BigDecimal;
+
+/**
+ * Lets {@link DecimalMin} be used on {@link Money} attributes in the same way as on {@link BigDecimal}s.
+ * Registered with Bean Validation through {@code META-INF/services}.
+ */
+public class MoneyDecimalMinValidator implements ConstraintValidator<DecimalMin, Money> {
+
+    private BigDecimal min;
+    private boolean inclusive;
+
+    @Override
+    public void initialize(DecimalMin constraint) {
+        min = new BigDecimal(constraint.value());
+        inclusive = constraint.inclusive();
+    }
+
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+        int comparison = value.toBigDecimal().compareTo(min);
+        return inclusive ? comparison >= 0 : comparison > 0;
+    }
+}
@@ -5,11 +5,15 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
+import se.pbt.metrics.LatencyHistogram;
+import se.pbt.metrics.MetricsRegistry;
 import se.pbt.model.asset.Asset;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -26,14 +30,51 @@ import java.util.Set;
  */
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_trade_open", columnList = "isOpen"),
+        @Index(name = "idx_trade_asset_opened", columnList = "asset_id, openedOn"),
+        @Index(name = "idx_trade_closed_on", columnList = "closedOn")
+})
+@NamedEntityGraph(
+        name = "Trade.history",
+        attributeNodes = @NamedAttributeNode(value = "tradeSnapshots", subgraph = "snapshot"),
+        subgraphs = @NamedSubgraph(name = "snapshot", attributeNodes = {
+                @NamedAttributeNode("executedSales"),
+                @NamedAttributeNode("journalEntry")
+        }))
+@NamedEntityGraph(
+        name = "Trade.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "asset", subgraph = "asset"),
+                @NamedAttributeNode(value = "tradeSnapshots", subgraph = "snapshot")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "asset", attributeNodes = {
+                        @NamedAttributeNode("sectors"),
+                        @NamedAttributeNode("industries")
+                }),
+                @NamedSubgraph(name = "snapshot", attributeNodes = {
+                        @NamedAttributeNode("executedSales"),
+                        @NamedAttributeNode("journalEntry")
+                })
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Trade {
 
+    // Latency of the calculate* methods, which run for every trade card and report row
+    private static final LatencyHistogram CURRENT_VALUE_TIMER =
+            MetricsRegistry.global().timer("trade.calculateCurrentValue");
+    private static final LatencyHistogram NET_GAIN_TIMER =
+            MetricsRegistry.global().timer("trade.calculateNetGain");
+    private static final LatencyHistogram NET_GAIN_PERCENTAGE_TIMER =
+            MetricsRegistry.global().timer("trade.calculateNetGainPercentage");
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trade_seq")
+    @SequenceGenerator(name = "trade_seq", sequenceName = "trade_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -82,6 +123,37 @@ public class Trade {
      */
     private LocalTime exitTime;
 
+    /**
+     * The date of the first snapshot of this trade, or {@code null} if it has none.
+     * This and the three fields below are maintained by the repository when snapshots are saved or removed,
+     * so that {@link se.pbt.repository.TradeRepository} can find trades without reading their snapshots.
+     */
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private LocalDate openedOn;
+
+    /**
+     * The date of the latest snapshot of this trade, or {@code null} if it has none.
+     */
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private LocalDate lastSnapshotOn;
+
+    /**
+     * The date of the latest snapshot if no units remained on that day, otherwise {@code null}.
+     */
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private LocalDate closedOn;
+
+    /**
+     * Whether units remained on the day of the latest snapshot.
+     */
+    @Column(name = "isOpen", nullable = false)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private boolean open;
+
 
     /**
      * The asset being traded.
@@ -96,12 +168,26 @@ public class Trade {
     /**
      * All snapshots associated with this trade.
      * Each snapshot represents the state of the trade on a particular day.
+     * Loaded lazily; use a {@code FetchProfile} that includes the trade history when it is needed.
      */
-    @OneToMany(mappedBy = "trade", cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(mappedBy = "trade", cascade = CascadeType.ALL, orphanRemoval = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @Builder.Default
     private Set<TradeSnapshot> tradeSnapshots = new HashSet<>();
 
 
+    /**
+     * Running totals over {@link #tradeSnapshots} backing the {@code calculate*} methods.
+     * Not persisted; rebuilt from the snapshots after loading.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final TradeAggregate aggregate = new TradeAggregate();
+
+
     /**
      * Adds a {@link TradeSnapshot} to this trade and sets the back-reference.
      * TODO: Improve error handling
@@ -112,43 +198,92 @@ public class Trade {
                 throw new IllegalStateException("Snapshot already belongs to another trade");
             }
             snapshot.setTrade(this);
-            tradeSnapshots.add(snapshot);
+            if (tradeSnapshots.add(snapshot) && !aggregate.isStale()) {
+                aggregate.addSnapshot(snapshot);
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only view of the snapshots; add them with {@link #addSnapshot(TradeSnapshot)}.
+     */
+    public Set<TradeSnapshot> getTradeSnapshots() {
+        return Collections.unmodifiableSet(tradeSnapshots);
+    }
+
+    /**
+     * Replaces all snapshots of this trade and discards the cached totals.
+     */
+    public void setTradeSnapshots(Set<TradeSnapshot> tradeSnapshots) {
+        this.tradeSnapshots = tradeSnapshots;
+        aggregate.invalidate();
+    }
+
+    /**
+     * Discards the cached totals so they are recalculated on the next read.
+     * Called by the setters of {@link TradeSnapshot} and {@link ExecutedSale} when a value the totals depend on
+     * changes in place.
+     */
+    public void invalidateAggregate() {
+        aggregate.invalidate();
+    }
+
+    /**
+     * Called by {@link TradeSnapshot#addExecutedSale(ExecutedSale)} to keep the cached totals current.
+     */
+    void registerSale(ExecutedSale sale) {
+        if (!aggregate.isStale()) {
+            aggregate.addSale(sale);
+        }
+    }
+
+    /**
+     * Updates {@link #openedOn}, {@link #lastSnapshotOn}, {@link #closedOn} and {@link #open} for a snapshot
+     * dated {@code date}. Snapshots older than the latest one only move {@link #openedOn}; on the date of the
+     * latest snapshot, the trade is open if any snapshot has units remaining.
+     */
+    public void recordSnapshotOn(LocalDate date, int remainingQuantity) {
+        if (openedOn == null || date.isBefore(openedOn)) {
+            openedOn = date;
+        }
+        if (lastSnapshotOn == null || date.isAfter(lastSnapshotOn)) {
+            lastSnapshotOn = date;
+            open = remainingQuantity > 0;
+        } else if (date.equals(lastSnapshotOn)) {
+            open |= remainingQuantity > 0;
         }
+        closedOn = open ? null : lastSnapshotOn;
     }
 
     /**
      * Calculates the current total market value of this trade,
      * based on the latest snapshot’s close price and remaining quantity.
      *
-     * @return The estimated market value in SEK, or 0 if no snapshots are available.
-     */
-    public BigDecimal calculateCurrentValue() {
-        return tradeSnapshots.stream()
-                .reduce(BigDecimal.ZERO, (acc, snapshot) -> {
-                    if (snapshot.getClosePrice() != null) {
-                        return acc.add(snapshot.getClosePrice()
-                                .multiply(BigDecimal.valueOf(snapshot.getRemainingQuantity())));
-                    }
-                    return acc;
-                }, BigDecimal::add);
+     * @return The estimated market value in the asset's currency, or 0 if no snapshots are available.
+     *         {@link se.pbt.fx.ValuationService} converts it to a reporting currency.
+     */
+    public Money calculateCurrentValue() {
+        long start = System.nanoTime();
+        try {
+            return Money.ofUnits(aggregate().currentValue());
+        } finally {
+            CURRENT_VALUE_TIMER.recordSince(start);
+        }
     }
 
     /**
      * Calculates the net gain/loss since the trade began.
-     * Includes proceeds from all executed sales and current market value of unsold units.
+     * Includes proceeds from all executed sales and the current market value of the units still held.
      *
-     * @return Net gain in SEK, accounting for buy fee and sales.
+     * @return Net gain in the asset's currency, accounting for buy fee and sales.
      */
-    public BigDecimal calculateNetGain() {
-        BigDecimal grossSaleProceeds = tradeSnapshots.stream()
-                .flatMap(s -> s.getExecutedSales().stream())
-                .map(ExecutedSale::getNetGain)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal currentValue = calculateCurrentValue();
-        BigDecimal initialInvestment = entryPrice.multiply(BigDecimal.valueOf(quantity)).add(buyFee);
-
-        return grossSaleProceeds.add(currentValue).subtract(initialInvestment);
+    public Money calculateNetGain() {
+        long start = System.nanoTime();
+        try {
+            return Money.ofUnits(netGainUnits());
+        } finally {
+            NET_GAIN_TIMER.recordSince(start);
+        }
     }
 
     /**
@@ -158,28 +293,57 @@ public class Trade {
      * @return Percentage change rounded to two decimals, or 0 if invalid.
      */
     public BigDecimal calculateNetGainPercentage() {
-        BigDecimal initial = entryPrice.multiply(BigDecimal.valueOf(quantity)).add(buyFee);
+        long start = System.nanoTime();
+        try {
+            long initial = calculateInitialInvestment();
 
-        if (initial.compareTo(BigDecimal.ZERO) == 0) {
-            return BigDecimal.ZERO;
-        }
+            if (initial == 0) {
+                return BigDecimal.ZERO;
+            }
 
-        return calculateNetGain()
-                .divide(initial, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100))
-                .setScale(2, RoundingMode.HALF_UP);
+            return BigDecimal.valueOf(netGainUnits(), Money.SCALE)
+                    .divide(BigDecimal.valueOf(initial, Money.SCALE), 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100))
+                    .setScale(2, RoundingMode.HALF_UP);
+        } finally {
+            NET_GAIN_PERCENTAGE_TIMER.recordSince(start);
+        }
     }
 
     /**
-     * Calculates the number of remaining units across all snapshots.
+     * Returns the number of units still held, as recorded by the latest snapshot.
      * Useful for determining open position size.
      *
-     * @return Remaining quantity that has not been sold.
+     * @return Remaining quantity that has not been sold, or 0 if there are no snapshots.
      */
     public int getRemainingQuantity() {
-        return tradeSnapshots.stream()
-                .mapToInt(TradeSnapshot::getRemainingQuantity)
-                .sum();
+        return aggregate().remainingQuantity();
+    }
+
+    /**
+     * Returns the close price of the most recent snapshot.
+     *
+     * @return The latest close price, or {@code null} if there are no snapshots or the latest has none.
+     */
+    public BigDecimal getLatestClosePrice() {
+        return aggregate().latestClosePrice();
+    }
+
+    /**
+     * The cost basis of the trade in raw {@link Money} units: entry price times quantity, plus the buy fee.
+     */
+    private long calculateInitialInvestment() {
+        return aggregate.initialInvestment(entryPrice, quantity, buyFee);
+    }
+
+    private long netGainUnits() {
+        TradeAggregate totals = aggregate();
+        return Math.subtractExact(Math.addExact(totals.realizedProceeds(), totals.currentValue()),
+                calculateInitialInvestment());
+    }
+
+    private TradeAggregate aggregate() {
+        return aggregate.ensureBuilt(tradeSnapshots);
     }
 
 }
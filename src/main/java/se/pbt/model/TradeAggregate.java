@@ -0,0 +1,129 @@
+package se.pbt.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Running totals over all {@link TradeSnapshot}s and {@link ExecutedSale}s of a single {@link Trade}.
+ * <p>
+ * The totals are updated incrementally as snapshots and sales are added, so that the
+ * {@code Trade.calculate*} methods can answer in constant time instead of walking the whole history.
+ * A new or invalidated aggregate is stale and is rebuilt from the snapshots on the next read.
+ * </p>
+ * <p>
+ * Each snapshot records the position on its day, so the remaining quantity and current value come from the
+ * latest snapshot only, while the sale proceeds are summed over all of them.
+ * </p>
+ * <p>
+ * Amounts are kept as raw {@link Money} units, so updating the totals allocates nothing.
+ * </p>
+ */
+final class TradeAggregate {
+
+    private boolean stale = true;
+    private int remainingQuantity;
+    private long currentValue;
+    private long realizedProceeds;
+    private BigDecimal latestClosePrice;
+    private LocalDate latestDate;
+
+    // The initial investment is cached for the entry price, buy fee and quantity it was calculated from
+    private BigDecimal investmentEntryPrice;
+    private BigDecimal investmentBuyFee;
+    private int investmentQuantity;
+    private long initialInvestment;
+
+    /**
+     * Marks the aggregate as stale so that it is rebuilt on the next read.
+     */
+    void invalidate() {
+        stale = true;
+    }
+
+    boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Rebuilds the totals from scratch if the aggregate is stale.
+     */
+    TradeAggregate ensureBuilt(Collection<TradeSnapshot> snapshots) {
+        if (stale) {
+            remainingQuantity = 0;
+            currentValue = 0;
+            realizedProceeds = 0;
+            latestClosePrice = null;
+            latestDate = null;
+            stale = false;
+            snapshots.forEach(this::addSnapshot);
+        }
+        return this;
+    }
+
+    /**
+     * Includes a newly added snapshot, along with any sales it already holds.
+     */
+    void addSnapshot(TradeSnapshot snapshot) {
+        updateLatest(snapshot);
+        snapshot.getExecutedSales().forEach(this::addSale);
+    }
+
+    /**
+     * Includes a newly executed sale.
+     */
+    void addSale(ExecutedSale sale) {
+        realizedProceeds = Math.addExact(realizedProceeds, sale.getNetGain().units());
+    }
+
+    /**
+     * Keeps the remaining quantity, close price and value of the snapshot with the latest journal date.
+     * Snapshots not yet tied to a dated entry, and later snapshots on the same date, count as the latest
+     * seen so far.
+     */
+    private void updateLatest(TradeSnapshot snapshot) {
+        JournalEntry entry = snapshot.getJournalEntry();
+        LocalDate date = entry != null ? entry.getDate() : null;
+        if (date == null || latestDate == null || !date.isBefore(latestDate)) {
+            remainingQuantity = snapshot.getRemainingQuantity();
+            latestClosePrice = snapshot.getClosePrice();
+            currentValue = latestClosePrice == null
+                    ? 0
+                    : Money.multiply(Money.toUnits(latestClosePrice), remainingQuantity);
+            latestDate = date != null ? date : latestDate;
+        }
+    }
+
+    int remainingQuantity() {
+        return remainingQuantity;
+    }
+
+    long currentValue() {
+        return currentValue;
+    }
+
+    long realizedProceeds() {
+        return realizedProceeds;
+    }
+
+    /**
+     * Returns {@code entryPrice × quantity + buyFee} in raw units.
+     * Recalculated only when one of the inputs has been replaced since the last call.
+     */
+    long initialInvestment(BigDecimal entryPrice, int quantity, BigDecimal buyFee) {
+        if (entryPrice != investmentEntryPrice || buyFee != investmentBuyFee || quantity != investmentQuantity) {
+            initialInvestment = Math.addExact(Money.multiply(Money.toUnits(entryPrice), quantity), Money.toUnits(buyFee));
+            investmentEntryPrice = entryPrice;
+            investmentBuyFee = buyFee;
+            investmentQuantity = quantity;
+        }
+        return initialInvestment;
+    }
+
+    /**
+     * The close price of the latest snapshot, or {@code null} if it has none.
+     */
+    BigDecimal latestClosePrice() {
+        return latestClosePrice;
+    }
+}
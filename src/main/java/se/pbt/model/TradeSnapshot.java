@@ -5,8 +5,10 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.*;
+import org.hibernate.Hibernate;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -19,9 +21,17 @@ import java.util.Set;
  * <p>
  * It is also part of a {@link JournalEntry}, linking the trade’s daily evolution to a specific date.
  * </p>
+ * <p>
+ * The setters of the values the owning trade totals up discard the trade's cached totals, and sales are only
+ * added through {@link #addExecutedSale(ExecutedSale)}, so the totals never go stale.
+ * </p>
  */
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_trade_snapshot_trade", columnList = "trade_id"),
+        @Index(name = "idx_trade_snapshot_journal_entry", columnList = "journal_entry_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,7 +39,8 @@ import java.util.Set;
 public class TradeSnapshot {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trade_snapshot_seq")
+    @SequenceGenerator(name = "trade_snapshot_seq", sequenceName = "trade_snapshot_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -68,7 +79,7 @@ public class TradeSnapshot {
      */
     @ManyToOne(optional = false, cascade = CascadeType.PERSIST)
     @JoinColumn(name = "trade_id", nullable = false)
-    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Trade trade;
 
     /**
@@ -77,15 +88,105 @@ public class TradeSnapshot {
      */
     @ManyToOne(optional = false)
     @JoinColumn(name = "journal_entry_id", nullable = false)
+    @ToString.Exclude
     private JournalEntry journalEntry;
 
     /**
      * Executed sales that occurred on this day as part of the ongoing trade.
      * Each sale is tied to this snapshot and reflects actual sell transactions.
      */
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    @JoinColumn(name = "snapshot_id")
+    @OneToMany(mappedBy = "tradeSnapshot", cascade = CascadeType.ALL, orphanRemoval = true)
     @ToString.Exclude
     @Builder.Default
     private Set<ExecutedSale> executedSales = new HashSet<>();
+
+
+    public void setRemainingQuantity(int remainingQuantity) {
+        this.remainingQuantity = remainingQuantity;
+        invalidateTradeAggregate();
+    }
+
+    public void setClosePrice(BigDecimal closePrice) {
+        this.closePrice = closePrice;
+        invalidateTradeAggregate();
+    }
+
+    /**
+     * Moves this snapshot to another trade. The totals of the trade it leaves are discarded; use
+     * {@link Trade#addSnapshot(TradeSnapshot)} to add it to the new one.
+     */
+    public void setTrade(Trade trade) {
+        if (this.trade != trade) {
+            invalidateTradeAggregate();
+        }
+        this.trade = trade;
+    }
+
+    /**
+     * Ties this snapshot to a journal entry. Moving it from one entry to another changes its date, so the
+     * trade's totals are discarded.
+     */
+    public void setJournalEntry(JournalEntry journalEntry) {
+        if (this.journalEntry != null && this.journalEntry != journalEntry) {
+            invalidateTradeAggregate();
+        }
+        this.journalEntry = journalEntry;
+    }
+
+    /**
+     * Returns a read-only view of the sales; add them with {@link #addExecutedSale(ExecutedSale)}.
+     */
+    public Set<ExecutedSale> getExecutedSales() {
+        return Collections.unmodifiableSet(executedSales);
+    }
+
+    /**
+     * Replaces all sales of this snapshot and discards the trade's cached totals.
+     */
+    public void setExecutedSales(Set<ExecutedSale> executedSales) {
+        this.executedSales = executedSales;
+        invalidateTradeAggregate();
+    }
+
+    /**
+     * Discards the cached totals of the owning trade. A trade that has not been loaded has none.
+     */
+    private void invalidateTradeAggregate() {
+        if (trade != null && Hibernate.isInitialized(trade)) {
+            trade.invalidateAggregate();
+        }
+    }
+
+    /**
+     * Snapshots are compared by identity.
+     * <p>
+     * Two snapshots with the same values may belong to different trades or days, and hashing over
+     * associations would force lazy proxies and collections to load whenever a snapshot is put into a set.
+     * </p>
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    /**
+     * Adds an {@link ExecutedSale} to this snapshot and sets the back-reference.
+     * Keeps the owning trade's running totals up to date.
+     */
+    public void addExecutedSale(ExecutedSale sale) {
+        if (sale != null) {
+            if (sale.getTradeSnapshot() != null && sale.getTradeSnapshot() != this) {
+                throw new IllegalStateException("Sale already belongs to another snapshot");
+            }
+            sale.setTradeSnapshot(this);
+            if (executedSales.add(sale) && trade != null) {
+                trade.registerSale(sale);
+            }
+        }
+    }
 }
@@ -6,13 +6,14 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import se.pbt.model.Trade;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Currency;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -25,8 +26,18 @@ import java.util.Set;
  * While each trade is built around a single asset, an asset has no independent role in the system
  * outside the context of a trade.
  * </p>
+ * <p>
+ * Assets are unique by ISIN and by ticker, and are read-mostly, so they are kept in Hibernate's
+ * second-level cache together with their sectors and industries.
+ * </p>
  */
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_asset_isin", columnNames = "isin"),
+        @UniqueConstraint(name = "uk_asset_ticker", columnNames = "ticker")
+}, indexes = @Index(name = "idx_asset_isin", columnList = "isin"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,7 +45,8 @@ import java.util.Set;
 public class Asset {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asset_seq")
+    @SequenceGenerator(name = "asset_seq", sequenceName = "asset_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -110,14 +122,16 @@ public class Asset {
      */
     @NotEmpty(message = "At least 1 Sector is required")
     @ElementCollection
-    private List< Sector> sectors;
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private Set<Sector> sectors;
 
     /**
      * Industries the asset is associated with (e.g., Semiconductors).
      */
     @NotEmpty(message = "At least 1 Industry is required")
     @ElementCollection
-    private List<Industry> industries;
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private Set<Industry> industries;
 
     /**
      * Timestamp of the last update to the asset information.
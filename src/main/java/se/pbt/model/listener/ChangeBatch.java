@@ -0,0 +1,153 @@
+package se.pbt.model.listener;
+
+import se.pbt.model.listener.ChangeEvent.Kind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of {@link ChangeEvent}s collapsed to at most one event per entity.
+ * <p>
+ * When the same entity changes several times, only the net effect is kept: created then updated is still
+ * created, updated then removed is removed, and created then removed leaves no event at all.
+ * </p>
+ */
+public final class ChangeBatch {
+
+    private static final ChangeBatch EMPTY = new ChangeBatch(Map.of());
+
+    private final Map<EntityKey, Kind> changes;
+
+    private ChangeBatch(Map<EntityKey, Kind> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Returns a batch holding the net effect of the given events, applied in order.
+     */
+    public static ChangeBatch of(Collection<ChangeEvent> events) {
+        Accumulator accumulator = new Accumulator();
+        events.forEach(accumulator::add);
+        return accumulator.drain();
+    }
+
+    public static ChangeBatch empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the events in the order their entities first changed.
+     */
+    public List<ChangeEvent> events() {
+        List<ChangeEvent> events = new ArrayList<>(changes.size());
+        changes.forEach((key, kind) -> events.add(new ChangeEvent(key.type(), key.id(), kind)));
+        return events;
+    }
+
+    /**
+     * Returns {@code true} if any entity of the given type changed.
+     */
+    public boolean affects(Class<?> type) {
+        return changes.keySet().stream().anyMatch(key -> key.type() == type);
+    }
+
+    /**
+     * Returns the IDs of the entities of the given type that changed in any way.
+     */
+    public Set<Long> ids(Class<?> type) {
+        Set<Long> ids = new HashSet<>();
+        changes.keySet().forEach(key -> {
+            if (key.type() == type) {
+                ids.add(key.id());
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Returns the IDs of the entities of the given type whose net change is {@code kind}.
+     */
+    public Set<Long> ids(Class<?> type, Kind kind) {
+        Set<Long> ids = new HashSet<>();
+        changes.forEach((key, change) -> {
+            if (key.type() == type && change == kind) {
+                ids.add(key.id());
+            }
+        });
+        return ids;
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeBatch" + events();
+    }
+
+    /**
+     * Returns the net change of {@code previous} followed by {@code next}, or {@code null} if they cancel out.
+     */
+    static Kind combine(Kind previous, Kind next) {
+        return switch (previous) {
+            case CREATED -> switch (next) {
+                case CREATED, UPDATED -> Kind.CREATED;
+                case REMOVED -> null;
+            };
+            case UPDATED -> next == Kind.CREATED ? Kind.UPDATED : next;
+            case REMOVED -> next == Kind.REMOVED ? Kind.REMOVED : Kind.UPDATED;
+        };
+    }
+
+    private record EntityKey(Class<?> type, Long id) {}
+
+    /**
+     * Mutable collector of events that is drained into batches. Not thread-safe.
+     */
+    static final class Accumulator {
+
+        private Map<EntityKey, Kind> changes = new LinkedHashMap<>();
+
+        void add(ChangeEvent event) {
+            EntityKey key = new EntityKey(event.type(), event.id());
+            Kind previous = changes.get(key);
+            Kind combined = previous == null ? event.kind() : combine(previous, event.kind());
+            if (combined == null) {
+                changes.remove(key);
+            } else {
+                changes.put(key, combined);
+            }
+        }
+
+        void addAll(ChangeBatch batch) {
+            batch.changes.forEach((key, kind) -> add(new ChangeEvent(key.type(), key.id(), kind)));
+        }
+
+        boolean isEmpty() {
+            return changes.isEmpty();
+        }
+
+        /**
+         * Returns the collected changes as a batch and starts over with an empty collection.
+         */
+        ChangeBatch drain() {
+            if (changes.isEmpty()) {
+                return EMPTY;
+            }
+            ChangeBatch batch = new ChangeBatch(Collections.unmodifiableMap(changes));
+            changes = new LinkedHashMap<>();
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package se.pbt.model.listener;
+
+import java.util.Objects;
+
+/**
+ * Describes a committed change to one persisted entity, such as a {@link se.pbt.model.JournalEntry},
+ * {@link se.pbt.model.Trade}, {@link se.pbt.model.TradeSnapshot} or {@link se.pbt.model.ExecutedSale}.
+ * <p>
+ * Events carry the entity type and ID rather than the entity itself, so they can be handed between threads
+ * without sharing entity instances. Subscribers reload what they need.
+ * </p>
+ *
+ * @param type the entity class
+ * @param id   the entity's ID
+ * @param kind what happened to the entity
+ */
+public record ChangeEvent(Class<?> type, Long id, Kind kind) {
+
+    public enum Kind { CREATED, UPDATED, REMOVED }
+
+    public ChangeEvent {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(kind, "kind");
+    }
+
+    public static ChangeEvent created(Class<?> type, Long id) {
+        return new ChangeEvent(type, id, Kind.CREATED);
+    }
+
+    public static ChangeEvent updated(Class<?> type, Long id) {
+        return new ChangeEvent(type, id, Kind.UPDATED);
+    }
+
+    public static ChangeEvent removed(Class<?> type, Long id) {
+        return new ChangeEvent(type, id, Kind.REMOVED);
+    }
+}
@@ -0,0 +1,199 @@
+package se.pbt.model.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers committed {@link ChangeEvent}s to subscribers as coalesced {@link ChangeBatch}es.
+ * <p>
+ * Events published within one frame, 16 ms by default, are collapsed into a single batch, so a bulk import
+ * or a day with many sales causes one notification instead of thousands. Each subscriber names the
+ * {@link Executor} its listener runs on: {@code Platform::runLater} for the JavaFX application thread, or
+ * a background executor for caches and reports.
+ * </p>
+ * <p>
+ * Publishing never waits for a subscriber. A subscriber has at most one batch being delivered at a time;
+ * changes that arrive meanwhile are merged into its next batch, so a slow subscriber receives fewer,
+ * larger batches rather than a growing queue.
+ * </p>
+ * <p>
+ * All methods are thread-safe.
+ * </p>
+ */
+public class ChangeEventBus implements AutoCloseable {
+
+    /**
+     * A registered listener. Closing it stops further deliveries; a delivery already running completes.
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static final Duration DEFAULT_FRAME = Duration.ofMillis(16);
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeEventBus.class);
+
+    private final long frameNanos;
+    private final ScheduledExecutorService scheduler;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private final ChangeBatch.Accumulator pending = new ChangeBatch.Accumulator();
+    private boolean flushScheduled;
+    private boolean closed;
+
+    /**
+     * Constructs a bus that delivers at most one batch per {@link #DEFAULT_FRAME}.
+     */
+    public ChangeEventBus() {
+        this(DEFAULT_FRAME);
+    }
+
+    /**
+     * Constructs a bus that collects the events published within {@code frame} into one batch.
+     */
+    public ChangeEventBus(Duration frame) {
+        if (frame.isNegative()) {
+            throw new IllegalArgumentException("Frame must not be negative");
+        }
+        this.frameNanos = frame.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Publishes one change. It is delivered with the rest of the current frame's changes.
+     */
+    public void publish(ChangeEvent event) {
+        publish(List.of(event));
+    }
+
+    /**
+     * Publishes several changes, in order. They are delivered with the rest of the current frame's changes.
+     */
+    public void publish(Collection<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            events.forEach(pending::add);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        scheduler.schedule(this::flush, frameNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers a listener that is called on {@code executor} with each batch of changes.
+     * Exceptions thrown by the listener are logged and do not affect later deliveries.
+     */
+    public Subscription subscribe(ChangeListener<ChangeBatch> listener, Executor executor) {
+        Subscriber subscriber = new Subscriber(listener, executor);
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    /**
+     * Stops the bus. Changes that have not been delivered yet are dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        scheduler.shutdownNow();
+        subscribers.clear();
+    }
+
+    private void flush() {
+        ChangeBatch batch;
+        synchronized (this) {
+            flushScheduled = false;
+            batch = pending.drain();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(batch);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final ChangeListener<ChangeBatch> listener;
+        private final Executor executor;
+
+        // Guarded by this
+        private final ChangeBatch.Accumulator undelivered = new ChangeBatch.Accumulator();
+        private boolean delivering;
+
+        Subscriber(ChangeListener<ChangeBatch> listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void offer(ChangeBatch batch) {
+            synchronized (this) {
+                undelivered.addAll(batch);
+                if (delivering) {
+                    return;
+                }
+                delivering = true;
+            }
+            dispatch();
+        }
+
+        private void dispatch() {
+            try {
+                executor.execute(this::deliver);
+            } catch (RejectedExecutionException e) {
+                log.warn("Dropping change notifications for a listener whose executor rejected them", e);
+                synchronized (this) {
+                    undelivered.drain();
+                    delivering = false;
+                }
+            }
+        }
+
+        private void deliver() {
+            ChangeBatch batch;
+            synchronized (this) {
+                batch = undelivered.drain();
+            }
+            try {
+                if (!batch.isEmpty() && subscribers.contains(this)) {
+                    listener.onChanged(batch);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Change listener failed", e);
+            }
+            synchronized (this) {
+                if (undelivered.isEmpty()) {
+                    delivering = false;
+                    return;
+                }
+            }
+            dispatch();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package se.pbt.price;
+
+import java.math.BigDecimal;
+
+/**
+ * The open and close price of an asset on one day, in the asset's currency.
+ */
+public record DailyPrice(BigDecimal open, BigDecimal close) {}
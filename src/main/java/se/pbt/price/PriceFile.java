@@ -0,0 +1,87 @@
+package se.pbt.price;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The prices of one day read from a local CSV file, for filling in the snapshots of that day.
+ * <p>
+ * Expected format: a header row {@code date,symbol,open,close} followed by one row per asset and day, where
+ * {@code symbol} is a ticker or an ISIN. The file may hold several days; only the rows of the requested date
+ * are kept.
+ * </p>
+ */
+public final class PriceFile implements PriceSource {
+
+    private static final String HEADER = "date,symbol,open,close";
+
+    private final LocalDate date;
+    private final Map<String, DailyPrice> prices;
+
+    private PriceFile(LocalDate date, Map<String, DailyPrice> prices) {
+        this.date = date;
+        this.prices = prices;
+    }
+
+    /**
+     * Reads the prices of {@code date} from a CSV file.
+     *
+     * @throws IllegalArgumentException if the header or a row of that date cannot be parsed, naming the line number
+     */
+    public static PriceFile load(Path file, LocalDate date) throws IOException {
+        Map<String, DailyPrice> prices = new HashMap<>();
+        String day = date.toString();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null || !header.strip().equalsIgnoreCase(HEADER)) {
+                throw new IllegalArgumentException("Unexpected header in " + file + ", expected: " + HEADER);
+            }
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || !line.startsWith(day)) {
+                    continue;
+                }
+                String[] row = line.split(",", -1);
+                try {
+                    if (row.length != 4) {
+                        throw new IllegalArgumentException("expected 4 columns, got " + row.length);
+                    }
+                    if (LocalDate.parse(row[0].strip()).equals(date)) {
+                        prices.put(row[1].strip(),
+                                new DailyPrice(new BigDecimal(row[2].strip()), new BigDecimal(row[3].strip())));
+                    }
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid row at line " + lineNumber + " of " + file + ": "
+                            + e.getMessage(), e);
+                }
+            }
+        }
+        return new PriceFile(date, prices);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the date the file was loaded for has prices.
+     */
+    @Override
+    public Optional<DailyPrice> find(String symbol, LocalDate date) {
+        return this.date.equals(date) ? Optional.ofNullable(prices.get(symbol)) : Optional.empty();
+    }
+
+    /**
+     * Returns the number of assets with prices.
+     */
+    public int size() {
+        return prices.size();
+    }
+}
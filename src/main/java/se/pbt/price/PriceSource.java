@@ -0,0 +1,16 @@
+package se.pbt.price;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Looks up the daily prices of assets by ticker or ISIN.
+ */
+@FunctionalInterface
+public interface PriceSource {
+
+    /**
+     * Returns the prices of the asset with the given ticker or ISIN on a date, if there are any.
+     */
+    Optional<DailyPrice> find(String symbol, LocalDate date);
+}
@@ -0,0 +1,71 @@
+package se.pbt.report;
+
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+
+import java.io.PrintWriter;
+import java.util.Comparator;
+import java.util.List;
+
+import static se.pbt.report.ReportFormat.csv;
+import static se.pbt.report.ReportFormat.plain;
+
+/**
+ * Exports journal entries as CSV, one row per trade snapshot, written as the entries are streamed.
+ * <p>
+ * Entries without snapshots get a single row with empty trade columns so that their cash and text are kept.
+ * Sales on a snapshot are summed into {@code sold_quantity} and {@code sale_net_gain}. Text columns are quoted
+ * where needed.
+ * </p>
+ */
+public class EntryExportReport implements JournalReport {
+
+    static final String HEADER = "date,entry_id,available_cash,invested_capital,trade_id,isin,ticker,quantity,"
+            + "entry_price,remaining_quantity,open_price,close_price,sold_quantity,sale_net_gain,notes,entry_text";
+
+    private static final Comparator<TradeSnapshot> BY_TRADE = Comparator.comparing(s -> s.getTrade().getId());
+
+    @Override
+    public void begin(PrintWriter out) {
+        out.println(HEADER);
+    }
+
+    @Override
+    public void accept(JournalEntry entry, PrintWriter out) {
+        String entryColumns = entry.getDate() + "," + entry.getId() + ","
+                + plain(entry.getAvailableCash()) + "," + plain(entry.getInvestedCapital());
+        String entryText = csv(entry.getEntryText());
+
+        List<TradeSnapshot> snapshots = entry.getTradeSnapshots().stream().sorted(BY_TRADE).toList();
+        if (snapshots.isEmpty()) {
+            out.println(entryColumns + ",,,,,,,,,,,," + entryText);
+            return;
+        }
+        for (TradeSnapshot snapshot : snapshots) {
+            Trade trade = snapshot.getTrade();
+            int soldQuantity = 0;
+            long saleNetGain = 0;
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                soldQuantity += sale.getQuantitySold();
+                saleNetGain = Math.addExact(saleNetGain, sale.getNetGain().units());
+            }
+            out.println(String.join(",",
+                    entryColumns,
+                    String.valueOf(trade.getId()),
+                    csv(trade.getAsset().getIsin()),
+                    csv(trade.getAsset().getTicker()),
+                    String.valueOf(trade.getQuantity()),
+                    plain(trade.getEntryPrice()),
+                    String.valueOf(snapshot.getRemainingQuantity()),
+                    plain(snapshot.getOpenPrice()),
+                    plain(snapshot.getClosePrice()),
+                    String.valueOf(soldQuantity),
+                    plain(Money.ofUnits(saleNetGain)),
+                    csv(snapshot.getNotes()),
+                    entryText));
+        }
+    }
+}
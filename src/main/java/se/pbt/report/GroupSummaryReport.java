@@ -0,0 +1,80 @@
+package se.pbt.report;
+
+import se.pbt.model.JournalEntry;
+
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static se.pbt.report.ReportFormat.money;
+
+/**
+ * Prints trade counts and P&L grouped by a {@link SummaryDimension} of the traded assets.
+ * <p>
+ * Per-trade totals are accumulated while entries are streamed and grouped once the stream ends.
+ * Trades in assets with several sectors or industries count towards each group, so those group
+ * totals can add up to more than the overall total.
+ * </p>
+ */
+public class GroupSummaryReport implements JournalReport {
+
+    private static final String ROW = "%-28s  %7s  %7s  %14s  %14s  %14s  %8s%n";
+
+    private final SummaryDimension dimension;
+    private final TradeLedger ledger = new TradeLedger();
+
+    public GroupSummaryReport(SummaryDimension dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public void begin(PrintWriter out) {
+        out.printf(ROW, dimension.name().toLowerCase(), "trades", "open", "invested", "realized", "net", "net %");
+    }
+
+    @Override
+    public void accept(JournalEntry entry, PrintWriter out) {
+        ledger.add(entry);
+    }
+
+    @Override
+    public void finish(PrintWriter out) {
+        Map<String, GroupTotals> groups = new TreeMap<>();
+        for (TradeTotals trade : ledger.unordered()) {
+            for (String key : dimension.keysOf(trade.asset())) {
+                groups.computeIfAbsent(key, k -> new GroupTotals()).add(trade);
+            }
+        }
+        groups.forEach((key, totals) -> out.printf(ROW, key, totals.trades, totals.open, money(totals.invested),
+                money(totals.realized), money(totals.net), totals.netPercentage()));
+    }
+
+    private static final class GroupTotals {
+        private int trades;
+        private int open;
+        private BigDecimal invested = BigDecimal.ZERO;
+        private BigDecimal realized = BigDecimal.ZERO;
+        private BigDecimal net = BigDecimal.ZERO;
+
+        void add(TradeTotals trade) {
+            trades++;
+            if (trade.remainingQuantity() > 0) {
+                open++;
+            }
+            invested = invested.add(trade.initialInvestment());
+            realized = realized.add(trade.realizedProceeds());
+            net = net.add(trade.netGain());
+        }
+
+        String netPercentage() {
+            if (invested.compareTo(BigDecimal.ZERO) == 0) {
+                return "0.00";
+            }
+            return net.multiply(BigDecimal.valueOf(100))
+                    .divide(invested, 2, RoundingMode.HALF_UP)
+                    .toPlainString();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package se.pbt.report;
+
+import se.pbt.model.JournalEntry;
+
+import java.io.PrintWriter;
+
+/**
+ * A report computed in a single pass over a stream of {@link JournalEntry} records.
+ * <p>
+ * Entries are handed over one at a time and are not retained by the caller, so implementations
+ * keep running totals rather than the entries themselves. Output can be written as entries arrive
+ * or once all of them have been seen.
+ * </p>
+ */
+public interface JournalReport {
+
+    /**
+     * Called once before the first entry, for example to write a header.
+     */
+    default void begin(PrintWriter out) {
+    }
+
+    /**
+     * Called once for every entry in the stream.
+     */
+    void accept(JournalEntry entry, PrintWriter out);
+
+    /**
+     * Called once after the last entry.
+     */
+    default void finish(PrintWriter out) {
+    }
+}
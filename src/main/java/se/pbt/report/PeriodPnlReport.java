@@ -0,0 +1,101 @@
+package se.pbt.report;
+
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static se.pbt.report.ReportFormat.money;
+
+/**
+ * Prints P&L per day, week, month or year, oldest period first.
+ * <p>
+ * For each period:
+ * </p>
+ * <ul>
+ *     <li><b>realized</b> is the net gain of every sale executed in the period minus the cost of the units
+ *     sold, where the cost per unit is the trade's entry price plus its share of the buy fee.</li>
+ *     <li><b>unrealized</b> is the intraday price move on units still held,
+ *     {@code (close - open) × remaining quantity}, summed over the period's snapshots.</li>
+ * </ul>
+ * <p>
+ * Every value is derived from a single snapshot, so the report needs no trade history and holds one
+ * running total per period.
+ * </p>
+ */
+public class PeriodPnlReport implements JournalReport {
+
+    private static final String ROW = "%-10s  %9s  %6s  %14s  %14s  %14s%n";
+
+    private final ReportPeriod period;
+    private final Map<LocalDate, PeriodTotals> periods = new TreeMap<>();
+
+    public PeriodPnlReport(ReportPeriod period) {
+        this.period = period;
+    }
+
+    @Override
+    public void begin(PrintWriter out) {
+        out.printf(ROW, period.name().toLowerCase(), "snapshots", "sales", "realized", "unrealized", "total");
+    }
+
+    @Override
+    public void accept(JournalEntry entry, PrintWriter out) {
+        PeriodTotals totals = periods.computeIfAbsent(period.start(entry.getDate()), start -> new PeriodTotals());
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            totals.snapshots++;
+            if (snapshot.getClosePrice() != null && snapshot.getOpenPrice() != null) {
+                totals.unrealized = totals.unrealized.add(snapshot.getClosePrice()
+                        .subtract(snapshot.getOpenPrice())
+                        .multiply(BigDecimal.valueOf(snapshot.getRemainingQuantity())));
+            }
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                totals.sales++;
+                totals.realized = totals.realized.add(sale.getNetGain().toBigDecimal()
+                        .subtract(costOfUnitsSold(snapshot.getTrade(), sale.getQuantitySold())));
+            }
+        }
+    }
+
+    @Override
+    public void finish(PrintWriter out) {
+        PeriodTotals sum = new PeriodTotals();
+        periods.forEach((start, totals) -> {
+            print(out, start.toString(), totals);
+            sum.snapshots += totals.snapshots;
+            sum.sales += totals.sales;
+            sum.realized = sum.realized.add(totals.realized);
+            sum.unrealized = sum.unrealized.add(totals.unrealized);
+        });
+        print(out, "total", sum);
+    }
+
+    private static void print(PrintWriter out, String label, PeriodTotals totals) {
+        out.printf(ROW, label, totals.snapshots, totals.sales, money(totals.realized),
+                money(totals.unrealized), money(totals.realized.add(totals.unrealized)));
+    }
+
+    /**
+     * The share of the trade's initial investment, including the buy fee, attributable to {@code units}.
+     */
+    private static BigDecimal costOfUnitsSold(Trade trade, int units) {
+        BigDecimal perUnitFee = trade.getBuyFee().divide(BigDecimal.valueOf(trade.getQuantity()), 8, RoundingMode.HALF_UP);
+        return trade.getEntryPrice().add(perUnitFee)
+                .multiply(BigDecimal.valueOf(units))
+                .setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static final class PeriodTotals {
+        private long snapshots;
+        private long sales;
+        private BigDecimal realized = BigDecimal.ZERO;
+        private BigDecimal unrealized = BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,60 @@
+package se.pbt.report;
+
+import se.pbt.model.JournalEntry;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Runs a {@link JournalReport} over a stream of journal entries.
+ * <p>
+ * The stream is consumed lazily and closed when the report is done, so a stream backed by paged
+ * repository queries is read in constant memory regardless of how long the history is.
+ * </p>
+ */
+public final class ReportEngine {
+
+    /**
+     * Feeds every entry of {@code entries} to {@code report} and flushes {@code out} when done.
+     * The header written by {@link JournalReport#begin(PrintWriter)} is flushed before the first
+     * entry is read, so output starts as early as possible.
+     */
+    public static ReportStats run(Stream<JournalEntry> entries, JournalReport report, PrintWriter out) {
+        long start = System.nanoTime();
+        try (entries) {
+            report.begin(out);
+            out.flush();
+
+            long count = 0;
+            Duration firstEntry = null;
+            Iterator<JournalEntry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                JournalEntry entry = iterator.next();
+                if (firstEntry == null) {
+                    firstEntry = Duration.ofNanos(System.nanoTime() - start);
+                }
+                report.accept(entry, out);
+                count++;
+            }
+
+            report.finish(out);
+            out.flush();
+            return new ReportStats(count, firstEntry, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Summary of a finished report run.
+     *
+     * @param entries    number of journal entries read
+     * @param firstEntry time until the first entry was available, or {@code null} if there were none
+     * @param elapsed    wall-clock time spent on the whole run
+     */
+    public record ReportStats(long entries, Duration firstEntry, Duration elapsed) {
+    }
+
+    // Prevent instantiation
+    private ReportEngine() {}
+}
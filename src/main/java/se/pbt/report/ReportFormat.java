@@ -0,0 +1,49 @@
+package se.pbt.report;
+
+import se.pbt.model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Formatting helpers shared by the reports.
+ */
+final class ReportFormat {
+
+    /**
+     * Formats an amount with two decimals, without grouping or exponent.
+     */
+    static String money(BigDecimal amount) {
+        return amount == null ? "" : amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    /**
+     * Formats a decimal as is, or an empty string for {@code null}.
+     */
+    static String plain(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    /**
+     * Formats an amount as {@link Money#toString()} does, or an empty string for {@code null}.
+     */
+    static String plain(Money value) {
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * Quotes a CSV field if it contains a separator, a quote or a line break.
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Prevent instantiation
+    private ReportFormat() {}
+}
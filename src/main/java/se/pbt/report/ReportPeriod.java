@@ -0,0 +1,29 @@
+package se.pbt.report;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The length of the periods that {@link PeriodPnlReport} groups results into.
+ */
+public enum ReportPeriod {
+
+    DAY,
+    /** ISO weeks, starting on Monday. */
+    WEEK,
+    MONTH,
+    YEAR;
+
+    /**
+     * Returns the first day of the period containing {@code date}.
+     */
+    public LocalDate start(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+    }
+}
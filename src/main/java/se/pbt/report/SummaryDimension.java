@@ -0,0 +1,34 @@
+package se.pbt.report;
+
+import se.pbt.model.asset.Asset;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An asset attribute that {@link GroupSummaryReport} can group trades by.
+ * <p>
+ * Assets can belong to several sectors and industries, in which case the trade counts towards each of them.
+ * </p>
+ */
+public enum SummaryDimension {
+
+    SECTOR(asset -> asset.getSectors().stream().map(Enum::name).toList()),
+    INDUSTRY(asset -> asset.getIndustries().stream().map(Enum::name).toList()),
+    ASSET_CLASS(asset -> List.of(asset.getAssetClass().name())),
+    EXCHANGE(asset -> List.of(asset.getExchange().name()));
+
+    private final Function<Asset, Collection<String>> keys;
+
+    SummaryDimension(Function<Asset, Collection<String>> keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Returns the groups the given asset belongs to in this dimension.
+     */
+    public Collection<String> keysOf(Asset asset) {
+        return keys.apply(asset);
+    }
+}
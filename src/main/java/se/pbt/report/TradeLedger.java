@@ -0,0 +1,41 @@
+package se.pbt.report;
+
+import se.pbt.model.JournalEntry;
+import se.pbt.model.TradeSnapshot;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects {@link TradeTotals} for every trade seen in a stream of journal entries.
+ * <p>
+ * Memory grows with the number of distinct trades, not with the number of entries or snapshots.
+ * </p>
+ */
+final class TradeLedger {
+
+    private final Map<Long, TradeTotals> trades = new HashMap<>();
+
+    void add(JournalEntry entry) {
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            trades.computeIfAbsent(snapshot.getTrade().getId(), id -> new TradeTotals(snapshot.getTrade()))
+                    .add(entry.getDate(), snapshot);
+        }
+    }
+
+    /**
+     * All trades seen so far, ordered by the date they were opened and then by ID.
+     */
+    List<TradeTotals> trades() {
+        return trades.values().stream()
+                .sorted(Comparator.comparing(TradeTotals::openedOn).thenComparing(TradeTotals::tradeId))
+                .toList();
+    }
+
+    Collection<TradeTotals> unordered() {
+        return trades.values();
+    }
+}
@@ -0,0 +1,54 @@
+package se.pbt.report;
+
+import se.pbt.model.JournalEntry;
+
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+
+import static se.pbt.report.ReportFormat.money;
+
+/**
+ * Prints realized, unrealized and net P&L for every trade, ordered by the date the trade was opened.
+ * <p>
+ * Totals are accumulated per trade while entries are streamed and printed once the stream ends.
+ * </p>
+ */
+public class TradePnlReport implements JournalReport {
+
+    private static final String ROW = "%8s  %-14s  %-10s  %-10s  %8s  %8s  %14s  %14s  %14s  %14s  %8s%n";
+
+    private final TradeLedger ledger = new TradeLedger();
+
+    @Override
+    public void begin(PrintWriter out) {
+        out.printf(ROW, "trade", "ticker", "opened", "last", "quantity", "held",
+                "invested", "realized", "market", "net", "net %");
+    }
+
+    @Override
+    public void accept(JournalEntry entry, PrintWriter out) {
+        ledger.add(entry);
+    }
+
+    @Override
+    public void finish(PrintWriter out) {
+        BigDecimal invested = BigDecimal.ZERO;
+        BigDecimal realized = BigDecimal.ZERO;
+        BigDecimal market = BigDecimal.ZERO;
+        BigDecimal net = BigDecimal.ZERO;
+        int count = 0;
+        for (TradeTotals trade : ledger.trades()) {
+            out.printf(ROW, trade.tradeId(), trade.asset().getTicker(), trade.openedOn(), trade.lastSeenOn(),
+                    trade.quantity(), trade.remainingQuantity(), money(trade.initialInvestment()),
+                    money(trade.realizedProceeds()), money(trade.marketValue()), money(trade.netGain()),
+                    trade.netGainPercentage().toPlainString());
+            invested = invested.add(trade.initialInvestment());
+            realized = realized.add(trade.realizedProceeds());
+            market = market.add(trade.marketValue());
+            net = net.add(trade.netGain());
+            count++;
+        }
+        out.printf(ROW, "total", count + " trades", "", "", "", "",
+                money(invested), money(realized), money(market), money(net), "");
+    }
+}
@@ -0,0 +1,126 @@
+package se.pbt.report;
+
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.asset.Asset;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Running P&L totals for one {@link Trade}, built from its snapshots as they are streamed.
+ * <p>
+ * Unlike {@link Trade#calculateNetGain()}, this does not need the trade's snapshot history to be loaded:
+ * every snapshot is seen once, as part of the journal entry it belongs to. The market value is taken from
+ * the snapshot with the latest date.
+ * </p>
+ */
+final class TradeTotals {
+
+    private final long tradeId;
+    private final Asset asset;
+    private final int quantity;
+    private final BigDecimal initialInvestment;
+
+    private long realizedProceeds;
+    private int salesCount;
+    private LocalDate openedOn;
+    private LocalDate lastSeenOn;
+    private int remainingQuantity;
+    private BigDecimal latestClosePrice;
+
+    TradeTotals(Trade trade) {
+        this.tradeId = trade.getId();
+        this.asset = trade.getAsset();
+        this.quantity = trade.getQuantity();
+        this.initialInvestment = trade.getEntryPrice()
+                .multiply(BigDecimal.valueOf(trade.getQuantity()))
+                .add(trade.getBuyFee());
+    }
+
+    /**
+     * Includes one dated snapshot of the trade together with its sales.
+     */
+    void add(LocalDate date, TradeSnapshot snapshot) {
+        if (openedOn == null || date.isBefore(openedOn)) {
+            openedOn = date;
+        }
+        if (lastSeenOn == null || !date.isBefore(lastSeenOn)) {
+            lastSeenOn = date;
+            remainingQuantity = snapshot.getRemainingQuantity();
+            latestClosePrice = snapshot.getClosePrice();
+        }
+        for (ExecutedSale sale : snapshot.getExecutedSales()) {
+            realizedProceeds = Math.addExact(realizedProceeds, sale.getNetGain().units());
+            salesCount++;
+        }
+    }
+
+    long tradeId() {
+        return tradeId;
+    }
+
+    Asset asset() {
+        return asset;
+    }
+
+    int quantity() {
+        return quantity;
+    }
+
+    int remainingQuantity() {
+        return remainingQuantity;
+    }
+
+    int salesCount() {
+        return salesCount;
+    }
+
+    LocalDate openedOn() {
+        return openedOn;
+    }
+
+    LocalDate lastSeenOn() {
+        return lastSeenOn;
+    }
+
+    BigDecimal initialInvestment() {
+        return initialInvestment;
+    }
+
+    BigDecimal realizedProceeds() {
+        return BigDecimal.valueOf(realizedProceeds, Money.SCALE);
+    }
+
+    /**
+     * The value of the units still held, at the close price of the latest snapshot.
+     */
+    BigDecimal marketValue() {
+        return latestClosePrice == null
+                ? BigDecimal.ZERO
+                : latestClosePrice.multiply(BigDecimal.valueOf(remainingQuantity));
+    }
+
+    /**
+     * Sale proceeds plus market value, minus the initial investment including the buy fee.
+     */
+    BigDecimal netGain() {
+        return realizedProceeds().add(marketValue()).subtract(initialInvestment);
+    }
+
+    /**
+     * Net gain relative to the initial investment, in percent with two decimals.
+     */
+    BigDecimal netGainPercentage() {
+        if (initialInvestment.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO;
+        }
+        return netGain()
+                .divide(initialInvestment, 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,170 @@
+package se.pbt.repository;
+
+import se.pbt.model.asset.Asset;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, least-recently-used cache of {@link Asset} reference data keyed by ISIN and ticker.
+ * <p>
+ * Cached assets are detached entities with their sectors and industries loaded. They are shared
+ * between callers and must be treated as read-only.
+ * </p>
+ * <p>
+ * ISINs that were looked up and not found are remembered too, in a second map of the same size, so that
+ * looking up a new instrument again does not reach the database either. Such a negative entry is dropped
+ * when the asset is {@link #put(Asset) put} or {@link #evictMissing(Collection) evicted} after being stored.
+ * </p>
+ * <p>
+ * All methods are thread-safe.
+ * </p>
+ */
+public class AssetCache {
+
+    /**
+     * Snapshot of the cache's counters.
+     *
+     * @param hits      lookups answered from the cache, including ISINs known to be missing
+     * @param misses    lookups that had to go to the database
+     * @param evictions entries dropped to stay within the size limit
+     * @param size      current number of cached assets
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        /**
+         * Returns the share of lookups answered from the cache, between 0 and 1.
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private final Map<String, Asset> byIsin;
+    private final Map<String, String> isinByTicker = new HashMap<>();
+    private final Map<String, Boolean> missingIsins;
+    // Bumped by every put and eviction, so a lookup that raced with one does not record a stale miss
+    private long writes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AssetCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be greater than 0");
+        }
+        this.byIsin = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Asset> eldest) {
+                if (size() > maxSize) {
+                    isinByTicker.remove(eldest.getValue().getTicker());
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.missingIsins = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up an asset by ISIN, counting a hit or a miss.
+     */
+    public synchronized Optional<Asset> getByIsin(String isin) {
+        return record(byIsin.get(isin));
+    }
+
+    /**
+     * Looks up an asset by ISIN, calling {@code loader} on a miss. A loaded asset is cached, and an ISIN
+     * the loader did not find is remembered as missing. The loader runs without holding the cache's lock.
+     */
+    public Optional<Asset> getByIsin(String isin, Function<String, Optional<Asset>> loader) {
+        long writesBefore;
+        synchronized (this) {
+            Asset asset = byIsin.get(isin);
+            if (asset != null || missingIsins.get(isin) != null) {
+                hits.increment();
+                return Optional.ofNullable(asset);
+            }
+            misses.increment();
+            writesBefore = writes;
+        }
+        Optional<Asset> loaded = loader.apply(isin);
+        synchronized (this) {
+            if (loaded.isPresent()) {
+                put(loaded.get());
+            } else if (writes == writesBefore) {
+                missingIsins.put(isin, Boolean.TRUE);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Looks up an asset by ticker, counting a hit or a miss.
+     */
+    public synchronized Optional<Asset> getByTicker(String ticker) {
+        String isin = isinByTicker.get(ticker);
+        return record(isin != null ? byIsin.get(isin) : null);
+    }
+
+    /**
+     * Adds or replaces an asset, evicting the least recently used one if the cache is full.
+     */
+    public synchronized void put(Asset asset) {
+        Asset previous = byIsin.put(asset.getIsin(), asset);
+        if (previous != null) {
+            isinByTicker.remove(previous.getTicker());
+        }
+        isinByTicker.put(asset.getTicker(), asset.getIsin());
+        missingIsins.remove(asset.getIsin());
+        writes++;
+    }
+
+    /**
+     * Forgets that the given ISINs were not found, after assets with them have been stored.
+     */
+    public synchronized void evictMissing(Collection<String> isins) {
+        missingIsins.keySet().removeAll(isins);
+        writes++;
+    }
+
+    /**
+     * Drops all cached assets and missing ISINs. Counters are kept.
+     */
+    public synchronized void clear() {
+        byIsin.clear();
+        isinByTicker.clear();
+        missingIsins.clear();
+        writes++;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), byIsin.size());
+    }
+
+    private Optional<Asset> record(Asset asset) {
+        if (asset != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return Optional.ofNullable(asset);
+    }
+}
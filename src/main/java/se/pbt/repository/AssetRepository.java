@@ -0,0 +1,42 @@
+package se.pbt.repository;
+
+import se.pbt.model.asset.Asset;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Interface for looking up and storing shared {@link Asset} reference data.
+ * <p>
+ * Assets are unique by ISIN and by ticker, and are shared between all trades in the same instrument.
+ * </p>
+ */
+public interface AssetRepository {
+
+    /**
+     * Saves a new {@link Asset} to the database.
+     */
+    void save(Asset asset);
+
+    /**
+     * Retrieves an {@link Asset} by its ISIN, with sectors and industries loaded.
+     */
+    Optional<Asset> findByIsin(String isin);
+
+    /**
+     * Tells the repository that assets with the given ISINs were stored other than through {@link #save(Asset)},
+     * for example by cascade from a journal entry, so that lookups no longer report them as missing.
+     * Call it once the transaction that stored them has committed.
+     */
+    void evictMissing(Collection<String> isins);
+
+    /**
+     * Retrieves an {@link Asset} by its ticker, with sectors and industries loaded.
+     */
+    Optional<Asset> findByTicker(String ticker);
+
+    /**
+     * Returns hit and miss counters of the lookup cache.
+     */
+    AssetCache.Stats cacheStats();
+}
@@ -0,0 +1,111 @@
+package se.pbt.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import se.pbt.model.asset.Asset;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Implementation of the {@link AssetRepository} interface using JPA and an {@link EntityManagerFactory}.
+ * <p>
+ * Lookups go through an {@link AssetCache} first, so that repeated lookups of the same instrument
+ * during data entry and imports do not reach the database. ISINs that are not found are cached as missing
+ * until an asset with that ISIN is saved, or reported through {@link #evictMissing(Collection)}.
+ * </p>
+ */
+public class AssetRepositoryImpl implements AssetRepository {
+
+    /** Default number of assets kept in the lookup cache. */
+    public static final int DEFAULT_CACHE_SIZE = 1_000;
+
+    private final EntityManagerFactory emf;
+    private final AssetCache cache;
+
+    public AssetRepositoryImpl(EntityManagerFactory emf) {
+        this(emf, new AssetCache(DEFAULT_CACHE_SIZE));
+    }
+
+    public AssetRepositoryImpl(EntityManagerFactory emf, AssetCache cache) {
+        this.emf = emf;
+        this.cache = cache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(Asset asset) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.persist(asset);
+            em.getTransaction().commit();
+            cache.put(asset);
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Asset> findByIsin(String isin) {
+        return cache.getByIsin(isin, key -> load("isin", key));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void evictMissing(Collection<String> isins) {
+        cache.evictMissing(isins);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Asset> findByTicker(String ticker) {
+        Optional<Asset> cached = cache.getByTicker(ticker);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Asset> loaded = load("ticker", ticker);
+        loaded.ifPresent(cache::put);
+        return loaded;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AssetCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    private Optional<Asset> load(String attribute, String value) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("""
+                        SELECT DISTINCT a
+                        FROM Asset a
+                        LEFT JOIN FETCH a.sectors
+                        LEFT JOIN FETCH a.industries
+                        WHERE a.%s = :value
+                    """.formatted(attribute), Asset.class)
+                    .setParameter("value", value)
+                    .getResultStream()
+                    .findFirst();
+        } finally {
+            em.close();
+        }
+    }
+}
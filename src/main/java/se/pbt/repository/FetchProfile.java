@@ -0,0 +1,57 @@
+package se.pbt.repository;
+
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+
+/**
+ * Describes how much of the object graph around a {@link JournalEntry} is loaded by a query.
+ * <p>
+ * Each profile names an entity graph on {@link JournalEntry} for the day itself and, optionally,
+ * an entity graph on {@link Trade} that is loaded for all of the day's trades in one follow-up query.
+ * Everything outside the graphs stays lazy, so callers should pick the profile that matches what
+ * they are about to read once the entity is detached.
+ * </p>
+ */
+public enum FetchProfile {
+
+    /**
+     * The day's snapshots and sales, their trades and assets, and each trade's full dated snapshot
+     * and sale history so that trade cards can show P&L.
+     */
+    DAY_VIEW("JournalEntry.day", "Trade.history"),
+
+    /**
+     * Everything in {@link #DAY_VIEW}, plus the sectors and industries of each trade's asset,
+     * for showing a single trade in full.
+     */
+    TRADE_DETAIL("JournalEntry.day", "Trade.detail"),
+
+    /**
+     * The day's snapshots and sales, their trades and assets including sectors and industries.
+     * Trade histories are not loaded.
+     */
+    ANALYTICS("JournalEntry.analytics", null);
+
+    private final String entryGraph;
+    private final String tradeGraph;
+
+    FetchProfile(String entryGraph, String tradeGraph) {
+        this.entryGraph = entryGraph;
+        this.tradeGraph = tradeGraph;
+    }
+
+    /**
+     * The name of the entity graph on {@link JournalEntry} used for the entries themselves.
+     */
+    public String entryGraph() {
+        return entryGraph;
+    }
+
+    /**
+     * The name of the entity graph on {@link Trade} used to load the entries' trades,
+     * or {@code null} if trades are loaded only as far as the entry graph reaches.
+     */
+    public String tradeGraph() {
+        return tradeGraph;
+    }
+}
@@ -0,0 +1,129 @@
+package se.pbt.repository;
+
+import se.pbt.metrics.DbCallEvent;
+import se.pbt.metrics.LatencyHistogram;
+import se.pbt.metrics.MetricsRegistry;
+import se.pbt.model.JournalEntry;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * A {@link JournalEntryRepository} that times every call to another repository.
+ * <p>
+ * Each method records its latency in a {@link MetricsRegistry} timer named {@code repository.<method>}, and
+ * commits a {@link DbCallEvent} for JDK Flight Recorder when a recording has the event enabled.
+ * {@link #streamAll(int, FetchProfile)} is timed from the call until the stream is closed, so it covers
+ * every page the caller reads, and counts the entries it delivers in {@code repository.streamAll.entries}.
+ * A stream that is never closed is not recorded.
+ * </p>
+ */
+public class InstrumentedJournalEntryRepository implements JournalEntryRepository {
+
+    private final JournalEntryRepository delegate;
+    private final LatencyHistogram saveTimer;
+    private final LatencyHistogram removeTimer;
+    private final LatencyHistogram findByIdTimer;
+    private final LatencyHistogram findAllTimer;
+    private final LatencyHistogram findLatestEntryTimer;
+    private final LatencyHistogram findPageTimer;
+    private final LatencyHistogram streamAllTimer;
+    private final LongAdder streamedEntries;
+
+    public InstrumentedJournalEntryRepository(JournalEntryRepository delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.saveTimer = metrics.timer("repository.save");
+        this.removeTimer = metrics.timer("repository.remove");
+        this.findByIdTimer = metrics.timer("repository.findById");
+        this.findAllTimer = metrics.timer("repository.findAll");
+        this.findLatestEntryTimer = metrics.timer("repository.findLatestEntry");
+        this.findPageTimer = metrics.timer("repository.findPage");
+        this.streamAllTimer = metrics.timer("repository.streamAll");
+        this.streamedEntries = metrics.counter("repository.streamAll.entries");
+    }
+
+    @Override
+    public void save(JournalEntry entry) {
+        call("save", null, saveTimer, () -> {
+            delegate.save(entry);
+            return Boolean.TRUE;
+        }, ignored -> 1);
+    }
+
+    @Override
+    public boolean remove(JournalEntry entry) {
+        return call("remove", null, removeTimer, () -> delegate.remove(entry), removed -> removed ? 1 : 0);
+    }
+
+    @Override
+    public Optional<JournalEntry> findById(Long id, FetchProfile profile) {
+        return call("findById", profile, findByIdTimer, () -> delegate.findById(id, profile),
+                found -> found.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<JournalEntry> findAll(FetchProfile profile) {
+        return call("findAll", profile, findAllTimer, () -> delegate.findAll(profile), List::size);
+    }
+
+    @Override
+    public Optional<JournalEntry> findLatestEntry(FetchProfile profile) {
+        return call("findLatestEntry", profile, findLatestEntryTimer, () -> delegate.findLatestEntry(profile),
+                found -> found.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<JournalEntry> findPage(PageCursor after, int limit, FetchProfile profile) {
+        return call("findPage", profile, findPageTimer, () -> delegate.findPage(after, limit, profile), List::size);
+    }
+
+    @Override
+    public Stream<JournalEntry> streamAll(int pageSize, FetchProfile profile) {
+        DbCallEvent event = new DbCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        LongAdder delivered = new LongAdder();
+        Stream<JournalEntry> entries;
+        try {
+            entries = delegate.streamAll(pageSize, profile);
+        } catch (RuntimeException | Error e) {
+            record(event, start, streamAllTimer, "streamAll", profile, 0);
+            throw e;
+        }
+        return entries
+                .peek(entry -> {
+                    delivered.increment();
+                    streamedEntries.increment();
+                })
+                .onClose(() -> record(event, start, streamAllTimer, "streamAll", profile, delivered.intValue()));
+    }
+
+    private static <T> T call(String operation, FetchProfile profile, LatencyHistogram timer, Supplier<T> work,
+                              ToIntFunction<T> rows) {
+        DbCallEvent event = new DbCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        T result = null;
+        try {
+            result = work.get();
+            return result;
+        } finally {
+            record(event, start, timer, operation, profile, result == null ? 0 : rows.applyAsInt(result));
+        }
+    }
+
+    private static void record(DbCallEvent event, long start, LatencyHistogram timer, String operation,
+                               FetchProfile profile, int rows) {
+        timer.recordSince(start);
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.profile = profile == null ? null : profile.name();
+            event.rows = rows;
+            event.commit();
+        }
+    }
+}
@@ -2,8 +2,10 @@ package se.pbt.repository;
 
 import se.pbt.model.JournalEntry;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface for basic CRUD operations related to {@link JournalEntry}.
@@ -16,20 +18,105 @@ public interface JournalEntryRepository {
     void save(JournalEntry entry);
 
     boolean remove(JournalEntry entry);
+
+    /**
+     * Retrieves a {@link JournalEntry} by its ID, loading the {@link FetchProfile#DAY_VIEW} graph.
+     */
+    default Optional<JournalEntry> findById(Long id) {
+        return findById(id, FetchProfile.DAY_VIEW);
+    }
+
     /**
-     * Retrieves a {@link JournalEntry} by its ID.
+     * Retrieves a {@link JournalEntry} by its ID, loading the graph described by {@code profile}.
      */
-    Optional<JournalEntry> findById(Long id);
+    Optional<JournalEntry> findById(Long id, FetchProfile profile);
 
     /**
      * Retrieves all {@link JournalEntry} records stored in the database.
+     * <p>
+     * Loads the full history in one go. Prefer {@link #findPage(PageCursor, int)} or {@link #streamAll(int)}
+     * when the number of entries is not known to be small.
+     * </p>
      */
-    List<JournalEntry> findAll();
+    default List<JournalEntry> findAll() {
+        return findAll(FetchProfile.DAY_VIEW);
+    }
+
+    /**
+     * Retrieves all {@link JournalEntry} records, loading the graph described by {@code profile}.
+     */
+    List<JournalEntry> findAll(FetchProfile profile);
 
     /**
      * Retrieves the most recently created {@link JournalEntry} based on date.
      */
-    Optional<JournalEntry> findLatestEntry();
+    default Optional<JournalEntry> findLatestEntry() {
+        return findLatestEntry(FetchProfile.DAY_VIEW);
+    }
 
-}
+    /**
+     * Retrieves the most recent {@link JournalEntry}, loading the graph described by {@code profile}.
+     */
+    Optional<JournalEntry> findLatestEntry(FetchProfile profile);
 
+    /**
+     * Retrieves one page of {@link JournalEntry} records, newest first, using keyset pagination.
+     * <p>
+     * To read the following page, pass {@link PageCursor#after(JournalEntry)} of the last entry returned.
+     * </p>
+     *
+     * @param after the position the page starts from, or {@code null} to start from the newest entry
+     * @param limit the maximum number of entries in the page
+     */
+    default List<JournalEntry> findPage(PageCursor after, int limit) {
+        return findPage(after, limit, FetchProfile.DAY_VIEW);
+    }
+
+    /**
+     * Retrieves one page of {@link JournalEntry} records, loading the graph described by {@code profile}.
+     *
+     * @see #findPage(PageCursor, int)
+     */
+    List<JournalEntry> findPage(PageCursor after, int limit, FetchProfile profile);
+
+    /**
+     * Retrieves one page of the {@link JournalEntry} records dated strictly before {@code before}, newest first.
+     * <p>
+     * Entries that share the date of the last entry returned may be cut off by {@code limit}; use
+     * {@link #findPage(PageCursor, int)} to read on from there.
+     * </p>
+     *
+     * @param before only entries dated before this date are returned, or {@code null} to start from the newest
+     */
+    default List<JournalEntry> findPage(LocalDate before, int limit) {
+        return findPage(before, limit, FetchProfile.DAY_VIEW);
+    }
+
+    /**
+     * Retrieves one page of the {@link JournalEntry} records dated before {@code before}, loading the graph
+     * described by {@code profile}.
+     *
+     * @see #findPage(LocalDate, int)
+     */
+    default List<JournalEntry> findPage(LocalDate before, int limit, FetchProfile profile) {
+        return findPage(before == null ? null : PageCursor.before(before), limit, profile);
+    }
+
+    /**
+     * Streams all {@link JournalEntry} records, newest first, loading {@code pageSize} entries at a time.
+     * <p>
+     * Only one page is held in memory at any point, which makes this suitable for walking the entire history.
+     * </p>
+     */
+    default Stream<JournalEntry> streamAll(int pageSize) {
+        return streamAll(pageSize, FetchProfile.DAY_VIEW);
+    }
+
+    /**
+     * Streams all {@link JournalEntry} records, loading the graph described by {@code profile} for each page.
+     *
+     * @see #streamAll(int)
+     */
+    Stream<JournalEntry> streamAll(int pageSize, FetchProfile profile);
+
+}
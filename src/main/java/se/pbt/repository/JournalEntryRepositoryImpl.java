@@ -3,9 +3,16 @@ package se.pbt.repository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.ledger.PositionLedgerStore;
+import se.pbt.model.asset.Asset;
+import se.pbt.rollup.PerformanceRollupStore;
 
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of the {@link JournalEntryRepository} interface using JPA and an {@link EntityManagerFactory}.
@@ -13,25 +20,129 @@ import java.util.Optional;
  * Provides CRUD operations for {@link JournalEntry} entities, ensuring that a new {@link EntityManager}
  * is created and closed for each database interaction.
  * </p>
+ * <p>
+ * Read methods load the graph described by a {@link FetchProfile} through its named entity graph.
+ * Anything outside the graph is left lazy and must not be touched after the entity is returned.
+ * </p>
+ * <p>
+ * Saves and removals keep the open-position columns of the affected trades current through
+ * {@link TradeOpenState}, for {@link TradeRepository}.
+ * </p>
+ * <p>
+ * When given a {@link PerformanceRollupStore} or a {@link PositionLedgerStore}, saves and removals update the
+ * rollups and positions in the same transaction.
+ * </p>
  */
 public class JournalEntryRepositoryImpl implements JournalEntryRepository {
 
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
     private final EntityManagerFactory emf;
+    private final AssetRepository assetRepository;
+    private final PerformanceRollupStore rollups;
+    private final PositionLedgerStore ledger;
 
     public JournalEntryRepositoryImpl(EntityManagerFactory emf) {
+        this(emf, new AssetRepositoryImpl(emf));
+    }
+
+    public JournalEntryRepositoryImpl(EntityManagerFactory emf, AssetRepository assetRepository) {
+        this(emf, assetRepository, null);
+    }
+
+    public JournalEntryRepositoryImpl(EntityManagerFactory emf, AssetRepository assetRepository,
+                                      PerformanceRollupStore rollups) {
+        this(emf, assetRepository, rollups, null);
+    }
+
+    public JournalEntryRepositoryImpl(EntityManagerFactory emf, AssetRepository assetRepository,
+                                      PerformanceRollupStore rollups, PositionLedgerStore ledger) {
         this.emf = emf;
+        this.assetRepository = assetRepository;
+        this.rollups = rollups;
+        this.ledger = ledger;
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * New assets whose ISIN already exists are replaced by the stored asset, so that trades in the same
+     * instrument share a single asset row.
+     * </p>
      */
     @Override
     public void save(JournalEntry entry) {
         EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.persist(entry);
-        em.getTransaction().commit();
-        em.close();
+        try {
+            em.getTransaction().begin();
+            Set<String> newAssetIsins = resolveSharedAssets(em, entry);
+            Set<Trade> newTrades = newTrades(entry);
+            Set<Long> existingTrades = TradeOpenState.recordNewTrades(entry);
+            em.persist(entry);
+            TradeOpenState.refresh(em, existingTrades);
+            if (rollups != null) {
+                rollups.add(em, entry);
+            }
+            if (ledger != null) {
+                ledger.record(em, entry, newTrades);
+            }
+            em.getTransaction().commit();
+            if (!newAssetIsins.isEmpty()) {
+                assetRepository.evictMissing(newAssetIsins);
+            }
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Points each trade holding a new, unsaved asset at the stored asset with the same ISIN, if there is one.
+     * Also makes trades within the entry that hold separate copies of the same new asset share one instance.
+     * Trades are reached through the snapshots, since {@link JournalEntry#getTrades()} collapses trades
+     * with equal values into one.
+     *
+     * @return the ISINs of the assets that are new and will be inserted with the entry
+     */
+    private Set<String> resolveSharedAssets(EntityManager em, JournalEntry entry) {
+        Map<String, Asset> resolved = new HashMap<>();
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            Trade trade = snapshot.getTrade();
+            if (trade == null) {
+                continue;
+            }
+            Asset asset = trade.getAsset();
+            if (asset == null || asset.getId() != null) {
+                continue;
+            }
+            trade.setAsset(resolved.computeIfAbsent(asset.getIsin(), isin -> assetRepository.findByIsin(isin)
+                    .map(stored -> em.find(Asset.class, stored.getId()))
+                    .orElse(asset)));
+        }
+        Set<String> newIsins = new HashSet<>();
+        resolved.forEach((isin, asset) -> {
+            if (asset.getId() == null) {
+                newIsins.add(isin);
+            }
+        });
+        return newIsins;
+    }
+
+    /**
+     * Returns the trades of the entry that have not been saved yet, by identity.
+     */
+    private static Set<Trade> newTrades(JournalEntry entry) {
+        Set<Trade> trades = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            if (snapshot.getTrade() != null && snapshot.getTrade().getId() == null) {
+                trades.add(snapshot.getTrade());
+            }
+        }
+        return trades;
     }
 
     /**
@@ -45,7 +156,16 @@ public class JournalEntryRepositoryImpl implements JournalEntryRepository {
 
             JournalEntry managed = em.find(JournalEntry.class, entry.getId());
             if (managed != null) {
+                if (rollups != null) {
+                    rollups.subtract(em, managed);
+                }
+                if (ledger != null) {
+                    ledger.markStale(em, managed);
+                }
+                Set<Long> tradeIds = new HashSet<>();
+                managed.getTradeSnapshots().forEach(snapshot -> tradeIds.add(snapshot.getTrade().getId()));
                 em.remove(managed);
+                TradeOpenState.refresh(em, tradeIds);
                 em.getTransaction().commit();
                 return true;
             } else {
@@ -67,20 +187,32 @@ public class JournalEntryRepositoryImpl implements JournalEntryRepository {
      * {@inheritDoc}
      */
     @Override
-    public Optional<JournalEntry> findById(Long id) {
+    public Optional<JournalEntry> findById(Long id, FetchProfile profile) {
         EntityManager em = emf.createEntityManager();
         try {
-            List<JournalEntry> results = em.createQuery("""
-                    SELECT j
-                    FROM JournalEntry j
-                    LEFT JOIN FETCH j.tradeSnapshots ts
-                    LEFT JOIN FETCH ts.trade t
-                    LEFT JOIN FETCH t.asset
-                    WHERE j.id = :id
-                """, JournalEntry.class)
-                    .setParameter("id", id)
+            return fetchByIds(em, List.of(id), profile).stream().findFirst();
+        } finally {
+            em.close();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JournalEntry> findAll(FetchProfile profile) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<JournalEntry> entries = em.createQuery("""
+                        SELECT j
+                        FROM JournalEntry j
+                        ORDER BY j.date DESC
+                    """, JournalEntry.class)
+                    .setHint(FETCH_GRAPH_HINT, em.getEntityGraph(profile.entryGraph()))
                     .getResultList();
-            return results.stream().findFirst();
+            fetchTrades(em, entries, profile);
+            return entries;
         } finally {
             em.close();
         }
@@ -91,19 +223,14 @@ public class JournalEntryRepositoryImpl implements JournalEntryRepository {
      * {@inheritDoc}
      */
     @Override
-    public List<JournalEntry> findAll() {
+    public Optional<JournalEntry> findLatestEntry(FetchProfile profile) {
         EntityManager em = emf.createEntityManager();
-        List<JournalEntry> result = em.createQuery("""
-                    SELECT DISTINCT j
-                    FROM JournalEntry j
-                    LEFT JOIN FETCH j.tradeSnapshots ts
-                    LEFT JOIN FETCH ts.trade t
-                    LEFT JOIN FETCH t.asset
-                    ORDER BY j.date DESC
-                """, JournalEntry.class)
-                .getResultList();
-        em.close();
-        return result;
+        try {
+            List<Long> latestId = findPageIds(em, null, null, 1);
+            return fetchByIds(em, latestId, profile).stream().findFirst();
+        } finally {
+            em.close();
+        }
     }
 
 
@@ -111,21 +238,157 @@ public class JournalEntryRepositoryImpl implements JournalEntryRepository {
      * {@inheritDoc}
      */
     @Override
-    public Optional<JournalEntry> findLatestEntry() {
+    public List<JournalEntry> findPage(PageCursor after, int limit, FetchProfile profile) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be greater than 0");
+        }
         EntityManager em = emf.createEntityManager();
-        JournalEntry latest = em.createQuery("""
+        try {
+            List<Long> ids = after == null
+                    ? findPageIds(em, null, null, limit)
+                    : findPageIds(em, after.date(), after.id(), limit);
+            return fetchByIds(em, ids, profile);
+        } finally {
+            em.close();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<JournalEntry> streamAll(int pageSize, FetchProfile profile) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        Iterator<JournalEntry> iterator = new KeysetIterator(pageSize, profile);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+
+    /**
+     * Selects the IDs of one page of entries, newest first.
+     * <p>
+     * Only the ID column is read here so that the limit is applied by the database. Fetch-joining
+     * collections together with a limit would force Hibernate to apply the limit in memory.
+     * When {@code beforeId} is given, the seek position is the pair {@code (before, beforeId)}, which
+     * keeps paging stable even if several entries share the same date.
+     * </p>
+     */
+    private List<Long> findPageIds(EntityManager em, LocalDate before, Long beforeId, int limit) {
+        String where = "";
+        if (before != null) {
+            where = beforeId == null
+                    ? "WHERE j.date < :before"
+                    : "WHERE j.date < :before OR (j.date = :before AND j.id < :beforeId)";
+        }
+        var query = em.createQuery("""
+                    SELECT j.id
+                    FROM JournalEntry j
+                    %s
+                    ORDER BY j.date DESC, j.id DESC
+                """.formatted(where), Long.class)
+                .setMaxResults(limit);
+        if (before != null) {
+            query.setParameter("before", before);
+        }
+        if (before != null && beforeId != null) {
+            query.setParameter("beforeId", beforeId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Loads the entries with the given IDs, newest first, with the graph described by {@code profile}.
+     */
+    private List<JournalEntry> fetchByIds(EntityManager em, List<Long> ids, FetchProfile profile) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<JournalEntry> entries = em.createQuery("""
                     SELECT j
                     FROM JournalEntry j
-                    LEFT JOIN FETCH j.tradeSnapshots ts
-                    LEFT JOIN FETCH ts.trade t
-                    LEFT JOIN FETCH t.asset
-                    ORDER BY j.date DESC
+                    WHERE j.id IN :ids
+                    ORDER BY j.date DESC, j.id DESC
                 """, JournalEntry.class)
-                .setMaxResults(1)
-                .getResultStream()
-                .findFirst()
-                .orElse(null);
-        em.close();
-        return Optional.ofNullable(latest);
+                .setParameter("ids", ids)
+                .setHint(FETCH_GRAPH_HINT, em.getEntityGraph(profile.entryGraph()))
+                .getResultList();
+        fetchTrades(em, entries, profile);
+        return entries;
+    }
+
+    /**
+     * Loads the trade graph of {@code profile} for every trade in the given entries with a single query.
+     * The trades are already in the persistence context, so this only initializes their collections.
+     */
+    private void fetchTrades(EntityManager em, List<JournalEntry> entries, FetchProfile profile) {
+        if (profile.tradeGraph() == null) {
+            return;
+        }
+        Set<Long> tradeIds = new HashSet<>();
+        entries.forEach(entry -> entry.getTrades().forEach(trade -> tradeIds.add(trade.getId())));
+        if (tradeIds.isEmpty()) {
+            return;
+        }
+        em.createQuery("""
+                    SELECT t
+                    FROM Trade t
+                    WHERE t.id IN :ids
+                """, Trade.class)
+                .setParameter("ids", tradeIds)
+                .setHint(FETCH_GRAPH_HINT, em.getEntityGraph(profile.tradeGraph()))
+                .getResultList();
+    }
+
+    /**
+     * Iterates over all journal entries by seeking page after page on {@code (date, id)}.
+     * Each page is loaded in its own short-lived {@link EntityManager}.
+     */
+    private class KeysetIterator implements Iterator<JournalEntry> {
+
+        private final int pageSize;
+        private final FetchProfile profile;
+        private Iterator<JournalEntry> page = Collections.emptyIterator();
+        private LocalDate lastDate;
+        private Long lastId;
+        private boolean exhausted;
+
+        KeysetIterator(int pageSize, FetchProfile profile) {
+            this.pageSize = pageSize;
+            this.profile = profile;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !exhausted) {
+                loadNextPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public JournalEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JournalEntry entry = page.next();
+            lastDate = entry.getDate();
+            lastId = entry.getId();
+            return entry;
+        }
+
+        private void loadNextPage() {
+            EntityManager em = emf.createEntityManager();
+            try {
+                List<Long> ids = findPageIds(em, lastDate, lastId, pageSize);
+                exhausted = ids.size() < pageSize;
+                page = fetchByIds(em, ids, profile).iterator();
+            } finally {
+                em.close();
+            }
+        }
     }
 }
@@ -0,0 +1,41 @@
+package se.pbt.repository;
+
+import se.pbt.model.JournalEntry;
+
+import java.time.LocalDate;
+
+/**
+ * A position in the journal, newest first, from which {@link JournalEntryRepository#findPage} reads the next page.
+ * <p>
+ * Entries are ordered by date and then by ID, so a cursor taken from the last entry of a page with
+ * {@link #after(JournalEntry)} continues with the next entry even when several entries share its date.
+ * </p>
+ *
+ * @param date entries dated before this date are read, and entries on it if {@code id} is given
+ * @param id   entries dated on {@code date} are read if their ID is lower, or {@code null} to skip the whole date
+ */
+public record PageCursor(LocalDate date, Long id) {
+
+    public PageCursor {
+        if (date == null) {
+            throw new IllegalArgumentException("A page cursor needs a date");
+        }
+    }
+
+    /**
+     * Returns a cursor that continues after the given entry, which must have been saved.
+     */
+    public static PageCursor after(JournalEntry entry) {
+        if (entry.getId() == null) {
+            throw new IllegalArgumentException("Only a saved entry can start a page");
+        }
+        return new PageCursor(entry.getDate(), entry.getId());
+    }
+
+    /**
+     * Returns a cursor that starts with the entries dated before {@code date}.
+     */
+    public static PageCursor before(LocalDate date) {
+        return new PageCursor(date, null);
+    }
+}
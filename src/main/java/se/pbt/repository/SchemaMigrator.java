@@ -0,0 +1,249 @@
+package se.pbt.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings the journal database up to the schema version the application expects, using versioned SQL scripts.
+ * <p>
+ * The applied versions are recorded in the {@code schema_version} table. When its highest version already
+ * matches {@link #latestVersion()}, which is the case on every launch after an upgrade, migrating costs a
+ * single query and the schema itself is never inspected. This replaces {@code hibernate.hbm2ddl.auto=update}.
+ * </p>
+ * <p>
+ * Scripts live in {@code db/migration} on the class path and are listed in {@link #MIGRATIONS}.
+ * A script is never edited once released; schema changes go in a new script with the next version,
+ * and the entity mappings are updated to match.
+ * </p>
+ */
+public class SchemaMigrator {
+
+    /**
+     * A versioned migration script.
+     *
+     * @param version     the schema version the script brings the database to
+     * @param description short description, recorded in {@code schema_version}
+     * @param script      class path location of the script
+     */
+    public record Migration(int version, String description, String script) {}
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "baseline", "db/migration/V1__baseline.sql"),
+            new Migration(2, "hot query indexes", "db/migration/V2__hot_query_indexes.sql"),
+            new Migration(3, "performance rollups", "db/migration/V3__performance_rollups.sql"),
+            new Migration(4, "position ledger", "db/migration/V4__position_ledger.sql"),
+            new Migration(5, "trade open state", "db/migration/V5__trade_open_state.sql"),
+            new Migration(6, "asset isin constraints", "db/migration/V6__asset_isin_constraints.sql")
+    );
+
+    /**
+     * The sequences created by the baseline and the tables they number.
+     */
+    private static final Map<String, String> BASELINE_SEQUENCES = Map.of(
+            "asset_seq", "Asset",
+            "executed_sale_seq", "ExecutedSale",
+            "journal_entry_seq", "JournalEntry",
+            "trade_seq", "Trade",
+            "trade_snapshot_seq", "TradeSnapshot"
+    );
+
+    /**
+     * The allocation size of every {@code @SequenceGenerator}.
+     */
+    private static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * Returns the schema version the application's entity mappings expect.
+     */
+    public int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    /**
+     * Returns the highest schema version applied to the database of the given {@link EntityManagerFactory},
+     * or 0 if it has never been migrated. Only reads; used by tools that must not change the schema.
+     */
+    public int currentVersion(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.unwrap(Session.class).doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet result = statement.executeQuery("select count(*) from information_schema.tables "
+                             + "where table_schema = current_schema and upper(table_name) = 'SCHEMA_VERSION'")) {
+                    result.next();
+                    if (result.getInt(1) == 0) {
+                        return 0;
+                    }
+                }
+                return currentVersion(connection);
+            });
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Applies all pending migrations over a connection of the given {@link EntityManagerFactory}.
+     *
+     * @return the number of migrations applied
+     */
+    public int migrate(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.unwrap(Session.class).doReturningWork(this::migrate);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Applies all pending migrations over the given connection, each in its own transaction.
+     *
+     * @return the number of migrations applied
+     * @throws SQLException if a script fails; the migrations applied before it stay recorded
+     */
+    public int migrate(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(true);
+            createVersionTable(connection);
+            int current = currentVersion(connection);
+            if (current >= latestVersion()) {
+                return 0;
+            }
+
+            connection.setAutoCommit(false);
+            int applied = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() > current) {
+                    apply(connection, migration);
+                    applied++;
+                }
+            }
+            log.info("Migrated the schema from version {} to {}", current, latestVersion());
+            return applied;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void createVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    create table if not exists schema_version (
+                        version integer not null primary key,
+                        description varchar(255) not null,
+                        installedOn timestamp not null default current_timestamp
+                    )""");
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select coalesce(max(version), 0) from schema_version")) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements(readScript(migration.script()))) {
+                    statement.execute(sql);
+                }
+            }
+            if (migration.version() == 1) {
+                restartSequences(connection);
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into schema_version (version, description) values (?, ?)")) {
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Migration to version " + migration.version() + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Moves each baseline sequence past the ids already in its table. Journals created before sequences were
+     * introduced numbered their rows from 1 with identity columns, while the baseline creates the sequences at 1.
+     * <p>
+     * Hibernate's pooled optimizer hands out the block of ids ending at the value it reads, so a sequence
+     * restarts one allocation above the highest id. H2 only accepts a constant in {@code restart with},
+     * hence this is done here rather than in the script.
+     * </p>
+     */
+    private static void restartSequences(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> sequence : BASELINE_SEQUENCES.entrySet()) {
+                long maxId;
+                try (ResultSet result = statement.executeQuery(
+                        "select coalesce(max(id), 0) from " + sequence.getValue())) {
+                    result.next();
+                    maxId = result.getLong(1);
+                }
+                if (maxId > 0) {
+                    statement.execute("alter sequence " + sequence.getKey() + " restart with " + (maxId + ALLOCATION_SIZE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a script into statements at semicolons that end a line, dropping {@code --} comment lines.
+     */
+    static List<String> statements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                current.setLength(current.lastIndexOf(";"));
+                statements.add(current.toString().strip());
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().strip());
+        }
+        return statements;
+    }
+
+    private static String readScript(String location) {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration script not found on the class path: " + location);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read migration script " + location, e);
+        }
+    }
+}
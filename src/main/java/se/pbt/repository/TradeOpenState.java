@@ -0,0 +1,99 @@
+package se.pbt.repository;
+
+import jakarta.persistence.EntityManager;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+
+import java.util.*;
+
+/**
+ * Keeps the open-position columns of {@link Trade} in step with its snapshots: {@code openedOn},
+ * {@code lastSnapshotOn}, {@code closedOn} and the indexed {@code isOpen} flag that {@link TradeRepository}
+ * queries instead of walking the journal.
+ * <p>
+ * Trades saved for the first time are updated in memory before they are inserted. Trades that already exist
+ * are recomputed from their snapshots in the database, which reads only the snapshots of those trades.
+ * </p>
+ */
+public final class TradeOpenState {
+
+    /** Number of trade IDs bound to one {@code IN} list. */
+    private static final int CHUNK_SIZE = 500;
+
+    /** Selects a snapshot of trade {@code t} with units remaining on the date of its latest snapshot. */
+    private static final String OPEN_ON_LATEST_DATE = """
+            select 1
+            from TradeSnapshot s join JournalEntry j on j.id = s.journal_entry_id
+            where s.trade_id = t.id and s.remainingQuantity > 0
+              and j.date = (select max(j2.date)
+                            from TradeSnapshot s2 join JournalEntry j2 on j2.id = s2.journal_entry_id
+                            where s2.trade_id = t.id)""";
+
+    /**
+     * Records the entry's snapshots on its trades that have not been saved yet. Call before persisting the entry.
+     *
+     * @return the IDs of the entry's trades that already exist, to pass to {@link #refresh(EntityManager, Collection)}
+     *         once the entry has been persisted
+     */
+    static Set<Long> recordNewTrades(JournalEntry entry) {
+        Set<Long> existing = new HashSet<>();
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            Trade trade = snapshot.getTrade();
+            if (trade == null) {
+                continue;
+            }
+            if (trade.getId() == null) {
+                trade.recordSnapshotOn(entry.getDate(), snapshot.getRemainingQuantity());
+            } else {
+                existing.add(trade.getId());
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Recomputes the open-position columns of the given trades from their snapshots in the database.
+     * Pending changes are flushed first. Trades without snapshots are marked as not open with no dates.
+     * The columns are written with one bulk update per {@value #CHUNK_SIZE} trades, so trades already loaded into
+     * {@code em} keep their old values.
+     */
+    public static void refresh(EntityManager em, Collection<Long> tradeIds) {
+        if (tradeIds.isEmpty()) {
+            return;
+        }
+        em.flush();
+        List<Long> ids = new ArrayList<>(tradeIds);
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            refreshChunk(em, ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())));
+        }
+    }
+
+    /**
+     * Recomputes one chunk of trades with a single set-based update, using the same correlated subqueries as the
+     * V5 migration that first filled the columns.
+     */
+    private static void refreshChunk(EntityManager em, List<Long> tradeIds) {
+        em.createNativeQuery("""
+                    update Trade t set
+                        openedOn = (select min(j.date)
+                                    from TradeSnapshot s join JournalEntry j on j.id = s.journal_entry_id
+                                    where s.trade_id = t.id),
+                        lastSnapshotOn = (select max(j.date)
+                                          from TradeSnapshot s join JournalEntry j on j.id = s.journal_entry_id
+                                          where s.trade_id = t.id),
+                        isOpen = exists (%1$s),
+                        closedOn = case when exists (%1$s) then null
+                                        else (select max(j.date)
+                                              from TradeSnapshot s join JournalEntry j on j.id = s.journal_entry_id
+                                              where s.trade_id = t.id)
+                                   end
+                    where t.id in (:ids)
+                """.formatted(OPEN_ON_LATEST_DATE))
+                .setParameter("ids", tradeIds)
+                .executeUpdate();
+    }
+
+    // Prevent instantiation
+    private TradeOpenState() {}
+}
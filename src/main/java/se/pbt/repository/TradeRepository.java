@@ -0,0 +1,40 @@
+package se.pbt.repository;
+
+import se.pbt.model.Trade;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-only queries over {@link Trade}s by their open-position state.
+ * <p>
+ * The queries use the open-position columns maintained on each trade, see {@link TradeOpenState}, so they do not
+ * walk the journal: their cost depends on the number of matching trades, not on the length of the history.
+ * A trade is open when units remained on the day of its latest snapshot.
+ * </p>
+ */
+public interface TradeRepository {
+
+    /**
+     * Retrieves all open trades, ordered by asset name, with their asset and dated snapshot and sale history
+     * loaded so that trade cards can show P&L.
+     */
+    List<Trade> findOpenTrades();
+
+    /**
+     * Retrieves a summary of every open trade, ordered by asset name, without loading snapshots.
+     */
+    List<TradeSummary> findOpenSummaries();
+
+    /**
+     * Retrieves the trades in an asset that were held at some point between two dates, both inclusive,
+     * oldest first. Pass {@code null} for an open end.
+     */
+    List<TradeSummary> findByAsset(Long assetId, LocalDate from, LocalDate to);
+
+    /**
+     * Retrieves the trades that were closed between two dates, both inclusive, in the order they were closed.
+     * Pass {@code null} for an open end.
+     */
+    List<TradeSummary> findClosedBetween(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,140 @@
+package se.pbt.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import se.pbt.model.Trade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the {@link TradeRepository} interface using JPA and an {@link EntityManagerFactory}.
+ * <p>
+ * Open trades are found through the indexed {@code isOpen} column, trades per asset through the
+ * {@code (asset_id, openedOn)} index and closed trades through the {@code closedOn} index. Summaries are read
+ * with constructor projections and never load snapshots.
+ * </p>
+ */
+public class TradeRepositoryImpl implements TradeRepository {
+
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
+    private static final String SUMMARY = """
+            SELECT new se.pbt.repository.TradeSummary(t.id, a.id, a.name, a.ticker, t.quantity, t.entryPrice,
+                                                      t.openedOn, t.lastSnapshotOn, t.closedOn, t.open)
+            FROM Trade t
+            JOIN t.asset a
+            """;
+
+    private final EntityManagerFactory emf;
+
+    public TradeRepositoryImpl(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Loads the {@code Trade.detail} graph.
+     * </p>
+     */
+    @Override
+    public List<Trade> findOpenTrades() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("""
+                        SELECT t
+                        FROM Trade t
+                        WHERE t.open = true
+                        ORDER BY t.asset.name, t.id
+                    """, Trade.class)
+                    .setHint(FETCH_GRAPH_HINT, em.getEntityGraph("Trade.detail"))
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<TradeSummary> findOpenSummaries() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery(SUMMARY + """
+                        WHERE t.open = true
+                        ORDER BY a.name, t.id
+                    """, TradeSummary.class)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A trade is held from the date of its first snapshot until the date it was closed, or indefinitely while
+     * it is open. Trades without snapshots are never returned.
+     * </p>
+     */
+    @Override
+    public List<TradeSummary> findByAsset(Long assetId, LocalDate from, LocalDate to) {
+        List<String> conditions = new ArrayList<>(List.of("a.id = :assetId", "t.openedOn IS NOT NULL"));
+        if (to != null) {
+            conditions.add("t.openedOn <= :to");
+        }
+        if (from != null) {
+            conditions.add("(t.closedOn IS NULL OR t.closedOn >= :from)");
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            TypedQuery<TradeSummary> query = em.createQuery(SUMMARY + """
+                        WHERE %s
+                        ORDER BY t.openedOn, t.id
+                    """.formatted(String.join(" AND ", conditions)), TradeSummary.class)
+                    .setParameter("assetId", assetId);
+            bindRange(query, from, to);
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<TradeSummary> findClosedBetween(LocalDate from, LocalDate to) {
+        List<String> conditions = new ArrayList<>(List.of("t.closedOn IS NOT NULL"));
+        if (from != null) {
+            conditions.add("t.closedOn >= :from");
+        }
+        if (to != null) {
+            conditions.add("t.closedOn <= :to");
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            TypedQuery<TradeSummary> query = em.createQuery(SUMMARY + """
+                        WHERE %s
+                        ORDER BY t.closedOn, t.id
+                    """.formatted(String.join(" AND ", conditions)), TradeSummary.class);
+            bindRange(query, from, to);
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void bindRange(TypedQuery<?> query, LocalDate from, LocalDate to) {
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+    }
+}
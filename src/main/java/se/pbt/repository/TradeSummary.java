@@ -0,0 +1,25 @@
+package se.pbt.repository;
+
+import se.pbt.model.Trade;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A read-only projection of one {@link Trade} and its asset, read by {@link TradeRepository} without loading
+ * snapshots or sales.
+ *
+ * @param closedOn the date of the latest snapshot if no units remained on it, otherwise {@code null}
+ */
+public record TradeSummary(
+        Long tradeId,
+        Long assetId,
+        String assetName,
+        String ticker,
+        int quantity,
+        BigDecimal entryPrice,
+        LocalDate openedOn,
+        LocalDate lastSnapshotOn,
+        LocalDate closedOn,
+        boolean open
+) {}
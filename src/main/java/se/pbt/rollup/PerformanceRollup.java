@@ -0,0 +1,102 @@
+package se.pbt.rollup;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.Money;
+import se.pbt.model.MoneyConverter;
+
+/**
+ * Realized performance of one group of trades over one period, summed over the {@link ExecutedSale}s
+ * executed in it.
+ * <p>
+ * Rows are kept up to date by {@link PerformanceRollupStore} as journal entries are saved and removed,
+ * so reading a report costs one row per period and group rather than a pass over the history.
+ * </p>
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class PerformanceRollup {
+
+    @EmbeddedId
+    private RollupKey key;
+
+    /**
+     * Net gain of the sales minus the cost of the units sold, including their share of the buy fee.
+     */
+    @Column(precision = 19, scale = 4, nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money realized = Money.ZERO;
+
+    /**
+     * Sell fees plus the share of the buy fee attributable to the units sold.
+     */
+    @Column(precision = 19, scale = 4, nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money fees = Money.ZERO;
+
+    /**
+     * Gross value of the units sold.
+     */
+    @Column(precision = 19, scale = 4, nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money turnover = Money.ZERO;
+
+    /**
+     * The number of sales, each closing part or all of a trade.
+     */
+    private int trades;
+
+    /**
+     * The number of sales with a positive realized result.
+     */
+    private int wins;
+
+    /**
+     * The number of sales with a negative realized result.
+     */
+    private int losses;
+
+    public PerformanceRollup(RollupKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Adds one sale with the given realized result, fees and turnover, in {@link Money} units.
+     */
+    void addSale(long realizedUnits, long feeUnits, long turnoverUnits) {
+        realized = realized.plus(Money.ofUnits(realizedUnits));
+        fees = fees.plus(Money.ofUnits(feeUnits));
+        turnover = turnover.plus(Money.ofUnits(turnoverUnits));
+        trades++;
+        if (realizedUnits > 0) {
+            wins++;
+        } else if (realizedUnits < 0) {
+            losses++;
+        }
+    }
+
+    /**
+     * Adds the totals of {@code other}, or subtracts them if {@code sign} is negative.
+     */
+    void merge(PerformanceRollup other, int sign) {
+        realized = sign < 0 ? realized.minus(other.realized) : realized.plus(other.realized);
+        fees = sign < 0 ? fees.minus(other.fees) : fees.plus(other.fees);
+        turnover = sign < 0 ? turnover.minus(other.turnover) : turnover.plus(other.turnover);
+        trades += Integer.signum(sign) * other.trades;
+        wins += Integer.signum(sign) * other.wins;
+        losses += Integer.signum(sign) * other.losses;
+    }
+
+    /**
+     * Returns the share of sales with a positive result, between 0 and 1, or 0 if there were no sales.
+     */
+    public double winRate() {
+        return trades == 0 ? 0 : (double) wins / trades;
+    }
+}
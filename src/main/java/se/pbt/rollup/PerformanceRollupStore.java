@@ -0,0 +1,244 @@
+package se.pbt.rollup;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.asset.Asset;
+import se.pbt.report.ReportPeriod;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@link PerformanceRollup} table in step with the journal.
+ * <p>
+ * Every {@link ExecutedSale} counts towards one rollup per {@link ReportPeriod} and per group of every
+ * {@link RollupDimension}, dated by its journal entry. The repository calls {@link #add} and {@link #subtract}
+ * inside the transaction that saves or removes an entry, so the rollups are never out of step with the
+ * entries they summarize. A rollup whose last sale is removed is deleted.
+ * </p>
+ * <p>
+ * Realized results are computed as in {@code PeriodPnlReport}: net gain minus the entry price and share of the
+ * buy fee of the units sold. {@link #rebuild(Stream)} recreates every rollup from scratch.
+ * </p>
+ */
+public class PerformanceRollupStore {
+
+    private static final int BATCH_SIZE = 50;
+
+    private final EntityManagerFactory emf;
+
+    public PerformanceRollupStore(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    /**
+     * Adds the sales of a persisted journal entry to the rollups, in the active transaction of {@code em}.
+     */
+    public void add(EntityManager em, JournalEntry entry) {
+        apply(em, contributions(entry, asset -> resolve(em, asset)), 1);
+    }
+
+    /**
+     * Adds the sales of a persisted journal entry to {@code delta} instead of to the stored rollups.
+     * The entry's trades and assets are read within {@code em}.
+     */
+    public void collect(EntityManager em, JournalEntry entry, RollupDelta delta) {
+        delta.merge(contributions(entry, asset -> resolve(em, asset)));
+    }
+
+    /**
+     * Adds the totals collected in {@code delta} to the rollups, in the active transaction of {@code em}.
+     */
+    public void add(EntityManager em, RollupDelta delta) {
+        apply(em, delta.rollups(), 1);
+    }
+
+    /**
+     * Subtracts the sales of a managed journal entry that is about to be removed, in the active transaction
+     * of {@code em}.
+     */
+    public void subtract(EntityManager em, JournalEntry entry) {
+        apply(em, contributions(entry, asset -> resolve(em, asset)), -1);
+    }
+
+    /**
+     * Returns the rollups of one period length and dimension whose periods start between two dates, both
+     * inclusive, oldest first. Pass {@code null} for an open end.
+     */
+    public List<PerformanceRollup> find(ReportPeriod period, RollupDimension dimension, LocalDate from, LocalDate to) {
+        String where = (from == null ? "" : " AND r.key.periodStart >= :from")
+                + (to == null ? "" : " AND r.key.periodStart <= :to");
+        EntityManager em = emf.createEntityManager();
+        try {
+            var query = em.createQuery("""
+                        SELECT r
+                        FROM PerformanceRollup r
+                        WHERE r.key.period = :period
+                          AND r.key.dimension = :dimension%s
+                        ORDER BY r.key.periodStart, r.key.groupKey
+                    """.formatted(where), PerformanceRollup.class)
+                    .setParameter("period", period)
+                    .setParameter("dimension", dimension);
+            if (from != null) {
+                query.setParameter("from", period.start(from));
+            }
+            if (to != null) {
+                query.setParameter("to", to);
+            }
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Returns {@code true} if there are sales but no rollups, as in a journal created before rollups existed.
+     */
+    public boolean needsRebuild() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return isEmpty(em, "SELECT r.key.period FROM PerformanceRollup r")
+                    && !isEmpty(em, "SELECT s.id FROM ExecutedSale s");
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Replaces every rollup with totals computed from the given entries, in one transaction.
+     * The entries' trades and assets, including sectors, must be loaded.
+     *
+     * @return the number of rollups written
+     */
+    public int rebuild(Stream<JournalEntry> entries) {
+        RollupDelta totals = new RollupDelta();
+        Iterator<JournalEntry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            totals.merge(contributions(iterator.next(), asset -> asset));
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM PerformanceRollup").executeUpdate();
+            int written = 0;
+            for (PerformanceRollup rollup : totals.rollups().values()) {
+                em.persist(rollup);
+                if (++written % BATCH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.getTransaction().commit();
+            return written;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Adds or subtracts the given contributions, reading the affected rows with a single query.
+     */
+    private static void apply(EntityManager em, Map<RollupKey, PerformanceRollup> contributions, int sign) {
+        if (contributions.isEmpty()) {
+            return;
+        }
+        Set<LocalDate> starts = new HashSet<>();
+        contributions.keySet().forEach(key -> starts.add(key.getPeriodStart()));
+        Map<RollupKey, PerformanceRollup> stored = new HashMap<>();
+        em.createQuery("""
+                    SELECT r
+                    FROM PerformanceRollup r
+                    WHERE r.key.periodStart IN :starts
+                """, PerformanceRollup.class)
+                .setParameter("starts", starts)
+                .getResultList()
+                .forEach(rollup -> stored.put(rollup.getKey(), rollup));
+
+        contributions.forEach((key, delta) -> {
+            PerformanceRollup rollup = stored.get(key);
+            if (rollup == null) {
+                if (sign < 0) {
+                    return; // Nothing to subtract from; the rollups were out of step and need a rebuild
+                }
+                em.persist(delta);
+            } else {
+                rollup.merge(delta, sign);
+                if (rollup.getTrades() <= 0) {
+                    em.remove(rollup);
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes the rollups made up of the sales in one journal entry.
+     */
+    static Map<RollupKey, PerformanceRollup> contributions(JournalEntry entry, UnaryOperator<Asset> assets) {
+        Map<RollupKey, PerformanceRollup> contributions = new HashMap<>();
+        List<RollupKey> keys = new ArrayList<>();
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            Trade trade = snapshot.getTrade();
+            if (trade == null || snapshot.getExecutedSales().isEmpty()) {
+                continue;
+            }
+            keys.clear();
+            Asset asset = assets.apply(trade.getAsset());
+            for (ReportPeriod period : ReportPeriod.values()) {
+                LocalDate start = period.start(entry.getDate());
+                for (RollupDimension dimension : RollupDimension.values()) {
+                    for (String group : dimension.keysOf(asset)) {
+                        keys.add(new RollupKey(period, dimension, start, group));
+                    }
+                }
+            }
+            BigDecimal perUnitFee = trade.getBuyFee()
+                    .divide(BigDecimal.valueOf(trade.getQuantity()), 8, RoundingMode.HALF_UP);
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                BigDecimal units = BigDecimal.valueOf(sale.getQuantitySold());
+                long cost = Money.toUnits(trade.getEntryPrice().add(perUnitFee).multiply(units)
+                        .setScale(Money.SCALE, RoundingMode.HALF_UP));
+                long buyFee = Money.toUnits(perUnitFee.multiply(units).setScale(Money.SCALE, RoundingMode.HALF_UP));
+                long realized = Math.subtractExact(sale.getNetGain().units(), cost);
+                long fees = Math.addExact(Money.toUnits(sale.getSellFee()), buyFee);
+                long turnover = sale.getGrossGain().units();
+                for (RollupKey key : keys) {
+                    contributions.computeIfAbsent(key, PerformanceRollup::new).addSale(realized, fees, turnover);
+                }
+            }
+        }
+        return contributions;
+    }
+
+    /**
+     * Returns an asset whose sectors can be read within {@code em}: the asset itself if it is new or managed,
+     * otherwise the managed copy.
+     */
+    private static Asset resolve(EntityManager em, Asset asset) {
+        return asset.getId() == null || em.contains(asset) ? asset : em.find(Asset.class, asset.getId());
+    }
+
+    private static boolean isEmpty(EntityManager em, String query) {
+        return em.createQuery(query).setMaxResults(1).getResultList().isEmpty();
+    }
+}
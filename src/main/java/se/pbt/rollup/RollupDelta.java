@@ -0,0 +1,29 @@
+package se.pbt.rollup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rollup totals collected from several journal entries, to be applied to the stored rollups in one go
+ * by {@link PerformanceRollupStore#add(jakarta.persistence.EntityManager, RollupDelta)}.
+ * <p>
+ * Used by bulk writes that clear their persistence context as they go, so that each entry's sales are
+ * read while its graph is still managed.
+ * </p>
+ */
+public final class RollupDelta {
+
+    private final Map<RollupKey, PerformanceRollup> rollups = new HashMap<>();
+
+    void merge(Map<RollupKey, PerformanceRollup> contributions) {
+        contributions.forEach((key, rollup) -> rollups.computeIfAbsent(key, PerformanceRollup::new).merge(rollup, 1));
+    }
+
+    Map<RollupKey, PerformanceRollup> rollups() {
+        return rollups;
+    }
+
+    public boolean isEmpty() {
+        return rollups.isEmpty();
+    }
+}
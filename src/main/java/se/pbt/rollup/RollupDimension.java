@@ -0,0 +1,38 @@
+package se.pbt.rollup;
+
+import se.pbt.model.asset.Asset;
+import se.pbt.report.SummaryDimension;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An asset attribute that {@link PerformanceRollup}s are kept for.
+ * <p>
+ * {@link #ALL} has a single group, {@value #ALL_KEY}, holding the totals of every sale. A sale of an asset
+ * that belongs to several sectors counts towards each of them.
+ * </p>
+ */
+public enum RollupDimension {
+
+    ALL(null),
+    ASSET_CLASS(SummaryDimension.ASSET_CLASS),
+    SECTOR(SummaryDimension.SECTOR),
+    EXCHANGE(SummaryDimension.EXCHANGE);
+
+    /** The group key of {@link #ALL}. */
+    public static final String ALL_KEY = "ALL";
+
+    private final SummaryDimension summaryDimension;
+
+    RollupDimension(SummaryDimension summaryDimension) {
+        this.summaryDimension = summaryDimension;
+    }
+
+    /**
+     * Returns the groups the given asset belongs to in this dimension.
+     */
+    public Collection<String> keysOf(Asset asset) {
+        return summaryDimension == null ? List.of(ALL_KEY) : summaryDimension.keysOf(asset);
+    }
+}
@@ -0,0 +1,53 @@
+package se.pbt.rollup;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import se.pbt.report.ReportPeriod;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Identifies one {@link PerformanceRollup}: a period, and a group within a dimension.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupKey implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The length of the period.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 5, nullable = false)
+    private ReportPeriod period;
+
+    /**
+     * The dimension the group belongs to.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private RollupDimension dimension;
+
+    /**
+     * The first day of the period, as given by {@link ReportPeriod#start(LocalDate)}.
+     */
+    @Column(nullable = false)
+    private LocalDate periodStart;
+
+    /**
+     * The group within the dimension, such as {@code TECHNOLOGY} for {@link RollupDimension#SECTOR}.
+     */
+    @Column(length = 64, nullable = false)
+    private String groupKey;
+}
@@ -0,0 +1,368 @@
+package se.pbt.search;
+
+import se.pbt.model.JournalEntry;
+import se.pbt.model.TradeSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index over the commentary of each {@link JournalEntry} and the notes of its {@link TradeSnapshot}s.
+ * <p>
+ * Each entry is one document. Its text is split into lower-case words of letters and digits, and every word
+ * maps to a sorted list of the documents containing it. A query is a list of words that must all match;
+ * a word ending in {@code *} matches every word starting with it. Hits can be limited to a date range and
+ * are returned newest first. A search only touches the lists of the queried words, so it takes
+ * milliseconds however long the history is.
+ * </p>
+ * <p>
+ * Saving an entry again replaces its document, and removed entries are dropped. Replaced and removed
+ * documents are left as tombstones until they outnumber the live ones, when the lists are rebuilt.
+ * </p>
+ * <p>
+ * The index lives in memory and is written to {@code index.bin} in its directory on {@link #close()}.
+ * Like the snapshot store it is derived data: the database stays the source of truth. If the file is
+ * missing, or the application stopped without closing the index, {@link #needsRebuild()} returns
+ * {@code true} and the owner should call {@link #rebuild(Stream)}.
+ * </p>
+ * <p>
+ * All methods are thread-safe.
+ * </p>
+ */
+public class JournalSearchIndex implements AutoCloseable {
+
+    private static final long MAGIC = 0x4A5345415243_0001L; // "JSEARC", format version 1
+    private static final String INDEX_FILE = "index.bin";
+    private static final String DIRTY_FILE = "index.dirty";
+
+    private final Path directory;
+    private final boolean needsRebuild;
+
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+    private final Map<Long, Integer> docByEntryId = new HashMap<>();
+    private final List<Document> docs = new ArrayList<>();
+    private int liveDocs;
+
+    /**
+     * Opens the index in {@code directory}, creating the directory if it does not exist.
+     */
+    public static JournalSearchIndex open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new JournalSearchIndex(directory);
+    }
+
+    private JournalSearchIndex(Path directory) throws IOException {
+        this.directory = directory;
+        Path indexFile = directory.resolve(INDEX_FILE);
+        Path dirtyFile = directory.resolve(DIRTY_FILE);
+        boolean usable = Files.exists(indexFile) && !Files.exists(dirtyFile);
+        if (usable) {
+            try {
+                load(indexFile);
+            } catch (IOException e) {
+                // Derived data, so an unreadable file is rebuilt rather than reported
+                clear();
+                usable = false;
+            }
+        }
+        this.needsRebuild = !usable;
+        // Removed on a clean close, so a crash leaves it behind
+        if (!Files.exists(dirtyFile)) {
+            Files.createFile(dirtyFile);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the index could not be restored from disk and should be rebuilt from the database.
+     */
+    public boolean needsRebuild() {
+        return needsRebuild;
+    }
+
+    /**
+     * Indexes a saved journal entry, replacing its previous document if it was indexed before.
+     *
+     * @throws IllegalArgumentException if the entry has not been saved yet
+     */
+    public synchronized void index(JournalEntry entry) {
+        if (entry.getId() == null || entry.getDate() == null) {
+            throw new IllegalArgumentException("Only saved entries with a date can be indexed");
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(entry.getEntryText(), terms);
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            tokenize(snapshot.getNotes(), terms);
+        }
+        add(entry.getId(), Math.toIntExact(entry.getDate().toEpochDay()), terms.toArray(String[]::new));
+    }
+
+    /**
+     * Drops the document of a journal entry.
+     *
+     * @return {@code true} if the entry was indexed
+     */
+    public synchronized boolean remove(long entryId) {
+        Integer doc = docByEntryId.remove(entryId);
+        if (doc == null) {
+            return false;
+        }
+        docs.set(doc, null);
+        liveDocs--;
+        compactIfSparse();
+        return true;
+    }
+
+    /**
+     * Replaces the contents of the index with the given entries.
+     */
+    public synchronized void rebuild(Stream<JournalEntry> entries) {
+        clear();
+        Iterator<JournalEntry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            index(iterator.next());
+        }
+    }
+
+    /**
+     * Returns the entries matching every word of {@code query}, newest first.
+     *
+     * @param query words to match; a word ending in {@code *} matches as a prefix
+     * @param from  earliest date, inclusive, or {@code null} for no lower bound
+     * @param to    latest date, inclusive, or {@code null} for no upper bound
+     * @param limit the maximum number of hits
+     */
+    public synchronized List<SearchHit> search(String query, LocalDate from, LocalDate to, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        List<int[]> matches = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            Set<String> terms = new LinkedHashSet<>();
+            tokenize(prefix ? word.substring(0, word.length() - 1) : word, terms);
+            for (String term : terms) {
+                matches.add(prefix ? prefixMatches(term) : exactMatches(term));
+            }
+        }
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        matches.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = matches.get(0);
+        for (int i = 1; i < matches.size() && result.length > 0; i++) {
+            result = intersect(result, matches.get(i));
+        }
+
+        long lo = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long hi = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        List<Document> hits = new ArrayList<>();
+        for (int doc : result) {
+            Document document = docs.get(doc);
+            if (document != null && document.epochDay >= lo && document.epochDay <= hi) {
+                hits.add(document);
+            }
+        }
+        return hits.stream()
+                .sorted(Comparator.comparingInt(Document::epochDay).thenComparingLong(Document::entryId).reversed())
+                .limit(limit)
+                .map(document -> new SearchHit(document.entryId, LocalDate.ofEpochDay(document.epochDay)))
+                .toList();
+    }
+
+    /**
+     * Returns the number of indexed entries.
+     */
+    public synchronized int size() {
+        return liveDocs;
+    }
+
+    /**
+     * Writes the index to disk and marks it as cleanly closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(liveDocs);
+            for (Document document : docs) {
+                if (document == null) {
+                    continue;
+                }
+                out.writeLong(document.entryId);
+                out.writeInt(document.epochDay);
+                out.writeInt(document.terms.length);
+                for (String term : document.terms) {
+                    out.writeUTF(term);
+                }
+            }
+        }
+        Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(directory.resolve(DIRTY_FILE));
+    }
+
+    /**
+     * Adds the words of {@code text} to {@code terms}: lower-case runs of letters and digits.
+     */
+    static void tokenize(String text, Set<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    private void add(long entryId, int epochDay, String[] terms) {
+        Integer previous = docByEntryId.get(entryId);
+        if (previous != null) {
+            docs.set(previous, null);
+            liveDocs--;
+        }
+        int doc = docs.size();
+        docs.add(new Document(entryId, epochDay, terms));
+        docByEntryId.put(entryId, doc);
+        liveDocs++;
+        for (String term : terms) {
+            postings.computeIfAbsent(term, key -> new IntList()).add(doc);
+        }
+        compactIfSparse();
+    }
+
+    private int[] exactMatches(String term) {
+        IntList list = postings.get(term);
+        return list == null ? new int[0] : list.toArray();
+    }
+
+    /**
+     * Merges the lists of every word starting with {@code prefix} into one sorted list without duplicates.
+     */
+    private int[] prefixMatches(String prefix) {
+        IntList merged = new IntList();
+        for (IntList list : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            merged.addAll(list);
+        }
+        int[] sorted = merged.toArray();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Renumbers the live documents and rebuilds the lists once tombstones outnumber live documents.
+     */
+    private void compactIfSparse() {
+        int tombstones = docs.size() - liveDocs;
+        if (tombstones <= liveDocs || tombstones < 64) {
+            return;
+        }
+        List<Document> live = docs.stream().filter(document -> document != null).toList();
+        clear();
+        live.forEach(document -> add(document.entryId, document.epochDay, document.terms));
+    }
+
+    private void clear() {
+        postings.clear();
+        docByEntryId.clear();
+        docs.clear();
+        liveDocs = 0;
+    }
+
+    private void load(Path indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException("Not a search index, or an unsupported format: " + indexFile);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long entryId = in.readLong();
+                int epochDay = in.readInt();
+                String[] terms = new String[in.readInt()];
+                for (int t = 0; t < terms.length; t++) {
+                    terms[t] = in.readUTF();
+                }
+                add(entryId, epochDay, terms);
+            }
+        }
+    }
+
+    private record Document(long entryId, int epochDay, String[] terms) {}
+
+    /**
+     * Growable list of primitive ints, so posting lists do not box every document number.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, values.length * 2));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package se.pbt.search;
+
+import java.time.LocalDate;
+
+/**
+ * A journal entry matching a search, as returned by {@link JournalSearchIndex#search}.
+ *
+ * @param entryId the ID of the matching journal entry
+ * @param date    the entry's date
+ */
+public record SearchHit(long entryId, LocalDate date) {}
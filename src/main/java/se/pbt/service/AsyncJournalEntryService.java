@@ -0,0 +1,293 @@
+package se.pbt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+import se.pbt.repository.PageCursor;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link JournalEntryService} calls on a small, bounded pool of worker threads so that callers,
+ * in particular the JavaFX application thread, never block on the database.
+ * <p>
+ * Every method returns a {@link CompletableFuture} that completes on a worker thread. UI code should hand
+ * the result back to the FX thread, for example with {@code thenAcceptAsync(action, Platform::runLater)}.
+ * </p>
+ * <p>
+ * Identical loads that are requested while one is already running share that call instead of starting
+ * another one. Each caller gets its own future, so cancelling it only detaches that caller; the underlying
+ * call is cancelled once no caller is waiting for it.
+ * </p>
+ * <p>
+ * Saves run one at a time in the order they were requested, and every call waits on its worker for the saves
+ * requested before it, so a load requested after a save reads what the save wrote. A save also stops later
+ * loads from joining the ones that started before it. Loads still run in parallel with each other.
+ * </p>
+ * <p>
+ * The pool has a fixed number of threads and a bounded queue. When the queue is full, the returned future
+ * fails with a {@link RejectedExecutionException} rather than the caller being blocked.
+ * </p>
+ */
+public class AsyncJournalEntryService implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncJournalEntryService.class);
+
+    private static final int DEFAULT_THREADS = 2;
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private final Supplier<JournalEntryService> delegate;
+    private final ThreadPoolExecutor executor;
+    private final Map<Object, InFlight<?>> inFlight = new HashMap<>();
+    /** The latest save submitted, guarded by {@link #inFlight}. */
+    private Future<?> lastSave = CompletableFuture.completedFuture(null);
+
+    /**
+     * Constructs an async service with the default pool size and queue capacity.
+     */
+    public AsyncJournalEntryService(JournalEntryService delegate) {
+        this(() -> delegate, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs an async service with the default pool size and queue capacity that looks up its
+     * delegate on a worker thread.
+     */
+    public AsyncJournalEntryService(Supplier<JournalEntryService> delegate) {
+        this(delegate, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs an async service that runs at most {@code threads} calls at once and queues at most
+     * {@code queueCapacity} more.
+     * <p>
+     * The {@code delegate} supplier is called on a worker thread for every call, so an expensive
+     * service creation also stays off the caller's thread.
+     * </p>
+     */
+    public AsyncJournalEntryService(Supplier<JournalEntryService> delegate, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new WorkerThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Loads the most recent journal entry, sharing the call with any load of it already running.
+     */
+    public CompletableFuture<Optional<JournalEntry>> getLatestEntry() {
+        return load(LoadKey.LATEST, "getLatestEntry", () -> delegate.get().getLatestEntry());
+    }
+
+    /**
+     * Loads the trades that are still open, sharing the call with any load of them already running.
+     */
+    public CompletableFuture<List<Trade>> getOpenTrades() {
+        return load(LoadKey.OPEN_TRADES, "getOpenTrades", () -> delegate.get().getOpenTrades());
+    }
+
+    /**
+     * Loads a single journal entry by ID, sharing the call with any load of the same ID already running.
+     */
+    public CompletableFuture<Optional<JournalEntry>> findById(Long id) {
+        return load(List.of(LoadKey.BY_ID, id), "findById", () -> delegate.get().findById(id));
+    }
+
+    /**
+     * Loads one page of journal entries, newest first, starting from the given cursor, sharing the call with
+     * any load of the same page already running. Pass {@code null} as {@code after} to get the first page, and
+     * {@link PageCursor#after(JournalEntry)} of the last entry of a page to get the next one.
+     */
+    public CompletableFuture<List<JournalEntry>> getPage(PageCursor after, int limit) {
+        return load(List.of(LoadKey.PAGE, after == null ? LoadKey.FIRST_PAGE : after, limit), "getPage",
+                () -> delegate.get().getPage(after, limit));
+    }
+
+    /**
+     * Loads one page of journal entries dated before the given date, newest first.
+     * Pass {@code null} as {@code before} to get the first page.
+     *
+     * @see JournalEntryService#getPage(LocalDate, int)
+     */
+    public CompletableFuture<List<JournalEntry>> getPage(LocalDate before, int limit) {
+        return getPage(before == null ? null : PageCursor.before(before), limit);
+    }
+
+    /**
+     * Saves a journal entry once the saves requested before it have finished. Saves are never shared; the entry
+     * should not be modified until the future completes.
+     */
+    public CompletableFuture<Void> save(JournalEntry entry) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        synchronized (inFlight) {
+            inFlight.clear();
+            Future<?> previous = lastSave;
+            lastSave = submit("save", () -> {
+                awaitSave(previous);
+                delegate.get().save(entry);
+                return null;
+            }, result);
+        }
+        return result;
+    }
+
+    /**
+     * Stops the worker threads. Queued calls are cancelled, so their futures fail with a
+     * {@link java.util.concurrent.CancellationException}, and running calls are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow().forEach(task -> ((FutureTask<?>) task).cancel(false));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> load(Object key, String operation, Supplier<T> call) {
+        InFlight<T> shared;
+        synchronized (inFlight) {
+            shared = (InFlight<T>) inFlight.get(key);
+            // A finished load may not have been removed yet, and must not be reused
+            if (shared == null || shared.result.isDone()) {
+                shared = new InFlight<>();
+                inFlight.put(key, shared);
+                InFlight<T> started = shared;
+                shared.result.whenComplete((value, error) -> {
+                    synchronized (inFlight) {
+                        inFlight.remove(key, started);
+                    }
+                });
+                Future<?> save = lastSave;
+                shared.task = submit(operation, () -> {
+                    awaitSave(save);
+                    return call.get();
+                }, shared.result);
+            } else {
+                log.debug("{} joined a load already in flight", operation);
+            }
+            shared.subscribers++;
+        }
+        return shared.subscribe();
+    }
+
+    /**
+     * Runs {@code call} on the pool and completes {@code result} with its outcome.
+     */
+    private <T> FutureTask<T> submit(String operation, Supplier<T> call, CompletableFuture<T> result) {
+        long queuedAt = System.nanoTime();
+        FutureTask<T> task = new FutureTask<>(() -> {
+            long startedAt = System.nanoTime();
+            try {
+                T value = call.get();
+                log.debug("{} took {} ms after waiting {} ms in the queue", operation,
+                        millis(System.nanoTime() - startedAt), millis(startedAt - queuedAt));
+                result.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    result.cancel(false);
+                }
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            // Calls waiting for a rejected save must not wait forever
+            task.cancel(false);
+        }
+        return task;
+    }
+
+    /**
+     * Blocks the worker until a save has run, whatever its outcome. The pool takes calls in the order they were
+     * submitted, so the save has already been taken by another worker.
+     *
+     * @throws CancellationException if the worker is interrupted while waiting
+     */
+    private static void awaitSave(Future<?> save) {
+        try {
+            save.get();
+        } catch (ExecutionException | CancellationException e) {
+            // The save reported its own failure to its caller
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for an earlier save");
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * A load that is running or queued, together with the number of callers still waiting for it.
+     */
+    private final class InFlight<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private FutureTask<T> task;
+        private int subscribers;
+
+        /**
+         * Returns a future of the shared result for one caller. Cancelling it detaches the caller, and
+         * cancels the call itself if that was the last caller.
+         */
+        private CompletableFuture<T> subscribe() {
+            CompletableFuture<T> copy = result.copy();
+            copy.whenComplete((value, error) -> {
+                if (copy.isCancelled()) {
+                    unsubscribe();
+                }
+            });
+            return copy;
+        }
+
+        private void unsubscribe() {
+            synchronized (inFlight) {
+                if (--subscribers > 0 || result.isDone()) {
+                    return;
+                }
+            }
+            // Cancelling the task cancels the shared result, which removes it from the in-flight map
+            task.cancel(true);
+            executor.remove(task);
+        }
+    }
+
+    private enum LoadKey { LATEST, OPEN_TRADES, BY_ID, PAGE, FIRST_PAGE }
+
+    /**
+     * Creates named daemon threads, so a pending call never keeps the application alive.
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "journal-io-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
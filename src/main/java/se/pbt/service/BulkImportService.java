@@ -0,0 +1,458 @@
+package se.pbt.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import se.pbt.ledger.PositionLedgerStore;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.asset.*;
+import se.pbt.model.listener.ChangeEvent;
+import se.pbt.model.listener.ChangeEventBus;
+import se.pbt.repository.AssetRepository;
+import se.pbt.repository.TradeOpenState;
+import se.pbt.rollup.PerformanceRollupStore;
+import se.pbt.rollup.RollupDelta;
+import se.pbt.search.JournalSearchIndex;
+import se.pbt.timeseries.SnapshotColumnStore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Imports historical trade data from a CSV export in large JDBC batches.
+ * <p>
+ * The file is read line by line and grouped into {@link JournalEntry}, {@link Trade}, {@link TradeSnapshot}
+ * and {@link ExecutedSale} graphs, one journal entry per date. Everything is written in a single transaction,
+ * and the persistence context is flushed and cleared every {@link #flushInterval} snapshots so that memory
+ * use stays flat no matter how large the file is.
+ * </p>
+ * <p>
+ * Expected format: a header row followed by one row per trade and day, sorted by date. Rows with the same
+ * {@code date} and {@code trade_ref} add further sales to the same snapshot. Columns:
+ * </p>
+ * <pre>
+ * date, trade_ref, isin, ticker, asset_name, asset_class, currency, exchange, sector, industry,
+ * quantity, entry_price, buy_fee, entry_time, remaining_quantity, open_price, close_price,
+ * sell_quantity, sell_price, sell_fee, sell_time, available_cash, invested_capital, notes
+ * </pre>
+ * <p>
+ * Asset and trade columns are read from the first row of each {@code trade_ref}. The sale columns may be
+ * left empty, as may {@code available_cash} and {@code invested_capital}, which default to 0.
+ * {@code notes} is the last column and may contain commas.
+ * </p>
+ * <p>
+ * Assets are matched on ISIN against existing assets through the {@link AssetRepository}, so instruments
+ * already in the journal are reused rather than duplicated. The repository is told about the new assets
+ * once the transaction has committed, so that it stops reporting their ISINs as missing.
+ * </p>
+ * <p>
+ * If a {@link ChangeEventBus} is given, a change event for every imported entity is published once the
+ * transaction has committed. The bus coalesces them, so subscribers see the import as one batch.
+ * </p>
+ * <p>
+ * The open-position columns of the imported trades are filled in once all rows have been written, so that they
+ * reflect each trade's latest snapshot. See {@link TradeOpenState}.
+ * </p>
+ * <p>
+ * If a {@link PerformanceRollupStore} is given, the imported sales are added to the rollups in the same
+ * transaction, with one update per affected rollup rather than one per day.
+ * </p>
+ * <p>
+ * If a {@link PositionLedgerStore} is given, the positions in every asset the import touched are marked stale
+ * in the same transaction, and each is rebuilt from the asset's trades the next time it is read.
+ * </p>
+ * <p>
+ * If a {@link JournalSearchIndex} or a {@link SnapshotColumnStore} is given, the imported entries are indexed
+ * and their snapshots written to the store once the transaction has committed. The entries are read back from
+ * the database {@link #flushInterval} at a time, so this too runs in flat memory.
+ * </p>
+ */
+public class BulkImportService {
+
+    /** Number of snapshots persisted between each flush and clear of the persistence context. */
+    public static final int DEFAULT_FLUSH_INTERVAL = 1_000;
+
+    private static final List<String> COLUMNS = List.of(
+            "date", "trade_ref", "isin", "ticker", "asset_name", "asset_class", "currency", "exchange",
+            "sector", "industry", "quantity", "entry_price", "buy_fee", "entry_time", "remaining_quantity",
+            "open_price", "close_price", "sell_quantity", "sell_price", "sell_fee", "sell_time",
+            "available_cash", "invested_capital", "notes");
+
+    private static final Map<String, Integer> COLUMN_INDEX = new HashMap<>();
+
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
+    static {
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            COLUMN_INDEX.put(COLUMNS.get(i), i);
+        }
+    }
+
+    private final EntityManagerFactory emf;
+    private final AssetRepository assetRepository;
+    private final int flushInterval;
+    private final ChangeEventBus changeEvents;
+    private final PerformanceRollupStore rollups;
+    private final PositionLedgerStore ledger;
+    private final JournalSearchIndex searchIndex;
+    private final SnapshotColumnStore snapshotStore;
+
+    public BulkImportService(EntityManagerFactory emf, AssetRepository assetRepository) {
+        this(emf, assetRepository, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    public BulkImportService(EntityManagerFactory emf, AssetRepository assetRepository, int flushInterval) {
+        this(emf, assetRepository, flushInterval, null);
+    }
+
+    public BulkImportService(EntityManagerFactory emf, AssetRepository assetRepository, int flushInterval,
+                             ChangeEventBus changeEvents) {
+        this(emf, assetRepository, flushInterval, changeEvents, null);
+    }
+
+    public BulkImportService(EntityManagerFactory emf, AssetRepository assetRepository, int flushInterval,
+                             ChangeEventBus changeEvents, PerformanceRollupStore rollups) {
+        this(emf, assetRepository, flushInterval, changeEvents, rollups, null);
+    }
+
+    public BulkImportService(EntityManagerFactory emf, AssetRepository assetRepository, int flushInterval,
+                             ChangeEventBus changeEvents, PerformanceRollupStore rollups,
+                             PositionLedgerStore ledger) {
+        this(emf, assetRepository, flushInterval, changeEvents, rollups, ledger, null);
+    }
+
+    public BulkImportService(EntityManagerFactory emf, AssetRepository assetRepository, int flushInterval,
+                             ChangeEventBus changeEvents, PerformanceRollupStore rollups,
+                             PositionLedgerStore ledger, JournalSearchIndex searchIndex) {
+        this(emf, assetRepository, flushInterval, changeEvents, rollups, ledger, searchIndex, null);
+    }
+
+    public BulkImportService(EntityManagerFactory emf, AssetRepository assetRepository, int flushInterval,
+                             ChangeEventBus changeEvents, PerformanceRollupStore rollups,
+                             PositionLedgerStore ledger, JournalSearchIndex searchIndex,
+                             SnapshotColumnStore snapshotStore) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("Flush interval must be greater than 0");
+        }
+        this.emf = emf;
+        this.assetRepository = assetRepository;
+        this.flushInterval = flushInterval;
+        this.changeEvents = changeEvents;
+        this.rollups = rollups;
+        this.ledger = ledger;
+        this.searchIndex = searchIndex;
+        this.snapshotStore = snapshotStore;
+    }
+
+    /**
+     * Imports all rows from the given CSV source in one transaction.
+     * Nothing is written if any row is invalid.
+     *
+     * @throws IllegalArgumentException if the header or a row cannot be parsed, naming the line number
+     */
+    public ImportReport importCsv(Reader source) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = source instanceof BufferedReader b ? b : new BufferedReader(source);
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Batch batch = new Batch(em);
+
+            readHeader(reader.readLine());
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(line.split(",", COLUMNS.size()));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid row at line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+            batch.finishDay();
+            if (rollups != null) {
+                rollups.add(em, batch.rollupDelta);
+            }
+            if (ledger != null) {
+                ledger.markStale(em, batch.assetIds.values());
+            }
+            TradeOpenState.refresh(em, batch.tradeIds.values());
+
+            em.getTransaction().commit();
+            assetRepository.evictMissing(batch.assetIds.keySet());
+            if (searchIndex != null || snapshotStore != null) {
+                writeDerivedData(batch.entryIds);
+            }
+            if (changeEvents != null) {
+                changeEvents.publish(batch.changes);
+            }
+            return batch.report(Duration.ofNanos(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void readHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("Import file is empty");
+        }
+        List<String> columns = Arrays.stream(header.split(",")).map(String::trim).toList();
+        if (!columns.equals(COLUMNS)) {
+            throw new IllegalArgumentException("Unexpected header, expected: " + String.join(",", COLUMNS));
+        }
+    }
+
+    /**
+     * Reads the committed entries back in pages of {@link #flushInterval}, adds them to the search index
+     * and writes their snapshots to the snapshot store. Each page is loaded in its own short-lived {@link EntityManager}.
+     */
+    private void writeDerivedData(List<Long> entryIds) {
+        for (int from = 0; from < entryIds.size(); from += flushInterval) {
+            List<Long> ids = entryIds.subList(from, Math.min(from + flushInterval, entryIds.size()));
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.createQuery("SELECT j FROM JournalEntry j WHERE j.id IN :ids", JournalEntry.class)
+                        .setParameter("ids", ids)
+                        .setHint(FETCH_GRAPH_HINT, em.getEntityGraph("JournalEntry.analytics"))
+                        .getResultList()
+                        .forEach(entry -> {
+                            if (searchIndex != null) {
+                                searchIndex.index(entry);
+                            }
+                            if (snapshotStore != null) {
+                                snapshotStore.write(entry);
+                            }
+                        });
+            } finally {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Holds the state of one running import: the journal entry being built for the current date,
+     * and the IDs of entries, trades and assets that have already been persisted.
+     */
+    private class Batch {
+
+        private final EntityManager em;
+
+        private final Map<String, Long> tradeIds = new HashMap<>();
+        private final Map<String, Long> assetIds = new HashMap<>();
+        private final Map<String, Trade> newTrades = new HashMap<>();
+        private final Map<String, Asset> newAssets = new HashMap<>();
+        private final List<Long> entryIds = new ArrayList<>();
+
+        private LocalDate currentDate;
+        private JournalEntry currentEntry;
+        private final Map<String, TradeSnapshot> currentSnapshots = new LinkedHashMap<>();
+        private final List<ChangeEvent> changes = new ArrayList<>();
+        private final RollupDelta rollupDelta = new RollupDelta();
+
+        private long rows;
+        private long entries;
+        private long trades;
+        private long snapshots;
+        private long sales;
+        private long snapshotsSinceFlush;
+
+        Batch(EntityManager em) {
+            this.em = em;
+        }
+
+        void add(String[] row) {
+            if (row.length != COLUMNS.size()) {
+                throw new IllegalArgumentException("expected " + COLUMNS.size() + " columns, got " + row.length);
+            }
+            rows++;
+            LocalDate date = LocalDate.parse(column(row, "date"));
+            if (currentDate != null && date.isBefore(currentDate)) {
+                throw new IllegalArgumentException("rows must be sorted by date");
+            }
+            if (!date.equals(currentDate)) {
+                finishDay();
+                startDay(date, row);
+            }
+
+            String tradeRef = column(row, "trade_ref");
+            TradeSnapshot snapshot = currentSnapshots.computeIfAbsent(tradeRef, ref -> newSnapshot(ref, row));
+            if (!column(row, "sell_quantity").isEmpty()) {
+                snapshot.addExecutedSale(newSale(row));
+                sales++;
+            }
+        }
+
+        private void startDay(LocalDate date, String[] row) {
+            currentDate = date;
+            currentEntry = JournalEntry.builder()
+                    .date(date)
+                    .availableCash(Money.of(decimalOrZero(column(row, "available_cash"))))
+                    .investedCapital(Money.of(decimalOrZero(column(row, "invested_capital"))))
+                    .build();
+        }
+
+        /**
+         * Persists the journal entry for the current date, then flushes and clears the persistence context
+         * if enough snapshots have accumulated since the last flush.
+         */
+        void finishDay() {
+            if (currentEntry == null) {
+                return;
+            }
+            currentSnapshots.forEach((tradeRef, snapshot) -> {
+                snapshot.setTrade(tradeFor(tradeRef));
+                currentEntry.addTradeSnapshot(snapshot);
+            });
+            em.persist(currentEntry);
+            entryIds.add(currentEntry.getId());
+            if (changeEvents != null) {
+                recordChanges();
+            }
+            if (rollups != null) {
+                rollups.collect(em, currentEntry, rollupDelta);
+            }
+            entries++;
+            snapshots += currentSnapshots.size();
+            snapshotsSinceFlush += currentSnapshots.size();
+
+            newTrades.forEach((ref, trade) -> tradeIds.put(ref, trade.getId()));
+            newAssets.forEach((isin, asset) -> assetIds.put(isin, asset.getId()));
+            newTrades.clear();
+            newAssets.clear();
+            currentSnapshots.clear();
+            currentEntry = null;
+
+            if (snapshotsSinceFlush >= flushInterval) {
+                em.flush();
+                em.clear();
+                snapshotsSinceFlush = 0;
+            }
+        }
+
+        /**
+         * Records the entities persisted for the current date. Trades first seen today are created,
+         * trades carried over from earlier days are updated.
+         */
+        private void recordChanges() {
+            changes.add(ChangeEvent.created(JournalEntry.class, currentEntry.getId()));
+            newTrades.values().forEach(trade -> changes.add(ChangeEvent.created(Trade.class, trade.getId())));
+            currentSnapshots.forEach((tradeRef, snapshot) -> {
+                changes.add(ChangeEvent.created(TradeSnapshot.class, snapshot.getId()));
+                if (!newTrades.containsKey(tradeRef)) {
+                    changes.add(ChangeEvent.updated(Trade.class, tradeIds.get(tradeRef)));
+                }
+                snapshot.getExecutedSales().forEach(sale -> changes.add(ChangeEvent.created(ExecutedSale.class, sale.getId())));
+            });
+        }
+
+        private TradeSnapshot newSnapshot(String tradeRef, String[] row) {
+            if (!tradeIds.containsKey(tradeRef) && !newTrades.containsKey(tradeRef)) {
+                newTrades.put(tradeRef, newTrade(row));
+                trades++;
+            }
+            return TradeSnapshot.builder()
+                    .remainingQuantity(Integer.parseInt(column(row, "remaining_quantity")))
+                    .openPrice(new BigDecimal(column(row, "open_price")))
+                    .closePrice(new BigDecimal(column(row, "close_price")))
+                    .notes(emptyToNull(column(row, "notes")))
+                    .build();
+        }
+
+        /**
+         * Returns the trade for a reference, either created during the current day or a reference
+         * to one persisted earlier. References do not load the trade or its snapshots.
+         */
+        private Trade tradeFor(String tradeRef) {
+            Trade created = newTrades.get(tradeRef);
+            return created != null ? created : em.getReference(Trade.class, tradeIds.get(tradeRef));
+        }
+
+        private Trade newTrade(String[] row) {
+            return Trade.builder()
+                    .quantity(Integer.parseInt(column(row, "quantity")))
+                    .entryPrice(new BigDecimal(column(row, "entry_price")))
+                    .buyFee(decimalOrZero(column(row, "buy_fee")))
+                    .entryTime(timeOrNull(column(row, "entry_time")))
+                    .asset(assetFor(row))
+                    .build();
+        }
+
+        private Asset assetFor(String[] row) {
+            String isin = column(row, "isin");
+            Long id = assetIds.get(isin);
+            if (id != null) {
+                return em.getReference(Asset.class, id);
+            }
+            return newAssets.computeIfAbsent(isin, key -> findExistingAsset(key).orElseGet(() -> newAsset(row)));
+        }
+
+        private Optional<Asset> findExistingAsset(String isin) {
+            return assetRepository.findByIsin(isin).map(stored -> em.getReference(Asset.class, stored.getId()));
+        }
+
+        private Asset newAsset(String[] row) {
+            return Asset.builder()
+                    .isin(column(row, "isin"))
+                    .ticker(column(row, "ticker"))
+                    .name(column(row, "asset_name"))
+                    .assetClass(AssetClass.valueOf(column(row, "asset_class")))
+                    .currency(Currency.getInstance(column(row, "currency")))
+                    .exchange(Exchange.valueOf(column(row, "exchange")))
+                    .sectors(new HashSet<>(Set.of(Sector.valueOf(column(row, "sector")))))
+                    .industries(new HashSet<>(Set.of(Industry.valueOf(column(row, "industry")))))
+                    .build();
+        }
+
+        private ExecutedSale newSale(String[] row) {
+            int quantity = Integer.parseInt(column(row, "sell_quantity"));
+            BigDecimal price = new BigDecimal(column(row, "sell_price"));
+            BigDecimal fee = decimalOrZero(column(row, "sell_fee"));
+            BigDecimal gross = price.multiply(BigDecimal.valueOf(quantity));
+            return ExecutedSale.builder()
+                    .quantitySold(quantity)
+                    .sellPrice(price)
+                    .sellFee(fee)
+                    .grossGain(Money.of(gross))
+                    .netGain(Money.of(gross.subtract(fee)))
+                    .sellTime(LocalTime.parse(column(row, "sell_time")))
+                    .build();
+        }
+
+        ImportReport report(Duration elapsed) {
+            return new ImportReport(rows, entries, trades, snapshots, sales, elapsed);
+        }
+    }
+
+    private static String column(String[] row, String name) {
+        return row[COLUMN_INDEX.get(name)].trim();
+    }
+
+    private static BigDecimal decimalOrZero(String value) {
+        return value.isEmpty() ? BigDecimal.ZERO : new BigDecimal(value);
+    }
+
+    private static LocalTime timeOrNull(String value) {
+        return value.isEmpty() ? null : LocalTime.parse(value);
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,22 @@
+package se.pbt.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Summary of a finished carry-forward.
+ *
+ * @param entryId   ID of the journal entry created for the day
+ * @param date      date of that entry
+ * @param snapshots number of open trades carried forward, one snapshot each
+ * @param priced    number of those snapshots whose prices came from the price source
+ * @param elapsed   wall-clock time spent
+ */
+public record CarryForwardReport(Long entryId, LocalDate date, int snapshots, int priced, Duration elapsed) {
+
+    @Override
+    public String toString() {
+        return String.format("Carried %d open trades forward to %s (%d priced) in %d ms",
+                snapshots, date, priced, elapsed.toMillis());
+    }
+}
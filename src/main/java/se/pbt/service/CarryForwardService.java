@@ -0,0 +1,229 @@
+package se.pbt.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.listener.ChangeEvent;
+import se.pbt.model.listener.ChangeEventBus;
+import se.pbt.price.DailyPrice;
+import se.pbt.price.PriceSource;
+import se.pbt.repository.TradeOpenState;
+import se.pbt.timeseries.SnapshotColumnStore;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Starts a new day in the journal: creates the day's {@link JournalEntry} with a {@link TradeSnapshot} for every
+ * open trade, in one transaction.
+ * <p>
+ * Each open trade is carried forward from its latest snapshot. The remaining quantity is kept, and the open and
+ * close prices are taken from a {@link PriceSource}, looked up by ticker and then by ISIN, when one is given and
+ * has prices for the asset. Otherwise both are set to the previous close. The available cash and invested capital
+ * are copied from the latest entry.
+ * </p>
+ * <p>
+ * The open trades and their latest snapshots are read with a single projection query over the open-position
+ * columns kept by {@link TradeOpenState}, and the trades are referenced without being loaded. The snapshots are
+ * written in JDBC batches, the persistence context is flushed and cleared every {@link #flushInterval} snapshots,
+ * and the open-position columns are moved to the new day with one bulk update.
+ * </p>
+ * <p>
+ * If a {@link SnapshotColumnStore} is given, the new snapshots are written to it once the transaction has
+ * committed. If a {@link ChangeEventBus} is given, a change event for the entry, each snapshot and each carried
+ * trade is published at the same point.
+ * </p>
+ */
+public class CarryForwardService {
+
+    /** Number of snapshots persisted between each flush and clear of the persistence context. */
+    public static final int DEFAULT_FLUSH_INTERVAL = 1_000;
+
+    private final EntityManagerFactory emf;
+    private final int flushInterval;
+    private final ChangeEventBus changeEvents;
+    private final SnapshotColumnStore snapshotStore;
+
+    public CarryForwardService(EntityManagerFactory emf) {
+        this(emf, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    public CarryForwardService(EntityManagerFactory emf, int flushInterval) {
+        this(emf, flushInterval, null, null);
+    }
+
+    public CarryForwardService(EntityManagerFactory emf, int flushInterval, ChangeEventBus changeEvents,
+                               SnapshotColumnStore snapshotStore) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("Flush interval must be greater than 0");
+        }
+        this.emf = emf;
+        this.flushInterval = flushInterval;
+        this.changeEvents = changeEvents;
+        this.snapshotStore = snapshotStore;
+    }
+
+    /**
+     * Carries every open trade forward to {@code date} at its previous close.
+     *
+     * @throws IllegalArgumentException if the journal already has an entry on or after {@code date}
+     */
+    public CarryForwardReport carryForward(LocalDate date) {
+        return carryForward(date, null);
+    }
+
+    /**
+     * Carries every open trade forward to {@code date}, with prices from {@code prices} where it has them.
+     * Pass {@code null} to use the previous close for all trades. Nothing is written if any snapshot is invalid.
+     *
+     * @throws IllegalArgumentException if the journal already has an entry on or after {@code date}
+     */
+    public CarryForwardReport carryForward(LocalDate date, PriceSource prices) {
+        long start = System.nanoTime();
+        List<Carried> carried = new ArrayList<>();
+        int priced = 0;
+        Long entryId;
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Optional<JournalEntry> latest = latestEntry(em);
+            if (latest.isPresent() && !latest.get().getDate().isBefore(date)) {
+                throw new IllegalArgumentException("The journal already has an entry on or after " + date);
+            }
+
+            JournalEntry entry = JournalEntry.builder()
+                    .date(date)
+                    .availableCash(latest.map(JournalEntry::getAvailableCash).orElse(Money.ZERO))
+                    .investedCapital(latest.map(JournalEntry::getInvestedCapital).orElse(Money.ZERO))
+                    .build();
+            em.persist(entry);
+            entryId = entry.getId();
+
+            int sinceFlush = 0;
+            for (OpenPosition position : openPositions(em)) {
+                Optional<DailyPrice> price = prices == null ? Optional.empty() : priceOf(prices, position, date);
+                if (price.isPresent()) {
+                    priced++;
+                }
+                TradeSnapshot snapshot = TradeSnapshot.builder()
+                        .remainingQuantity(position.remainingQuantity())
+                        .openPrice(price.map(DailyPrice::open).orElse(position.closePrice()))
+                        .closePrice(price.map(DailyPrice::close).orElse(position.closePrice()))
+                        .trade(em.getReference(Trade.class, position.tradeId()))
+                        .journalEntry(entry)
+                        .build();
+                em.persist(snapshot);
+                carried.add(new Carried(position.tradeId(), snapshot.getId(), snapshot.getRemainingQuantity(),
+                        snapshot.getOpenPrice(), snapshot.getClosePrice()));
+
+                if (++sinceFlush >= flushInterval) {
+                    em.flush();
+                    em.clear();
+                    entry = em.getReference(JournalEntry.class, entryId);
+                    sinceFlush = 0;
+                }
+            }
+
+            em.createQuery("""
+                        UPDATE Trade t
+                        SET t.lastSnapshotOn = :date
+                        WHERE t.open = true
+                    """)
+                    .setParameter("date", date)
+                    .executeUpdate();
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+
+        if (snapshotStore != null) {
+            carried.forEach(row -> snapshotStore.put(row.tradeId(), date, row.openPrice(), row.closePrice(),
+                    row.remainingQuantity()));
+        }
+        if (changeEvents != null) {
+            changeEvents.publish(changesOf(entryId, carried));
+        }
+        return new CarryForwardReport(entryId, date, carried.size(), priced,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static Optional<JournalEntry> latestEntry(EntityManager em) {
+        return em.createQuery("""
+                    SELECT j
+                    FROM JournalEntry j
+                    ORDER BY j.date DESC, j.id DESC
+                """, JournalEntry.class)
+                .setMaxResults(1)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Reads every open trade with the remaining quantity and close price of its latest snapshot, in trade order.
+     * Should a trade have several snapshots on its latest date, the last one with units remaining is used.
+     */
+    private static List<OpenPosition> openPositions(EntityManager em) {
+        List<Object[]> rows = em.createQuery("""
+                    SELECT t.id, s.remainingQuantity, s.closePrice, a.ticker, a.isin
+                    FROM TradeSnapshot s
+                    JOIN s.trade t
+                    JOIN t.asset a
+                    JOIN s.journalEntry j
+                    WHERE t.open = true AND j.date = t.lastSnapshotOn
+                    ORDER BY t.id, s.id
+                """, Object[].class)
+                .getResultList();
+        Map<Long, OpenPosition> positions = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            OpenPosition position = new OpenPosition((Long) row[0], (Integer) row[1], (BigDecimal) row[2],
+                    (String) row[3], (String) row[4]);
+            positions.merge(position.tradeId(), position,
+                    (earlier, later) -> later.remainingQuantity() > 0 ? later : earlier);
+        }
+        return new ArrayList<>(positions.values());
+    }
+
+    private static Optional<DailyPrice> priceOf(PriceSource prices, OpenPosition position, LocalDate date) {
+        Optional<DailyPrice> byTicker = position.ticker() == null
+                ? Optional.empty()
+                : prices.find(position.ticker(), date);
+        return byTicker.isPresent() || position.isin() == null ? byTicker : prices.find(position.isin(), date);
+    }
+
+    private static List<ChangeEvent> changesOf(Long entryId, List<Carried> carried) {
+        List<ChangeEvent> changes = new ArrayList<>(carried.size() * 2 + 1);
+        changes.add(ChangeEvent.created(JournalEntry.class, entryId));
+        for (Carried row : carried) {
+            changes.add(ChangeEvent.created(TradeSnapshot.class, row.snapshotId()));
+            changes.add(ChangeEvent.updated(Trade.class, row.tradeId()));
+        }
+        return changes;
+    }
+
+    /**
+     * An open trade as of its latest snapshot.
+     */
+    private record OpenPosition(Long tradeId, int remainingQuantity, BigDecimal closePrice, String ticker,
+                                String isin) {}
+
+    /**
+     * A snapshot written by a carry-forward, kept for the snapshot store and the change events.
+     */
+    private record Carried(long tradeId, long snapshotId, int remainingQuantity, BigDecimal openPrice,
+                           BigDecimal closePrice) {}
+}
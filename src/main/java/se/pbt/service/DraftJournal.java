@@ -0,0 +1,594 @@
+package se.pbt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.asset.Asset;
+import se.pbt.model.asset.AssetClass;
+import se.pbt.model.asset.Exchange;
+import se.pbt.model.asset.Industry;
+import se.pbt.model.asset.Sector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the unsaved, in-progress {@link JournalEntry} in a small append-only file, so that a crash
+ * or a closed window does not lose the day's work.
+ * <p>
+ * Every change to the draft goes through this class: {@link #addSnapshot(TradeSnapshot)},
+ * {@link #recordSale(TradeSnapshot, ExecutedSale)} and {@link #setComment(String)}. Each one updates the draft
+ * in memory at once and appends a record describing it to a write-behind queue. A background thread writes
+ * the queued records and forces them to disk once per batch, at most every {@link #DEFAULT_SYNC_INTERVAL},
+ * so callers, in particular the JavaFX application thread, never wait for the disk. Consecutive comment edits
+ * in one batch are written as one record.
+ * </p>
+ * <p>
+ * {@link #open(Path)} replays the file into a new draft. A record cut short by a crash is ignored, so at most
+ * the last batch is lost.
+ * </p>
+ * <p>
+ * {@link #seal(LocalDate, Money, Money)} hands the draft over for saving. A sealed draft rejects every change,
+ * so the entry is not modified while it is persisted on another thread, and the file holds exactly the records
+ * of the entry being saved. Once the save has succeeded, {@link #clear()} empties the file and starts a new
+ * draft; if it failed, {@link #unseal()} allows changes again.
+ * </p>
+ * <p>
+ * Trades and assets are written with all their columns, including their IDs when they have been saved
+ * before, so the restored draft holds the same values the lost one did.
+ * </p>
+ * <p>
+ * All methods are thread-safe.
+ * </p>
+ */
+public class DraftJournal implements AutoCloseable {
+
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(200);
+
+    private static final Logger log = LoggerFactory.getLogger(DraftJournal.class);
+
+    private static final String SNAPSHOT = "SNAPSHOT";
+    private static final String SALE = "SALE";
+    private static final String COMMENT = "COMMENT";
+    private static final String NULL = "\\N";
+
+    private final FileChannel channel;
+    private final long syncIntervalNanos;
+    private final ScheduledExecutorService writer;
+
+    // Guarded by this
+    private JournalEntry draft;
+    private final List<TradeSnapshot> snapshots = new ArrayList<>();
+    private final List<String> queued = new ArrayList<>();
+    private String queuedComment;
+    private boolean flushScheduled;
+    private boolean sealed;
+
+    private DraftJournal(FileChannel channel, Duration syncInterval, Replay replay) {
+        this.channel = channel;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.draft = replay.draft;
+        this.snapshots.addAll(replay.snapshots);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "draft-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the draft file, creating it if needed, and restores the draft it describes.
+     */
+    public static DraftJournal open(Path file) throws IOException {
+        return open(file, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Opens the draft file and restores its draft, forcing new records to disk at most every {@code syncInterval}.
+     */
+    public static DraftJournal open(Path file, Duration syncInterval) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            Replay replay = replay(channel);
+            // Drops a record cut short by a crash, so new records start on a line of their own
+            channel.truncate(replay.validLength);
+            channel.position(replay.validLength);
+            return new DraftJournal(channel, syncInterval, replay);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the current draft. It must only be changed through this class.
+     */
+    public synchronized JournalEntry draft() {
+        return draft;
+    }
+
+    /**
+     * Adds a snapshot, together with its trade and that trade's asset, to the draft.
+     *
+     * @throws IllegalStateException if the draft is sealed
+     */
+    public void addSnapshot(TradeSnapshot snapshot) {
+        synchronized (this) {
+            requireUnsealed();
+            if (snapshot.getTrade() != null) {
+                snapshot.getTrade().addSnapshot(snapshot);
+            }
+            draft.addTradeSnapshot(snapshot);
+            snapshots.add(snapshot);
+            queue(snapshotRecord(snapshots.size() - 1, snapshot));
+            snapshot.getExecutedSales().forEach(sale -> queue(saleRecord(snapshots.size() - 1, sale)));
+        }
+    }
+
+    /**
+     * Adds a sale to a snapshot that is already in the draft.
+     *
+     * @throws IllegalArgumentException if the snapshot is not part of the draft
+     * @throws IllegalStateException    if the draft is sealed
+     */
+    public void recordSale(TradeSnapshot snapshot, ExecutedSale sale) {
+        synchronized (this) {
+            requireUnsealed();
+            int index = indexOf(snapshot);
+            snapshot.addExecutedSale(sale);
+            queue(saleRecord(index, sale));
+        }
+    }
+
+    /**
+     * Sets the draft's comment. Only the latest comment of each batch is written.
+     *
+     * @throws IllegalStateException if the draft is sealed
+     */
+    public void setComment(String text) {
+        synchronized (this) {
+            requireUnsealed();
+            draft.setEntryText(text);
+            queuedComment = record(COMMENT, text);
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Dates the draft and sets its balances, then seals it, so that it can be saved on another thread.
+     * The balances are not written to the file; they are set again by the next seal.
+     *
+     * @return the sealed draft, which must not be changed until {@link #clear()} or {@link #unseal()}
+     * @throws IllegalStateException if the draft is already sealed
+     */
+    public synchronized JournalEntry seal(LocalDate date, Money availableCash, Money investedCapital) {
+        requireUnsealed();
+        draft.setDate(date);
+        draft.setAvailableCash(availableCash);
+        draft.setInvestedCapital(investedCapital);
+        sealed = true;
+        return draft;
+    }
+
+    /**
+     * Allows changes to a sealed draft again, after saving it failed.
+     */
+    public synchronized void unseal() {
+        sealed = false;
+    }
+
+    /**
+     * Returns {@code true} while the draft is sealed for saving.
+     */
+    public synchronized boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Starts a new, empty draft and empties the file. Called once the sealed draft has been saved; as it could
+     * not change while it was sealed, only its own records are removed.
+     * Records still waiting to be written are dropped.
+     */
+    public void clear() {
+        synchronized (this) {
+            sealed = false;
+            draft = new JournalEntry();
+            snapshots.clear();
+            queued.clear();
+            queuedComment = null;
+        }
+        writer.execute(() -> {
+            synchronized (this) {
+                try {
+                    channel.truncate(0);
+                    channel.force(false);
+                } catch (IOException e) {
+                    log.warn("Could not empty the draft file", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes and forces every queued record to disk, waiting for the background thread to finish.
+     */
+    public void flush() throws IOException {
+        try {
+            writer.submit(this::writeQueued).get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof UncheckedIOException io ? io.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing the draft", e);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out flushing the draft", e);
+        }
+    }
+
+    /**
+     * Writes the remaining records and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            writer.shutdownNow();
+            channel.close();
+        }
+    }
+
+    // Called while holding this
+    private void requireUnsealed() {
+        if (sealed) {
+            throw new IllegalStateException("The draft is being saved");
+        }
+    }
+
+    private int indexOf(TradeSnapshot snapshot) {
+        for (int i = 0; i < snapshots.size(); i++) {
+            if (snapshots.get(i) == snapshot) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Snapshot is not part of the draft");
+    }
+
+    // Called while holding this
+    private void queue(String record) {
+        queued.add(record);
+        scheduleFlush();
+    }
+
+    // Called while holding this
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            writer.schedule(this::writeQueuedQuietly, syncIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeQueuedQuietly() {
+        try {
+            writeQueued();
+        } catch (UncheckedIOException e) {
+            log.warn("Could not write the draft; the records are kept for the next attempt", e);
+        }
+    }
+
+    /**
+     * Writes the queued records in one write and one fsync. Runs on the writer thread only.
+     */
+    private void writeQueued() {
+        List<String> records;
+        synchronized (this) {
+            flushScheduled = false;
+            records = new ArrayList<>(queued);
+            if (queuedComment != null) {
+                records.add(queuedComment);
+            }
+            queued.clear();
+            queuedComment = null;
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(String.join("", records).getBytes(StandardCharsets.UTF_8));
+        long start;
+        try {
+            start = channel.position();
+        } catch (IOException e) {
+            requeue(records);
+            throw new UncheckedIOException(e);
+        }
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // Cuts off a partial write, so the retried batch does not follow a torn record that replay stops at
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            requeue(records);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Puts records that could not be written back at the head of the queue, for the next batch.
+     */
+    private synchronized void requeue(List<String> records) {
+        queued.addAll(0, records);
+    }
+
+    private static String snapshotRecord(int index, TradeSnapshot snapshot) {
+        Trade trade = snapshot.getTrade();
+        Asset asset = trade == null ? null : trade.getAsset();
+        List<Object> fields = new ArrayList<>(List.of(SNAPSHOT, index));
+        fields.addAll(Arrays.asList(snapshot.getRemainingQuantity(), snapshot.getOpenPrice(),
+                snapshot.getClosePrice(), snapshot.getNotes()));
+        fields.add(trade != null);
+        if (trade != null) {
+            fields.addAll(Arrays.asList(trade.getId(), trade.getQuantity(), trade.getEntryPrice(), trade.getBuyFee(),
+                    trade.getExitPrice(), trade.getEntryTime(), trade.getExitTime()));
+        }
+        fields.add(asset != null);
+        if (asset != null) {
+            fields.addAll(Arrays.asList(asset.getId(), asset.getName(), asset.getTicker(), asset.getIsin(),
+                    asset.getAssetClass(), asset.getCurrency(), asset.getExchange(), asset.isLeveraged(),
+                    asset.isInvestmentCompany(), asset.getLeverageRatio(), asset.getDividendYield(),
+                    joinEnums(asset.getSectors()), joinEnums(asset.getIndustries())));
+        }
+        return record(fields.toArray());
+    }
+
+    private static String saleRecord(int index, ExecutedSale sale) {
+        return record(SALE, index, sale.getQuantitySold(), sale.getSellPrice(), sale.getSellFee(),
+                units(sale.getGrossGain()), units(sale.getNetGain()), sale.getSellTime());
+    }
+
+    private static Long units(Money money) {
+        return money == null ? null : money.units();
+    }
+
+    private static String joinEnums(Set<? extends Enum<?>> values) {
+        return values == null ? null : values.stream().map(Enum::name).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Formats one record: tab-separated fields ending with a newline, with {@code \N} for {@code null}.
+     */
+    private static String record(Object... fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            line.append(fields[i] == null ? NULL : escape(String.valueOf(fields[i])));
+        }
+        return line.append('\n').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.equals(NULL)) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * The draft rebuilt from a file, and the length of the file up to its last complete record.
+     */
+    private record Replay(JournalEntry draft, List<TradeSnapshot> snapshots, long validLength) {}
+
+    private static Replay replay(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // Reads the whole file
+        }
+        String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+
+        JournalEntry draft = new JournalEntry();
+        List<TradeSnapshot> snapshots = new ArrayList<>();
+        long validLength = 0;
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            String line = content.substring(start, end);
+            try {
+                apply(draft, snapshots, line.split("\t", -1));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring the draft from an unreadable record onwards: {}", line, e);
+                break;
+            }
+            validLength += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            start = end + 1;
+        }
+        if (!snapshots.isEmpty() || draft.getEntryText() != null) {
+            log.info("Restored a draft with {} snapshots", snapshots.size());
+        }
+        return new Replay(draft, snapshots, validLength);
+    }
+
+    private static void apply(JournalEntry draft, List<TradeSnapshot> snapshots, String[] fields) {
+        Fields in = new Fields(fields);
+        switch (in.string()) {
+            case SNAPSHOT -> {
+                if (in.integer() != snapshots.size()) {
+                    throw new IllegalArgumentException("Snapshot out of order");
+                }
+                TradeSnapshot snapshot = TradeSnapshot.builder()
+                        .remainingQuantity(in.integer())
+                        .openPrice(in.decimal())
+                        .closePrice(in.decimal())
+                        .notes(in.string())
+                        .build();
+                Trade trade = !in.flag() ? null : Trade.builder()
+                        .id(in.longValue())
+                        .quantity(in.integer())
+                        .entryPrice(in.decimal())
+                        .buyFee(in.decimal())
+                        .exitPrice(in.decimal())
+                        .entryTime(in.time())
+                        .exitTime(in.time())
+                        .build();
+                Asset asset = !in.flag() ? null : Asset.builder()
+                        .id(in.longValue())
+                        .name(in.string())
+                        .ticker(in.string())
+                        .isin(in.string())
+                        .assetClass(in.enumValue(AssetClass::valueOf))
+                        .currency(in.enumValue(Currency::getInstance))
+                        .exchange(in.enumValue(Exchange::valueOf))
+                        .isLeveraged(in.flag())
+                        .isInvestmentCompany(in.flag())
+                        .leverageRatio(in.decimal())
+                        .dividendYield(in.decimal())
+                        .sectors(in.enumSet(Sector::valueOf))
+                        .industries(in.enumSet(Industry::valueOf))
+                        .build();
+                if (trade != null) {
+                    trade.setAsset(asset);
+                    trade.addSnapshot(snapshot);
+                }
+                draft.addTradeSnapshot(snapshot);
+                snapshots.add(snapshot);
+            }
+            case SALE -> {
+                TradeSnapshot snapshot = snapshots.get(in.integer());
+                snapshot.addExecutedSale(ExecutedSale.builder()
+                        .quantitySold(in.integer())
+                        .sellPrice(in.decimal())
+                        .sellFee(in.decimal())
+                        .grossGain(in.money())
+                        .netGain(in.money())
+                        .sellTime(in.time())
+                        .build());
+            }
+            case COMMENT -> draft.setEntryText(in.string());
+            default -> throw new IllegalArgumentException("Unknown record type");
+        }
+    }
+
+    /**
+     * Reads the fields of one record in order.
+     */
+    private static final class Fields {
+
+        private final String[] fields;
+        private int next;
+
+        Fields(String[] fields) {
+            this.fields = fields;
+        }
+
+        String string() {
+            if (next >= fields.length) {
+                throw new IllegalArgumentException("Record has too few fields");
+            }
+            return unescape(fields[next++]);
+        }
+
+        boolean flag() {
+            return Boolean.parseBoolean(string());
+        }
+
+        int integer() {
+            return Integer.parseInt(string());
+        }
+
+        Long longValue() {
+            String value = string();
+            return value == null ? null : Long.valueOf(value);
+        }
+
+        BigDecimal decimal() {
+            String value = string();
+            return value == null ? null : new BigDecimal(value);
+        }
+
+        Money money() {
+            Long units = longValue();
+            return units == null ? null : Money.ofUnits(units);
+        }
+
+        LocalTime time() {
+            String value = string();
+            return value == null ? null : LocalTime.parse(value);
+        }
+
+        <T> T enumValue(Function<String, T> parser) {
+            String value = string();
+            return value == null ? null : parser.apply(value);
+        }
+
+        <E extends Enum<E>> Set<E> enumSet(Function<String, E> parser) {
+            String value = string();
+            if (value == null) {
+                return null;
+            }
+            Set<E> values = new HashSet<>();
+            for (String name : value.split(",")) {
+                if (!name.isEmpty()) {
+                    values.add(parser.apply(name));
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package se.pbt.service;
+
+import java.time.Duration;
+
+/**
+ * Summary of a finished bulk import.
+ *
+ * @param rows      number of data rows read from the file
+ * @param entries   number of journal entries created
+ * @param trades    number of trades created
+ * @param snapshots number of trade snapshots created
+ * @param sales     number of executed sales created
+ * @param elapsed   wall-clock time spent on the import
+ */
+public record ImportReport(long rows, long entries, long trades, long snapshots, long sales, Duration elapsed) {
+
+    /**
+     * Returns the import throughput in rows per second.
+     */
+    public double rowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? rows : rows * 1_000_000_000d / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d rows (%d entries, %d trades, %d snapshots, %d sales) in %d ms, %.0f rows/s",
+                rows, entries, trades, snapshots, sales, elapsed.toMillis(), rowsPerSecond());
+    }
+}
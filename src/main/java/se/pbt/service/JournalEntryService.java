@@ -1,34 +1,142 @@
 package se.pbt.service;
 
+import lombok.Builder;
+import se.pbt.analytics.TradeColumns;
+import se.pbt.analytics.TradeStatistics;
+import se.pbt.analytics.TradeStatisticsEngine;
+import se.pbt.model.ExecutedSale;
 import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.listener.ChangeEvent;
+import se.pbt.model.listener.ChangeEventBus;
+import se.pbt.repository.FetchProfile;
 import se.pbt.repository.JournalEntryRepository;
+import se.pbt.repository.PageCursor;
+import se.pbt.repository.TradeRepository;
+import se.pbt.report.ReportPeriod;
+import se.pbt.report.SummaryDimension;
+import se.pbt.rollup.PerformanceRollup;
+import se.pbt.rollup.PerformanceRollupStore;
+import se.pbt.rollup.RollupDimension;
+import se.pbt.search.JournalSearchIndex;
+import se.pbt.search.SearchHit;
+import se.pbt.timeseries.EquityCurve;
+import se.pbt.timeseries.SnapshotColumnStore;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Service layer for working with journal entries and related trades.
  */
 public class JournalEntryService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final TradeStatisticsEngine STATISTICS_ENGINE = new TradeStatisticsEngine();
+
     private final JournalEntryRepository journalRepo;
+    private final SnapshotColumnStore snapshotStore;
+    private final ChangeEventBus changeEvents;
+    private final JournalSearchIndex searchIndex;
+    private final PerformanceRollupStore rollups;
+    private final TradeRepository tradeRepo;
 
     /**
-     * Constructs a JournalService with the given repositories and analysis service.
+     * Constructs a JournalService that only reads and writes the given repository.
      */
     public JournalEntryService(JournalEntryRepository journalRepo) {
+        this(journalRepo, null, null, null, null, null);
+    }
+
+    /**
+     * Constructs a JournalService with the given repository and optional collaborators; use {@link #builder()}.
+     * Each collaborator left {@code null} is skipped.
+     *
+     * @param snapshotStore kept in sync with saved and removed entries
+     * @param changeEvents  receives the changes made by each save and removal
+     * @param searchIndex   kept in sync with saved and removed entries
+     * @param rollups       read and rebuilt by the service; kept up to date by the repository, which should be
+     *                      given the same store
+     * @param tradeRepo     looks up open and closed trades
+     */
+    @Builder
+    private JournalEntryService(JournalEntryRepository journalRepo, SnapshotColumnStore snapshotStore,
+                                ChangeEventBus changeEvents, JournalSearchIndex searchIndex,
+                                PerformanceRollupStore rollups, TradeRepository tradeRepo) {
         this.journalRepo = journalRepo;
+        this.snapshotStore = snapshotStore;
+        this.changeEvents = changeEvents;
+        this.searchIndex = searchIndex;
+        this.rollups = rollups;
+        this.tradeRepo = tradeRepo;
     }
 
     /**
      * Saves a journal entry to the database.
+     * Once the transaction has committed, the entry's snapshots are also written to the snapshot store, its text
+     * to the search index, if there are ones, and a change event for the entry and each snapshot, trade and sale
+     * in it is published, if there is a bus.
      */
     public void save(JournalEntry entry) {
+        Set<Object> unsaved = changeEvents != null ? unsavedEntities(entry) : Set.of();
         journalRepo.save(entry);
+        if (snapshotStore != null) {
+            snapshotStore.write(entry);
+        }
+        if (searchIndex != null) {
+            searchIndex.index(entry);
+        }
+        if (changeEvents != null) {
+            changeEvents.publish(changesOf(entry, unsaved));
+        }
+    }
+
+    /**
+     * Removes a journal entry, with its snapshots and sales, from the database.
+     * Once the transaction has committed, the entry is also dropped from the snapshot store and the search index,
+     * and removal events are published, if there are ones. The entry's snapshots must be loaded.
+     *
+     * @return {@code true} if the entry existed
+     */
+    public boolean remove(JournalEntry entry) {
+        if (!journalRepo.remove(entry)) {
+            return false;
+        }
+        if (snapshotStore != null) {
+            snapshotStore.delete(entry);
+        }
+        if (searchIndex != null) {
+            searchIndex.remove(entry.getId());
+        }
+        if (changeEvents != null) {
+            changeEvents.publish(removalsOf(entry));
+        }
+        return true;
+    }
+
+    /**
+     * Finds the entries whose commentary or snapshot notes contain every word of {@code query}, newest first.
+     * A word ending in {@code *} matches as a prefix. Pass {@code null} for an open end of the date range.
+     *
+     * @throws IllegalStateException if the service has no search index
+     */
+    public List<SearchHit> search(String query, LocalDate from, LocalDate to, int limit) {
+        if (searchIndex == null) {
+            throw new IllegalStateException("No search index is configured");
+        }
+        return searchIndex.search(query, from, to, limit);
     }
 
     /**
      * Retrieves all journal entries from the database.
+     * Prefer {@link #getPage(PageCursor, int)} or {@link #streamAllEntries()} for browsing the history.
      */
     public List<JournalEntry> getAllEntries() {
         return journalRepo.findAll();
@@ -47,4 +155,210 @@ public class JournalEntryService {
     public Optional<JournalEntry> getLatestEntry() {
         return journalRepo.findLatestEntry();
     }
+
+    /**
+     * Retrieves the trades that are still open, ordered by asset name, with their history loaded for trade cards.
+     * Reads only the open trades, however long the journal is.
+     *
+     * @throws IllegalStateException if the service has no trade repository
+     */
+    public List<Trade> getOpenTrades() {
+        return requireTradeRepo().findOpenTrades();
+    }
+
+    /**
+     * Retrieves one page of journal entries, newest first, starting from the given cursor.
+     * Pass {@code null} as {@code after} to get the first page, and {@link PageCursor#after(JournalEntry)} of the
+     * last entry of a page to get the next one.
+     */
+    public List<JournalEntry> getPage(PageCursor after, int limit) {
+        return journalRepo.findPage(after, limit);
+    }
+
+    /**
+     * Retrieves one page of journal entries dated before the given date, newest first.
+     * Pass {@code null} as {@code before} to get the first page. Entries sharing the date of the last one
+     * returned may be cut off; page with {@link #getPage(PageCursor, int)} to read every entry.
+     */
+    public List<JournalEntry> getPage(LocalDate before, int limit) {
+        return journalRepo.findPage(before, limit);
+    }
+
+    /**
+     * Streams all journal entries, newest first, without loading the whole history into memory.
+     */
+    public Stream<JournalEntry> streamAllEntries() {
+        return journalRepo.streamAll(DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Streams all journal entries, newest first, loading the graph described by {@code profile}.
+     * The stream should be closed once it is no longer needed.
+     */
+    public Stream<JournalEntry> streamAllEntries(FetchProfile profile) {
+        return journalRepo.streamAll(DEFAULT_PAGE_SIZE, profile);
+    }
+
+    /**
+     * Returns the daily market value of all positions between two dates, both inclusive, from the snapshot store.
+     * Pass {@code null} for an open end.
+     *
+     * @throws IllegalStateException if the service has no snapshot store
+     */
+    public EquityCurve getEquityCurve(LocalDate from, LocalDate to) {
+        return requireSnapshotStore().equityCurve(from, to);
+    }
+
+    /**
+     * Computes holding periods, excursions, realized and unrealized P&L and fees for every trade, with win-rate
+     * and expectancy tables per group of {@code groupBy}, or for all trades together if it is {@code null}.
+     * The history is read once; the calculations run in parallel.
+     */
+    public TradeStatistics computeTradeStatistics(SummaryDimension groupBy) {
+        TradeColumns columns;
+        try (Stream<JournalEntry> entries = streamAllEntries(FetchProfile.ANALYTICS)) {
+            columns = TradeColumns.from(entries, groupBy);
+        }
+        return STATISTICS_ENGINE.compute(columns);
+    }
+
+    /**
+     * Returns the realized performance per period and group, oldest period first, for periods starting between
+     * two dates, both inclusive. Pass {@code null} for an open end. Reads one row per period and group.
+     *
+     * @throws IllegalStateException if the service has no rollup store
+     */
+    public List<PerformanceRollup> getRollups(ReportPeriod period, RollupDimension dimension,
+                                              LocalDate from, LocalDate to) {
+        return requireRollups().find(period, dimension, from, to);
+    }
+
+    /**
+     * Recreates every performance rollup from the entries in the database.
+     *
+     * @return the number of rollups written
+     * @throws IllegalStateException if the service has no rollup store
+     */
+    public int rebuildRollups() {
+        PerformanceRollupStore store = requireRollups();
+        try (Stream<JournalEntry> entries = streamAllEntries(FetchProfile.ANALYTICS)) {
+            return store.rebuild(entries);
+        }
+    }
+
+    /**
+     * Recreates the search index from every entry in the database.
+     *
+     * @throws IllegalStateException if the service has no search index
+     */
+    public void rebuildSearchIndex() {
+        if (searchIndex == null) {
+            throw new IllegalStateException("No search index is configured");
+        }
+        try (Stream<JournalEntry> entries = streamAllEntries(FetchProfile.ANALYTICS)) {
+            searchIndex.rebuild(entries);
+        }
+    }
+
+    /**
+     * Recreates the snapshot store from every entry in the database.
+     *
+     * @throws IllegalStateException if the service has no snapshot store
+     */
+    public void rebuildSnapshotStore() {
+        SnapshotColumnStore store = requireSnapshotStore();
+        try (Stream<JournalEntry> entries = streamAllEntries(FetchProfile.ANALYTICS)) {
+            store.rebuild(entries);
+        }
+    }
+
+    /**
+     * Returns the entities in the entry's graph that have no ID yet, compared by identity.
+     */
+    private static Set<Object> unsavedEntities(JournalEntry entry) {
+        Set<Object> unsaved = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (entry.getId() == null) {
+            unsaved.add(entry);
+        }
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            if (snapshot.getId() == null) {
+                unsaved.add(snapshot);
+            }
+            if (snapshot.getTrade() != null && snapshot.getTrade().getId() == null) {
+                unsaved.add(snapshot.getTrade());
+            }
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                if (sale.getId() == null) {
+                    unsaved.add(sale);
+                }
+            }
+        }
+        return unsaved;
+    }
+
+    /**
+     * Lists a change for every entity in the saved entry's graph, created if it was in {@code unsaved}
+     * and updated otherwise. A trade shared by several snapshots is listed once.
+     */
+    private static List<ChangeEvent> changesOf(JournalEntry entry, Set<Object> unsaved) {
+        List<ChangeEvent> changes = new ArrayList<>();
+        changes.add(change(JournalEntry.class, entry.getId(), unsaved.contains(entry)));
+        Set<Trade> trades = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            changes.add(change(TradeSnapshot.class, snapshot.getId(), unsaved.contains(snapshot)));
+            Trade trade = snapshot.getTrade();
+            if (trade != null && trades.add(trade)) {
+                changes.add(change(Trade.class, trade.getId(), unsaved.contains(trade)));
+            }
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                changes.add(change(ExecutedSale.class, sale.getId(), unsaved.contains(sale)));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Lists the removal of the entry and its snapshots and sales. Their trades remain and are listed as updated.
+     */
+    private static List<ChangeEvent> removalsOf(JournalEntry entry) {
+        List<ChangeEvent> changes = new ArrayList<>();
+        changes.add(ChangeEvent.removed(JournalEntry.class, entry.getId()));
+        Set<Trade> trades = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            changes.add(ChangeEvent.removed(TradeSnapshot.class, snapshot.getId()));
+            Trade trade = snapshot.getTrade();
+            if (trade != null && trades.add(trade)) {
+                changes.add(ChangeEvent.updated(Trade.class, trade.getId()));
+            }
+            for (ExecutedSale sale : snapshot.getExecutedSales()) {
+                changes.add(ChangeEvent.removed(ExecutedSale.class, sale.getId()));
+            }
+        }
+        return changes;
+    }
+
+    private static ChangeEvent change(Class<?> type, Long id, boolean created) {
+        return created ? ChangeEvent.created(type, id) : ChangeEvent.updated(type, id);
+    }
+
+    private TradeRepository requireTradeRepo() {
+        if (tradeRepo == null) {
+            throw new IllegalStateException("No trade repository is configured");
+        }
+        return tradeRepo;
+    }
+
+    private PerformanceRollupStore requireRollups() {
+        if (rollups == null) {
+            throw new IllegalStateException("No rollup store is configured");
+        }
+        return rollups;
+    }
+
+    private SnapshotColumnStore requireSnapshotStore() {
+        if (snapshotStore == null) {
+            throw new IllegalStateException("No snapshot store is configured");
+        }
+        return snapshotStore;
+    }
 }
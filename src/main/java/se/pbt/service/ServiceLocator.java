@@ -2,43 +2,366 @@ package se.pbt.service;
 
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.pbt.fx.FxRateStore;
+import se.pbt.fx.ValuationService;
+import se.pbt.ledger.LotMatching;
+import se.pbt.ledger.PositionLedgerStore;
+import se.pbt.metrics.HibernateMetrics;
+import se.pbt.metrics.MetricsRegistry;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.listener.ChangeEventBus;
+import se.pbt.repository.AssetRepository;
+import se.pbt.repository.AssetRepositoryImpl;
+import se.pbt.repository.InstrumentedJournalEntryRepository;
 import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.repository.SchemaMigrator;
+import se.pbt.repository.TradeRepositoryImpl;
+import se.pbt.rollup.PerformanceRollupStore;
+import se.pbt.search.JournalSearchIndex;
+import se.pbt.timeseries.OhlcFileImporter;
+import se.pbt.timeseries.PriceColumnStore;
+import se.pbt.timeseries.SnapshotColumnStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Centralized registry for shared service instances used throughout the application.
  * <p>
- * This class provides a lightweight alternative to full dependency injection frameworks
- * and ensures services are initialized lazily and reused across the application.
- * <\p>
+ * This class provides a lightweight alternative to full dependency injection frameworks.
+ * The services that need the database are created together, on a background thread, by {@link #start()}:
+ * the {@link EntityManagerFactory}, the repositories, the snapshot store, the search index, the performance rollups,
+ * the position ledger, the FX rate store, the valuation service, the {@link JournalEntryService}, the price store
+ * and the carry-forward service.
+ * Pending schema migrations are applied by {@link SchemaMigrator} before any service is created.
+ * The application calls {@code start()} as early as possible, so that Hibernate boots while the UI loads,
+ * and can use the returned future to tell the user when the journal is ready.
+ * </p>
+ * <p>
+ * The services are published through that future, which makes them safely visible to every thread that
+ * waits for it. The getters start the bootstrap if needed and block until it has finished, so they should not
+ * be called on the JavaFX application thread before {@link #isReady()} returns {@code true};
+ * {@link #getAsyncJournalEntryService()} never blocks.
+ * </p>
  */
 public class ServiceLocator {
 
-    private static final EntityManagerFactory emf =
-            Persistence.createEntityManagerFactory("trader-journal-pu");
+    private static final Logger log = LoggerFactory.getLogger(ServiceLocator.class);
+
+    private static final String PERSISTENCE_UNIT = "trader-journal-pu";
+    private static final Path SNAPSHOT_STORE_DIR = Path.of("data", "snapshot-store");
+    private static final Path SEARCH_INDEX_DIR = Path.of("data", "search-index");
+    private static final Path DRAFT_FILE = Path.of("data", "draft-entry.log");
+    private static final Path FX_RATES_DIR = Path.of("data", "fx-rates");
+    private static final Path PRICE_STORE_DIR = Path.of("data", "price-store");
+    private static final Path PRICE_FILES_DIR = Path.of("data", "prices");
+    private static final Currency REPORTING_CURRENCY = Currency.getInstance("SEK");
+
+    private static final Object lock = new Object();
+
+    // Guarded by lock
+    private static CompletableFuture<Services> services;
+    private static AsyncJournalEntryService asyncJournalEntryService;
+    private static ChangeEventBus changeEventBus;
+    private static DraftJournal draftJournal;
+
+    /**
+     * Starts creating the persistence services on a background thread, unless that has already been started.
+     *
+     * @return a future that completes when the services are ready, or fails if they could not be created
+     */
+    public static CompletableFuture<Void> start() {
+        return services().thenApply(ready -> null);
+    }
+
+    /**
+     * Returns {@code true} once the persistence services have been created.
+     */
+    public static boolean isReady() {
+        synchronized (lock) {
+            return services != null && services.isDone() && !services.isCompletedExceptionally();
+        }
+    }
 
-    private static JournalEntryService journalEntryService;
+    /**
+     * Returns the shared {@link AssetRepository}, waiting for the bootstrap if needed.
+     * Sharing one instance means all callers share its asset cache.
+     */
+    public static AssetRepository getAssetRepository() {
+        return awaitServices().assetRepository();
+    }
 
     /**
-     * Returns a shared instance of {@link JournalEntryService}, initialized lazily.
+     * Returns the shared {@link JournalEntryService}, waiting for the bootstrap if needed.
      */
     public static JournalEntryService getJournalEntryService() {
-        if (journalEntryService == null) {
-            journalEntryService = new JournalEntryService(
-                    new JournalEntryRepositoryImpl(emf)
-            );
+        return awaitServices().journalEntryService();
+    }
+
+    /**
+     * Returns the shared {@link SnapshotColumnStore}, waiting for the bootstrap if needed.
+     */
+    public static SnapshotColumnStore getSnapshotStore() {
+        return awaitServices().snapshotStore();
+    }
+
+    /**
+     * Returns the shared {@link PositionLedgerStore}, waiting for the bootstrap if needed.
+     * Positions are matched {@link LotMatching#FIFO}.
+     */
+    public static PositionLedgerStore getPositionLedger() {
+        return awaitServices().positionLedger();
+    }
+
+    /**
+     * Returns the shared {@link PriceColumnStore}, holding the OHLC files found in {@code data/prices},
+     * waiting for the bootstrap if needed. It can be passed to {@link CarryForwardService} as the price source.
+     */
+    public static PriceColumnStore getPriceStore() {
+        return awaitServices().priceStore();
+    }
+
+    /**
+     * Returns the shared {@link CarryForwardService}, waiting for the bootstrap if needed.
+     * It keeps the snapshot store in step and publishes its changes to the {@link ChangeEventBus}.
+     */
+    public static CarryForwardService getCarryForwardService() {
+        return awaitServices().carryForwardService();
+    }
+
+    /**
+     * Returns the shared {@link FxRateStore}, loaded from {@code data/fx-rates}, waiting for the bootstrap if needed.
+     * Rates imported into it invalidate the values cached by {@link #getValuationService()}.
+     */
+    public static FxRateStore getFxRateStore() {
+        return awaitServices().fxRates();
+    }
+
+    /**
+     * Returns the shared {@link ValuationService}, which values entries in SEK, waiting for the bootstrap if needed.
+     * Saved and removed entries are evicted from its cache through the {@link ChangeEventBus}.
+     */
+    public static ValuationService getValuationService() {
+        return awaitServices().valuationService();
+    }
+
+    /**
+     * Returns the shared {@link AsyncJournalEntryService}, created on first use without waiting for the bootstrap.
+     * Its calls wait for the bootstrap on its worker threads, so this is safe to use from the JavaFX application thread.
+     */
+    public static AsyncJournalEntryService getAsyncJournalEntryService() {
+        synchronized (lock) {
+            if (asyncJournalEntryService == null) {
+                asyncJournalEntryService = new AsyncJournalEntryService(ServiceLocator::getJournalEntryService);
+            }
+            return asyncJournalEntryService;
+        }
+    }
+
+    /**
+     * Returns the shared {@link ChangeEventBus}, created on first use without waiting for the bootstrap.
+     * The shared {@link JournalEntryService} publishes every save to it.
+     */
+    public static ChangeEventBus getChangeEventBus() {
+        synchronized (lock) {
+            if (changeEventBus == null) {
+                changeEventBus = new ChangeEventBus();
+            }
+            return changeEventBus;
         }
-        return journalEntryService;
     }
 
     /**
-     * Closes the {@link EntityManagerFactory} when the application shuts down.
+     * Returns the shared {@link DraftJournal}, opened and replayed on first use. It does not need the database.
+     */
+    public static DraftJournal getDraftJournal() {
+        synchronized (lock) {
+            if (draftJournal == null) {
+                try {
+                    draftJournal = DraftJournal.open(DRAFT_FILE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not open the draft journal", e);
+                }
+            }
+            return draftJournal;
+        }
+    }
+
+    /**
+     * Stops the async service and the change event bus and writes out the draft, then logs a summary of the
+     * {@link MetricsRegistry#global() metrics} and Hibernate statistics and closes the search index,
+     * the snapshot store, the price store and the {@link EntityManagerFactory} when the application shuts down. A bootstrap that is still running is waited for first.
      */
     public static void shutdown() {
-        if (emf.isOpen()) {
-            emf.close(); // TODO: Implement safe shutdown
+        CompletableFuture<Services> started;
+        synchronized (lock) {
+            if (asyncJournalEntryService != null) {
+                asyncJournalEntryService.close();
+            }
+            if (changeEventBus != null) {
+                changeEventBus.close();
+            }
+            if (draftJournal != null) {
+                try {
+                    draftJournal.close();
+                } catch (IOException e) {
+                    log.warn("Could not write the draft journal", e);
+                }
+            }
+            started = services;
+        }
+        if (started == null) {
+            return;
+        }
+        Services ready;
+        try {
+            ready = started.join();
+        } catch (CompletionException e) {
+            return;
+        }
+        log.info("Metrics at shutdown:\n{}{}", MetricsRegistry.global().summary(), HibernateMetrics.summary(ready.emf()));
+        try {
+            ready.searchIndex().close();
+            ready.snapshotStore().close();
+            ready.priceStore().close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close the local data stores", e);
+        } finally {
+            if (ready.emf().isOpen()) {
+                ready.emf().close();
+            }
+        }
+    }
+
+    private static CompletableFuture<Services> services() {
+        synchronized (lock) {
+            if (services == null) {
+                services = new CompletableFuture<>();
+                Thread bootstrap = new Thread(ServiceLocator::bootstrap, "persistence-bootstrap");
+                bootstrap.setDaemon(true);
+                bootstrap.start();
+            }
+            return services;
+        }
+    }
+
+    private static Services awaitServices() {
+        try {
+            return services().join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("The journal database could not be opened", e.getCause());
+        }
+    }
+
+    /**
+     * Creates the persistence services and completes {@link #services} with them.
+     * A newly created snapshot store, search index, rollup table or position ledger is filled from the database
+     * before the services are published.
+     */
+    private static void bootstrap() {
+        CompletableFuture<Services> result;
+        synchronized (lock) {
+            result = services;
+        }
+        long start = System.nanoTime();
+        EntityManagerFactory emf = null;
+        SnapshotColumnStore snapshotStore = null;
+        JournalSearchIndex searchIndex = null;
+        PriceColumnStore priceStore = null;
+        try {
+            emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+            log.info("EntityManagerFactory ready after {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            HibernateMetrics.enable(emf);
+            new SchemaMigrator().migrate(emf);
+
+            AssetRepository assetRepository = new AssetRepositoryImpl(emf);
+            snapshotStore = SnapshotColumnStore.open(SNAPSHOT_STORE_DIR);
+            searchIndex = JournalSearchIndex.open(SEARCH_INDEX_DIR);
+            PerformanceRollupStore rollups = new PerformanceRollupStore(emf);
+            PositionLedgerStore positionLedger = new PositionLedgerStore(emf, LotMatching.FIFO);
+            JournalEntryService journalEntryService = JournalEntryService.builder()
+                    .journalRepo(new InstrumentedJournalEntryRepository(
+                            new JournalEntryRepositoryImpl(emf, assetRepository, rollups, positionLedger),
+                            MetricsRegistry.global()))
+                    .snapshotStore(snapshotStore)
+                    .changeEvents(getChangeEventBus())
+                    .searchIndex(searchIndex)
+                    .rollups(rollups)
+                    .tradeRepo(new TradeRepositoryImpl(emf))
+                    .build();
+            if (snapshotStore.isEmpty()) {
+                journalEntryService.rebuildSnapshotStore();
+            }
+            if (searchIndex.needsRebuild()) {
+                journalEntryService.rebuildSearchIndex();
+            }
+            if (rollups.needsRebuild()) {
+                journalEntryService.rebuildRollups();
+            }
+            if (positionLedger.needsRebuild()) {
+                log.info("Rebuilt {} ledger positions", positionLedger.rebuildAll());
+            }
+            FxRateStore fxRates = FxRateStore.load(FX_RATES_DIR);
+            ValuationService valuationService = new ValuationService(fxRates, REPORTING_CURRENCY);
+            getChangeEventBus().subscribe(
+                    batch -> valuationService.invalidate(batch.ids(JournalEntry.class)), Runnable::run);
+
+            priceStore = PriceColumnStore.open(PRICE_STORE_DIR);
+            int priceDays = new OhlcFileImporter(priceStore).ingestDirectory(PRICE_FILES_DIR);
+            log.info("Ingested {} new days of prices, {} in total", priceDays, priceStore.size());
+            CarryForwardService carryForwardService = new CarryForwardService(
+                    emf, CarryForwardService.DEFAULT_FLUSH_INTERVAL, getChangeEventBus(), snapshotStore);
+
+            log.info("Services ready after {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            result.complete(new Services(emf, assetRepository, snapshotStore, searchIndex, positionLedger, fxRates,
+                    valuationService, journalEntryService, priceStore, carryForwardService));
+        } catch (IOException | RuntimeException | Error e) {
+            closeQuietly(priceStore);
+            closeQuietly(searchIndex);
+            closeQuietly(snapshotStore);
+            if (emf != null && emf.isOpen()) {
+                emf.close();
+            }
+            result.completeExceptionally(e instanceof IOException io
+                    ? new UncheckedIOException("Could not open the local data stores", io)
+                    : e);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable store) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (Exception e) {
+            log.warn("Could not close {}", store.getClass().getSimpleName(), e);
         }
     }
 
+    /**
+     * The services created by one bootstrap.
+     */
+    private record Services(
+            EntityManagerFactory emf,
+            AssetRepository assetRepository,
+            SnapshotColumnStore snapshotStore,
+            JournalSearchIndex searchIndex,
+            PositionLedgerStore positionLedger,
+            FxRateStore fxRates,
+            ValuationService valuationService,
+            JournalEntryService journalEntryService,
+            PriceColumnStore priceStore,
+            CarryForwardService carryForwardService
+    ) {}
+
     // Prevent instantiation
     private ServiceLocator() {}
 }
@@ -0,0 +1,32 @@
+package se.pbt.timeseries;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * A decline in an {@link EquityCurve} from a peak to a later trough.
+ *
+ * @param peakDate    the day of the peak
+ * @param peakValue   the value at the peak
+ * @param troughDate  the day of the lowest value after the peak
+ * @param troughValue the value at the trough
+ */
+public record Drawdown(LocalDate peakDate, BigDecimal peakValue, LocalDate troughDate, BigDecimal troughValue) {
+
+    /**
+     * Returns the decline from peak to trough.
+     */
+    public BigDecimal amount() {
+        return peakValue.subtract(troughValue);
+    }
+
+    /**
+     * Returns the decline as a percentage of the peak, rounded to two decimals.
+     */
+    public BigDecimal percentage() {
+        return amount()
+                .multiply(BigDecimal.valueOf(100))
+                .divide(peakValue, 2, RoundingMode.HALF_UP);
+    }
+}
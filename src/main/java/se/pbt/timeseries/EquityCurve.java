@@ -0,0 +1,71 @@
+package se.pbt.timeseries;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Daily market value of held positions, oldest day first, as computed by {@link SnapshotColumnStore}.
+ * <p>
+ * The value of a day is the sum of {@code close price × remaining quantity} over that day's snapshots.
+ * Days without snapshots are not part of the curve. Values are kept as fixed-point longs with
+ * {@link SnapshotColumnStore#PRICE_SCALE} decimals.
+ * </p>
+ */
+public final class EquityCurve {
+
+    private final int[] epochDays;
+    private final long[] values;
+
+    EquityCurve(int[] epochDays, long[] values) {
+        this.epochDays = epochDays;
+        this.values = values;
+    }
+
+    /**
+     * Returns the number of days in the curve.
+     */
+    public int size() {
+        return epochDays.length;
+    }
+
+    public boolean isEmpty() {
+        return epochDays.length == 0;
+    }
+
+    public LocalDate date(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    public BigDecimal value(int index) {
+        return BigDecimal.valueOf(values[index], SnapshotColumnStore.PRICE_SCALE);
+    }
+
+    /**
+     * Finds the largest relative decline from a running peak to a later low, in a single pass.
+     *
+     * @return the maximum drawdown, or empty if the curve never declines from a positive peak
+     */
+    public Optional<Drawdown> maxDrawdown() {
+        int peak = 0;
+        int bestPeak = -1;
+        int bestTrough = -1;
+        double bestRatio = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[peak]) {
+                peak = i;
+            } else if (values[peak] > 0) {
+                double ratio = (double) (values[peak] - values[i]) / values[peak];
+                if (ratio > bestRatio) {
+                    bestRatio = ratio;
+                    bestPeak = peak;
+                    bestTrough = i;
+                }
+            }
+        }
+        if (bestPeak < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Drawdown(date(bestPeak), value(bestPeak), date(bestTrough), value(bestTrough)));
+    }
+}
@@ -0,0 +1,80 @@
+package se.pbt.timeseries;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One fixed-width column of a {@link SnapshotColumnStore}, backed by a memory-mapped file.
+ * <p>
+ * Values are stored in native byte order at {@code row × width}. The mapping is replaced by a larger one
+ * when the column grows; the file is extended by the operating system as part of the new mapping.
+ * </p>
+ */
+final class MappedColumn implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final int width;
+    private MappedByteBuffer buffer;
+    private int capacity;
+
+    private MappedColumn(FileChannel channel, int width, int capacity) throws IOException {
+        this.channel = channel;
+        this.width = width;
+        map(capacity);
+    }
+
+    static MappedColumn open(Path file, int width, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int existingRows = (int) Math.min(Integer.MAX_VALUE, channel.size() / width);
+        return new MappedColumn(channel, width, Math.max(capacity, existingRows));
+    }
+
+    /**
+     * Makes room for at least {@code rows} rows.
+     */
+    void ensureCapacity(int rows) throws IOException {
+        if (rows > capacity) {
+            map((int) Math.min(Integer.MAX_VALUE / width, Math.max(rows, (long) capacity * 2)));
+        }
+    }
+
+    private void map(int rows) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) rows * width);
+        buffer.order(ByteOrder.nativeOrder());
+        capacity = rows;
+    }
+
+    long getLong(int row) {
+        return buffer.getLong(row << 3);
+    }
+
+    void putLong(int row, long value) {
+        buffer.putLong(row << 3, value);
+    }
+
+    int getInt(int row) {
+        return buffer.getInt(row << 2);
+    }
+
+    void putInt(int row, int value) {
+        buffer.putInt(row << 2, value);
+    }
+
+    /**
+     * Writes changed pages back to the file.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
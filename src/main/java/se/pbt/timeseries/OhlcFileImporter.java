@@ -0,0 +1,169 @@
+package se.pbt.timeseries;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Appends daily OHLC CSV files to a {@link PriceColumnStore}.
+ * <p>
+ * Each file holds the history of one asset and is named after its ticker or ISIN, e.g. {@code VOLV-B.ST.csv}.
+ * The header must name {@code date}, {@code open}, {@code high}, {@code low} and {@code close} columns in any order
+ * and case; other columns, such as {@code Adj Close} or {@code Volume}, are ignored. Rows must be sorted by date.
+ * Rows with an empty or {@code null} price are skipped.
+ * </p>
+ * <p>
+ * Ingestion is incremental: only days after the last day already stored for the symbol are appended, so a file
+ * that has grown since the last run only costs the new rows. Rows before that day are skipped by comparing the
+ * ISO date text, without parsing them.
+ * </p>
+ */
+public class OhlcFileImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(OhlcFileImporter.class);
+
+    private static final String EXTENSION = ".csv";
+
+    private final PriceColumnStore store;
+
+    public OhlcFileImporter(PriceColumnStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Ingests every {@code .csv} file in {@code directory}. Does nothing if the directory does not exist.
+     * <p>
+     * A file that cannot be read or parsed is logged and skipped, so one bad download does not keep the other
+     * symbols from being updated. The rows before the invalid one have already been appended; the rest of the
+     * file is ingested on a later run once it has been corrected.
+     * </p>
+     *
+     * @return the number of days appended
+     * @throws IOException if the directory cannot be listed
+     */
+    public int ingestDirectory(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int appended = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    appended += ingest(file);
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn("Skipped the price file {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        store.force();
+        return appended;
+    }
+
+    /**
+     * Ingests one file, using its name without the extension as the symbol.
+     *
+     * @return the number of days appended
+     * @throws IllegalArgumentException if the file cannot be parsed, naming the line number
+     */
+    public int ingest(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        String symbol = name.toLowerCase(Locale.ROOT).endsWith(EXTENSION)
+                ? name.substring(0, name.length() - EXTENSION.length())
+                : name;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return ingest(symbol, reader, file.toString());
+        }
+    }
+
+    private int ingest(String symbol, BufferedReader reader, String source) throws IOException {
+        Columns columns = Columns.of(reader.readLine(), source);
+        int symbolId = store.addSymbol(symbol);
+        int storedDay = store.lastDay(symbolId);
+        // ISO dates sort as text, so rows up to the last stored day can be skipped without parsing
+        String storedDate = storedDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(storedDay).toString();
+
+        int appended = 0;
+        int previousDay = Integer.MIN_VALUE;
+        String line;
+        long lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()
+                    || (storedDate != null && columns.date() == 0 && line.length() >= 10
+                    && line.substring(0, 10).compareTo(storedDate) <= 0)) {
+                continue;
+            }
+            String[] row = line.split(",", -1);
+            try {
+                if (row.length <= columns.last()) {
+                    throw new IllegalArgumentException("expected at least " + (columns.last() + 1)
+                            + " columns, got " + row.length);
+                }
+                int day = Math.toIntExact(LocalDate.parse(row[columns.date()].strip()).toEpochDay());
+                if (day <= previousDay) {
+                    throw new IllegalArgumentException("rows must be sorted by date");
+                }
+                previousDay = day;
+                if (day <= storedDay || isMissing(row[columns.open()]) || isMissing(row[columns.high()])
+                        || isMissing(row[columns.low()]) || isMissing(row[columns.close()])) {
+                    continue;
+                }
+                store.append(symbolId, day, units(row[columns.open()]), units(row[columns.high()]),
+                        units(row[columns.low()]), units(row[columns.close()]));
+                appended++;
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid row at line " + lineNumber + " of " + source + ": "
+                        + e.getMessage(), e);
+            }
+        }
+        return appended;
+    }
+
+    private static boolean isMissing(String value) {
+        String price = value.strip();
+        return price.isEmpty() || price.equalsIgnoreCase("null");
+    }
+
+    private static long units(String value) {
+        return new BigDecimal(value.strip()).setScale(PriceColumnStore.PRICE_SCALE, RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact();
+    }
+
+    /**
+     * Positions of the used columns in a file's header.
+     */
+    private record Columns(int date, int open, int high, int low, int close) {
+
+        static Columns of(String header, String source) {
+            if (header == null) {
+                throw new IllegalArgumentException("Missing header in " + source);
+            }
+            String[] names = header.split(",", -1);
+            return new Columns(find(names, "date", source), find(names, "open", source),
+                    find(names, "high", source), find(names, "low", source), find(names, "close", source));
+        }
+
+        int last() {
+            return Math.max(Math.max(date, open), Math.max(Math.max(high, low), close));
+        }
+
+        private static int find(String[] names, String column, String source) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].strip().equalsIgnoreCase(column)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("No " + column + " column in the header of " + source);
+        }
+    }
+}
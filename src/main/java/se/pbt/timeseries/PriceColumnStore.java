@@ -0,0 +1,364 @@
+package se.pbt.timeseries;
+
+import se.pbt.price.DailyPrice;
+import se.pbt.price.PriceSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Memory-mapped store of daily open, high, low and close prices per asset, for filling in snapshots, marking
+ * positions to market and backtests.
+ * <p>
+ * The layout follows {@link SnapshotColumnStore}: each field is a memory-mapped file holding one fixed-width
+ * value per row (symbol number, epoch day, open, high, low and close), and prices are fixed-point longs with
+ * {@link #PRICE_SCALE} decimals. Symbols are tickers or ISINs, numbered in the order they were added and listed
+ * one per line in {@code symbols.txt}.
+ * </p>
+ * <p>
+ * Rows are only ever appended, and the days of each symbol must increase, so the rows of one symbol are in date
+ * order. When the store is opened, the days and row numbers of each symbol are indexed in primitive arrays, which
+ * lookups binary-search. Lookups take the number returned by {@link #symbolId(String)} and return row numbers and
+ * fixed-point prices, so they allocate nothing; {@link #find(String, LocalDate)} is the allocating convenience.
+ * </p>
+ * <p>
+ * All methods are thread-safe.
+ * </p>
+ */
+public class PriceColumnStore implements PriceSource, AutoCloseable {
+
+    /** Number of decimals kept for prices. */
+    public static final int PRICE_SCALE = 4;
+
+    /** Returned by {@link #symbolId(String)} for a symbol without prices. */
+    public static final int NO_SYMBOL = -1;
+
+    /** Returned by the row lookups when there is no matching row. */
+    public static final int NO_ROW = -1;
+
+    /** Returned by {@link #close(int, int)} when there is no price. */
+    public static final long NO_PRICE = Long.MIN_VALUE;
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int INITIAL_SYMBOL_ROWS = 256;
+    private static final long MAGIC = 0x505249434553_0001L; // "PRICES", format version 1
+    private static final int META_MAGIC = 0;
+    private static final int META_ROWS = 1;
+
+    private final Path symbolsFile;
+    private final MappedColumn meta;
+    private final MappedColumn symbolNumbers;
+    private final MappedColumn epochDays;
+    private final MappedColumn opens;
+    private final MappedColumn highs;
+    private final MappedColumn lows;
+    private final MappedColumn closes;
+
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+    // Per symbol, its rows and their days in date order; only the first rowCounts[symbol] slots are used
+    private int[][] rowsBySymbol = new int[16][];
+    private int[][] daysBySymbol = new int[16][];
+    private int[] rowCounts = new int[16];
+    private int rows;
+
+    /**
+     * Opens the store in {@code directory}, creating it if it does not exist.
+     */
+    public static PriceColumnStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens the store with room for {@code initialCapacity} rows before the files have to grow.
+     */
+    public static PriceColumnStore open(Path directory, int initialCapacity) throws IOException {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be greater than 0");
+        }
+        Files.createDirectories(directory);
+        return new PriceColumnStore(directory, initialCapacity);
+    }
+
+    private PriceColumnStore(Path directory, int capacity) throws IOException {
+        meta = MappedColumn.open(directory.resolve("store.meta"), Long.BYTES, 2);
+        long magic = meta.getLong(META_MAGIC);
+        if (magic == 0) {
+            meta.putLong(META_MAGIC, MAGIC);
+        } else if (magic != MAGIC) {
+            meta.close();
+            throw new IOException("Not a price store, or an unsupported format: " + directory);
+        }
+        rows = (int) meta.getLong(META_ROWS);
+
+        symbolsFile = directory.resolve("symbols.txt");
+        if (Files.exists(symbolsFile)) {
+            for (String symbol : Files.readAllLines(symbolsFile, StandardCharsets.UTF_8)) {
+                if (!symbol.isEmpty()) {
+                    register(symbol);
+                }
+            }
+        }
+
+        symbolNumbers = MappedColumn.open(directory.resolve("symbol.i32"), Integer.BYTES, capacity);
+        epochDays = MappedColumn.open(directory.resolve("epoch_day.i32"), Integer.BYTES, capacity);
+        opens = MappedColumn.open(directory.resolve("open.i64"), Long.BYTES, capacity);
+        highs = MappedColumn.open(directory.resolve("high.i64"), Long.BYTES, capacity);
+        lows = MappedColumn.open(directory.resolve("low.i64"), Long.BYTES, capacity);
+        closes = MappedColumn.open(directory.resolve("close.i64"), Long.BYTES, capacity);
+
+        for (int row = 0; row < rows; row++) {
+            int symbol = symbolNumbers.getInt(row);
+            if (symbol < 0 || symbol >= symbols.size()) {
+                close();
+                throw new IOException("Row " + row + " refers to an unknown symbol: " + directory);
+            }
+            index(symbol, row, epochDays.getInt(row));
+        }
+    }
+
+    /**
+     * Returns the number of a symbol, or {@link #NO_SYMBOL} if it has never been added.
+     */
+    public synchronized int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        return id == null ? NO_SYMBOL : id;
+    }
+
+    /**
+     * Returns the number of a symbol, adding it if needed.
+     *
+     * @throws IllegalArgumentException if the symbol is blank or spans lines
+     */
+    public synchronized int addSymbol(String symbol) {
+        Integer existing = symbolIds.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        if (symbol.isBlank() || symbol.contains("\n") || symbol.contains("\r")) {
+            throw new IllegalArgumentException("Invalid symbol: '" + symbol + "'");
+        }
+        try {
+            Files.writeString(symbolsFile, symbol + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not add symbol " + symbol, e);
+        }
+        return register(symbol);
+    }
+
+    /**
+     * Appends the prices of one day, in fixed-point units with {@link #PRICE_SCALE} decimals.
+     *
+     * @throws IllegalArgumentException if the symbol is unknown or {@code epochDay} is not after its last day
+     */
+    public synchronized void append(int symbolId, int epochDay, long open, long high, long low, long close) {
+        requireSymbol(symbolId);
+        if (rowCounts[symbolId] > 0 && epochDay <= lastDay(symbolId)) {
+            throw new IllegalArgumentException("Days must increase: " + LocalDate.ofEpochDay(epochDay)
+                    + " is not after the last day of " + symbols.get(symbolId));
+        }
+        grow(rows + 1);
+        int row = rows;
+        symbolNumbers.putInt(row, symbolId);
+        epochDays.putInt(row, epochDay);
+        opens.putLong(row, open);
+        highs.putLong(row, high);
+        lows.putLong(row, low);
+        closes.putLong(row, close);
+        // The row counts once its values are in place, so a crash never exposes a partial row
+        rows++;
+        meta.putLong(META_ROWS, rows);
+        index(symbolId, row, epochDay);
+    }
+
+    /**
+     * Returns the last day with prices for a symbol, or {@link Integer#MIN_VALUE} if it has none.
+     */
+    public synchronized int lastDay(int symbolId) {
+        requireSymbol(symbolId);
+        int count = rowCounts[symbolId];
+        return count == 0 ? Integer.MIN_VALUE : daysBySymbol[symbolId][count - 1];
+    }
+
+    /**
+     * Returns the row for a symbol and day, or {@link #NO_ROW}.
+     */
+    public synchronized int row(int symbolId, int epochDay) {
+        if (symbolId < 0 || symbolId >= symbols.size()) {
+            return NO_ROW;
+        }
+        int at = Arrays.binarySearch(daysBySymbol[symbolId], 0, rowCounts[symbolId], epochDay);
+        return at < 0 ? NO_ROW : rowsBySymbol[symbolId][at];
+    }
+
+    /**
+     * Returns the row of the latest day on or before {@code epochDay} for a symbol, or {@link #NO_ROW}.
+     * Used to mark to market on days without trading.
+     */
+    public synchronized int rowOnOrBefore(int symbolId, int epochDay) {
+        if (symbolId < 0 || symbolId >= symbols.size()) {
+            return NO_ROW;
+        }
+        int at = Arrays.binarySearch(daysBySymbol[symbolId], 0, rowCounts[symbolId], epochDay);
+        if (at < 0) {
+            at = -at - 2;
+        }
+        return at < 0 ? NO_ROW : rowsBySymbol[symbolId][at];
+    }
+
+    /**
+     * Returns the number of days with prices for a symbol.
+     */
+    public synchronized int rowCount(int symbolId) {
+        requireSymbol(symbolId);
+        return rowCounts[symbolId];
+    }
+
+    /**
+     * Returns the row of a symbol's {@code index}-th day, in date order, for walking its history.
+     */
+    public synchronized int rowAt(int symbolId, int index) {
+        requireSymbol(symbolId);
+        Objects.checkIndex(index, rowCounts[symbolId]);
+        return rowsBySymbol[symbolId][index];
+    }
+
+    /**
+     * Returns the epoch day of a row.
+     */
+    public synchronized int epochDay(int row) {
+        return epochDays.getInt(Objects.checkIndex(row, rows));
+    }
+
+    /**
+     * Returns the open of a row in fixed-point units; {@link #high(int)}, {@link #low(int)} and
+     * {@link #close(int)} read the other prices the same way.
+     */
+    public synchronized long open(int row) {
+        return opens.getLong(Objects.checkIndex(row, rows));
+    }
+
+    public synchronized long high(int row) {
+        return highs.getLong(Objects.checkIndex(row, rows));
+    }
+
+    public synchronized long low(int row) {
+        return lows.getLong(Objects.checkIndex(row, rows));
+    }
+
+    public synchronized long close(int row) {
+        return closes.getLong(Objects.checkIndex(row, rows));
+    }
+
+    /**
+     * Returns the close of a symbol on a day, or {@link #NO_PRICE}.
+     */
+    public synchronized long close(int symbolId, int epochDay) {
+        int row = row(symbolId, epochDay);
+        return row == NO_ROW ? NO_PRICE : closes.getLong(row);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Allocates the result; use {@link #row(int, int)} and the column getters where that matters.
+     */
+    @Override
+    public synchronized Optional<DailyPrice> find(String symbol, LocalDate date) {
+        int row = row(symbolId(symbol), Math.toIntExact(date.toEpochDay()));
+        if (row == NO_ROW) {
+            return Optional.empty();
+        }
+        return Optional.of(new DailyPrice(BigDecimal.valueOf(opens.getLong(row), PRICE_SCALE),
+                BigDecimal.valueOf(closes.getLong(row), PRICE_SCALE)));
+    }
+
+    /**
+     * Returns the number of stored rows.
+     */
+    public synchronized int size() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of symbols.
+     */
+    public synchronized int symbolCount() {
+        return symbols.size();
+    }
+
+    /**
+     * Writes all changes to disk.
+     */
+    public synchronized void force() {
+        meta.force();
+        symbolNumbers.force();
+        epochDays.force();
+        opens.force();
+        highs.force();
+        lows.force();
+        closes.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        meta.close();
+        symbolNumbers.close();
+        epochDays.close();
+        opens.close();
+        highs.close();
+        lows.close();
+        closes.close();
+    }
+
+    private int register(String symbol) {
+        int id = symbols.size();
+        symbols.add(symbol);
+        symbolIds.put(symbol, id);
+        if (id == rowCounts.length) {
+            rowsBySymbol = Arrays.copyOf(rowsBySymbol, id * 2);
+            daysBySymbol = Arrays.copyOf(daysBySymbol, id * 2);
+            rowCounts = Arrays.copyOf(rowCounts, id * 2);
+        }
+        rowsBySymbol[id] = new int[INITIAL_SYMBOL_ROWS];
+        daysBySymbol[id] = new int[INITIAL_SYMBOL_ROWS];
+        return id;
+    }
+
+    private void index(int symbolId, int row, int epochDay) {
+        int count = rowCounts[symbolId];
+        if (count == rowsBySymbol[symbolId].length) {
+            rowsBySymbol[symbolId] = Arrays.copyOf(rowsBySymbol[symbolId], count * 2);
+            daysBySymbol[symbolId] = Arrays.copyOf(daysBySymbol[symbolId], count * 2);
+        }
+        rowsBySymbol[symbolId][count] = row;
+        daysBySymbol[symbolId][count] = epochDay;
+        rowCounts[symbolId] = count + 1;
+    }
+
+    private void requireSymbol(int symbolId) {
+        if (symbolId < 0 || symbolId >= symbols.size()) {
+            throw new IllegalArgumentException("Unknown symbol number: " + symbolId);
+        }
+    }
+
+    private void grow(int required) {
+        try {
+            symbolNumbers.ensureCapacity(required);
+            epochDays.ensureCapacity(required);
+            opens.ensureCapacity(required);
+            highs.ensureCapacity(required);
+            lows.ensureCapacity(required);
+            closes.ensureCapacity(required);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow the price store", e);
+        }
+    }
+}
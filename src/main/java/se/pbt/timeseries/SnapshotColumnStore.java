@@ -0,0 +1,305 @@
+package se.pbt.timeseries;
+
+import se.pbt.model.JournalEntry;
+import se.pbt.model.TradeSnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Columnar side store of the price and quantity of every {@link TradeSnapshot}, for analytics that scan
+ * the whole history.
+ * <p>
+ * Each field is a memory-mapped file holding one fixed-width value per row: trade ID, epoch day,
+ * open price, close price and remaining quantity. Prices are fixed-point longs with {@link #PRICE_SCALE}
+ * decimals instead of {@link BigDecimal}s. A scan therefore reads a few contiguous arrays of primitives,
+ * and the only objects allocated are the arrays holding the result.
+ * </p>
+ * <p>
+ * Rows are keyed by trade ID and date. Writing a snapshot for a key that already exists replaces the row,
+ * and deleting a row moves the last row into its place, so rows are in no particular order.
+ * The store is derived data: the database stays the source of truth, and {@link #rebuild(Stream)} recreates
+ * the store from it. Writes reach the page cache immediately and survive a crash of the application;
+ * {@link #force()} and {@link #close()} also write them to disk.
+ * </p>
+ * <p>
+ * All methods are thread-safe.
+ * </p>
+ */
+public class SnapshotColumnStore implements AutoCloseable {
+
+    /** Number of decimals kept for prices and values. */
+    public static final int PRICE_SCALE = 4;
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long MAGIC = 0x534E41505354_0001L; // "SNAPST", format version 1
+    private static final int META_MAGIC = 0;
+    private static final int META_ROWS = 1;
+
+    private final MappedColumn meta;
+    private final MappedColumn tradeIds;
+    private final MappedColumn epochDays;
+    private final MappedColumn openPrices;
+    private final MappedColumn closePrices;
+    private final MappedColumn remainingQuantities;
+
+    private final SnapshotKeyIndex index;
+    private int rows;
+    private int minDay = Integer.MAX_VALUE;
+    private int maxDay = Integer.MIN_VALUE;
+
+    /**
+     * Opens the store in {@code directory}, creating it if it does not exist.
+     */
+    public static SnapshotColumnStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens the store with room for {@code initialCapacity} rows before the files have to grow.
+     */
+    public static SnapshotColumnStore open(Path directory, int initialCapacity) throws IOException {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be greater than 0");
+        }
+        Files.createDirectories(directory);
+        return new SnapshotColumnStore(directory, initialCapacity);
+    }
+
+    private SnapshotColumnStore(Path directory, int capacity) throws IOException {
+        meta = MappedColumn.open(directory.resolve("store.meta"), Long.BYTES, 2);
+        long magic = meta.getLong(META_MAGIC);
+        if (magic == 0) {
+            meta.putLong(META_MAGIC, MAGIC);
+        } else if (magic != MAGIC) {
+            meta.close();
+            throw new IOException("Not a snapshot store, or an unsupported format: " + directory);
+        }
+        rows = (int) meta.getLong(META_ROWS);
+
+        tradeIds = MappedColumn.open(directory.resolve("trade_id.i64"), Long.BYTES, capacity);
+        epochDays = MappedColumn.open(directory.resolve("epoch_day.i32"), Integer.BYTES, capacity);
+        openPrices = MappedColumn.open(directory.resolve("open_price.i64"), Long.BYTES, capacity);
+        closePrices = MappedColumn.open(directory.resolve("close_price.i64"), Long.BYTES, capacity);
+        remainingQuantities = MappedColumn.open(directory.resolve("remaining_quantity.i32"), Integer.BYTES, capacity);
+
+        index = new SnapshotKeyIndex(Math.max(capacity, rows));
+        for (int row = 0; row < rows; row++) {
+            int day = epochDays.getInt(row);
+            index.put(SnapshotKeyIndex.key(tradeIds.getLong(row), day), row);
+            includeDay(day);
+        }
+    }
+
+    /**
+     * Writes every snapshot of a saved journal entry, replacing rows already stored for the same trade and date.
+     *
+     * @throws IllegalArgumentException if a snapshot's trade has not been saved yet
+     */
+    public synchronized void write(JournalEntry entry) {
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            if (snapshot.getTrade() == null || snapshot.getTrade().getId() == null) {
+                throw new IllegalArgumentException("Snapshots must belong to a saved trade");
+            }
+            put(snapshot.getTrade().getId(), entry.getDate(), snapshot.getOpenPrice(), snapshot.getClosePrice(),
+                    snapshot.getRemainingQuantity());
+        }
+    }
+
+    /**
+     * Writes one row, replacing any row already stored for the same trade and date.
+     * A missing price is stored as zero.
+     */
+    public synchronized void put(long tradeId, LocalDate date, BigDecimal openPrice, BigDecimal closePrice,
+                                 int remainingQuantity) {
+        int day = Math.toIntExact(date.toEpochDay());
+        long key = SnapshotKeyIndex.key(tradeId, day);
+        int row = index.get(key);
+        if (row < 0) {
+            row = rows;
+            grow(rows + 1);
+            index.put(key, row);
+            rows++;
+        }
+        tradeIds.putLong(row, tradeId);
+        epochDays.putInt(row, day);
+        openPrices.putLong(row, toFixedPoint(openPrice));
+        closePrices.putLong(row, toFixedPoint(closePrice));
+        remainingQuantities.putInt(row, remainingQuantity);
+        meta.putLong(META_ROWS, rows);
+        includeDay(day);
+    }
+
+    /**
+     * Deletes the row for a trade and date.
+     *
+     * @return {@code true} if a row was deleted
+     */
+    public synchronized boolean delete(long tradeId, LocalDate date) {
+        long key = SnapshotKeyIndex.key(tradeId, Math.toIntExact(date.toEpochDay()));
+        int row = index.get(key);
+        if (row < 0) {
+            return false;
+        }
+        index.remove(key);
+        int last = rows - 1;
+        if (row != last) {
+            long lastTradeId = tradeIds.getLong(last);
+            int lastDay = epochDays.getInt(last);
+            tradeIds.putLong(row, lastTradeId);
+            epochDays.putInt(row, lastDay);
+            openPrices.putLong(row, openPrices.getLong(last));
+            closePrices.putLong(row, closePrices.getLong(last));
+            remainingQuantities.putInt(row, remainingQuantities.getInt(last));
+            index.put(SnapshotKeyIndex.key(lastTradeId, lastDay), row);
+        }
+        rows = last;
+        meta.putLong(META_ROWS, rows);
+        return true;
+    }
+
+    /**
+     * Deletes the rows of every snapshot in the given journal entry.
+     */
+    public synchronized void delete(JournalEntry entry) {
+        for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+            if (snapshot.getTrade() != null && snapshot.getTrade().getId() != null) {
+                delete(snapshot.getTrade().getId(), entry.getDate());
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of the store with the snapshots of the given entries.
+     */
+    public synchronized void rebuild(Stream<JournalEntry> entries) {
+        rows = 0;
+        index.clear();
+        minDay = Integer.MAX_VALUE;
+        maxDay = Integer.MIN_VALUE;
+        meta.putLong(META_ROWS, 0);
+        Iterator<JournalEntry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            write(iterator.next());
+        }
+        force();
+    }
+
+    /**
+     * Returns the number of stored rows.
+     */
+    public synchronized int size() {
+        return rows;
+    }
+
+    public synchronized boolean isEmpty() {
+        return rows == 0;
+    }
+
+    /**
+     * Returns the equity curve over all trades between two dates, both inclusive.
+     * Pass {@code null} for an open end.
+     */
+    public synchronized EquityCurve equityCurve(LocalDate from, LocalDate to) {
+        return scan(-1, from, to);
+    }
+
+    /**
+     * Returns the equity curve of a single trade.
+     */
+    public synchronized EquityCurve equityCurve(long tradeId) {
+        return scan(tradeId, null, null);
+    }
+
+    /**
+     * Sums {@code close × remaining} per day in one sequential pass over three columns.
+     * The days of interest are bucketed into a dense array, so the pass does no lookups.
+     */
+    private EquityCurve scan(long tradeId, LocalDate from, LocalDate to) {
+        int lo = from == null ? minDay : Math.max(minDay, Math.toIntExact(from.toEpochDay()));
+        int hi = to == null ? maxDay : Math.min(maxDay, Math.toIntExact(to.toEpochDay()));
+        if (rows == 0 || lo > hi) {
+            return new EquityCurve(new int[0], new long[0]);
+        }
+
+        long[] sums = new long[hi - lo + 1];
+        boolean[] present = new boolean[sums.length];
+        for (int row = 0; row < rows; row++) {
+            int day = epochDays.getInt(row);
+            if (day < lo || day > hi || (tradeId >= 0 && tradeIds.getLong(row) != tradeId)) {
+                continue;
+            }
+            int bucket = day - lo;
+            sums[bucket] = Math.addExact(sums[bucket],
+                    Math.multiplyExact(closePrices.getLong(row), (long) remainingQuantities.getInt(row)));
+            present[bucket] = true;
+        }
+
+        int days = 0;
+        for (boolean p : present) {
+            if (p) {
+                days++;
+            }
+        }
+        int[] curveDays = new int[days];
+        long[] curveValues = new long[days];
+        for (int bucket = 0, i = 0; bucket < sums.length; bucket++) {
+            if (present[bucket]) {
+                curveDays[i] = lo + bucket;
+                curveValues[i] = sums[bucket];
+                i++;
+            }
+        }
+        return new EquityCurve(curveDays, curveValues);
+    }
+
+    /**
+     * Writes all changes to disk.
+     */
+    public synchronized void force() {
+        meta.force();
+        tradeIds.force();
+        epochDays.force();
+        openPrices.force();
+        closePrices.force();
+        remainingQuantities.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        meta.close();
+        tradeIds.close();
+        epochDays.close();
+        openPrices.close();
+        closePrices.close();
+        remainingQuantities.close();
+    }
+
+    private void grow(int required) {
+        try {
+            tradeIds.ensureCapacity(required);
+            epochDays.ensureCapacity(required);
+            openPrices.ensureCapacity(required);
+            closePrices.ensureCapacity(required);
+            remainingQuantities.ensureCapacity(required);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow the snapshot store", e);
+        }
+    }
+
+    private void includeDay(int day) {
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+    }
+
+    private static long toFixedPoint(BigDecimal value) {
+        return value == null ? 0 : value.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
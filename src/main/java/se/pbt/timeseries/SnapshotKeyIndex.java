@@ -0,0 +1,123 @@
+package se.pbt.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Maps a {@code (trade id, epoch day)} key to a row number, without boxing.
+ * <p>
+ * Open addressing with linear probing over a pair of primitive arrays. Both parts of the key are packed
+ * into one non-negative {@code long}, so {@code -1} can mark empty slots. Removal shifts later entries of the
+ * same probe run back, so lookups never need tombstones.
+ * </p>
+ */
+final class SnapshotKeyIndex {
+
+    private static final long EMPTY = -1;
+    private static final int DAY_BITS = 21;
+    private static final long DAY_MASK = (1L << DAY_BITS) - 1;
+    static final long MAX_TRADE_ID = (1L << (Long.SIZE - 1 - DAY_BITS)) - 1;
+
+    private long[] keys;
+    private int[] rows;
+    private int size;
+
+    SnapshotKeyIndex(int expectedSize) {
+        int slots = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new long[slots];
+        rows = new int[slots];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Packs a trade ID and an epoch day into a single key.
+     * Epoch days are kept modulo 2<sup>21</sup>, which covers more than 5000 years.
+     */
+    static long key(long tradeId, int epochDay) {
+        if (tradeId < 0 || tradeId > MAX_TRADE_ID) {
+            throw new IllegalArgumentException("Trade ID out of range: " + tradeId);
+        }
+        return (tradeId << DAY_BITS) | (epochDay & DAY_MASK);
+    }
+
+    /**
+     * Returns the row stored for {@code key}, or {@code -1} if there is none.
+     */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return rows[slot];
+            }
+        }
+        return -1;
+    }
+
+    void put(long key, int row) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                rows[slot] = row;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        rows[slot] = row;
+        size++;
+    }
+
+    void remove(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Shift back any following entry whose home slot is at or before the freed slot
+        int free = slot;
+        for (int next = (free + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                rows[free] = rows[next];
+                free = next;
+            }
+        }
+        keys[free] = EMPTY;
+        size--;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize(int slots) {
+        long[] oldKeys = keys;
+        int[] oldRows = rows;
+        keys = new long[slots];
+        rows = new int[slots];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldRows[i]);
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -1,68 +1,198 @@
 package se.pbt.ui;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
-import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.pbt.metrics.LatencyHistogram;
+import se.pbt.metrics.MetricsRegistry;
+import se.pbt.metrics.UiLoadEvent;
 import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
 import se.pbt.model.Trade;
 import se.pbt.model.TradeSnapshot;
-import se.pbt.service.JournalEntryService;
+import se.pbt.model.listener.ChangeBatch;
+import se.pbt.model.listener.ChangeEventBus;
+import se.pbt.service.AsyncJournalEntryService;
+import se.pbt.service.DraftJournal;
 import se.pbt.service.ServiceLocator;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Controller for the journal entry view.
+ * <p>
+ * Loading and saving go through {@link AsyncJournalEntryService}, so the FX application thread only
+ * schedules the database work and applies its result once it is done.
+ * </p>
+ * <p>
+ * The entry being written is kept in a {@link DraftJournal}, which autosaves every change to a local file
+ * in the background and restores it on the next start. Nothing reaches the database until the entry is saved.
+ * Saving seals the draft, and the view accepts no edits until the save has completed.
+ * </p>
+ * <p>
+ * The previous entry and the open trades are reloaded when the {@link ChangeEventBus} reports that entries
+ * or trades changed, whether they were saved from this view or by another part of the application.
+ * </p>
+ */
 public class JournalEntryController {
 
+    private static final Logger log = LoggerFactory.getLogger(JournalEntryController.class);
+
+    private static final LatencyHistogram LATEST_ENTRY_TIMER = MetricsRegistry.global().timer("ui.latestEntry");
+
+    private static final Comparator<Trade> BY_ASSET_NAME = Comparator.comparing(
+            (Trade trade) -> trade.getAsset() == null ? null : trade.getAsset().getName(),
+            Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
     @FXML private TextField commentField;
     @FXML private Label cashLabel;
     @FXML private Label investedLabel;
+    @FXML private Label statusLabel;
+    @FXML private Button saveButton;
 
-    @FXML private VBox previousTradesBox;
-    @FXML private VBox currentTradesBox;
+    @FXML private ListView<Trade> previousTradesList;
+    @FXML private ListView<Trade> currentTradesList;
 
+    private DraftJournal draft;
     private JournalEntry journalEntry;
-    private JournalEntryService journalEntryService;
+    private AsyncJournalEntryService journalEntryService;
+    private CompletableFuture<Void> pendingSave;
 
     @FXML
     public void initialize() {
-        journalEntryService = ServiceLocator.getJournalEntryService();
+        previousTradesList.setCellFactory(TradeCardCell.factory(Collections.newSetFromMap(new IdentityHashMap<>())));
+        currentTradesList.setCellFactory(TradeCardCell.factory(Collections.newSetFromMap(new IdentityHashMap<>())));
+
+        saveButton.setDisable(true);
+        statusLabel.setText("Opening the journal…");
+        ServiceLocator.start().whenCompleteAsync((ready, error) -> {
+            if (error != null) {
+                statusLabel.setText("The journal could not be opened: " + cause(error).getMessage());
+                return;
+            }
+            statusLabel.setText("");
+            saveButton.setDisable(false);
+        }, Platform::runLater);
 
-        journalEntryService.getLatestEntry().ifPresentOrElse(entry -> {
-            journalEntry = new JournalEntry();
-            populateTradeCards(entry, previousTradesBox);
+        journalEntryService = ServiceLocator.getAsyncJournalEntryService();
+        ServiceLocator.getChangeEventBus().subscribe(this::onJournalChanged, Platform::runLater);
 
-            cashLabel.setText(entry.getAvailableCash() != null ? entry.getAvailableCash().toString() : "");
-            investedLabel.setText(entry.getInvestedCapital() != null ? entry.getInvestedCapital().toString() : "");
-        }, () -> journalEntry = new JournalEntry());
+        draft = ServiceLocator.getDraftJournal();
+        journalEntry = draft.draft();
+        commentField.setText(Objects.requireNonNullElse(journalEntry.getEntryText(), ""));
+        showTrades(journalEntry, currentTradesList);
+        commentField.textProperty().addListener((observable, previous, text) -> {
+            if (!text.equals(Objects.requireNonNullElse(journalEntry.getEntryText(), ""))) {
+                draft.setComment(text);
+            }
+        });
 
+        loadLatestEntry();
+        loadOpenTrades();
     }
 
-    private void populateTradeCards(JournalEntry entry, VBox container) {
-        container.getChildren().clear();
-        for (Trade trade : entry.getTrades()) {
-            try {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/se/pbt/ui/TradeCard.fxml"));
-                Node tradeCard = loader.load();
+    /**
+     * Shows the balances of the latest saved entry.
+     */
+    private void loadLatestEntry() {
+        UiLoadEvent loadEvent = new UiLoadEvent();
+        loadEvent.view = "latest-entry";
+        loadEvent.begin();
+        long requestedAt = System.nanoTime();
+        journalEntryService.getLatestEntry().whenCompleteAsync((latest, error) -> {
+            loadEvent.succeeded = error == null;
+            if (error != null) {
+                loadEvent.commit();
+                if (!(error instanceof CancellationException)) {
+                    log.warn("Could not load the latest journal entry", cause(error));
+                }
+                return;
+            }
+            latest.ifPresent(this::showPreviousEntry);
+            loadEvent.commit();
+            LATEST_ENTRY_TIMER.recordSince(requestedAt);
+            log.info("Latest entry shown {} ms after the request", millis(System.nanoTime() - requestedAt));
+        }, Platform::runLater);
+        log.info("FX thread spent {} µs requesting the latest entry",
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestedAt));
+    }
 
-                TradeCardController controller = loader.getController();
-                controller.setTrade(trade);
+    /**
+     * Reloads the parts of the view affected by a batch of committed changes. Runs on the FX application thread.
+     */
+    private void onJournalChanged(ChangeBatch batch) {
+        if (batch.affects(JournalEntry.class)) {
+            loadLatestEntry();
+        }
+        if (batch.affects(Trade.class) || batch.affects(TradeSnapshot.class)) {
+            loadOpenTrades();
+        }
+    }
 
-                container.getChildren().add(tradeCard);
-            } catch (IOException e) {
-                e.printStackTrace(); // TODO: Add dialog in future
+    private void showPreviousEntry(JournalEntry entry) {
+        cashLabel.setText(entry.getAvailableCash() != null ? entry.getAvailableCash().toString() : "");
+        investedLabel.setText(entry.getInvestedCapital() != null ? entry.getInvestedCapital().toString() : "");
+    }
+
+    /**
+     * Shows the trades that are still open in the previous trades list. Only open trades are read, so this
+     * takes the same time however long the journal is.
+     */
+    private void loadOpenTrades() {
+        journalEntryService.getOpenTrades().whenCompleteAsync((trades, error) -> {
+            if (error != null) {
+                if (!(error instanceof CancellationException)) {
+                    log.warn("Could not load the open trades", cause(error));
+                }
+                return;
             }
-        }
+            showTrades(trades, previousTradesList);
+        }, Platform::runLater);
+    }
+
+    /**
+     * Shows the entry's trades in the list, ordered by asset name. Trades already in the list keep their cells;
+     * only added and removed trades change the list, and the visible cards are refreshed.
+     */
+    private void showTrades(JournalEntry entry, ListView<Trade> list) {
+        Set<Trade> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Trade> trades = entry.getTradeSnapshots().stream()
+                .map(TradeSnapshot::getTrade)
+                .filter(trade -> trade != null && seen.add(trade))
+                .toList();
+        showTrades(trades, list);
+    }
+
+    private void showTrades(List<Trade> trades, ListView<Trade> list) {
+        ListDiff.apply(list.getItems(), trades.stream().sorted(BY_ASSET_NAME).toList());
+        list.refresh();
     }
 
     @FXML
     private void handleAddAsset() {
+        if (isSaving()) {
+            log.info("Wait for the journal entry to be saved");
+            return;
+        }
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/se/pbt/ui/AddAssetDialog.fxml"));
             Stage dialogStage = new Stage();
@@ -74,47 +204,84 @@ public class JournalEntryController {
             TradeSnapshot snapshot = controller.getResult();
 
             if (snapshot != null) {
-                snapshot.setJournalEntry(journalEntry);
-
-                Trade trade = snapshot.getTrade();
-                trade.addSnapshot(snapshot);
-
-                journalEntry.addTradeSnapshot(snapshot);
+                draft.addSnapshot(snapshot);
 
                 // Update today's view
-                populateTradeCards(journalEntry, currentTradesBox);
+                showTrades(journalEntry, currentTradesList);
             }
 
         } catch (IOException e) {
-            e.printStackTrace();
+            log.warn("Could not open the add asset dialog", e);
         }
     }
 
     @FXML
     private void handleSaveJournalEntry() {
+        if (isSaving()) {
+            log.info("The journal entry is already being saved");
+            return;
+        }
         if (journalEntry != null && !journalEntry.getTradeSnapshots().isEmpty()) {
-            journalEntry.setEntryText(commentField.getText().trim());
-            journalEntry.setDate(LocalDate.now());
-
+            Money cash;
+            Money invested;
             try {
-                BigDecimal cash = new BigDecimal(cashLabel.getText().trim());
-                BigDecimal invested = new BigDecimal(investedLabel.getText().trim());
-
-                journalEntry.setAvailableCash(cash);
-                journalEntry.setInvestedCapital(invested);
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid number in cash/invested fields.");
+                cash = Money.of(cashLabel.getText().trim());
+                invested = Money.of(investedLabel.getText().trim());
+            } catch (NumberFormatException | ArithmeticException e) {
+                log.warn("Invalid number in the cash or invested field: {}", e.getMessage());
                 return;
             }
 
-            journalEntryService.save(journalEntry);
-
-            System.out.println("Saved JournalEntry with " + journalEntry.getTradeSnapshots().size() + " snapshots.");
+            String comment = commentField.getText().trim();
+            if (!comment.equals(journalEntry.getEntryText())) {
+                draft.setComment(comment);
+            }
+            // The sealed draft is persisted on a worker thread, so it cannot be edited until the save completes
+            JournalEntry saved = draft.seal(LocalDate.now(), cash, invested);
+            commentField.setEditable(false);
+            long requestedAt = System.nanoTime();
+            pendingSave = journalEntryService.save(saved);
+            pendingSave.whenCompleteAsync((ignored, error) -> {
+                commentField.setEditable(true);
+                if (error != null) {
+                    draft.unseal();
+                    log.warn("Could not save the journal entry", cause(error));
+                    return;
+                }
+                log.info("Saved the journal entry with {} snapshots, confirmed {} ms after the request",
+                        saved.getTradeSnapshots().size(), millis(System.nanoTime() - requestedAt));
+                startNewDraft();
+            }, Platform::runLater);
+            log.info("FX thread spent {} µs requesting the save",
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestedAt));
         } else {
-            System.out.println("No trades to save.");
+            log.info("No trades to save");
         }
     }
 
+    /**
+     * Empties the draft file and the view once the sealed draft has been saved. The open trades are reloaded
+     * when the save's changes are delivered.
+     */
+    private void startNewDraft() {
+        draft.clear();
+        journalEntry = draft.draft();
+        commentField.clear();
+        currentTradesList.getItems().clear();
+    }
+
+    private boolean isSaving() {
+        return pendingSave != null && !pendingSave.isDone();
+    }
+
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
     @FXML
     public void onEditSnapshot() {
         // TODO: To be implemented
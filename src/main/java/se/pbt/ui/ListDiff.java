@@ -0,0 +1,61 @@
+package se.pbt.ui;
+
+import javafx.collections.ObservableList;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Brings an {@link ObservableList} in line with a target list by removing and inserting only the items
+ * that differ, instead of replacing its contents.
+ * <p>
+ * Items are matched by identity, so an item that is still present keeps its position in the list, and a
+ * {@code ListView} showing it keeps its cells, scroll position and selection.
+ * </p>
+ */
+final class ListDiff {
+
+    /**
+     * Updates {@code items} so that it holds the same objects as {@code target}, in the same order.
+     */
+    static <T> void apply(ObservableList<T> items, List<T> target) {
+        Set<T> wanted = identitySet(target);
+        if (items.size() > 0 && !wanted.containsAll(items)) {
+            items.removeIf(item -> !wanted.contains(item));
+        }
+        for (int i = 0; i < target.size(); i++) {
+            T item = target.get(i);
+            if (i < items.size() && items.get(i) == item) {
+                continue;
+            }
+            int current = indexOf(items, item, i + 1);
+            if (current >= 0) {
+                items.remove(current);
+            }
+            items.add(i, item);
+        }
+        if (items.size() > target.size()) {
+            items.remove(target.size(), items.size());
+        }
+    }
+
+    private static <T> Set<T> identitySet(List<T> items) {
+        Set<T> set = Collections.newSetFromMap(new IdentityHashMap<>(items.size() * 2));
+        set.addAll(items);
+        return set;
+    }
+
+    private static int indexOf(List<?> items, Object item, int from) {
+        for (int i = from; i < items.size(); i++) {
+            if (items.get(i) == item) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Prevent instantiation
+    private ListDiff() {}
+}
@@ -0,0 +1,63 @@
+package se.pbt.ui;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.util.Callback;
+import se.pbt.model.Trade;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Set;
+
+/**
+ * A {@link ListView} cell that shows a trade as a trade card.
+ * <p>
+ * The card is loaded from {@code TradeCard.fxml} once, when the cell is created, and is rebound to
+ * another trade whenever the list view reuses the cell. Since a list view only creates enough cells to fill
+ * its viewport, the number of cards parsed and kept in the scene graph does not grow with the number of trades.
+ * </p>
+ */
+public class TradeCardCell extends ListCell<Trade> {
+
+    private static final URL TRADE_CARD = TradeCardCell.class.getResource("/se/pbt/ui/TradeCard.fxml");
+
+    private final Node card;
+    private final TradeCardController controller;
+
+    /**
+     * Creates a cell whose card records expansion in the given set, shared by all cells of the list.
+     */
+    public TradeCardCell(Set<Trade> expandedTrades) {
+        FXMLLoader loader = new FXMLLoader(TRADE_CARD);
+        try {
+            card = loader.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the trade card", e);
+        }
+        controller = loader.getController();
+        controller.setExpandedTrades(expandedTrades);
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+    }
+
+    /**
+     * Returns a cell factory for a list view of trades, with one set of expanded trades for the whole list.
+     */
+    public static Callback<ListView<Trade>, ListCell<Trade>> factory(Set<Trade> expandedTrades) {
+        return listView -> new TradeCardCell(expandedTrades);
+    }
+
+    @Override
+    protected void updateItem(Trade trade, boolean empty) {
+        super.updateItem(trade, empty);
+        if (empty || trade == null) {
+            setGraphic(null);
+        } else {
+            controller.setTrade(trade);
+            setGraphic(card);
+        }
+    }
+}
@@ -1,13 +1,34 @@
 package se.pbt.ui;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
+import se.pbt.model.Money;
 import se.pbt.model.Trade;
+import se.pbt.model.listener.ChangeBatch;
+import se.pbt.model.listener.ChangeEventBus;
+import se.pbt.service.ServiceLocator;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
+/**
+ * Controller for a single trade card.
+ * <p>
+ * A card can be rebound to another trade with {@link #setTrade(Trade)}, which is how {@link TradeCardCell}
+ * reuses one card for many trades. Whether a card is expanded belongs to the trade, not the card, and is
+ * kept in a set that can be shared by every card in a list.
+ * </p>
+ * <p>
+ * Each card subscribes to the {@link ChangeEventBus} and redraws itself when a batch of changes includes its
+ * trade, so figures recalculated on save show without the list being rebuilt. There is one subscription per card,
+ * not per trade, and a list view only creates as many cards as fit in its viewport.
+ * </p>
+ */
 public class TradeCardController {
 
     @FXML private VBox expandedInfo;
@@ -24,12 +45,32 @@ public class TradeCardController {
     @FXML private Label quantityLabel;
     @FXML private Label snapshotCountLabel;
 
-    private boolean expanded = false;
+    private Set<Trade> expandedTrades = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Trade trade;
 
+    @FXML
+    public void initialize() {
+        ServiceLocator.getChangeEventBus().subscribe(this::onTradesChanged, Platform::runLater);
+    }
+
+    /**
+     * Shares the set of expanded trades with other cards, so that a trade stays expanded when it is shown
+     * by another card.
+     */
+    public void setExpandedTrades(Set<Trade> expandedTrades) {
+        this.expandedTrades = expandedTrades;
+    }
+
+    /**
+     * Shows the given trade, replacing whatever the card showed before.
+     */
     public void setTrade(Trade trade) {
+        this.trade = trade;
+        showExpanded(expandedTrades.contains(trade));
+
         assetNameLabel.setText(trade.getAsset().getName());
 
-        BigDecimal valueChange = trade.calculateNetGain();
+        Money valueChange = trade.calculateNetGain();
         BigDecimal changePct = trade.calculateNetGainPercentage();
 
         valueChangeLabel.setText("Change: " + valueChange + " SEK");
@@ -49,10 +90,25 @@ public class TradeCardController {
         exchangeLabel.setText("Exchange: " + trade.getAsset().getExchange().name());
     }
 
+    /**
+     * Redraws the card if its trade is among the changed trades. Runs on the FX application thread.
+     */
+    private void onTradesChanged(ChangeBatch batch) {
+        if (trade != null && trade.getId() != null && batch.ids(Trade.class).contains(trade.getId())) {
+            setTrade(trade);
+        }
+    }
 
     @FXML
     private void toggleExpand() {
-        expanded = !expanded;
+        boolean expanded = !expandedTrades.remove(trade);
+        if (expanded) {
+            expandedTrades.add(trade);
+        }
+        showExpanded(expanded);
+    }
+
+    private void showExpanded(boolean expanded) {
         expandedInfo.setVisible(expanded);
         expandedInfo.setManaged(expanded);
         expandButton.setText(expanded ? "▲" : "▼");
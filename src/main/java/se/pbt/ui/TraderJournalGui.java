@@ -1,18 +1,42 @@
 package se.pbt.ui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.pbt.service.ServiceLocator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
 
 /**
  * JavaFX application entry point for launching the Trader Journal graphical interface.
  * <p>
  * Loads the {@code JournalEntryView.fxml} layout and sets the primary stage.
  * This class is responsible for initializing and displaying the user interface.
+ * </p>
+ * <p>
+ * The persistence services are started in {@link #init()}, before the scene is loaded, so that Hibernate
+ * boots in the background while the window is being built.
+ * </p>
+ * <p>
+ * When the {@code traderjournal.exitWhenReady} system property is {@code true}, the application exits as soon
+ * as the latest entry has been loaded. The {@code appcds} build profile uses this for its training run.
+ * </p>
  */
 public class TraderJournalGui extends Application {
 
+    private static final Logger log = LoggerFactory.getLogger(TraderJournalGui.class);
+
+    @Override
+    public void init() {
+        ServiceLocator.start();
+    }
+
     @Override
     public void start(Stage stage) throws Exception {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/se/pbt/ui/JournalEntryView.fxml"));
@@ -20,6 +44,25 @@ public class TraderJournalGui extends Application {
         stage.setTitle("Trader Journal");
         stage.setScene(scene);
         stage.show();
+        sinceProcessStart().ifPresent(elapsed -> log.info("Window shown {} ms after process start", elapsed.toMillis()));
+
+        if (Boolean.getBoolean("traderjournal.exitWhenReady")) {
+            ServiceLocator.getAsyncJournalEntryService().getLatestEntry()
+                    .whenCompleteAsync((latest, error) -> Platform.exit(), Platform::runLater);
+        }
+    }
+
+    private static Optional<Duration> sinceProcessStart() {
+        return ProcessHandle.current().info().startInstant()
+                .map(startedAt -> Duration.between(startedAt, Instant.now()));
+    }
+
+    /**
+     * Releases the shared services when the window is closed.
+     */
+    @Override
+    public void stop() {
+        ServiceLocator.shutdown();
     }
 
     /**
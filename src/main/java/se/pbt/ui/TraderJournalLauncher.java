@@ -0,0 +1,21 @@
+package se.pbt.ui;
+
+import javafx.application.Application;
+
+/**
+ * Starts {@link TraderJournalGui} from a class that does not extend {@link Application}.
+ * <p>
+ * The Java launcher refuses to start an {@code Application} subclass directly unless JavaFX is on the module
+ * path. Going through this class lets the GUI run from a plain class path, such as the jar built by the
+ * {@code appcds} profile, and share a class data archive with the CLI's launch setup.
+ * </p>
+ */
+public class TraderJournalLauncher {
+
+    public static void main(String[] args) {
+        Application.launch(TraderJournalGui.class, args);
+    }
+
+    // Prevent instantiation
+    private TraderJournalLauncher() {}
+}
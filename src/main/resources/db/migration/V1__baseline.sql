@@ -0,0 +1,88 @@
+-- The tables as Hibernate created them while hbm2ddl.auto=update was in use.
+-- Journals created before migrations existed already have these tables, so those statements are no-ops there.
+-- Journals from before sequence ids have identity columns and no sequences; SchemaMigrator restarts each
+-- sequence past the highest id of its table after this script.
+
+create sequence if not exists asset_seq start with 1 increment by 50;
+create sequence if not exists executed_sale_seq start with 1 increment by 50;
+create sequence if not exists journal_entry_seq start with 1 increment by 50;
+create sequence if not exists trade_seq start with 1 increment by 50;
+create sequence if not exists trade_snapshot_seq start with 1 increment by 50;
+
+create table if not exists Asset (
+    id bigint not null,
+    assetClass enum ('BOND','CERTIFICATE','COMMODITY','CRYPTO','ETF','FUND','FUTURE','INDEX','OPTION','REAL_ESTATE','STOCK'),
+    currency varchar(3),
+    dividendYield numeric(5,2),
+    exchange enum ('BINANCE','LONDON','NASDAQ','NYSE','OTHER','STOCKHOLM','XETRA'),
+    isInvestmentCompany boolean not null,
+    isLeveraged boolean not null,
+    isin varchar(20),
+    lastUpdated timestamp(6),
+    leverageRatio numeric(4,2),
+    name varchar(255),
+    ticker varchar(255),
+    primary key (id),
+    constraint uk_asset_isin unique (isin),
+    constraint uk_asset_ticker unique (ticker)
+);
+
+create table if not exists Asset_sectors (
+    Asset_id bigint not null,
+    sectors tinyint check (sectors between 0 and 8),
+    constraint fk_asset_sectors_asset foreign key (Asset_id) references Asset
+);
+
+create table if not exists Asset_industries (
+    Asset_id bigint not null,
+    industries tinyint check (industries between 0 and 21),
+    constraint fk_asset_industries_asset foreign key (Asset_id) references Asset
+);
+
+create table if not exists JournalEntry (
+    id bigint not null,
+    availableCash numeric(15,2),
+    date date,
+    entryText varchar(5000),
+    investedCapital numeric(15,2),
+    primary key (id)
+);
+
+create table if not exists Trade (
+    id bigint not null,
+    buyFee numeric(6,2),
+    entryPrice numeric(10,4),
+    entryTime time(6),
+    exitPrice numeric(10,4),
+    exitTime time(6),
+    quantity integer not null,
+    asset_id bigint not null,
+    primary key (id),
+    constraint fk_trade_asset foreign key (asset_id) references Asset
+);
+
+create table if not exists TradeSnapshot (
+    id bigint not null,
+    closePrice numeric(10,4),
+    notes varchar(255),
+    openPrice numeric(10,4),
+    remainingQuantity integer not null,
+    journal_entry_id bigint not null,
+    trade_id bigint not null,
+    primary key (id),
+    constraint fk_trade_snapshot_journal_entry foreign key (journal_entry_id) references JournalEntry,
+    constraint fk_trade_snapshot_trade foreign key (trade_id) references Trade
+);
+
+create table if not exists ExecutedSale (
+    id bigint not null,
+    grossGain numeric(12,4),
+    netGain numeric(12,4),
+    quantitySold integer not null,
+    sellFee numeric(6,2),
+    sellPrice numeric(10,4),
+    sellTime time(6),
+    snapshot_id bigint not null,
+    primary key (id),
+    constraint fk_executed_sale_snapshot foreign key (snapshot_id) references TradeSnapshot
+);
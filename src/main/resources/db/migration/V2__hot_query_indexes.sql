@@ -0,0 +1,7 @@
+-- Indexes for the latest-entry lookup, keyset pagination and the joins of every fetch profile.
+-- Asset.isin needs no index of its own: the uk_asset_isin constraint is backed by one.
+
+create index if not exists idx_journal_entry_date on JournalEntry (date);
+create index if not exists idx_trade_snapshot_trade on TradeSnapshot (trade_id);
+create index if not exists idx_trade_snapshot_journal_entry on TradeSnapshot (journal_entry_id);
+create index if not exists idx_executed_sale_snapshot on ExecutedSale (snapshot_id);
@@ -0,0 +1,17 @@
+-- Realized performance per period and group, maintained by PerformanceRollupStore.
+-- The primary key leads with period and dimension, so reading one report is a range scan.
+-- Journals that already have sales are filled by a rebuild on the next start.
+
+create table if not exists PerformanceRollup (
+    period varchar(5) not null,
+    dimension varchar(16) not null,
+    periodStart date not null,
+    groupKey varchar(64) not null,
+    realized numeric(19,4) not null,
+    fees numeric(19,4) not null,
+    turnover numeric(19,4) not null,
+    trades integer not null,
+    wins integer not null,
+    losses integer not null,
+    primary key (period, dimension, periodStart, groupKey)
+);
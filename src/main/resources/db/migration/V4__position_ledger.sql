@@ -0,0 +1,31 @@
+-- Per-asset positions and their open lots, maintained by PositionLedgerStore.
+-- Lots are read per asset in purchase order, hence the (assetId, lotSequence) index.
+-- Journals that already have trades are filled by a rebuild on the next start.
+
+create sequence if not exists position_lot_seq start with 1 increment by 50;
+
+create table if not exists LedgerPosition (
+    assetId bigint not null,
+    method varchar(12) not null,
+    quantity integer not null,
+    cost numeric(19,4) not null,
+    realized numeric(19,4) not null,
+    unmatchedQuantity integer not null,
+    lastEventDate date,
+    nextSequence bigint not null,
+    stale boolean not null,
+    primary key (assetId)
+);
+
+create table if not exists PositionLot (
+    id bigint not null,
+    assetId bigint not null,
+    lotSequence bigint not null,
+    tradeId bigint,
+    openedOn date,
+    quantity integer not null,
+    cost numeric(19,4) not null,
+    primary key (id)
+);
+
+create index if not exists idx_position_lot_asset on PositionLot (assetId, lotSequence);
@@ -0,0 +1,28 @@
+-- Open-position columns on Trade, maintained from the snapshots by TradeOpenState.
+-- Open trades are found through idx_trade_open, trades per asset and date range through idx_trade_asset_opened,
+-- and trades closed in a period through idx_trade_closed_on.
+-- Existing trades are filled from their snapshots: open if any snapshot on the latest date has units remaining.
+
+alter table Trade add column if not exists openedOn date;
+alter table Trade add column if not exists lastSnapshotOn date;
+alter table Trade add column if not exists closedOn date;
+alter table Trade add column if not exists isOpen boolean default false not null;
+
+update Trade t set
+    openedOn = (select min(j.date)
+                from TradeSnapshot s join JournalEntry j on j.id = s.journal_entry_id
+                where s.trade_id = t.id),
+    lastSnapshotOn = (select max(j.date)
+                      from TradeSnapshot s join JournalEntry j on j.id = s.journal_entry_id
+                      where s.trade_id = t.id);
+
+update Trade t set isOpen = exists (
+    select 1
+    from TradeSnapshot s join JournalEntry j on j.id = s.journal_entry_id
+    where s.trade_id = t.id and j.date = t.lastSnapshotOn and s.remainingQuantity > 0);
+
+update Trade set closedOn = lastSnapshotOn where not isOpen;
+
+create index if not exists idx_trade_open on Trade (isOpen);
+create index if not exists idx_trade_asset_opened on Trade (asset_id, openedOn);
+create index if not exists idx_trade_closed_on on Trade (closedOn);
@@ -0,0 +1,38 @@
+-- The Asset unique constraints and the isin index.
+-- V1 declares uk_asset_isin and uk_asset_ticker inside "create table if not exists", so journals whose Asset
+-- table was created by hbm2ddl never got them, and V2 relied on uk_asset_isin for isin lookups.
+-- Those journals saved one asset row per trade, so rows sharing an ISIN are first merged into the lowest id.
+-- The merged asset's position is marked stale, or created stale if only a merged-away row had one,
+-- and is rebuilt from its trades on the next read.
+
+update LedgerPosition p set stale = true
+where exists (select 1 from Asset a join Asset d on d.isin = a.isin and d.id > a.id where a.id = p.assetId);
+
+insert into LedgerPosition (assetId, method, quantity, cost, realized, unmatchedQuantity, nextSequence, stale)
+select a.id, 'FIFO', 0, 0, 0, 0, 0, true
+from Asset a
+where not exists (select 1 from Asset k where k.isin = a.isin and k.id < a.id)
+  and not exists (select 1 from LedgerPosition p where p.assetId = a.id)
+  and exists (select 1 from Asset d join LedgerPosition p on p.assetId = d.id where d.isin = a.isin and d.id > a.id);
+
+delete from PositionLot l
+where exists (select 1 from Asset a join Asset k on k.isin = a.isin and k.id < a.id where a.id = l.assetId);
+
+delete from LedgerPosition p
+where exists (select 1 from Asset a join Asset k on k.isin = a.isin and k.id < a.id where a.id = p.assetId);
+
+update Trade t set asset_id = (select min(k.id) from Asset a join Asset k on k.isin = a.isin where a.id = t.asset_id)
+where exists (select 1 from Asset a join Asset k on k.isin = a.isin and k.id < a.id where a.id = t.asset_id);
+
+delete from Asset_sectors s
+where exists (select 1 from Asset a join Asset k on k.isin = a.isin and k.id < a.id where a.id = s.Asset_id);
+
+delete from Asset_industries i
+where exists (select 1 from Asset a join Asset k on k.isin = a.isin and k.id < a.id where a.id = i.Asset_id);
+
+delete from Asset a
+where exists (select 1 from Asset k where k.isin = a.isin and k.id < a.id);
+
+create index if not exists idx_asset_isin on Asset (isin);
+alter table Asset add constraint if not exists uk_asset_isin unique (isin);
+alter table Asset add constraint if not exists uk_asset_ticker unique (ticker);
@@ -0,0 +1,118 @@
+package se.pbt.analytics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.asset.AssetClass;
+import se.pbt.report.SummaryDimension;
+import se.pbt.testutil.JournalDataGenerator;
+import se.pbt.testutil.TestDataFactory;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeStatisticsEngineTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2024, 5, 6);
+    private static final LocalDate DAY_2 = DAY_1.plusDays(1);
+    private static final LocalDate DAY_3 = DAY_1.plusDays(2);
+
+    @Test
+    @DisplayName("per-trade metrics and group tables are computed from the snapshots and sales")
+    void computesMetricsAndTables() {
+        // A: closed winner, B: open and under water, C: closed loser in another asset class
+        Trade a = TestDataFactory.trade(1, 10, "100", "10");
+        Trade b = TestDataFactory.trade(2, 5, "50", "0");
+        Trade c = TestDataFactory.trade(3, 2, "10", "0");
+        c.getAsset().setAssetClass(AssetClass.ETF);
+
+        JournalEntry day1 = entry(DAY_1);
+        TestDataFactory.tradeSnapshot(a, day1, 10, "100", "95");
+        TestDataFactory.tradeSnapshot(b, day1, 5, "50", "40");
+        JournalEntry day2 = entry(DAY_2);
+        TestDataFactory.tradeSnapshot(c, day2, 0, "10", "8").addExecutedSale(TestDataFactory.executedSale(2, "8", "1"));
+        JournalEntry day3 = entry(DAY_3);
+        TestDataFactory.tradeSnapshot(a, day3, 0, "96", "120")
+                .addExecutedSale(TestDataFactory.executedSale(10, "120", "5"));
+
+        TradeColumns columns = TradeColumns.from(List.of(day3, day2, day1).stream(), SummaryDimension.ASSET_CLASS);
+        TradeStatistics statistics = new TradeStatisticsEngine().compute(columns);
+
+        int rowA = row(statistics, 1);
+        assertEquals(2, statistics.holdingDays(rowA));
+        assertEquals(Money.of("185"), statistics.realized(rowA), "1195 proceeds less 1010 invested");
+        assertEquals(Money.ZERO, statistics.unrealized(rowA));
+        assertEquals(Money.of("15"), statistics.fees(rowA));
+        assertEquals(Money.of("50"), statistics.maxAdverseExcursion(rowA));
+        assertEquals(Money.of("200"), statistics.maxFavorableExcursion(rowA));
+
+        int rowB = row(statistics, 2);
+        assertEquals(Money.of("-50"), statistics.unrealized(rowB));
+        assertEquals(Money.ZERO, statistics.realized(rowB));
+
+        GroupStatistics overall = statistics.overall();
+        assertEquals(3, overall.trades());
+        assertEquals(2, overall.closed());
+        assertEquals(0.5, overall.winRate());
+        assertEquals(Money.of("90"), overall.expectancy());
+        assertEquals(1.0, overall.averageHoldingDays());
+
+        assertEquals(List.of("STOCK", "ETF"), statistics.groups().stream().map(GroupStatistics::group).toList());
+        GroupStatistics etf = statistics.groups().get(1);
+        assertEquals(1, etf.losses());
+        assertEquals(Money.of("-5"), etf.grossLosses());
+    }
+
+    @Test
+    @DisplayName("the result does not depend on how many threads compute it")
+    void parallelMatchesSequential() {
+        List<JournalEntry> history = new JournalDataGenerator(7).journalHistory(300, 40);
+        long id = 1;
+        for (JournalEntry entry : history) {
+            for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+                snapshot.getTrade().setId(id++);
+            }
+        }
+        TradeColumns columns = TradeColumns.from(history.stream(), SummaryDimension.SECTOR);
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            TradeStatistics sequential = new TradeStatisticsEngine(single).compute(columns);
+            TradeStatistics parallel = new TradeStatisticsEngine(several).compute(columns);
+
+            assertEquals(12_000, parallel.size());
+            for (int i = 0; i < parallel.size(); i++) {
+                assertEquals(sequential.realized(i), parallel.realized(i));
+                assertEquals(sequential.unrealized(i), parallel.unrealized(i));
+                assertEquals(sequential.maxAdverseExcursion(i), parallel.maxAdverseExcursion(i));
+            }
+            assertEquals(sequential.overall(), parallel.overall());
+            assertEquals(sequential.groups(), parallel.groups());
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    private static int row(TradeStatistics statistics, long tradeId) {
+        for (int i = 0; i < statistics.size(); i++) {
+            if (statistics.tradeId(i) == tradeId) {
+                return i;
+            }
+        }
+        throw new AssertionError("No row for trade " + tradeId);
+    }
+
+    private static JournalEntry entry(LocalDate date) {
+        JournalEntry entry = TestDataFactory.emptyJournalEntry();
+        entry.setDate(date);
+        return entry;
+    }
+}
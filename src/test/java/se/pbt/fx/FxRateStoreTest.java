@@ -0,0 +1,92 @@
+package se.pbt.fx;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateStoreTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency SEK = Currency.getInstance("SEK");
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 3, 1);
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+
+    @Test
+    @DisplayName("a date without a rate takes the latest rate before it")
+    void looksUpLatestRateOnOrBefore() throws IOException {
+        FxRateStore store = new FxRateStore();
+        store.importRates(new StringReader("""
+                date,base,quote,rate
+                2024-03-04,USD,SEK,10.50
+                2024-03-01,USD,SEK,10.00
+                """));
+
+        FxRateTable table = store.table(USD, SEK);
+        assertEquals(new BigDecimal("10.00000000"), table.rateOn(FRIDAY.plusDays(2)));
+        assertEquals(new BigDecimal("10.50000000"), table.rateOn(MONDAY.plusDays(30)));
+        assertNull(table.rateOn(FRIDAY.minusDays(1)));
+    }
+
+    @Test
+    @DisplayName("converters use the pair directly or inverted")
+    void convertsBothWays() throws IOException {
+        FxRateStore store = new FxRateStore();
+        store.importRates(new StringReader("date,base,quote,rate\n2024-03-04,USD,SEK,10.50\n"));
+        int monday = Math.toIntExact(MONDAY.toEpochDay());
+
+        assertEquals(10_500_000, store.converter(USD, SEK).convert(1_000_000, monday));
+        assertEquals(1_000_000, store.converter(SEK, USD).convert(10_500_000, monday));
+        assertEquals(FxConverter.NO_VALUE, store.converter(USD, SEK).convert(1_000_000, monday - 1));
+        assertNull(store.converter(USD, Currency.getInstance("EUR")));
+    }
+
+    @Test
+    @DisplayName("re-importing replaces rates for the same day and bumps the version")
+    void reimportMergesAndBumpsVersion(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("2024-03.csv"), "date,base,quote,rate\n2024-03-01,USD,SEK,10.00\n");
+        FxRateStore store = FxRateStore.load(dir);
+        long loaded = store.version();
+
+        Path update = dir.resolve("update.csv");
+        Files.writeString(update, "date,base,quote,rate\n2024-03-01,USD,SEK,10.10\n2024-03-04,USD,SEK,10.50\n");
+        assertEquals(2, store.importFile(update));
+
+        assertTrue(store.version() > loaded);
+        FxRateTable table = store.table(USD, SEK);
+        assertEquals(2, table.size());
+        assertEquals(new BigDecimal("10.10000000"), table.rateOn(FRIDAY));
+    }
+
+    @Test
+    @DisplayName("loading skips a malformed file and keeps the rates from the others")
+    void loadSkipsMalformedFile(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("2024-02.csv"), "date,base,quote,rate\n2024-02-29,USD,SEK,9.90\n2024-03-01,USD,SEK,x\n");
+        Files.writeString(dir.resolve("2024-03.csv"), "date,base,quote,rate\n2024-03-04,USD,SEK,10.50\n");
+
+        FxRateTable table = FxRateStore.load(dir).table(USD, SEK);
+
+        assertEquals(1, table.size());
+        assertEquals(new BigDecimal("10.50000000"), table.rateOn(MONDAY));
+    }
+
+    @Test
+    @DisplayName("a malformed row rejects the whole import")
+    void rejectsMalformedRows() {
+        FxRateStore store = new FxRateStore();
+
+        assertThrows(IllegalArgumentException.class, () -> store.importRates(new StringReader(
+                "date,base,quote,rate\n2024-03-01,USD,SEK,10.00\n2024-03-04,USD,SEK,-1\n")));
+        assertNull(store.table(USD, SEK));
+        assertEquals(0, store.version());
+    }
+}
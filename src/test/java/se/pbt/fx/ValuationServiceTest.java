@@ -0,0 +1,87 @@
+package se.pbt.fx;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.testutil.TestDataFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValuationServiceTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency SEK = Currency.getInstance("SEK");
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2024, 3, 5);
+
+    private FxRateStore rates;
+    private ValuationService valuation;
+
+    @BeforeEach
+    void setup() throws IOException {
+        rates = new FxRateStore();
+        rates.importRates(new StringReader("date,base,quote,rate\n2024-03-04,USD,SEK,10.00\n2024-03-05,USD,SEK,11.00\n"));
+        valuation = new ValuationService(rates, SEK);
+    }
+
+    @Test
+    @DisplayName("snapshots and sales are converted at the rate of their journal date")
+    void convertsAtJournalDate() {
+        JournalEntry monday = entry(1L, MONDAY, USD);
+        JournalEntry tuesday = entry(2L, TUESDAY, USD);
+        tuesday.getTradeSnapshots().iterator().next().addExecutedSale(TestDataFactory.defaultExecutedSale());
+        JournalEntry local = entry(3L, TUESDAY, SEK);
+
+        Valuation result = valuation.value(List.of(tuesday, monday, local));
+
+        assertTrue(result.isComplete());
+        assertEquals(List.of(MONDAY, TUESDAY), result.days().stream().map(Valuation.Day::date).toList());
+        // One unit closing at 110 in each entry
+        assertEquals(Money.of("1100"), result.days().get(0).marketValue());
+        assertEquals(Money.of("1320"), result.days().get(1).marketValue());
+        assertEquals(Money.of("1204.50"), result.totalSaleProceeds());
+    }
+
+    @Test
+    @DisplayName("cached values are recomputed after rates are re-imported or the entry changes")
+    void invalidatesCache() throws IOException {
+        JournalEntry monday = entry(1L, MONDAY, USD);
+        assertEquals(Money.of("1100"), valuation.value(List.of(monday)).days().get(0).marketValue());
+
+        monday.getTradeSnapshots().iterator().next().setRemainingQuantity(2);
+        assertEquals(Money.of("1100"), valuation.value(List.of(monday)).days().get(0).marketValue(),
+                "the cached value is used until the entry is invalidated");
+        valuation.invalidate(Set.of(1L));
+        assertEquals(Money.of("2200"), valuation.value(List.of(monday)).days().get(0).marketValue());
+
+        rates.importRates(new StringReader("date,base,quote,rate\n2024-03-04,USD,SEK,9.00\n"));
+        assertEquals(Money.of("1980"), valuation.value(List.of(monday)).days().get(0).marketValue());
+    }
+
+    @Test
+    @DisplayName("amounts without a rate are left out and their currency reported")
+    void reportsMissingRates() {
+        Valuation result = valuation.value(List.of(entry(1L, MONDAY.minusDays(1), USD)));
+
+        assertEquals(Set.of(USD), result.missingRates());
+        assertEquals(Money.ZERO, result.days().get(0).marketValue());
+    }
+
+    private static JournalEntry entry(Long id, LocalDate date, Currency currency) {
+        JournalEntry entry = TestDataFactory.defaultJournalEntry();
+        entry.setId(id);
+        entry.setDate(date);
+        entry.getTradeSnapshots().iterator().next().getTrade().getAsset().setCurrency(currency);
+        return entry;
+    }
+}
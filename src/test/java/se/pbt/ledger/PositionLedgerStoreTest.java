@@ -0,0 +1,185 @@
+package se.pbt.ledger;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.repository.AssetRepositoryImpl;
+import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.service.BulkImportService;
+import se.pbt.testutil.TestDataFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PositionLedgerStoreTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2024, 3, 5);
+
+    private EntityManagerFactory emf;
+
+    @BeforeAll
+    void setup() {
+        emf = Persistence.createEntityManagerFactory("trader-journal-test-pu",
+                Map.of("jakarta.persistence.jdbc.url", "jdbc:h2:mem:ledger-test;DB_CLOSE_DELAY=-1"));
+    }
+
+    @AfterAll
+    void teardown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @AfterEach
+    void clearJournal() {
+        JournalEntryRepositoryImpl repository = new JournalEntryRepositoryImpl(emf);
+        repository.findAll().forEach(repository::remove);
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM PositionLot").executeUpdate();
+            em.createQuery("DELETE FROM LedgerPosition").executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    @DisplayName("FIFO sells the oldest lot first and keeps the rest of a partly sold lot")
+    void matchesFifo() {
+        PositionLedgerStore ledger = new PositionLedgerStore(emf, LotMatching.FIFO);
+        Long assetId = saveTwoBuysAndSale(ledger, true);
+
+        LedgerPosition position = ledger.findPosition(assetId).orElseThrow();
+        assertEquals(5, position.getQuantity());
+        // 1650 proceeds less 1000 for Monday's lot and half of Tuesday's 1210
+        assertEquals(Money.of("45"), position.getRealized());
+        assertEquals(Money.of("605"), position.getCost());
+        assertEquals(0, position.getUnmatchedQuantity());
+
+        PositionLot lot = single(ledger.findOpenLots(assetId));
+        assertEquals(TUESDAY, lot.getOpenedOn());
+        assertEquals(5, lot.getQuantity());
+        assertEquals(Money.of("605"), lot.getCost());
+    }
+
+    @Test
+    @DisplayName("LIFO sells the newest lot first")
+    void matchesLifo() {
+        PositionLedgerStore ledger = new PositionLedgerStore(emf, LotMatching.LIFO);
+        Long assetId = saveTwoBuysAndSale(ledger, true);
+
+        LedgerPosition position = ledger.findPosition(assetId).orElseThrow();
+        // 1650 proceeds less all of Tuesday's 1210 and half of Monday's 1000
+        assertEquals(Money.of("-60"), position.getRealized());
+        assertEquals(Money.of("500"), position.getCost());
+        assertEquals(MONDAY, single(ledger.findOpenLots(assetId)).getOpenedOn());
+    }
+
+    @Test
+    @DisplayName("average cost prices every unit sold at the cost of the whole position")
+    void matchesAverageCost() {
+        PositionLedgerStore ledger = new PositionLedgerStore(emf, LotMatching.AVERAGE_COST);
+        Long assetId = saveTwoBuysAndSale(ledger, true);
+
+        LedgerPosition position = ledger.findPosition(assetId).orElseThrow();
+        // 15 of 20 units costing 2210 in total
+        assertEquals(Money.of("-7.50"), position.getRealized());
+        assertEquals(Money.of("552.50"), position.getCost());
+        assertEquals(5, position.getQuantity());
+    }
+
+    @Test
+    @DisplayName("an entry saved out of order marks the position stale, and reading it replays the asset")
+    void rebuildsStalePosition() {
+        PositionLedgerStore ledger = new PositionLedgerStore(emf, LotMatching.FIFO);
+        Long assetId = saveTwoBuysAndSale(ledger, false);
+
+        LedgerPosition position = ledger.findPosition(assetId).orElseThrow();
+        assertFalse(position.isStale());
+        assertEquals(5, position.getQuantity());
+        assertEquals(Money.of("45"), position.getRealized());
+        assertEquals(0, position.getUnmatchedQuantity());
+    }
+
+    @Test
+    @DisplayName("a bulk import marks the positions it touched stale, and reading them replays the import")
+    void rebuildsPositionsAfterImport() throws IOException {
+        PositionLedgerStore ledger = new PositionLedgerStore(emf, LotMatching.FIFO);
+        JournalEntry monday = entryWithBuy(MONDAY, "100", "0");
+        new JournalEntryRepositoryImpl(emf, new AssetRepositoryImpl(emf), null, ledger).save(monday);
+        Long assetId = monday.getTradeSnapshots().iterator().next().getTrade().getAsset().getId();
+        assertEquals(10, ledger.findPosition(assetId).orElseThrow().getQuantity());
+
+        // Tuesday buys 10 units at 120 plus a fee of 10 and sells 15 for 1650 net, as in saveTwoBuysAndSale
+        String csv = "date,trade_ref,isin,ticker,asset_name,asset_class,currency,exchange,sector,industry,"
+                + "quantity,entry_price,buy_fee,entry_time,remaining_quantity,open_price,close_price,"
+                + "sell_quantity,sell_price,sell_fee,sell_time,available_cash,invested_capital,notes\n"
+                + "2024-03-05,T,SE0000000001,,,,,,,,10,120.00,10.00,09:00,5,120.00,110.00,15,110.00,0,14:00,,,\n"
+                + "2024-03-05,N,SE0000000777,NEW.ST,Newcomer,STOCK,SEK,STOCKHOLM,TECHNOLOGY,SOFTWARE,"
+                + "4,50.00,0,09:00,4,50.00,50.00,,,,,,,\n";
+        new BulkImportService(emf, new AssetRepositoryImpl(emf), 1, null, null, ledger)
+                .importCsv(new StringReader(csv));
+
+        LedgerPosition position = ledger.findPosition(assetId).orElseThrow();
+        assertFalse(position.isStale());
+        assertEquals(5, position.getQuantity());
+        assertEquals(Money.of("45"), position.getRealized());
+        assertEquals(Money.of("605"), position.getCost());
+
+        Long newcomerId = new AssetRepositoryImpl(emf).findByIsin("SE0000000777").orElseThrow().getId();
+        assertEquals(Money.of("200"), ledger.findPosition(newcomerId).orElseThrow().getCost());
+    }
+
+    /**
+     * Saves a Monday entry buying 10 units at 100 without fee and a Tuesday entry buying 10 units at 120 plus
+     * a fee of 10 and selling 15 units for 1650 net, all in one asset.
+     *
+     * @param inOrder whether Monday is saved first
+     * @return the ID of the shared asset
+     */
+    private Long saveTwoBuysAndSale(PositionLedgerStore ledger, boolean inOrder) {
+        JournalEntryRepositoryImpl repository =
+                new JournalEntryRepositoryImpl(emf, new AssetRepositoryImpl(emf), null, ledger);
+
+        JournalEntry monday = entryWithBuy(MONDAY, "100", "0");
+        JournalEntry tuesday = entryWithBuy(TUESDAY, "120", "10");
+        ExecutedSale sale = TestDataFactory.defaultExecutedSale();
+        sale.setQuantitySold(15);
+        sale.setNetGain(Money.of("1650"));
+        tuesday.getTradeSnapshots().iterator().next().addExecutedSale(sale);
+
+        repository.save(inOrder ? monday : tuesday);
+        repository.save(inOrder ? tuesday : monday);
+        return monday.getTradeSnapshots().iterator().next().getTrade().getAsset().getId();
+    }
+
+    private static JournalEntry entryWithBuy(LocalDate date, String entryPrice, String buyFee) {
+        JournalEntry entry = TestDataFactory.defaultJournalEntry();
+        entry.setDate(date);
+        Trade trade = entry.getTradeSnapshots().iterator().next().getTrade();
+        trade.setQuantity(10);
+        trade.setEntryPrice(new BigDecimal(entryPrice));
+        trade.setBuyFee(new BigDecimal(buyFee));
+        return entry;
+    }
+
+    private static PositionLot single(List<PositionLot> lots) {
+        assertEquals(1, lots.size());
+        return lots.get(0);
+    }
+}
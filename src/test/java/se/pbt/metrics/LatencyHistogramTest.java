@@ -0,0 +1,55 @@
+package se.pbt.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("percentiles are within the bucket precision of the exact values")
+    void percentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertEquals(1_000, histogram.count());
+        assertEquals(1_000_000, histogram.maxNanos());
+        assertEquals(500_500, histogram.meanNanos(), 0.001);
+        assertWithin(500_000, histogram.percentileNanos(50));
+        assertWithin(990_000, histogram.percentileNanos(99));
+        assertEquals(1_000_000, histogram.percentileNanos(100));
+    }
+
+    @Test
+    @DisplayName("every value maps to a bucket whose range contains it")
+    void bucketsCoverTheWholeRange() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.highestValueIn(bucket) >= value);
+            assertTrue(bucket == 0 || LatencyHistogram.highestValueIn(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    @DisplayName("the registry times work even when it throws")
+    void registryTimesFailures() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        assertThrows(IllegalStateException.class, () -> registry.time("failing", () -> {
+            throw new IllegalStateException();
+        }));
+        registry.counter("calls").increment();
+
+        assertEquals(1, registry.timer("failing").count());
+        assertEquals(1L, registry.counters().get("calls"));
+        registry.reset();
+        assertEquals(0, registry.timer("failing").count());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.035, () -> actual + " is not within 3.5 % of " + expected);
+    }
+}
@@ -0,0 +1,40 @@
+package se.pbt.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    @DisplayName("converts to and from BigDecimal without losing precision")
+    void convertsExactly() {
+        Money amount = Money.of("1234.5678");
+
+        assertEquals(12_345_678L, amount.units());
+        assertEquals(new BigDecimal("1234.5678"), amount.toBigDecimal());
+        assertEquals(amount, Money.of(new BigDecimal("1234.56780000")));
+        assertThrows(ArithmeticException.class, () -> Money.of("0.00001"));
+    }
+
+    @Test
+    @DisplayName("arithmetic fails instead of wrapping on overflow")
+    void overflowThrows() {
+        Money max = Money.ofUnits(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofUnits(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+        assertThrows(ArithmeticException.class, () -> Money.of("1e20"));
+    }
+
+    @Test
+    @DisplayName("prints at least two decimals")
+    void printsPlainAmounts() {
+        assertEquals("0.00", Money.ZERO.toString());
+        assertEquals("-12.50", Money.of("-12.5").toString());
+        assertEquals("3.1416", Money.of("3.1416").toString());
+    }
+}
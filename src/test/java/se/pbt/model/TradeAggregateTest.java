@@ -0,0 +1,185 @@
+package se.pbt.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.pbt.testutil.TestDataFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the cached totals behind the {@code Trade.calculate*} methods always give the same
+ * results as recalculating over every snapshot and sale. The position is the one recorded by the
+ * latest snapshot; the sale proceeds are summed over all snapshots.
+ */
+class TradeAggregateTest {
+
+    private static final int RUNS = 500;
+
+    @Test
+    @DisplayName("cached totals match full recalculation for random trade histories")
+    void cachedTotalsMatchFullRecalculation() {
+        Random random = new Random(20250413L);
+
+        for (int run = 0; run < RUNS; run++) {
+            Trade trade = TestDataFactory.defaultTrade();
+            trade.setQuantity(1 + random.nextInt(1000));
+            trade.setEntryPrice(randomPrice(random));
+            trade.setBuyFee(randomFee(random));
+
+            List<TradeSnapshot> snapshots = new ArrayList<>();
+            int operations = random.nextInt(40);
+            for (int op = 0; op < operations; op++) {
+                if (snapshots.isEmpty() || random.nextInt(3) > 0) {
+                    TradeSnapshot snapshot = randomSnapshot(random, op);
+                    trade.addSnapshot(snapshot);
+                    snapshots.add(snapshot);
+                } else {
+                    TradeSnapshot snapshot = snapshots.get(random.nextInt(snapshots.size()));
+                    snapshot.addExecutedSale(randomSale(random));
+                }
+                if (random.nextInt(4) == 0) {
+                    assertMatchesRecalculation(trade, run);
+                }
+            }
+            assertMatchesRecalculation(trade, run);
+        }
+    }
+
+    @Test
+    @DisplayName("replacing the snapshot set discards cached totals")
+    void replacingSnapshotsDiscardsCachedTotals() {
+        Trade trade = TestDataFactory.defaultTrade();
+        trade.addSnapshot(TestDataFactory.emptyTradeSnapshot());
+        assertEquals(1, trade.getRemainingQuantity());
+
+        trade.setTradeSnapshots(new HashSet<>());
+
+        assertEquals(0, trade.getRemainingQuantity());
+        assertEquals(Money.ZERO, trade.calculateCurrentValue());
+    }
+
+    @Test
+    @DisplayName("editing a snapshot or sale in place discards cached totals")
+    void editingInPlaceDiscardsCachedTotals() {
+        Random random = new Random(20250414L);
+        Trade trade = TestDataFactory.defaultTrade();
+        TradeSnapshot snapshot = randomSnapshot(random, 0);
+        trade.addSnapshot(snapshot);
+        ExecutedSale sale = randomSale(random);
+        snapshot.addExecutedSale(sale);
+        assertMatchesRecalculation(trade, 0);
+
+        snapshot.setRemainingQuantity(snapshot.getRemainingQuantity() + 7);
+        assertMatchesRecalculation(trade, 1);
+        snapshot.setClosePrice(randomPrice(random));
+        assertMatchesRecalculation(trade, 2);
+        sale.setNetGain(Money.of("12.34"));
+        assertMatchesRecalculation(trade, 3);
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getExecutedSales().add(randomSale(random)));
+        assertThrows(UnsupportedOperationException.class, () -> trade.getTradeSnapshots().clear());
+    }
+
+    private static void assertMatchesRecalculation(Trade trade, int run) {
+        assertEquals(expectedRemainingQuantity(trade), trade.getRemainingQuantity(), "remaining quantity, run " + run);
+        assertSameAmount(expectedCurrentValue(trade), trade.calculateCurrentValue(), "current value, run " + run);
+        assertSameAmount(expectedNetGain(trade), trade.calculateNetGain(), "net gain, run " + run);
+        assertEquals(expectedNetGainPercentage(trade), trade.calculateNetGainPercentage(), "net gain %, run " + run);
+    }
+
+    /**
+     * The {@link Money} result must be numerically identical to the {@link BigDecimal} reference, not just close.
+     */
+    private static void assertSameAmount(BigDecimal expected, Money actual, String message) {
+        assertEquals(0, expected.compareTo(actual.toBigDecimal()), () -> message + ": expected " + expected + " but was " + actual);
+    }
+
+    private static TradeSnapshot randomSnapshot(Random random, int day) {
+        TradeSnapshot snapshot = TradeSnapshot.builder()
+                .remainingQuantity(random.nextInt(500))
+                .openPrice(randomPrice(random))
+                .closePrice(random.nextInt(10) == 0 ? null : randomPrice(random))
+                .notes("Snapshot " + day)
+                .journalEntry(JournalEntry.builder().date(LocalDate.of(2020, 1, 1).plusDays(day)).build())
+                .build();
+        int sales = random.nextInt(3);
+        for (int i = 0; i < sales; i++) {
+            snapshot.addExecutedSale(randomSale(random));
+        }
+        return snapshot;
+    }
+
+    private static ExecutedSale randomSale(Random random) {
+        int quantity = 1 + random.nextInt(100);
+        BigDecimal price = randomPrice(random);
+        BigDecimal fee = randomFee(random);
+        BigDecimal gross = price.multiply(BigDecimal.valueOf(quantity));
+        return ExecutedSale.builder()
+                .quantitySold(quantity)
+                .sellPrice(price)
+                .sellFee(fee)
+                .grossGain(Money.of(gross))
+                .netGain(Money.of(gross.subtract(fee)))
+                .sellTime(LocalTime.of(9 + random.nextInt(8), random.nextInt(60)))
+                .build();
+    }
+
+    private static BigDecimal randomPrice(Random random) {
+        return BigDecimal.valueOf(1 + random.nextInt(10_000_000), 4);
+    }
+
+    private static BigDecimal randomFee(Random random) {
+        return BigDecimal.valueOf(random.nextInt(10_000), 2);
+    }
+
+    // Reference implementations: stream-based calculations over the whole history.
+
+    private static Optional<TradeSnapshot> latestSnapshot(Trade trade) {
+        return trade.getTradeSnapshots().stream()
+                .max(Comparator.comparing(snapshot -> snapshot.getJournalEntry().getDate()));
+    }
+
+    private static BigDecimal expectedCurrentValue(Trade trade) {
+        return latestSnapshot(trade)
+                .filter(snapshot -> snapshot.getClosePrice() != null)
+                .map(snapshot -> snapshot.getClosePrice().multiply(BigDecimal.valueOf(snapshot.getRemainingQuantity())))
+                .orElse(BigDecimal.ZERO);
+    }
+
+    private static BigDecimal expectedNetGain(Trade trade) {
+        BigDecimal grossSaleProceeds = trade.getTradeSnapshots().stream()
+                .flatMap(s -> s.getExecutedSales().stream())
+                .map(sale -> sale.getNetGain().toBigDecimal())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal initialInvestment = trade.getEntryPrice()
+                .multiply(BigDecimal.valueOf(trade.getQuantity())).add(trade.getBuyFee());
+        return grossSaleProceeds.add(expectedCurrentValue(trade)).subtract(initialInvestment);
+    }
+
+    private static BigDecimal expectedNetGainPercentage(Trade trade) {
+        BigDecimal initial = trade.getEntryPrice()
+                .multiply(BigDecimal.valueOf(trade.getQuantity())).add(trade.getBuyFee());
+        if (initial.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO;
+        }
+        return expectedNetGain(trade)
+                .divide(initial, 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static int expectedRemainingQuantity(Trade trade) {
+        return latestSnapshot(trade).map(TradeSnapshot::getRemainingQuantity).orElse(0);
+    }
+}
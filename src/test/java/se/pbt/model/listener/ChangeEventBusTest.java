@@ -0,0 +1,113 @@
+package se.pbt.model.listener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.TradeSnapshot;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeEventBusTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final ChangeEventBus bus = new ChangeEventBus(Duration.ofMillis(50));
+    private final ExecutorService background = Executors.newSingleThreadExecutor();
+    private final BlockingQueue<ChangeBatch> received = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        bus.close();
+        background.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("a burst of events is delivered as one batch")
+    void coalescesBurst() throws InterruptedException {
+        bus.subscribe(received::add, background);
+
+        for (long id = 1; id <= 1_000; id++) {
+            bus.publish(ChangeEvent.created(ExecutedSale.class, id));
+        }
+        bus.publish(ChangeEvent.updated(JournalEntry.class, 7L));
+
+        ChangeBatch batch = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(1_001, batch.size());
+        assertEquals(Set.of(7L), batch.ids(JournalEntry.class, ChangeEvent.Kind.UPDATED));
+        assertFalse(batch.affects(TradeSnapshot.class));
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS), "the burst is not split over several batches");
+    }
+
+    @Test
+    @DisplayName("repeated changes to one entity collapse to their net effect")
+    void collapsesToNetEffect() {
+        ChangeBatch batch = ChangeBatch.of(List.of(
+                ChangeEvent.created(TradeSnapshot.class, 1L),
+                ChangeEvent.updated(TradeSnapshot.class, 1L),
+                ChangeEvent.created(TradeSnapshot.class, 2L),
+                ChangeEvent.removed(TradeSnapshot.class, 2L),
+                ChangeEvent.updated(TradeSnapshot.class, 3L),
+                ChangeEvent.removed(TradeSnapshot.class, 3L)
+        ));
+
+        assertEquals(List.of(
+                ChangeEvent.created(TradeSnapshot.class, 1L),
+                ChangeEvent.removed(TradeSnapshot.class, 3L)
+        ), batch.events());
+    }
+
+    @Test
+    @DisplayName("publishing does not wait for a busy subscriber, whose changes are merged into its next batch")
+    void slowSubscriberDoesNotBlockPublishers() throws InterruptedException {
+        CountDownLatch listenerStarted = new CountDownLatch(1);
+        CountDownLatch releaseListener = new CountDownLatch(1);
+        bus.subscribe(batch -> {
+            received.add(batch);
+            listenerStarted.countDown();
+            try {
+                releaseListener.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, background);
+
+        bus.publish(ChangeEvent.created(JournalEntry.class, 1L));
+        assertTrue(listenerStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (long id = 2; id <= 4; id++) {
+            bus.publish(ChangeEvent.created(JournalEntry.class, id));
+            Thread.sleep(60);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS));
+        Thread.sleep(200); // lets the last frame reach the subscriber
+        releaseListener.countDown();
+
+        assertEquals(Set.of(1L), received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS).ids(JournalEntry.class));
+        assertEquals(Set.of(2L, 3L, 4L), received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS).ids(JournalEntry.class));
+    }
+
+    @Test
+    @DisplayName("a closed subscription receives nothing more")
+    void closedSubscriptionIsNotCalled() throws InterruptedException {
+        ChangeEventBus.Subscription subscription = bus.subscribe(received::add, background);
+        subscription.close();
+
+        bus.publish(ChangeEvent.created(JournalEntry.class, 1L));
+
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+}
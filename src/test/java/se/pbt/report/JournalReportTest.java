@@ -0,0 +1,146 @@
+package se.pbt.report;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.asset.Exchange;
+import se.pbt.model.asset.Industry;
+import se.pbt.model.asset.Sector;
+import se.pbt.testutil.TestDataFactory;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the reports over a small, hand-calculated history: one trade held over a month boundary with a
+ * partial sale, and one losing trade in another sector.
+ */
+class JournalReportTest {
+
+    private JournalEntry march31;
+    private JournalEntry april1;
+
+    @BeforeEach
+    void setup() {
+        march31 = entry(1L, LocalDate.of(2025, 3, 31));
+        april1 = entry(2L, LocalDate.of(2025, 4, 1));
+
+        // Invested 10 × 100 + 10 = 1010
+        Trade tech = TestDataFactory.trade(10L, 10, "100.00", "10.00");
+        TestDataFactory.tradeSnapshot(tech, march31, 10, "100.00", "102.00");
+        TradeSnapshot sold = TestDataFactory.tradeSnapshot(tech, april1, 6, "102.00", "105.00");
+        sold.addExecutedSale(ExecutedSale.builder()
+                .quantitySold(4)
+                .sellPrice(new BigDecimal("103.00"))
+                .sellFee(new BigDecimal("2.00"))
+                .grossGain(Money.of("412.00"))
+                .netGain(Money.of("410.00"))
+                .sellTime(LocalTime.of(10, 0))
+                .build());
+
+        // Invested 5 × 50 = 250
+        Trade energy = TestDataFactory.trade(11L, 5, "50.00", "0.00");
+        energy.getAsset().setTicker("OIL.N");
+        energy.getAsset().setExchange(Exchange.NYSE);
+        energy.getAsset().setSectors(Set.of(Sector.ENERGY));
+        energy.getAsset().setIndustries(Set.of(Industry.OIL_GAS));
+        TestDataFactory.tradeSnapshot(energy, april1, 5, "50.00", "40.00");
+    }
+
+    @Test
+    @DisplayName("trade P&L uses sale proceeds and the latest close")
+    void tradePnl() {
+        List<String> lines = run(new TradePnlReport());
+
+        assertEquals(4, lines.size());
+        // realized 410, market 6 × 105 = 630, net 410 + 630 - 1010 = 30
+        assertRow(lines.get(1), "10", "DEF.ST", "2025-03-31", "2025-04-01", "1010.00", "410.00", "630.00", "30.00", "2.97");
+        assertRow(lines.get(2), "11", "OIL.N", "2025-04-01", "2025-04-01", "250.00", "0.00", "200.00", "-50.00", "-20.00");
+        assertRow(lines.get(3), "total", "1260.00", "410.00", "830.00", "-20.00");
+    }
+
+    @Test
+    @DisplayName("period P&L splits realized gains and price moves by month")
+    void periodPnl() {
+        List<String> lines = run(new PeriodPnlReport(ReportPeriod.MONTH));
+
+        // March: (102 - 100) × 10 = 20
+        assertRow(lines.get(1), "2025-03-01", "1", "0", "0.00", "20.00", "20.00");
+        // April: sale 410 - 4 × (100 + 1) = 6, moves (105 - 102) × 6 + (40 - 50) × 5 = -32
+        assertRow(lines.get(2), "2025-04-01", "2", "1", "6.00", "-32.00", "-26.00");
+        assertRow(lines.get(3), "total", "3", "1", "6.00", "-12.00", "-6.00");
+    }
+
+    @Test
+    @DisplayName("summaries group trades by asset attribute")
+    void groupSummary() {
+        List<String> bySector = run(new GroupSummaryReport(SummaryDimension.SECTOR));
+        assertRow(bySector.get(1), "ENERGY", "1", "1", "250.00", "0.00", "-50.00", "-20.00");
+        assertRow(bySector.get(2), "TECHNOLOGY", "1", "1", "1010.00", "410.00", "30.00", "2.97");
+
+        List<String> byExchange = run(new GroupSummaryReport(SummaryDimension.EXCHANGE));
+        assertRow(byExchange.get(1), "NYSE", "1");
+        assertRow(byExchange.get(2), "STOCKHOLM", "1");
+    }
+
+    @Test
+    @DisplayName("export writes one row per snapshot and quotes text")
+    void export() {
+        april1.setEntryText("Took profit, \"mostly\"");
+
+        List<String> lines = run(new EntryExportReport());
+
+        assertEquals(EntryExportReport.HEADER, lines.get(0));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).startsWith("2025-04-01,2,1000.00,500.00,10,SE0000000001,DEF.ST,10,100.00,6,102.00,105.00,4,410.00,"));
+        assertTrue(lines.get(1).endsWith(",\"Took profit, \"\"mostly\"\"\""));
+        assertTrue(lines.get(3).startsWith("2025-03-31,1,"));
+    }
+
+    @Test
+    @DisplayName("engine reports the number of entries read")
+    void engineStats() {
+        ReportEngine.ReportStats stats = ReportEngine.run(
+                Stream.of(april1, march31), new TradePnlReport(), new PrintWriter(new StringWriter()));
+
+        assertEquals(2, stats.entries());
+        assertNotNull(stats.firstEntry());
+    }
+
+    private List<String> run(JournalReport report) {
+        StringWriter buffer = new StringWriter();
+        ReportEngine.run(Stream.of(april1, march31), report, new PrintWriter(buffer));
+        return buffer.toString().lines().toList();
+    }
+
+    private static void assertRow(String line, String... columns) {
+        List<String> actual = List.of(line.trim().split("\\s+"));
+        for (String column : columns) {
+            assertTrue(actual.contains(column), () -> "expected " + column + " in: " + line);
+        }
+        assertEquals(columns[0], actual.get(0), line);
+    }
+
+    private static JournalEntry entry(long id, LocalDate date) {
+        JournalEntry entry = TestDataFactory.emptyJournalEntry();
+        entry.setId(id);
+        entry.setDate(date);
+        entry.setEntryText(null);
+        entry.setAvailableCash(Money.of("1000.00"));
+        entry.setInvestedCapital(Money.of("500.00"));
+        return entry;
+    }
+}
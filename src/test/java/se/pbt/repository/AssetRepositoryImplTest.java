@@ -0,0 +1,158 @@
+package se.pbt.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+import se.pbt.model.asset.Asset;
+import se.pbt.testutil.TestDataFactory;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AssetRepositoryImplTest {
+
+    private EntityManagerFactory emf;
+    private AssetRepositoryImpl assetRepository;
+    private JournalEntryRepositoryImpl journalRepository;
+
+    @BeforeAll
+    void setup() {
+        emf = Persistence.createEntityManagerFactory("trader-journal-test-pu");
+        assetRepository = new AssetRepositoryImpl(emf, new AssetCache(2));
+        journalRepository = new JournalEntryRepositoryImpl(emf, assetRepository);
+    }
+
+    @AfterAll
+    void teardown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    @DisplayName("entries trading the same ISIN share one asset row")
+    void entriesWithSameIsinShareOneAsset() {
+        JournalEntry first = TestDataFactory.defaultJournalEntry();
+        JournalEntry second = TestDataFactory.defaultJournalEntry();
+
+        journalRepository.save(first);
+        journalRepository.save(second);
+
+        Long firstAssetId = first.getTrades().iterator().next().getAsset().getId();
+        Long secondAssetId = second.getTrades().iterator().next().getAsset().getId();
+        assertEquals(firstAssetId, secondAssetId);
+        assertEquals(1L, countAssetsWithIsin(TestDataFactory.defaultAsset().getIsin()));
+    }
+
+    @Test
+    @DisplayName("trades with equal values in one entry share one new asset")
+    void equalTradesInOneEntryShareNewAsset() {
+        JournalEntry entry = TestDataFactory.emptyJournalEntry();
+        for (int i = 0; i < 3; i++) {
+            Trade trade = TestDataFactory.defaultTrade();
+            trade.getAsset().setIsin("SE0000000921");
+            trade.getAsset().setTicker("SAME.ST");
+            entry.addTradeSnapshot(TestDataFactory.defaultTradeSnapshot(trade, entry));
+        }
+
+        journalRepository.save(entry);
+
+        assertEquals(1L, countAssetsWithIsin("SE0000000921"));
+    }
+
+    @Test
+    @DisplayName("repeated lookups by ISIN or ticker are served from the cache")
+    void repeatedLookupsHitCache() {
+        Asset asset = TestDataFactory.defaultAsset();
+        asset.setIsin("SE0000000901");
+        asset.setTicker("CACHE.ST");
+        assetRepository.save(asset);
+        AssetCache.Stats before = assetRepository.cacheStats();
+
+        Optional<Asset> byIsin = assetRepository.findByIsin("SE0000000901");
+        Optional<Asset> byTicker = assetRepository.findByTicker("CACHE.ST");
+
+        AssetCache.Stats after = assetRepository.cacheStats();
+        assertTrue(byIsin.isPresent());
+        assertSame(byIsin.get(), byTicker.get());
+        assertFalse(byIsin.get().getSectors().isEmpty());
+        assertEquals(before.hits() + 2, after.hits());
+        assertEquals(before.misses(), after.misses());
+    }
+
+    @Test
+    @DisplayName("an ISIN that is not found is cached as missing until an asset with it is saved")
+    void missingIsinIsCachedUntilSaved() {
+        assertTrue(assetRepository.findByIsin("SE0000000931").isEmpty());
+        AssetCache.Stats before = assetRepository.cacheStats();
+
+        assertTrue(assetRepository.findByIsin("SE0000000931").isEmpty());
+
+        AssetCache.Stats after = assetRepository.cacheStats();
+        assertEquals(before.hits() + 1, after.hits());
+        assertEquals(before.misses(), after.misses());
+
+        assetRepository.save(assetWith("SE0000000931", "MISS.ST"));
+        assertTrue(assetRepository.findByIsin("SE0000000931").isPresent());
+    }
+
+    @Test
+    @DisplayName("a missing ISIN is forgotten once a journal entry stores an asset with it")
+    void missingIsinIsEvictedBySavedEntry() {
+        assertTrue(assetRepository.findByIsin("SE0000000932").isEmpty());
+        JournalEntry first = TestDataFactory.defaultJournalEntry();
+        first.getTrades().iterator().next().getAsset().setIsin("SE0000000932");
+        first.getTrades().iterator().next().getAsset().setTicker("CASCADE.ST");
+
+        journalRepository.save(first);
+        JournalEntry second = TestDataFactory.defaultJournalEntry();
+        second.getTrades().iterator().next().getAsset().setIsin("SE0000000932");
+        second.getTrades().iterator().next().getAsset().setTicker("CASCADE.ST");
+        journalRepository.save(second);
+
+        assertTrue(assetRepository.findByIsin("SE0000000932").isPresent());
+        assertEquals(1L, countAssetsWithIsin("SE0000000932"));
+    }
+
+    @Test
+    @DisplayName("the cache evicts the least recently used asset when full")
+    void cacheEvictsLeastRecentlyUsed() {
+        AssetCache cache = new AssetCache(2);
+        Asset a = assetWith("SE0000000911", "A.ST");
+        Asset b = assetWith("SE0000000912", "B.ST");
+        Asset c = assetWith("SE0000000913", "C.ST");
+
+        cache.put(a);
+        cache.put(b);
+        cache.getByIsin("SE0000000911");
+        cache.put(c);
+
+        assertTrue(cache.getByIsin("SE0000000911").isPresent());
+        assertTrue(cache.getByTicker("B.ST").isEmpty());
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2, cache.stats().size());
+    }
+
+    private long countAssetsWithIsin(String isin) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT COUNT(a) FROM Asset a WHERE a.isin = :isin", Long.class)
+                    .setParameter("isin", isin)
+                    .getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Asset assetWith(String isin, String ticker) {
+        Asset asset = TestDataFactory.defaultAsset();
+        asset.setIsin(isin);
+        asset.setTicker(ticker);
+        return asset;
+    }
+}
@@ -0,0 +1,158 @@
+package se.pbt.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.asset.Asset;
+import se.pbt.testutil.TestDataFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements issued when loading a journal entry with each {@link FetchProfile}
+ * and reading everything the profile promises. The count must not grow with the number of trades,
+ * so that N+1 query regressions fail the build.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JournalEntryFetchProfileTest {
+
+    private static final int DAYS = 4;
+    private static final long MAX_STATEMENTS = 3;
+
+    private EntityManagerFactory emf;
+    private JournalEntryRepositoryImpl repository;
+    private Statistics statistics;
+    private int histories;
+
+    @BeforeAll
+    void setup() {
+        emf = Persistence.createEntityManagerFactory("trader-journal-test-pu");
+        repository = new JournalEntryRepositoryImpl(emf);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterAll
+    void teardown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    @DisplayName("DAY_VIEW loads trade cards without extra queries per trade")
+    void dayView_statementCountIndependentOfTradeCount() {
+        assertStatementCountIndependentOfTradeCount(FetchProfile.DAY_VIEW, entry -> {
+            for (Trade trade : entry.getTrades()) {
+                trade.getAsset().getName();
+                trade.calculateNetGain();
+                trade.getLatestClosePrice();
+                trade.getTradeSnapshots().forEach(s -> s.getJournalEntry().getDate());
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("TRADE_DETAIL loads full trades without extra queries per trade")
+    void tradeDetail_statementCountIndependentOfTradeCount() {
+        assertStatementCountIndependentOfTradeCount(FetchProfile.TRADE_DETAIL, entry -> {
+            for (Trade trade : entry.getTrades()) {
+                trade.calculateNetGain();
+                trade.getTradeSnapshots().forEach(s -> s.getJournalEntry().getDate());
+                trade.getAsset().getSectors().size();
+                trade.getAsset().getIndustries().size();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("ANALYTICS loads sales and asset classification without extra queries per trade")
+    void analytics_statementCountIndependentOfTradeCount() {
+        assertStatementCountIndependentOfTradeCount(FetchProfile.ANALYTICS, entry -> {
+            for (TradeSnapshot snapshot : entry.getTradeSnapshots()) {
+                snapshot.getExecutedSales().forEach(ExecutedSale::getNetGain);
+                snapshot.getTrade().getAsset().getSectors().size();
+                snapshot.getTrade().getAsset().getIndustries().size();
+            }
+        });
+    }
+
+    private void assertStatementCountIndependentOfTradeCount(FetchProfile profile, Consumer<JournalEntry> reader) {
+        long few = statementsToLoadAndRead(persistHistory(2), profile, reader);
+        long many = statementsToLoadAndRead(persistHistory(20), profile, reader);
+
+        assertEquals(few, many, "statement count grew with the number of trades");
+        assertTrue(many <= MAX_STATEMENTS, "expected at most " + MAX_STATEMENTS + " statements, got " + many);
+    }
+
+    private long statementsToLoadAndRead(Long entryId, FetchProfile profile, Consumer<JournalEntry> reader) {
+        statistics.clear();
+        JournalEntry entry = repository.findById(entryId, profile).orElseThrow();
+        reader.accept(entry);
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Persists {@value #DAYS} entries in which the same {@code tradeCount} trades in one asset
+     * appear every day, each snapshot with one sale.
+     *
+     * @return the ID of the last entry
+     */
+    private Long persistHistory(int tradeCount) {
+        Asset asset = TestDataFactory.defaultAsset();
+        int historyNumber = ++histories;
+        asset.setIsin("SE00000" + historyNumber);
+        asset.setTicker("FP" + historyNumber + ".ST");
+        List<Trade> trades = new ArrayList<>();
+        for (int i = 0; i < tradeCount; i++) {
+            Trade trade = TestDataFactory.defaultTrade();
+            trade.setAsset(asset);
+            trades.add(trade);
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            JournalEntry entry = null;
+            for (int day = 0; day < DAYS; day++) {
+                entry = TestDataFactory.emptyJournalEntry();
+                entry.setDate(LocalDate.of(2000, 1, 1).plusDays(day));
+                for (Trade trade : trades) {
+                    TradeSnapshot snapshot = TestDataFactory.defaultTradeSnapshot(trade, entry);
+                    snapshot.addExecutedSale(sale());
+                    entry.addTradeSnapshot(snapshot);
+                }
+                em.persist(entry);
+            }
+            em.getTransaction().commit();
+            return entry.getId();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static ExecutedSale sale() {
+        return ExecutedSale.builder()
+                .quantitySold(1)
+                .sellPrice(new BigDecimal("110.00"))
+                .sellFee(new BigDecimal("1.00"))
+                .grossGain(Money.of("110.00"))
+                .netGain(Money.of("109.00"))
+                .sellTime(LocalTime.of(15, 0))
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.*;
 import se.pbt.model.JournalEntry;
 import se.pbt.testutil.TestDataFactory;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -115,4 +116,60 @@ class JournalEntryRepositoryImplTest {
         var result = repository.findLatestEntry();
         assertNotNull(result); // Should return Optional.empty() instead of null
     }
+
+    @Test
+    @DisplayName("findPage returns entries before the given date, newest first")
+    void findPage_returnsEntriesBeforeDateNewestFirst() {
+        for (int day = 1; day <= 3; day++) {
+            JournalEntry entry = TestDataFactory.defaultJournalEntry();
+            entry.setDate(LocalDate.of(1990, 1, day));
+            repository.save(entry);
+        }
+
+        List<JournalEntry> page = repository.findPage(LocalDate.of(1990, 1, 4), 2);
+
+        assertEquals(2, page.size());
+        assertEquals(LocalDate.of(1990, 1, 3), page.get(0).getDate());
+        assertEquals(LocalDate.of(1990, 1, 2), page.get(1).getDate());
+        assertFalse(page.get(0).getTradeSnapshots().isEmpty());
+    }
+
+    @Test
+    @DisplayName("findPage continues from a cursor without skipping entries that share a date")
+    void findPage_cursorKeepsEntriesSharingADate() {
+        for (int i = 0; i < 3; i++) {
+            JournalEntry entry = TestDataFactory.defaultJournalEntry();
+            entry.setDate(LocalDate.of(1989, 3, 1));
+            repository.save(entry);
+        }
+        PageCursor start = PageCursor.before(LocalDate.of(1989, 3, 2));
+
+        List<JournalEntry> first = repository.findPage(start, 2);
+        List<JournalEntry> second = repository.findPage(PageCursor.after(first.get(1)), 2);
+
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).getId() > first.get(1).getId());
+        assertEquals(LocalDate.of(1989, 3, 1), second.get(0).getDate());
+        assertTrue(second.get(0).getId() < first.get(1).getId());
+        assertEquals(3, first.size() + second.stream().filter(e -> e.getDate().equals(LocalDate.of(1989, 3, 1))).count());
+    }
+
+    @Test
+    @DisplayName("streamAll visits every entry exactly once, newest first")
+    void streamAll_visitsEveryEntryOnceNewestFirst() {
+        JournalEntry sameDay1 = TestDataFactory.defaultJournalEntry();
+        JournalEntry sameDay2 = TestDataFactory.defaultJournalEntry();
+        sameDay1.setDate(LocalDate.of(1991, 6, 1));
+        sameDay2.setDate(LocalDate.of(1991, 6, 1));
+        repository.save(sameDay1);
+        repository.save(sameDay2);
+
+        List<JournalEntry> streamed = repository.streamAll(1).toList();
+
+        assertEquals(repository.findAll().size(), streamed.size());
+        assertEquals(streamed.size(), streamed.stream().map(JournalEntry::getId).distinct().count());
+        for (int i = 1; i < streamed.size(); i++) {
+            assertFalse(streamed.get(i).getDate().isAfter(streamed.get(i - 1).getDate()));
+        }
+    }
 }
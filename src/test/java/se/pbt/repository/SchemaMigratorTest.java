@@ -0,0 +1,214 @@
+package se.pbt.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import se.pbt.model.JournalEntry;
+import se.pbt.report.ReportPeriod;
+import se.pbt.rollup.PerformanceRollupStore;
+import se.pbt.rollup.RollupDimension;
+import se.pbt.testutil.TestDataFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    private static final String URL = "jdbc:h2:mem:schema-migrator-test;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+    }
+
+    @AfterEach
+    void dropAll() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("an empty database is migrated to the latest version")
+    void migratesEmptyDatabase() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator();
+
+        assertEquals(migrator.latestVersion(), migrator.migrate(connection));
+        assertEquals(migrator.latestVersion(), queryInt("select max(version) from schema_version"));
+        assertTrue(indexNames().containsAll(Set.of(
+                "IDX_JOURNAL_ENTRY_DATE",
+                "IDX_TRADE_SNAPSHOT_TRADE",
+                "IDX_TRADE_SNAPSHOT_JOURNAL_ENTRY",
+                "IDX_EXECUTED_SALE_SNAPSHOT",
+                "IDX_ASSET_ISIN")));
+    }
+
+    @Test
+    @DisplayName("a database at the latest version is left untouched")
+    void upToDateDatabaseIsSkipped() throws SQLException {
+        new SchemaMigrator().migrate(connection);
+
+        assertEquals(0, new SchemaMigrator().migrate(connection));
+        assertEquals(new SchemaMigrator().latestVersion(), queryInt("select count(*) from schema_version"));
+    }
+
+    @Test
+    @DisplayName("a failing migration stops the run and is not recorded")
+    void failedMigrationIsNotRecorded() throws SQLException {
+        // Left alone by the baseline, so the index on snapshot_id cannot be created
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table ExecutedSale (id bigint primary key)");
+        }
+
+        assertThrows(SQLException.class, () -> new SchemaMigrator().migrate(connection));
+        assertEquals(1, queryInt("select max(version) from schema_version"));
+    }
+
+    @Test
+    @DisplayName("the migrated schema matches the entity mappings")
+    void migratedSchemaWorksWithEntities() throws SQLException {
+        new SchemaMigrator().migrate(connection);
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url", URL);
+        overrides.put("hibernate.hbm2ddl.auto", "none");
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("trader-journal-test-pu", overrides);
+        try {
+            PerformanceRollupStore rollups = new PerformanceRollupStore(emf);
+            JournalEntryRepositoryImpl repository = new JournalEntryRepositoryImpl(emf, new AssetRepositoryImpl(emf), rollups);
+            JournalEntry entry = TestDataFactory.defaultJournalEntry();
+            entry.getTradeSnapshots().iterator().next().addExecutedSale(TestDataFactory.defaultExecutedSale());
+            repository.save(entry);
+
+            assertTrue(repository.findById(entry.getId()).isPresent());
+            assertEquals(1, rollups.find(ReportPeriod.DAY, RollupDimension.ALL, null, null).size());
+            assertEquals(new SchemaMigrator().latestVersion(), new SchemaMigrator().currentVersion(emf));
+        } finally {
+            emf.close();
+        }
+    }
+
+    @Test
+    @DisplayName("a journal created by hbm2ddl keeps its rows, gets the asset constraints and saves new entries")
+    void migratesIdentityEraDatabase() throws SQLException, IOException {
+        // The tables as hbm2ddl created them: identity columns, no sequences and no unique constraints,
+        // and one asset row per trade
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SchemaMigrator.statements(baselineScript())) {
+                if (!sql.startsWith("create sequence")) {
+                    statement.execute(sql
+                            .replaceAll("(?m)^(\\s+)id bigint not null,", "$1id bigint generated by default as identity,")
+                            .replaceAll(",\\s+constraint uk_\\w+ unique \\(\\w+\\)", ""));
+                }
+            }
+            statement.execute("insert into Asset (isInvestmentCompany, isLeveraged, isin, name, ticker, currency) "
+                    + "values (false, false, 'SE0000000099', 'Old Asset', 'OLD.ST', 'SEK'), "
+                    + "(false, false, 'SE0000000099', 'Old Asset', 'OLD.ST', 'SEK')");
+            statement.execute("insert into Asset_sectors (Asset_id, sectors) values (1, 0), (2, 0)");
+            statement.execute("insert into JournalEntry (date, availableCash, investedCapital, entryText) "
+                    + "values (date '2025-04-11', 100, 100, 'first'), (date '2025-04-12', 100, 100, 'second')");
+            statement.execute("insert into Trade (quantity, buyFee, entryPrice, asset_id) values (2, 0, 50, 1), (1, 0, 51, 2)");
+            statement.execute("insert into TradeSnapshot (remainingQuantity, openPrice, closePrice, journal_entry_id, trade_id) "
+                    + "values (2, 50, 51, 1, 1), (1, 51, 52, 2, 1), (1, 51, 52, 2, 2)");
+            statement.execute("insert into ExecutedSale (quantitySold, sellPrice, snapshot_id) values (1, 52, 2)");
+        }
+        assertFalse(indexNames().contains("IDX_ASSET_ISIN"));
+
+        new SchemaMigrator().migrate(connection);
+
+        assertEquals(1, queryInt("select count(*) from Asset"));
+        assertEquals(2, queryInt("select count(*) from Trade where asset_id = 1"));
+        assertEquals(1, queryInt("select count(*) from Asset_sectors"));
+        assertTrue(indexNames().contains("IDX_ASSET_ISIN"));
+        assertEquals(Set.of("UK_ASSET_ISIN", "UK_ASSET_TICKER"), uniqueConstraintNames("ASSET"));
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url", URL);
+        overrides.put("hibernate.hbm2ddl.auto", "none");
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("trader-journal-test-pu", overrides);
+        try {
+            JournalEntryRepositoryImpl repository = new JournalEntryRepositoryImpl(emf, new AssetRepositoryImpl(emf),
+                    new PerformanceRollupStore(emf));
+            JournalEntry entry = TestDataFactory.defaultJournalEntry();
+            entry.getTradeSnapshots().iterator().next().addExecutedSale(TestDataFactory.defaultExecutedSale());
+            repository.save(entry);
+
+            assertTrue(entry.getId() > 2);
+            assertEquals(3, repository.findAll().size());
+            assertEquals(2, queryInt("select count(*) from Asset"));
+            assertEquals(3, queryInt("select count(*) from Trade"));
+            assertEquals(2, queryInt("select count(*) from ExecutedSale"));
+        } finally {
+            emf.close();
+        }
+    }
+
+    @Test
+    @DisplayName("scripts are split into statements without comments")
+    void splitsStatements() {
+        List<String> statements = SchemaMigrator.statements("""
+                -- comment;
+                create table a (
+                    id bigint
+                );
+
+                create index i on a (id);
+                """);
+
+        assertEquals(List.of("create table a (\n    id bigint\n)", "create index i on a (id)"), statements);
+    }
+
+    private int queryInt(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+
+    private static String baselineScript() throws IOException {
+        try (InputStream in = SchemaMigratorTest.class.getClassLoader()
+                .getResourceAsStream("db/migration/V1__baseline.sql")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private Set<String> indexNames() throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select index_name from information_schema.indexes")) {
+            while (result.next()) {
+                names.add(result.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private Set<String> uniqueConstraintNames(String table) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select constraint_name from information_schema.table_constraints "
+                     + "where constraint_type = 'UNIQUE' and table_name = '" + table + "'")) {
+            while (result.next()) {
+                names.add(result.getString(1));
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,102 @@
+package se.pbt.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Trade;
+import se.pbt.service.BulkImportService;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TradeRepositoryImplTest {
+
+    private static final String CSV = "date,trade_ref,isin,ticker,asset_name,asset_class,currency,exchange,sector,industry,"
+            + "quantity,entry_price,buy_fee,entry_time,remaining_quantity,open_price,close_price,"
+            + "sell_quantity,sell_price,sell_fee,sell_time,available_cash,invested_capital,notes\n"
+            + "2024-03-04,A,SE0000000201,AAA.ST,Alpha,STOCK,SEK,STOCKHOLM,TECHNOLOGY,SOFTWARE,10,100.00,0,,10,100.00,101.00,,,,,,,\n"
+            + "2024-03-04,B,SE0000000202,BBB.ST,Beta,STOCK,SEK,STOCKHOLM,ENERGY,OIL_GAS,5,50.00,0,,5,50.00,49.00,,,,,,,\n"
+            + "2024-03-05,A,,,,,,,,,,,,,4,101.00,105.00,6,104.00,0,10:00,,,\n"
+            + "2024-03-05,B,,,,,,,,,,,,,0,49.00,48.00,5,48.00,0,10:30,,,\n"
+            + "2024-03-06,A,,,,,,,,,,,,,4,105.00,106.00,,,,,,,\n";
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2024, 3, 5);
+    private static final LocalDate WEDNESDAY = LocalDate.of(2024, 3, 6);
+
+    private EntityManagerFactory emf;
+    private JournalEntryRepositoryImpl journal;
+    private TradeRepositoryImpl trades;
+
+    @BeforeAll
+    void setup() {
+        emf = Persistence.createEntityManagerFactory("trader-journal-test-pu",
+                Map.of("jakarta.persistence.jdbc.url", "jdbc:h2:mem:trade-repository-test;DB_CLOSE_DELAY=-1"));
+        journal = new JournalEntryRepositoryImpl(emf);
+        trades = new TradeRepositoryImpl(emf);
+    }
+
+    @AfterAll
+    void teardown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @BeforeEach
+    void importHistory() throws IOException {
+        journal.findAll().forEach(journal::remove);
+        new BulkImportService(emf, new AssetRepositoryImpl(emf)).importCsv(new StringReader(CSV));
+    }
+
+    @Test
+    @DisplayName("only trades with units left on their latest day are open, loaded with their history")
+    void findsOpenTrades() {
+        List<Trade> open = trades.findOpenTrades();
+
+        assertEquals(1, open.size());
+        Trade alpha = open.get(0);
+        assertEquals("Alpha", alpha.getAsset().getName());
+        assertEquals(3, alpha.getTradeSnapshots().size());
+        assertEquals(MONDAY, alpha.getOpenedOn());
+        assertEquals(WEDNESDAY, alpha.getLastSnapshotOn());
+        assertNull(alpha.getClosedOn());
+
+        List<TradeSummary> summaries = trades.findOpenSummaries();
+        assertEquals(List.of("AAA.ST"), summaries.stream().map(TradeSummary::ticker).toList());
+    }
+
+    @Test
+    @DisplayName("closed trades are found by the day they were closed, and by asset while they were held")
+    void findsClosedTradesAndTradesByAsset() {
+        List<TradeSummary> closed = trades.findClosedBetween(TUESDAY, TUESDAY);
+        assertEquals(1, closed.size());
+        TradeSummary beta = closed.get(0);
+        assertEquals("Beta", beta.assetName());
+        assertFalse(beta.open());
+        assertTrue(trades.findClosedBetween(WEDNESDAY, null).isEmpty());
+
+        assertEquals(1, trades.findByAsset(beta.assetId(), null, MONDAY).size());
+        assertTrue(trades.findByAsset(beta.assetId(), WEDNESDAY, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("removing the day a trade was closed reopens it")
+    void removingClosingDayReopensTrade() {
+        JournalEntry tuesday = journal.findPage(WEDNESDAY, 1, FetchProfile.DAY_VIEW).get(0);
+        assertEquals(TUESDAY, tuesday.getDate());
+
+        assertTrue(journal.remove(tuesday));
+
+        assertEquals(List.of("AAA.ST", "BBB.ST"),
+                trades.findOpenSummaries().stream().map(TradeSummary::ticker).toList());
+        assertTrue(trades.findClosedBetween(null, null).isEmpty());
+    }
+}
@@ -0,0 +1,123 @@
+package se.pbt.rollup;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.report.ReportPeriod;
+import se.pbt.repository.AssetRepositoryImpl;
+import se.pbt.repository.FetchProfile;
+import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.testutil.TestDataFactory;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PerformanceRollupStoreTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate WEDNESDAY = LocalDate.of(2024, 3, 6);
+
+    private EntityManagerFactory emf;
+    private PerformanceRollupStore rollups;
+    private JournalEntryRepositoryImpl repository;
+
+    @BeforeAll
+    void setup() {
+        emf = Persistence.createEntityManagerFactory("trader-journal-test-pu",
+                Map.of("jakarta.persistence.jdbc.url", "jdbc:h2:mem:rollup-test;DB_CLOSE_DELAY=-1"));
+        rollups = new PerformanceRollupStore(emf);
+        repository = new JournalEntryRepositoryImpl(emf, new AssetRepositoryImpl(emf), rollups);
+    }
+
+    @AfterAll
+    void teardown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @AfterEach
+    void removeEntries() {
+        repository.findAll().forEach(repository::remove);
+    }
+
+    @Test
+    @DisplayName("saved sales are summed per day, week and group")
+    void addsSalesOnSave() {
+        repository.save(entryWithSale(MONDAY, "109.50"));
+        repository.save(entryWithSale(WEDNESDAY, "89.50"));
+
+        List<PerformanceRollup> days = rollups.find(ReportPeriod.DAY, RollupDimension.ALL, null, null);
+        assertEquals(List.of(MONDAY, WEDNESDAY), days.stream().map(rollup -> rollup.getKey().getPeriodStart()).toList());
+
+        PerformanceRollup week = single(rollups.find(ReportPeriod.WEEK, RollupDimension.SECTOR, MONDAY, MONDAY));
+        assertEquals("TECHNOLOGY", week.getKey().getGroupKey());
+        assertEquals(2, week.getTrades());
+        assertEquals(1, week.getWins());
+        assertEquals(1, week.getLosses());
+        // 9.50 - 10.50, cost 100.00 per sale
+        assertEquals(Money.of("-1.00"), week.getRealized());
+        assertEquals(Money.of("1.00"), week.getFees());
+        assertEquals(Money.of("220.00"), week.getTurnover());
+    }
+
+    @Test
+    @DisplayName("removed sales are subtracted, and a rollup without sales is deleted")
+    void subtractsSalesOnRemove() {
+        JournalEntry monday = entryWithSale(MONDAY, "109.50");
+        JournalEntry wednesday = entryWithSale(WEDNESDAY, "89.50");
+        repository.save(monday);
+        repository.save(wednesday);
+
+        repository.remove(wednesday);
+
+        PerformanceRollup month = single(rollups.find(ReportPeriod.MONTH, RollupDimension.EXCHANGE, null, null));
+        assertEquals(1, month.getTrades());
+        assertEquals(Money.of("9.50"), month.getRealized());
+        assertEquals(1, rollups.find(ReportPeriod.DAY, RollupDimension.ALL, null, null).size());
+
+        repository.remove(monday);
+
+        assertTrue(rollups.find(ReportPeriod.YEAR, RollupDimension.ALL, null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("a rebuild gives the same rollups as incremental updates")
+    void rebuildMatchesIncremental() {
+        repository.save(entryWithSale(MONDAY, "109.50"));
+        repository.save(entryWithSale(WEDNESDAY, "89.50"));
+        List<PerformanceRollup> incremental = rollups.find(ReportPeriod.WEEK, RollupDimension.ASSET_CLASS, null, null);
+
+        int written;
+        try (Stream<JournalEntry> entries = repository.streamAll(10, FetchProfile.ANALYTICS)) {
+            written = rollups.rebuild(entries);
+        }
+
+        // Days, the shared week, month and year, each for ALL, ASSET_CLASS, SECTOR and EXCHANGE
+        assertEquals(5 * 4, written);
+        assertEquals(incremental, rollups.find(ReportPeriod.WEEK, RollupDimension.ASSET_CLASS, null, null));
+        assertFalse(rollups.needsRebuild());
+    }
+
+    private static JournalEntry entryWithSale(LocalDate date, String netGain) {
+        JournalEntry entry = TestDataFactory.defaultJournalEntry();
+        entry.setDate(date);
+        ExecutedSale sale = TestDataFactory.defaultExecutedSale();
+        sale.setNetGain(Money.of(netGain));
+        entry.getTradeSnapshots().iterator().next().addExecutedSale(sale);
+        return entry;
+    }
+
+    private static PerformanceRollup single(List<PerformanceRollup> rollups) {
+        assertEquals(1, rollups.size());
+        return rollups.get(0);
+    }
+}
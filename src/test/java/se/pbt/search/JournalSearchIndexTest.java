@@ -0,0 +1,105 @@
+package se.pbt.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.testutil.TestDataFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalSearchIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("all words must match, and a trailing star matches as a prefix")
+    void matchesWordsAndPrefixes() throws IOException {
+        try (JournalSearchIndex index = JournalSearchIndex.open(dir)) {
+            index.index(entry(1, "2024-01-10", "Chased the breakout, FOMO again", "Sold too early"));
+            index.index(entry(2, "2024-01-11", "Patient entry on the pullback", "Held through volatility"));
+            index.index(entry(3, "2024-01-12", "Breakdown day, stayed flat", null));
+
+            assertEquals(Set.of(1L), entryIds(index.search("fomo", null, null, 10)));
+            assertEquals(Set.of(1L), entryIds(index.search("breakout early", null, null, 10)));
+            assertEquals(Set.of(1L, 3L), entryIds(index.search("break*", null, null, 10)));
+            assertEquals(Set.of(2L), entryIds(index.search("volatil*", null, null, 10)), "snapshot notes are indexed");
+            assertTrue(index.search("breakout pullback", null, null, 10).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("hits are filtered by date, newest first, and limited")
+    void filtersByDateAndLimits() throws IOException {
+        try (JournalSearchIndex index = JournalSearchIndex.open(dir)) {
+            for (int day = 1; day <= 20; day++) {
+                index.index(entry(day, LocalDate.of(2024, 3, day).toString(), "Range day", null));
+            }
+
+            List<SearchHit> hits = index.search("range", LocalDate.of(2024, 3, 5), LocalDate.of(2024, 3, 15), 3);
+
+            assertEquals(List.of(15L, 14L, 13L), hits.stream().map(SearchHit::entryId).toList());
+            assertEquals(LocalDate.of(2024, 3, 15), hits.get(0).date());
+        }
+    }
+
+    @Test
+    @DisplayName("re-indexing replaces an entry's text and removing drops it")
+    void replacesAndRemoves() throws IOException {
+        try (JournalSearchIndex index = JournalSearchIndex.open(dir)) {
+            index.index(entry(1, "2024-01-10", "First draft", null));
+            index.index(entry(1, "2024-01-10", "Rewritten", null));
+            index.index(entry(2, "2024-01-11", "Rewritten too", null));
+
+            assertTrue(index.search("draft", null, null, 10).isEmpty());
+            assertEquals(Set.of(1L, 2L), entryIds(index.search("rewritten", null, null, 10)));
+
+            assertTrue(index.remove(2));
+            assertEquals(Set.of(1L), entryIds(index.search("rewritten", null, null, 10)));
+            assertEquals(1, index.size());
+        }
+    }
+
+    @Test
+    @DisplayName("a closed index is reopened from disk, an index left open needs a rebuild")
+    void persistsOnClose() throws IOException {
+        JournalSearchIndex first = JournalSearchIndex.open(dir);
+        assertTrue(first.needsRebuild(), "a new index has nothing to restore");
+        first.index(entry(1, "2024-01-10", "Gap and go", null));
+        first.close();
+
+        JournalSearchIndex second = JournalSearchIndex.open(dir);
+        assertFalse(second.needsRebuild());
+        assertEquals(Set.of(1L), entryIds(second.search("gap", null, null, 10)));
+        // Not closed, as after a crash
+
+        try (JournalSearchIndex third = JournalSearchIndex.open(dir)) {
+            assertTrue(third.needsRebuild());
+        }
+    }
+
+    private static JournalEntry entry(long id, String date, String text, String notes) {
+        JournalEntry entry = TestDataFactory.emptyJournalEntry();
+        entry.setId(id);
+        entry.setDate(LocalDate.parse(date));
+        entry.setEntryText(text);
+        if (notes != null) {
+            TradeSnapshot snapshot = TestDataFactory.emptyTradeSnapshot();
+            snapshot.setNotes(notes);
+            entry.addTradeSnapshot(snapshot);
+        }
+        return entry;
+    }
+
+    private static Set<Long> entryIds(List<SearchHit> hits) {
+        return Set.copyOf(hits.stream().map(SearchHit::entryId).toList());
+    }
+}
@@ -0,0 +1,159 @@
+package se.pbt.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.pbt.model.JournalEntry;
+import se.pbt.testutil.TestDataFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the async service against a {@link JournalEntryService} whose loads block until the test releases them.
+ */
+class AsyncJournalEntryServiceTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final JournalEntry latest = TestDataFactory.emptyJournalEntry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch loadStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+    private final CountDownLatch releaseSave = new CountDownLatch(1);
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+
+    private AsyncJournalEntryService service;
+
+    @BeforeEach
+    void setup() {
+        service = new AsyncJournalEntryService(() -> new BlockingJournalEntryService(), 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        releaseSave.countDown();
+        service.close();
+    }
+
+    @Test
+    @DisplayName("concurrent loads of the latest entry share one call")
+    void coalescesDuplicateLoads() throws Exception {
+        CompletableFuture<Optional<JournalEntry>> first = service.getLatestEntry();
+        CompletableFuture<Optional<JournalEntry>> second = service.getLatestEntry();
+        release.countDown();
+
+        assertSame(latest, first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).orElseThrow());
+        assertSame(latest, second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).orElseThrow());
+        assertEquals(1, loads.get());
+
+        service.getLatestEntry().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(2, loads.get(), "a finished load is not reused");
+    }
+
+    @Test
+    @DisplayName("cancelling one caller leaves the shared load running for the others")
+    void cancellingOneCallerKeepsLoad() throws Exception {
+        CompletableFuture<Optional<JournalEntry>> cancelled = service.getLatestEntry();
+        CompletableFuture<Optional<JournalEntry>> kept = service.getLatestEntry();
+        assertTrue(loadStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        cancelled.cancel(true);
+        release.countDown();
+
+        assertTrue(cancelled.isCancelled());
+        assertSame(latest, kept.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("cancelling the last caller interrupts the load")
+    void cancellingLastCallerInterruptsLoad() throws Exception {
+        CompletableFuture<Optional<JournalEntry>> load = service.getLatestEntry();
+        assertTrue(loadStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        load.cancel(true);
+
+        assertTrue(interrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("calls beyond the queue capacity fail instead of blocking")
+    void rejectsWhenQueueIsFull() throws Exception {
+        service.getLatestEntry();
+        assertTrue(loadStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        service.findById(1L);
+
+        CompletableFuture<Optional<JournalEntry>> rejected = service.findById(2L);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+    }
+
+    @Test
+    @DisplayName("a load requested after a save waits for the save, even with a free worker")
+    void loadAfterSaveWaitsForSave() throws Exception {
+        try (AsyncJournalEntryService parallel = new AsyncJournalEntryService(BlockingJournalEntryService::new, 2, 4)) {
+            CompletableFuture<Void> save = parallel.save(TestDataFactory.emptyJournalEntry());
+            CompletableFuture<Optional<JournalEntry>> load = parallel.findById(1L);
+
+            assertThrows(TimeoutException.class, () -> load.get(200, TimeUnit.MILLISECONDS));
+            releaseSave.countDown();
+
+            save.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertTrue(load.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).isEmpty());
+            assertEquals(List.of("save", "findById"), calls);
+        }
+    }
+
+    /**
+     * Returns {@link #latest} once the test releases it, and records an interrupt while waiting.
+     */
+    private class BlockingJournalEntryService extends JournalEntryService {
+
+        BlockingJournalEntryService() {
+            super(null);
+        }
+
+        @Override
+        public Optional<JournalEntry> getLatestEntry() {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of(latest);
+        }
+
+        @Override
+        public Optional<JournalEntry> findById(Long id) {
+            calls.add("findById");
+            return Optional.empty();
+        }
+
+        @Override
+        public void save(JournalEntry entry) {
+            try {
+                releaseSave.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            calls.add("save");
+        }
+    }
+}
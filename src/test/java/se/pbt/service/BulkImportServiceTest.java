@@ -0,0 +1,133 @@
+package se.pbt.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.repository.AssetRepositoryImpl;
+import se.pbt.repository.FetchProfile;
+import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.search.JournalSearchIndex;
+import se.pbt.search.SearchHit;
+import se.pbt.timeseries.EquityCurve;
+import se.pbt.timeseries.SnapshotColumnStore;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BulkImportServiceTest {
+
+    private static final String HEADER = "date,trade_ref,isin,ticker,asset_name,asset_class,currency,exchange,sector,industry,"
+            + "quantity,entry_price,buy_fee,entry_time,remaining_quantity,open_price,close_price,"
+            + "sell_quantity,sell_price,sell_fee,sell_time,available_cash,invested_capital,notes\n";
+
+    private EntityManagerFactory emf;
+    private BulkImportService importService;
+    private JournalEntryRepositoryImpl repository;
+
+    @BeforeAll
+    void setup() {
+        emf = Persistence.createEntityManagerFactory("trader-journal-test-pu");
+        importService = new BulkImportService(emf, new AssetRepositoryImpl(emf), 1);
+        repository = new JournalEntryRepositoryImpl(emf);
+    }
+
+    @AfterAll
+    void teardown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    @DisplayName("groups rows into entries, trades, snapshots and sales across flushes")
+    void importsGroupedHistory() throws IOException {
+        String csv = HEADER
+                + "1980-01-02,A,SE0000000101,AAA.ST,Alpha,STOCK,SEK,STOCKHOLM,TECHNOLOGY,SOFTWARE,10,100.00,5.00,09:00,10,100.00,101.00,,,,,1000.00,1000.00,Opened\n"
+                + "1980-01-02,B,SE0000000102,BBB.ST,Beta,STOCK,SEK,STOCKHOLM,ENERGY,OIL_GAS,5,50.00,5.00,09:05,5,50.00,49.00,,,,,,,\n"
+                + "1980-01-03,A,,,,,,,,,,,,,6,101.00,105.00,2,104.00,1.00,10:00,,,Trimmed, took profit\n"
+                + "1980-01-03,A,,,,,,,,,,,,,6,101.00,105.00,2,105.00,1.00,11:00,,,\n";
+
+        ImportReport report = importService.importCsv(new StringReader(csv));
+
+        assertEquals(4, report.rows());
+        assertEquals(2, report.entries());
+        assertEquals(2, report.trades());
+        assertEquals(3, report.snapshots());
+        assertEquals(2, report.sales());
+
+        JournalEntry secondDay = repository.findPage(LocalDate.of(1980, 1, 4), 1, FetchProfile.DAY_VIEW).get(0);
+        assertEquals(LocalDate.of(1980, 1, 3), secondDay.getDate());
+        Trade alpha = secondDay.getTrades().iterator().next();
+        assertEquals("Alpha", alpha.getAsset().getName());
+        assertEquals(2, alpha.getTradeSnapshots().size());
+        assertEquals("Trimmed, took profit", secondDay.getTradeSnapshots().iterator().next().getNotes());
+        // Sales 207 + 209, latest snapshot value 6 x 105 = 630, cost 1005
+        assertEquals(6, alpha.getRemainingQuantity());
+        assertEquals(Money.of("41"), alpha.calculateNetGain());
+    }
+
+    @Test
+    @DisplayName("indexes the imported entries for search once committed")
+    void indexesImportedEntries(@TempDir Path dir) throws IOException {
+        String csv = HEADER
+                + "1982-01-04,D,SE0000000104,DDD.ST,Delta,STOCK,SEK,STOCKHOLM,TECHNOLOGY,SOFTWARE,4,20.00,1.00,09:00,4,20.00,21.00,,,,,,,Bought the gap\n"
+                + "1982-01-05,D,,,,,,,,,,,,,4,21.00,22.00,,,,,,,Gapfill held\n"
+                + "1982-01-06,D,,,,,,,,,,,,,0,22.00,23.00,4,23.00,1.00,10:00,,,Closed into strength\n";
+
+        try (JournalSearchIndex index = JournalSearchIndex.open(dir)) {
+            BulkImportService indexing = new BulkImportService(emf, new AssetRepositoryImpl(emf), 1,
+                    null, null, null, index);
+            indexing.importCsv(new StringReader(csv));
+
+            assertEquals(3, index.size());
+            List<LocalDate> gapDays = index.search("gap*", null, null, 10).stream().map(SearchHit::date).toList();
+            assertEquals(List.of(LocalDate.of(1982, 1, 5), LocalDate.of(1982, 1, 4)), gapDays);
+            assertEquals(1, index.search("strength", null, null, 10).size());
+        }
+    }
+
+    @Test
+    @DisplayName("writes the imported snapshots to the snapshot store once committed")
+    void writesImportedSnapshotsToStore(@TempDir Path dir) throws IOException {
+        String csv = HEADER
+                + "1983-01-03,E,SE0000000105,EEE.ST,Epsilon,STOCK,SEK,STOCKHOLM,ENERGY,OIL_GAS,3,29.00,1.00,09:00,3,29.00,30.00,,,,,,,\n"
+                + "1983-01-04,E,,,,,,,,,,,,,3,30.00,31.00,,,,,,,\n";
+
+        try (SnapshotColumnStore store = SnapshotColumnStore.open(dir)) {
+            BulkImportService storing = new BulkImportService(emf, new AssetRepositoryImpl(emf), 1,
+                    null, null, null, null, store);
+            storing.importCsv(new StringReader(csv));
+
+            EquityCurve curve = store.equityCurve(LocalDate.of(1983, 1, 1), LocalDate.of(1983, 12, 31));
+            assertEquals(2, curve.size());
+            assertEquals(0, new BigDecimal("90").compareTo(curve.value(0)));
+            assertEquals(0, new BigDecimal("93").compareTo(curve.value(1)));
+        }
+    }
+
+    @Test
+    @DisplayName("rejects unsorted rows and writes nothing")
+    void rejectsUnsortedRows() {
+        String csv = HEADER
+                + "1981-01-03,C,SE0000000103,CCC.ST,Gamma,STOCK,SEK,STOCKHOLM,TECHNOLOGY,SOFTWARE,1,10.00,0,,1,10.00,10.00,,,,,,,\n"
+                + "1981-01-02,C,,,,,,,,,,,,,1,10.00,10.00,,,,,,,\n";
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> importService.importCsv(new StringReader(csv)));
+
+        assertTrue(e.getMessage().contains("line 3"));
+        assertTrue(repository.findPage(LocalDate.of(1981, 12, 31), 10).stream()
+                .noneMatch(entry -> entry.getDate().getYear() == 1981));
+    }
+}
@@ -0,0 +1,109 @@
+package se.pbt.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.price.PriceFile;
+import se.pbt.repository.AssetRepositoryImpl;
+import se.pbt.repository.FetchProfile;
+import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.repository.TradeRepositoryImpl;
+import se.pbt.repository.TradeSummary;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CarryForwardServiceTest {
+
+    private static final String CSV = "date,trade_ref,isin,ticker,asset_name,asset_class,currency,exchange,sector,industry,"
+            + "quantity,entry_price,buy_fee,entry_time,remaining_quantity,open_price,close_price,"
+            + "sell_quantity,sell_price,sell_fee,sell_time,available_cash,invested_capital,notes\n"
+            + "2024-03-04,A,SE0000000301,AAA.ST,Alpha,STOCK,SEK,STOCKHOLM,TECHNOLOGY,SOFTWARE,10,100.00,0,,10,100.00,101.00,,,,,500.00,1000.00,\n"
+            + "2024-03-04,B,SE0000000302,BBB.ST,Beta,STOCK,SEK,STOCKHOLM,ENERGY,OIL_GAS,5,50.00,0,,5,50.00,49.00,,,,,500.00,1000.00,\n"
+            + "2024-03-04,C,SE0000000303,CCC.ST,Gamma,STOCK,SEK,STOCKHOLM,ENERGY,OIL_GAS,2,20.00,0,,0,20.00,21.00,2,21.00,0,10:00,500.00,1000.00,\n";
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2024, 3, 5);
+
+    private EntityManagerFactory emf;
+    private JournalEntryRepositoryImpl journal;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    void setup() {
+        emf = Persistence.createEntityManagerFactory("trader-journal-test-pu",
+                Map.of("jakarta.persistence.jdbc.url", "jdbc:h2:mem:carry-forward-test;DB_CLOSE_DELAY=-1"));
+        journal = new JournalEntryRepositoryImpl(emf);
+    }
+
+    @AfterAll
+    void teardown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @BeforeEach
+    void importHistory() throws IOException {
+        journal.findAll().forEach(journal::remove);
+        new BulkImportService(emf, new AssetRepositoryImpl(emf)).importCsv(new StringReader(CSV));
+    }
+
+    @Test
+    @DisplayName("creates the day's entry with a snapshot of each open trade, priced from the file where it can")
+    void carriesOpenTradesForward() throws IOException {
+        Path prices = directory.resolve("prices.csv");
+        Files.writeString(prices, "date,symbol,open,close\n"
+                + "2024-03-04,AAA.ST,90.00,91.00\n"
+                + "2024-03-05,AAA.ST,101.50,103.00\n"
+                + "2024-03-05,SE0000000303,22.00,22.00\n");
+
+        CarryForwardReport report = new CarryForwardService(emf, 1)
+                .carryForward(TUESDAY, PriceFile.load(prices, TUESDAY));
+
+        assertEquals(2, report.snapshots());
+        assertEquals(1, report.priced());
+
+        JournalEntry tuesday = journal.findById(report.entryId(), FetchProfile.TRADE_DETAIL).orElseThrow();
+        assertEquals(TUESDAY, tuesday.getDate());
+        assertEquals(Money.of("500.00"), tuesday.getAvailableCash());
+        List<TradeSnapshot> snapshots = tuesday.getTradeSnapshots().stream()
+                .sorted(Comparator.comparing(snapshot -> snapshot.getTrade().getAsset().getName()))
+                .toList();
+        assertEquals(2, snapshots.size());
+        assertEquals(10, snapshots.get(0).getRemainingQuantity());
+        assertEquals(0, new BigDecimal("101.50").compareTo(snapshots.get(0).getOpenPrice()));
+        assertEquals(0, new BigDecimal("103.00").compareTo(snapshots.get(0).getClosePrice()));
+        assertEquals(5, snapshots.get(1).getRemainingQuantity());
+        assertEquals(0, new BigDecimal("49.00").compareTo(snapshots.get(1).getOpenPrice()));
+
+        List<TradeSummary> open = new TradeRepositoryImpl(emf).findOpenSummaries();
+        assertEquals(2, open.size());
+        assertTrue(open.stream().allMatch(trade -> trade.lastSnapshotOn().equals(TUESDAY)));
+    }
+
+    @Test
+    @DisplayName("refuses a day that is not after the latest entry and writes nothing")
+    void rejectsDayNotAfterLatestEntry() {
+        CarryForwardService service = new CarryForwardService(emf);
+
+        assertThrows(IllegalArgumentException.class, () -> service.carryForward(MONDAY));
+        assertEquals(1, journal.findAll().size());
+    }
+}
@@ -0,0 +1,160 @@
+package se.pbt.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.model.asset.Sector;
+import se.pbt.testutil.TestDataFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DraftJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("snapshots, sales and the comment are restored after reopening")
+    void restoresDraft() throws IOException {
+        Path file = dir.resolve("draft.log");
+        try (DraftJournal journal = DraftJournal.open(file)) {
+            TradeSnapshot snapshot = newSnapshot();
+            journal.addSnapshot(snapshot);
+            journal.recordSale(snapshot, sale());
+            journal.setComment("Choppy\tmorning\nquiet afternoon");
+        }
+
+        try (DraftJournal journal = DraftJournal.open(file)) {
+            JournalEntry draft = journal.draft();
+            assertEquals("Choppy\tmorning\nquiet afternoon", draft.getEntryText());
+            assertEquals(1, draft.getTradeSnapshots().size());
+
+            TradeSnapshot snapshot = draft.getTradeSnapshots().iterator().next();
+            assertSame(draft, snapshot.getJournalEntry());
+            assertEquals("Default snapshot notes", snapshot.getNotes());
+            assertEquals(0, new BigDecimal("110.00").compareTo(snapshot.getClosePrice()));
+
+            Trade trade = snapshot.getTrade();
+            assertNull(trade.getId());
+            assertEquals(LocalTime.of(9, 0), trade.getEntryTime());
+            assertEquals("SE0000000001", trade.getAsset().getIsin());
+            assertEquals(Set.of(Sector.TECHNOLOGY), trade.getAsset().getSectors());
+
+            ExecutedSale sale = snapshot.getExecutedSales().iterator().next();
+            assertEquals(Money.of("219.50"), sale.getNetGain());
+            assertSame(snapshot, sale.getTradeSnapshot());
+        }
+    }
+
+    @Test
+    @DisplayName("a record cut short by a crash is dropped and later records still replay")
+    void ignoresTornRecord() throws IOException {
+        Path file = dir.resolve("draft.log");
+        try (DraftJournal journal = DraftJournal.open(file)) {
+            journal.addSnapshot(newSnapshot());
+        }
+        Files.writeString(file, "SALE\t0\t2", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (DraftJournal journal = DraftJournal.open(file)) {
+            assertTrue(journal.draft().getTradeSnapshots().iterator().next().getExecutedSales().isEmpty());
+            journal.setComment("After the crash");
+        }
+
+        try (DraftJournal journal = DraftJournal.open(file)) {
+            assertEquals(1, journal.draft().getTradeSnapshots().size());
+            assertEquals("After the crash", journal.draft().getEntryText());
+        }
+    }
+
+    @Test
+    @DisplayName("comment edits within one batch are written as one record")
+    void coalescesCommentEdits() throws IOException {
+        Path file = dir.resolve("draft.log");
+        try (DraftJournal journal = DraftJournal.open(file, Duration.ofSeconds(10))) {
+            for (String text : new String[] {"G", "Go", "Goo", "Good"}) {
+                journal.setComment(text);
+            }
+            journal.flush();
+
+            assertEquals("COMMENT\tGood\n", Files.readString(file));
+        }
+    }
+
+    @Test
+    @DisplayName("clearing starts a new draft and empties the file")
+    void clearEmptiesFile() throws IOException {
+        Path file = dir.resolve("draft.log");
+        try (DraftJournal journal = DraftJournal.open(file)) {
+            journal.addSnapshot(newSnapshot());
+            journal.flush();
+
+            journal.clear();
+            journal.flush();
+
+            assertTrue(journal.draft().getTradeSnapshots().isEmpty());
+            assertEquals(0, Files.size(file));
+        }
+    }
+
+    @Test
+    @DisplayName("a sealed draft rejects changes until it is unsealed or cleared")
+    void sealedDraftRejectsChanges() throws IOException {
+        Path file = dir.resolve("draft.log");
+        try (DraftJournal journal = DraftJournal.open(file)) {
+            journal.addSnapshot(newSnapshot());
+            journal.setComment("Ready");
+
+            JournalEntry sealed = journal.seal(LocalDate.of(2025, 4, 14), Money.of("100.00"), Money.of("50.00"));
+            assertSame(journal.draft(), sealed);
+            assertEquals(LocalDate.of(2025, 4, 14), sealed.getDate());
+            assertThrows(IllegalStateException.class, () -> journal.setComment("Too late"));
+            assertThrows(IllegalStateException.class, () -> journal.addSnapshot(newSnapshot()));
+            assertEquals("Ready", sealed.getEntryText());
+
+            journal.unseal();
+            journal.setComment("Retry");
+            journal.seal(LocalDate.of(2025, 4, 14), Money.of("100.00"), Money.of("50.00"));
+            journal.clear();
+            journal.flush();
+
+            assertFalse(journal.isSealed());
+            assertNotSame(sealed, journal.draft());
+            assertEquals(0, Files.size(file));
+        }
+    }
+
+    private static TradeSnapshot newSnapshot() {
+        TradeSnapshot snapshot = TestDataFactory.emptyTradeSnapshot();
+        snapshot.setClosePrice(new BigDecimal("110.00"));
+        snapshot.setNotes("Default snapshot notes");
+        snapshot.setTrade(TestDataFactory.defaultTrade());
+        return snapshot;
+    }
+
+    private static ExecutedSale sale() {
+        return ExecutedSale.builder()
+                .quantitySold(2)
+                .sellPrice(new BigDecimal("110.00"))
+                .sellFee(new BigDecimal("0.50"))
+                .grossGain(Money.of("220.00"))
+                .netGain(Money.of("219.50"))
+                .sellTime(LocalTime.of(14, 30))
+                .build();
+    }
+}
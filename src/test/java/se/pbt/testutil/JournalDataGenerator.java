@@ -0,0 +1,122 @@
+package se.pbt.testutil;
+
+import se.pbt.model.ExecutedSale;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
+import se.pbt.model.Trade;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.repository.JournalEntryRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates journal histories of arbitrary size on top of {@link TestDataFactory}.
+ * <p>
+ * Intended for benchmarks and scaling tests. All values are derived from a fixed seed,
+ * so the same arguments always produce the same data.
+ * </p>
+ */
+public class JournalDataGenerator {
+
+    /** The date of the most recent generated entry. Older entries go back one day at a time. */
+    public static final LocalDate LATEST_DATE = LocalDate.of(2025, 4, 13);
+
+    private final Random random;
+
+    public JournalDataGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Creates a single trade with one snapshot per day for {@code snapshotCount} days.
+     * Roughly every tenth snapshot carries an {@link ExecutedSale}.
+     */
+    public Trade tradeWithSnapshots(int snapshotCount) {
+        Trade trade = TestDataFactory.defaultTrade();
+        trade.setQuantity(snapshotCount + 100);
+        for (int day = 0; day < snapshotCount; day++) {
+            JournalEntry entry = TestDataFactory.emptyJournalEntry();
+            entry.setDate(LATEST_DATE.minusDays(snapshotCount - 1L - day));
+            TradeSnapshot snapshot = snapshot(trade, entry, snapshotCount + 100 - day);
+            entry.addTradeSnapshot(snapshot);
+        }
+        return trade;
+    }
+
+    /**
+     * Creates {@code days} journal entries, one per day and newest first, each holding
+     * {@code tradesPerEntry} snapshots of its own trades.
+     */
+    public List<JournalEntry> journalHistory(int days, int tradesPerEntry) {
+        List<JournalEntry> entries = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            entries.add(journalEntry(LATEST_DATE.minusDays(day), tradesPerEntry));
+        }
+        return entries;
+    }
+
+    /**
+     * Creates one journal entry for the given date with {@code tradeCount} snapshots, each of a new trade.
+     */
+    public JournalEntry journalEntry(LocalDate date, int tradeCount) {
+        JournalEntry entry = TestDataFactory.emptyJournalEntry();
+        entry.setDate(date);
+        entry.setEntryText("Generated entry for " + date);
+        for (int i = 0; i < tradeCount; i++) {
+            Trade trade = TestDataFactory.defaultTrade();
+            trade.setQuantity(100);
+            entry.addTradeSnapshot(snapshot(trade, entry, 100));
+        }
+        return entry;
+    }
+
+    /**
+     * Saves a generated history of {@code days} entries through the given repository, one entry at a time.
+     *
+     * @return the saved entries, newest first
+     */
+    public List<JournalEntry> seed(JournalEntryRepository repository, int days, int tradesPerEntry) {
+        List<JournalEntry> entries = journalHistory(days, tradesPerEntry);
+        entries.forEach(repository::save);
+        return entries;
+    }
+
+    private TradeSnapshot snapshot(Trade trade, JournalEntry entry, int remainingQuantity) {
+        TradeSnapshot snapshot = TradeSnapshot.builder()
+                .remainingQuantity(remainingQuantity)
+                .openPrice(price())
+                .closePrice(price())
+                .notes("Generated snapshot")
+                .journalEntry(entry)
+                .build();
+        if (random.nextInt(10) == 0) {
+            snapshot.addExecutedSale(sale());
+        }
+        trade.addSnapshot(snapshot);
+        return snapshot;
+    }
+
+    private ExecutedSale sale() {
+        int quantity = 1 + random.nextInt(10);
+        BigDecimal price = price();
+        BigDecimal fee = new BigDecimal("9.00");
+        BigDecimal gross = price.multiply(BigDecimal.valueOf(quantity));
+        return ExecutedSale.builder()
+                .quantitySold(quantity)
+                .sellPrice(price)
+                .sellFee(fee)
+                .grossGain(Money.of(gross))
+                .netGain(Money.of(gross.subtract(fee)))
+                .sellTime(LocalTime.of(15, 30))
+                .build();
+    }
+
+    private BigDecimal price() {
+        return BigDecimal.valueOf(50_0000 + random.nextInt(100_0000), 4);
+    }
+}
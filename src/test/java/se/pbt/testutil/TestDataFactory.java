@@ -1,6 +1,8 @@
 package se.pbt.testutil;
 
+import se.pbt.model.ExecutedSale;
 import se.pbt.model.JournalEntry;
+import se.pbt.model.Money;
 import se.pbt.model.Trade;
 import se.pbt.model.TradeSnapshot;
 import se.pbt.model.asset.*;
@@ -11,7 +13,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Currency;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Set;
 
 /**
  * Utility class for creating domain test objects with predefined default values.
@@ -26,8 +28,8 @@ public class TestDataFactory {
         JournalEntry entry = JournalEntry.builder()
                 .date(LocalDate.of(2025, 4, 13))
                 .entryText("Default test journal entry")
-                .availableCash(new BigDecimal("10000.00"))
-                .investedCapital(new BigDecimal("5000.00"))
+                .availableCash(Money.of("10000.00"))
+                .investedCapital(Money.of("5000.00"))
                 .build();
 
         TradeSnapshot snapshot = defaultTradeSnapshot(trade, entry);
@@ -40,8 +42,8 @@ public class TestDataFactory {
         return JournalEntry.builder()
                 .date(LocalDate.of(2025, 4, 13))
                 .entryText("Empty test journal entry")
-                .availableCash(new BigDecimal("0.00"))
-                .investedCapital(new BigDecimal("0.00"))
+                .availableCash(Money.ZERO)
+                .investedCapital(Money.ZERO)
                 .build();
     }
 
@@ -59,6 +61,22 @@ public class TestDataFactory {
         return snapshot;
     }
 
+    /**
+     * Returns a snapshot with the given remaining quantity and prices, added to both {@code trade} and
+     * {@code entry}.
+     */
+    public static TradeSnapshot tradeSnapshot(Trade trade, JournalEntry entry, int remaining, String open,
+                                              String close) {
+        TradeSnapshot snapshot = TradeSnapshot.builder()
+                .remainingQuantity(remaining)
+                .openPrice(new BigDecimal(open))
+                .closePrice(new BigDecimal(close))
+                .build();
+        trade.addSnapshot(snapshot);
+        entry.addTradeSnapshot(snapshot);
+        return snapshot;
+    }
+
     /**
      * Returns a minimal {@link TradeSnapshot} with no executed sales.
      * Useful for tests where only a raw snapshot structure is needed.
@@ -72,6 +90,35 @@ public class TestDataFactory {
                 .build();
     }
 
+    /**
+     * Returns a sale of one unit at 110.00 with a fee of 0.50, not yet attached to a snapshot.
+     */
+    public static ExecutedSale defaultExecutedSale() {
+        return ExecutedSale.builder()
+                .quantitySold(1)
+                .sellPrice(new BigDecimal("110.00"))
+                .sellFee(new BigDecimal("0.50"))
+                .grossGain(Money.of("110.00"))
+                .netGain(Money.of("109.50"))
+                .sellTime(LocalTime.of(14, 30))
+                .build();
+    }
+
+    /**
+     * Returns a sale at 15:00 with its gross and net gain calculated, not yet attached to a snapshot.
+     */
+    public static ExecutedSale executedSale(int quantity, String price, String fee) {
+        BigDecimal gross = new BigDecimal(price).multiply(BigDecimal.valueOf(quantity));
+        return ExecutedSale.builder()
+                .quantitySold(quantity)
+                .sellPrice(new BigDecimal(price))
+                .sellFee(new BigDecimal(fee))
+                .grossGain(Money.of(gross))
+                .netGain(Money.of(gross.subtract(new BigDecimal(fee))))
+                .sellTime(LocalTime.of(15, 0))
+                .build();
+    }
+
     public static Asset defaultAsset() {
         return Asset.builder()
                 .name("Default Asset")
@@ -84,8 +131,8 @@ public class TestDataFactory {
                 .isInvestmentCompany(false)
                 .leverageRatio(new BigDecimal("1.0"))
                 .dividendYield(new BigDecimal("2.5"))
-                .sectors(List.of(Sector.TECHNOLOGY))
-                .industries(List.of(Industry.SOFTWARE))
+                .sectors(Set.of(Sector.TECHNOLOGY))
+                .industries(Set.of(Industry.SOFTWARE))
                 .lastUpdated(LocalDateTime.now())
                 .build();
     }
@@ -102,4 +149,16 @@ public class TestDataFactory {
                 .tradeSnapshots(new HashSet<>())
                 .build();
     }
+
+    /**
+     * Returns the default trade with the given ID, quantity, entry price and buy fee, in a new default asset.
+     */
+    public static Trade trade(long id, int quantity, String entryPrice, String buyFee) {
+        Trade trade = defaultTrade();
+        trade.setId(id);
+        trade.setQuantity(quantity);
+        trade.setEntryPrice(new BigDecimal(entryPrice));
+        trade.setBuyFee(new BigDecimal(buyFee));
+        return trade;
+    }
 }
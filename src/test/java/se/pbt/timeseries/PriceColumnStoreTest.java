@@ -0,0 +1,95 @@
+package se.pbt.timeseries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.pbt.price.DailyPrice;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceColumnStoreTest {
+
+    private static final int MONDAY = Math.toIntExact(LocalDate.of(2024, 3, 4).toEpochDay());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("files are ingested incrementally and survive reopening the store")
+    void ingestsIncrementally() throws IOException {
+        Path files = Files.createDirectories(directory.resolve("prices"));
+        Path alpha = files.resolve("AAA.ST.csv");
+        Files.writeString(alpha, "Date,Open,High,Low,Close,Adj Close,Volume\n"
+                + "2024-03-04,100.00,102.00,99.00,101.00,101.00,1000\n"
+                + "2024-03-05,101.00,104.00,100.50,103.25,103.25,1200\n");
+        Files.writeString(files.resolve("SE0000000401.csv"), "date,close,open,low,high\n"
+                + "2024-03-04,20.5,20,19.75,21\n"
+                + "2024-03-05,null,null,null,null\n");
+
+        try (PriceColumnStore store = PriceColumnStore.open(directory.resolve("store"), 2)) {
+            assertEquals(3, new OhlcFileImporter(store).ingestDirectory(files));
+        }
+
+        Files.writeString(alpha, "2024-03-06,103.00,105.00,102.00,104.00,104.00,900\n", StandardOpenOption.APPEND);
+        try (PriceColumnStore store = PriceColumnStore.open(directory.resolve("store"), 2)) {
+            assertEquals(1, new OhlcFileImporter(store).ingestDirectory(files));
+            assertEquals(4, store.size());
+
+            int symbol = store.symbolId("AAA.ST");
+            assertEquals(3, store.rowCount(symbol));
+            int row = store.row(symbol, MONDAY + 1);
+            assertEquals(1_040_000, store.high(row));
+            assertEquals(1_005_000, store.low(row));
+            assertEquals(1_032_500, store.close(row));
+            assertEquals(1_040_000, store.close(symbol, MONDAY + 2));
+
+            int gamma = store.symbolId("SE0000000401");
+            assertEquals(200_000, store.open(store.row(gamma, MONDAY)));
+            assertEquals(PriceColumnStore.NO_PRICE, store.close(gamma, MONDAY + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("a file that cannot be parsed is skipped and the other files are still ingested")
+    void skipsMalformedFile() throws IOException {
+        Path files = Files.createDirectories(directory.resolve("prices"));
+        Files.writeString(files.resolve("AAA.ST.csv"), "date,open,high,low,close\n2024-03-04,1,2,0.5,1.5\n");
+        Files.writeString(files.resolve("BAD.ST.csv"), "date,open,high,low\n2024-03-04,1,2,0.5\n");
+        Files.writeString(files.resolve("UGLY.ST.csv"), "date,open,high,low,close\n2024-03-04,1,2,0.5,oops\n");
+
+        try (PriceColumnStore store = PriceColumnStore.open(directory.resolve("store"))) {
+            assertEquals(1, new OhlcFileImporter(store).ingestDirectory(files));
+            assertEquals(15_000, store.close(store.symbolId("AAA.ST"), MONDAY));
+        }
+    }
+
+    @Test
+    @DisplayName("lookups find exact days, fall back to the latest earlier day, and serve as a price source")
+    void looksUpByAssetAndDay() throws IOException {
+        try (PriceColumnStore store = PriceColumnStore.open(directory)) {
+            int symbol = store.addSymbol("BBB.ST");
+            store.append(symbol, MONDAY, 500_000, 520_000, 490_000, 510_000);
+            store.append(symbol, MONDAY + 3, 510_000, 530_000, 500_000, 525_000);
+
+            assertEquals(PriceColumnStore.NO_ROW, store.row(symbol, MONDAY + 1));
+            assertEquals(store.row(symbol, MONDAY), store.rowOnOrBefore(symbol, MONDAY + 2));
+            assertEquals(PriceColumnStore.NO_ROW, store.rowOnOrBefore(symbol, MONDAY - 1));
+            assertEquals(MONDAY + 3, store.epochDay(store.rowOnOrBefore(symbol, MONDAY + 10)));
+            assertEquals(PriceColumnStore.NO_ROW, store.row(store.symbolId("UNKNOWN"), MONDAY));
+
+            DailyPrice price = store.find("BBB.ST", LocalDate.ofEpochDay(MONDAY + 3)).orElseThrow();
+            assertEquals(new BigDecimal("51.0000"), price.open());
+            assertEquals(new BigDecimal("52.5000"), price.close());
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.append(symbol, MONDAY + 3, 1, 1, 1, 1));
+        }
+    }
+}
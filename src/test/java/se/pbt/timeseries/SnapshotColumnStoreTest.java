@@ -0,0 +1,148 @@
+package se.pbt.timeseries;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import se.pbt.model.JournalEntry;
+import se.pbt.model.TradeSnapshot;
+import se.pbt.repository.JournalEntryRepositoryImpl;
+import se.pbt.service.JournalEntryService;
+import se.pbt.testutil.JournalDataGenerator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SnapshotColumnStoreTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private EntityManagerFactory emf;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    void setup() {
+        emf = Persistence.createEntityManagerFactory("trader-journal-test-pu");
+    }
+
+    @AfterAll
+    void teardown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    @DisplayName("rows are replaced by key, deleted, and kept across reopening while the files grow")
+    void putDeleteAndReopen() throws IOException {
+        try (SnapshotColumnStore store = SnapshotColumnStore.open(directory, 4)) {
+            for (int trade = 1; trade <= 10; trade++) {
+                for (int day = 0; day < 10; day++) {
+                    store.put(trade, START.plusDays(day), price("10"), price("10"), 1);
+                }
+            }
+            store.put(3, START, price("10"), price("25.5"), 2);
+            assertTrue(store.delete(4, START.plusDays(5)));
+            assertFalse(store.delete(4, START.plusDays(5)));
+            assertEquals(99, store.size());
+        }
+
+        try (SnapshotColumnStore store = SnapshotColumnStore.open(directory, 4)) {
+            assertEquals(99, store.size());
+            // Day one: nine trades at 10 × 1, and trade 3 at 25.5 × 2
+            assertEquals(new BigDecimal("141.0000"), store.equityCurve(START, START).value(0));
+            EquityCurve tradeFour = store.equityCurve(4);
+            assertEquals(9, tradeFour.size());
+            assertFalse(datesOf(tradeFour).contains(START.plusDays(5)));
+        }
+    }
+
+    @Test
+    @DisplayName("equity curve and max drawdown match a BigDecimal recalculation")
+    void equityCurveMatchesRecalculation() throws IOException {
+        Random random = new Random(20250413L);
+        Map<LocalDate, BigDecimal> expected = new TreeMap<>();
+        try (SnapshotColumnStore store = SnapshotColumnStore.open(directory.resolve("curve"), 16)) {
+            for (int trade = 1; trade <= 50; trade++) {
+                int firstDay = random.nextInt(200);
+                int days = 1 + random.nextInt(100);
+                for (int day = firstDay; day < firstDay + days; day++) {
+                    BigDecimal close = BigDecimal.valueOf(1 + random.nextInt(5_000_000), 4);
+                    int remaining = random.nextInt(1000);
+                    store.put(trade, START.plusDays(day), close, close, remaining);
+                    expected.merge(START.plusDays(day), close.multiply(BigDecimal.valueOf(remaining)), BigDecimal::add);
+                }
+            }
+
+            EquityCurve curve = store.equityCurve(null, null);
+
+            assertEquals(new ArrayList<>(expected.keySet()), datesOf(curve));
+            List<BigDecimal> values = new ArrayList<>(expected.values());
+            for (int i = 0; i < curve.size(); i++) {
+                assertEquals(0, values.get(i).compareTo(curve.value(i)), "value on " + curve.date(i));
+            }
+            assertEquals(expectedMaxDrawdown(values), curve.maxDrawdown().map(Drawdown::amount).orElse(null));
+        }
+    }
+
+    @Test
+    @DisplayName("saving through the service writes the entry's snapshots to the store")
+    void serviceKeepsStoreInSync() throws IOException {
+        try (SnapshotColumnStore store = SnapshotColumnStore.open(directory.resolve("service"))) {
+            JournalEntryService service = JournalEntryService.builder()
+                    .journalRepo(new JournalEntryRepositoryImpl(emf))
+                    .snapshotStore(store)
+                    .build();
+            JournalEntry entry = new JournalDataGenerator(7).journalEntry(LocalDate.of(1990, 5, 4), 3);
+
+            service.save(entry);
+
+            assertEquals(3, store.size());
+            BigDecimal expected = entry.getTradeSnapshots().stream()
+                    .map(s -> s.getClosePrice().multiply(BigDecimal.valueOf(s.getRemainingQuantity())))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            EquityCurve curve = service.getEquityCurve(entry.getDate(), entry.getDate());
+            assertEquals(0, expected.compareTo(curve.value(0)));
+            TradeSnapshot any = entry.getTradeSnapshots().iterator().next();
+            assertEquals(1, store.equityCurve(any.getTrade().getId()).size());
+        }
+    }
+
+    private static BigDecimal expectedMaxDrawdown(List<BigDecimal> values) {
+        BigDecimal peak = null;
+        BigDecimal best = null;
+        double bestRatio = 0;
+        for (BigDecimal value : values) {
+            if (peak == null || value.compareTo(peak) > 0) {
+                peak = value;
+            } else if (peak.signum() > 0) {
+                double ratio = peak.subtract(value).doubleValue() / peak.doubleValue();
+                if (ratio > bestRatio) {
+                    bestRatio = ratio;
+                    best = peak.subtract(value);
+                }
+            }
+        }
+        return best;
+    }
+
+    private static List<LocalDate> datesOf(EquityCurve curve) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (int i = 0; i < curve.size(); i++) {
+            dates.add(curve.date(i));
+        }
+        return dates;
+    }
+
+    private static BigDecimal price(String value) {
+        return new BigDecimal(value);
+    }
+}
@@ -0,0 +1,54 @@
+package se.pbt.ui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListDiffTest {
+
+    @Test
+    @DisplayName("only added and removed items change the list")
+    void appliesOnlyTheDifference() {
+        StringBuilder a = new StringBuilder("a");
+        StringBuilder b = new StringBuilder("b");
+        StringBuilder c = new StringBuilder("c");
+        StringBuilder d = new StringBuilder("d");
+        ObservableList<StringBuilder> items = FXCollections.observableArrayList(a, b, c);
+        List<StringBuilder> added = new ArrayList<>();
+        List<StringBuilder> removed = new ArrayList<>();
+        items.addListener((ListChangeListener<StringBuilder>) change -> {
+            while (change.next()) {
+                added.addAll(change.getAddedSubList());
+                removed.addAll(change.getRemoved());
+            }
+        });
+
+        ListDiff.apply(items, List.of(a, d, c));
+
+        assertEquals(List.of(a, d, c), items);
+        assertEquals(List.of(d), added);
+        assertEquals(List.of(b), removed);
+    }
+
+    @Test
+    @DisplayName("items are matched by identity and reordered to follow the target")
+    void matchesByIdentity() {
+        StringBuilder first = new StringBuilder("same");
+        StringBuilder second = new StringBuilder("same");
+        StringBuilder other = new StringBuilder("other");
+        ObservableList<StringBuilder> items = FXCollections.observableArrayList(first, other);
+
+        ListDiff.apply(items, List.of(other, second));
+
+        assertEquals(2, items.size());
+        assertSame(other, items.get(0));
+        assertSame(second, items.get(1));
+    }
+}